@@ -32,6 +32,11 @@ android {
         viewBinding = true
     }
 
+    testOptions {
+        // Read paths run on the JVM against InMemoryUserTreeRepository and log via android.util.Log
+        unitTests.isReturnDefaultValues = true
+    }
+
 }
 
 
@@ -1,6 +1,8 @@
 package com.example.SmartAirGroup2;
 
 import android.util.Log;
+
+import com.example.SmartAirGroup2.auth.data.repo.CredentialIndex;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
@@ -64,6 +66,7 @@ public class AccountCleanupHelper {
 
                             // Path 1: Mark the main provider record for deletion by setting it to null.
                             updates.put("categories/users/provider/" + providerId, null);
+                            updates.put(CredentialIndex.path("provider", providerId), null);
                             Log.d(TAG, "- Marking provider for deletion: " + providerId);
 
                             // Check if the provider is linked to any parents.
@@ -20,6 +20,7 @@ import androidx.appcompat.widget.Toolbar;
 import androidx.fragment.app.Fragment;
 
 
+import com.example.SmartAirGroup2.auth.data.repo.CredentialIndex;
 import com.example.SmartAirGroup2.auth.data.repo.newUserAuth;
 import com.example.SmartAirGroup2.models.User;
 import com.google.android.gms.tasks.Task;
@@ -192,6 +193,9 @@ public class AddChildFragment extends Fragment {
             if (task.isSuccessful()) {
                 Toast.makeText(getContext(), "Child account created", Toast.LENGTH_SHORT).show();
 
+                // Index credentials so the child can log in without loading their profile
+                CredentialIndex.write("children", user.getUname(), user.getEmail(), user.getPassword(), user.getType());
+
                 // Also link the child to the parent’s "children" list
                 DatabaseReference parentChildrenRef = db.getReference(
                         "categories/users/parents/" + parentUname + "/children");
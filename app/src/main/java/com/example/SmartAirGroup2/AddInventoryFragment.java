@@ -20,10 +20,7 @@ import androidx.fragment.app.Fragment;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -263,20 +260,16 @@ public class AddInventoryFragment extends Fragment {
         }
 
         // Validate date order
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy/MM/dd", Locale.getDefault());
-        try {
-            Date purchaseDate = sdf.parse(purchaseDateStr);
-            Date expireDate = sdf.parse(expireDateStr);
-
-            if (purchaseDate != null && expireDate != null && !purchaseDate.before(expireDate)) {
-                Toast.makeText(getContext(), "Purchase date must be earlier than expire date", Toast.LENGTH_SHORT).show();
-                return;
-            }
-
-        } catch (ParseException e) {
+        int purchaseDay = DateCodec.parseDay(purchaseDateStr);
+        int expireDay = DateCodec.parseDay(expireDateStr);
+        if (purchaseDay == DateCodec.INVALID_DAY || expireDay == DateCodec.INVALID_DAY) {
             Toast.makeText(getContext(), "Invalid date format. Use YYYY/MM/DD", Toast.LENGTH_SHORT).show();
             return;
         }
+        if (purchaseDay >= expireDay) {
+            Toast.makeText(getContext(), "Purchase date must be earlier than expire date", Toast.LENGTH_SHORT).show();
+            return;
+        }
 
         long lastUpdated = System.currentTimeMillis();
 
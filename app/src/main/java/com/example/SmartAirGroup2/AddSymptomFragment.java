@@ -23,12 +23,10 @@ import androidx.fragment.app.Fragment;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 
 
@@ -69,6 +67,7 @@ import java.util.Map;
  * {
  *   "symptom": "Coughing",
  *   "time": "2025/11/17 14:05",
+ *   "timestamp": 1763406300000,
  *   "triggers": "Exercise, Cold Air",
  *   "type": "parent"
  * }
@@ -153,9 +152,8 @@ public class AddSymptomFragment extends Fragment {
                         calendar.set(Calendar.MINUTE, minute);
 
                         // Format including today’s date + chosen time
-                        SimpleDateFormat sdf =
-                                new SimpleDateFormat("yyyy/MM/dd HH:mm", Locale.getDefault());
-                        editTime.setText(sdf.format(calendar.getTime()));
+                        editTime.setText(DateCodec.format(calendar.getTimeInMillis(),
+                                calendar.getTimeZone(), DateCodec.Layout.MINUTES_SLASH));
                     },
                     calendar.get(Calendar.HOUR_OF_DAY),
                     calendar.get(Calendar.MINUTE),
@@ -220,6 +218,7 @@ public class AddSymptomFragment extends Fragment {
         Map<String, Object> symptomData = new HashMap<>();
         symptomData.put("symptom", symptom);
         symptomData.put("time", time);
+        symptomData.put(RecordTime.FIELD, RecordTime.parse(time));
         symptomData.put("triggers", triggers);
         symptomData.put("type", author);
 
@@ -0,0 +1,219 @@
+package com.example.SmartAirGroup2;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AdherenceBatch
+ *
+ * Adherence for many children at once, for the provider dashboard
+ * (ProviderDashboardFragment) and other overviews.
+ *
+ * - Reads run for up to maxInFlight children at a time; each child's
+ *   schedule and controllerDaily window are read in parallel, and the next
+ *   child starts as soon as a slot frees up, so the total time is close to
+ *   the slowest child rather than the sum of all of them.
+ * - Results are computed on a background executor, never on the thread the
+ *   reads call back on (the main thread for Firebase).
+ * - Results already in the AdherenceCache are used without reading.
+ * - The summary is delivered once, lowest adherence first; children whose
+ *   reads failed come last with their error.
+ */
+public class AdherenceBatch {
+
+    static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+    // Shared by every batch: computing one child is short, two threads are plenty
+    private static final ThreadPoolExecutor COMPUTE_EXECUTOR = new ThreadPoolExecutor(
+            2, 2, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+    static {
+        COMPUTE_EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    /** One child's line in the summary; result is null when error is set. */
+    public static class ChildAdherence {
+        public final String childUname;
+        public final AdherenceCalculator.AdherenceResult result;
+        public final String error;
+
+        ChildAdherence(String childUname, AdherenceCalculator.AdherenceResult result, String error) {
+            this.childUname = childUname;
+            this.result = result;
+            this.error = error;
+        }
+    }
+
+    public interface BatchCallback {
+        void onResult(List<ChildAdherence> lowestFirst);
+    }
+
+    /** Lowest overall adherence first, failures last, then by child. */
+    static final Comparator<ChildAdherence> LOWEST_FIRST = (a, b) -> {
+        if ((a.result == null) != (b.result == null)) return a.result == null ? 1 : -1;
+        if (a.result != null) {
+            int c = Double.compare(a.result.overallPercent, b.result.overallPercent);
+            if (c != 0) return c;
+        }
+        return a.childUname.compareTo(b.childUname);
+    };
+
+    private final UserTreeRepository repo;
+    private final AdherenceCache cache;
+    private final int maxInFlight;
+    private final Executor computeExecutor;
+    private final Executor deliverExecutor;
+
+    public AdherenceBatch() {
+        this(new FirebaseUserTreeRepository(), AdherenceCache.getInstance(), DEFAULT_MAX_IN_FLIGHT,
+                COMPUTE_EXECUTOR, new Handler(Looper.getMainLooper())::post);
+    }
+
+    /**
+     * @param cache           may be null to always read
+     * @param deliverExecutor runs the callback (the main thread in the app)
+     */
+    public AdherenceBatch(UserTreeRepository repo, AdherenceCache cache, int maxInFlight,
+                          Executor computeExecutor, Executor deliverExecutor) {
+        this.repo = repo;
+        this.cache = cache;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.computeExecutor = computeExecutor;
+        this.deliverExecutor = deliverExecutor;
+    }
+
+    public void load(List<String> childUnames, long startMillis, long endMillis, BatchCallback callback) {
+        new Run(childUnames, startMillis, endMillis, callback).start();
+    }
+
+    /** State of one load() call. */
+    private final class Run {
+        private final long startMillis;
+        private final long endMillis;
+        private final int firstDay;
+        private final int lastDay;
+        private final BatchCallback callback;
+        private final Deque<String> pending;
+        private final List<ChildAdherence> done = new ArrayList<>();
+        private final int total;
+
+        Run(List<String> childUnames, long startMillis, long endMillis, BatchCallback callback) {
+            TimeZone zone = TimeZone.getDefault();
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+            this.firstDay = AdherenceCalculator.epochDay(startMillis, zone);
+            this.lastDay = AdherenceCalculator.epochDay(endMillis, zone);
+            this.callback = callback;
+            this.pending = new ArrayDeque<>(childUnames);
+            this.total = childUnames.size();
+        }
+
+        void start() {
+            if (total == 0) {
+                deliverExecutor.execute(() -> callback.onResult(new ArrayList<ChildAdherence>()));
+                return;
+            }
+            for (int i = 0; i < maxInFlight; i++) next();
+        }
+
+        /** Start the next pending child, if any. */
+        private void next() {
+            String child;
+            synchronized (this) {
+                child = pending.poll();
+            }
+            if (child != null) read(child);
+        }
+
+        private void read(final String child) {
+            if (cache != null) {
+                AdherenceCalculator.AdherenceResult cached = cache.get(child, firstDay, lastDay);
+                if (cached != null) {
+                    finish(new ChildAdherence(child, cached, null));
+                    next();
+                    return;
+                }
+            }
+            final long version = cache != null ? cache.version(child) : 0;
+
+            // Schedule and window are independent: read both at once
+            final ControllerSchedule[] schedule = new ControllerSchedule[1];
+            final int[] firstOfWindow = new int[1];
+            final ControllerDailyCount[][] window = new ControllerDailyCount[1][];
+            final int[] arrived = {0};
+            final String[] error = new String[1];
+            final Runnable onBoth = () -> {
+                next();
+                if (error[0] != null) {
+                    finish(new ChildAdherence(child, null, error[0]));
+                    return;
+                }
+                computeExecutor.execute(() -> {
+                    AdherenceCalculator.AdherenceResult result =
+                            AdherenceCalculator.fromDailyCounts(schedule[0], firstOfWindow[0], window[0]);
+                    if (cache != null) cache.put(child, firstDay, lastDay, version, result);
+                    finish(new ChildAdherence(child, result, null));
+                });
+            };
+
+            repo.read("children/" + child + "/controller_schedule", new UserTreeRepository.NodeCallback() {
+                @Override
+                public void onResult(TreeNode node) {
+                    schedule[0] = AdherenceRepository.scheduleFrom(node);
+                    arrive(arrived, onBoth);
+                }
+
+                @Override
+                public void onError(String message) {
+                    error[0] = message;
+                    arrive(arrived, onBoth);
+                }
+            });
+            ControllerDailyStore.loadWindow(repo, child, startMillis, endMillis, TimeZone.getDefault(),
+                    new ControllerDailyStore.WindowCallback() {
+                        @Override
+                        public void onResult(int firstDay, ControllerDailyCount[] days) {
+                            firstOfWindow[0] = firstDay;
+                            window[0] = days;
+                            arrive(arrived, onBoth);
+                        }
+
+                        @Override
+                        public void onError(String message) {
+                            error[0] = message;
+                            arrive(arrived, onBoth);
+                        }
+                    });
+        }
+
+        private void arrive(int[] arrived, Runnable onBoth) {
+            boolean both;
+            synchronized (arrived) {
+                both = ++arrived[0] == 2;
+            }
+            if (both) onBoth.run();
+        }
+
+        private void finish(ChildAdherence line) {
+            final List<ChildAdherence> summary;
+            synchronized (this) {
+                done.add(line);
+                if (done.size() < total) return;
+                summary = new ArrayList<>(done);
+            }
+            Collections.sort(summary, LOWEST_FIRST);
+            deliverExecutor.execute(() -> callback.onResult(summary));
+        }
+    }
+}
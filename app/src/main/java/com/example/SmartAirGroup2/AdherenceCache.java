@@ -0,0 +1,113 @@
+package com.example.SmartAirGroup2;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * AdherenceCache
+ *
+ * In-process LRU cache of AdherenceResult, so reopening an adherence screen
+ * or regenerating a provider report for the same child does not read
+ * anything while nothing has changed.
+ *
+ * Entries are keyed by child, window (first and last epoch day) and the
+ * child's data version. The version is bumped by invalidate(child), which is
+ * called when one of that child's controller logs or its controller_schedule
+ * changes:
+ * - from this device: ControllerDailyStore.recordDose / removeDose and the
+ *   schedule save in ParentAdherenceActivity;
+ * - from other devices: AdherenceCacheWatcher.
+ * A result computed from reads that started before an invalidation is put
+ * under the old version and is never returned.
+ *
+ * Cached results are shared; callers must not modify them.
+ */
+public class AdherenceCache {
+
+    static final int DEFAULT_MAX_ENTRIES = 64;
+
+    private static AdherenceCache instance; // Singleton instance
+
+    private final int maxEntries;
+    private final Map<String, AdherenceCalculator.AdherenceResult> entries;
+    private final Map<String, Long> versions = new HashMap<>();
+    private long hits;
+    private long misses;
+
+    AdherenceCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        // access order: iteration starts at the least recently used entry
+        this.entries = new LinkedHashMap<String, AdherenceCalculator.AdherenceResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, AdherenceCalculator.AdherenceResult> eldest) {
+                return size() > AdherenceCache.this.maxEntries;
+            }
+        };
+    }
+
+    public static synchronized AdherenceCache getInstance() {
+        if (instance == null) {
+            instance = new AdherenceCache(DEFAULT_MAX_ENTRIES);
+        }
+        return instance;
+    }
+
+    /** Current data version of a child; pass it to put() with the result read under it. */
+    public synchronized long version(String childUname) {
+        Long v = versions.get(childUname);
+        return v == null ? 0 : v;
+    }
+
+    /** Cached result for the window, or null (counted as a miss). */
+    public synchronized AdherenceCalculator.AdherenceResult get(String childUname, int firstDay, int lastDay) {
+        AdherenceCalculator.AdherenceResult result = entries.get(key(childUname, firstDay, lastDay, version(childUname)));
+        if (result == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return result;
+    }
+
+    public synchronized void put(String childUname, int firstDay, int lastDay, long version,
+                                 AdherenceCalculator.AdherenceResult result) {
+        if (version != version(childUname)) return; // data changed while it was being read
+        entries.put(key(childUname, firstDay, lastDay, version), result);
+    }
+
+    /** The child's controller logs or schedule changed: drop its results. */
+    public synchronized void invalidate(String childUname) {
+        if (childUname == null) return;
+        versions.put(childUname, version(childUname) + 1);
+        String prefix = childUname + "|";
+        Iterator<String> it = entries.keySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().startsWith(prefix)) it.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        versions.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static String key(String childUname, int firstDay, int lastDay, long version) {
+        return childUname + "|" + firstDay + "|" + lastDay + "|" + version;
+    }
+}
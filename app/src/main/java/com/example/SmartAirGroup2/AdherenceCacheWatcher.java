@@ -0,0 +1,124 @@
+package com.example.SmartAirGroup2;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AdherenceCacheWatcher
+ *
+ * Invalidates a child's AdherenceCache entries when its data changes on
+ * another device. Listens to two small nodes per watched child:
+ *
+ *   categories/users/children/{childUname}/controller_schedule
+ *   categories/users/children/{childUname}/controllerDaily/updatedAt
+ *
+ * (updatedAt is stamped by ControllerDailyStore on every dose saved or
+ * deleted). Each child is watched at most once for the life of the process.
+ *
+ * The first event of each listener is the value when the listener was
+ * attached, which may already differ from what cached results were read
+ * under (results cached before the child was watched, or reads that were
+ * in flight while it attached). It is taken as the baseline: the child's
+ * entries are invalidated once, and every later event is a change. Callers
+ * that load right after watching pass a ready callback, run once both
+ * baselines have arrived, so their result is cached under the new version.
+ */
+public class AdherenceCacheWatcher {
+
+    /** One watched child: listeners still waiting for their first event, and loads waiting on them. */
+    private static final class Watch {
+        int pendingBaselines = 2;
+        final List<Runnable> ready = new ArrayList<>();
+    }
+
+    private static final Map<String, Watch> watched = new HashMap<>();
+
+    public static void watch(String childUname) {
+        watch(childUname, null);
+    }
+
+    /**
+     * Watch the child, then run {@code ready} (may be null) once both
+     * listeners have their baseline; right away if they already do. Also run
+     * when a listener is cancelled, so a load never waits forever.
+     */
+    public static void watch(String childUname, Runnable ready) {
+        if (childUname == null) {
+            if (ready != null) ready.run();
+            return;
+        }
+        Watch watch;
+        boolean attach;
+        synchronized (AdherenceCacheWatcher.class) {
+            watch = watched.get(childUname);
+            attach = watch == null;
+            if (attach) {
+                watch = new Watch();
+                watched.put(childUname, watch);
+            }
+            if (watch.pendingBaselines > 0 && ready != null) {
+                watch.ready.add(ready);
+                ready = null;
+            }
+        }
+        if (ready != null) ready.run();
+        if (!attach) return;
+
+        DatabaseReference childRef = FirebaseDatabase.getInstance()
+                .getReference("categories")
+                .child("users")
+                .child("children")
+                .child(childUname);
+        childRef.child("controller_schedule").addValueEventListener(invalidateOnChange(childUname, watch));
+        childRef.child(ControllerDailyStore.NODE).child(ControllerDailyStore.UPDATED_AT)
+                .addValueEventListener(invalidateOnChange(childUname, watch));
+    }
+
+    private static ValueEventListener invalidateOnChange(final String childUname, final Watch watch) {
+        return new ValueEventListener() {
+            private boolean initial = true;
+
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                AdherenceCache.getInstance().invalidate(childUname);
+                if (initial) {
+                    initial = false;
+                    baselineArrived(watch, false);
+                }
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                // Without the listener changes from other devices go unnoticed
+                AdherenceCache.getInstance().invalidate(childUname);
+                synchronized (AdherenceCacheWatcher.class) {
+                    watched.remove(childUname, watch);
+                }
+                baselineArrived(watch, true);
+            }
+        };
+    }
+
+    /** Run the waiting loads when the last baseline arrived (or a listener gave up). */
+    private static void baselineArrived(Watch watch, boolean cancelled) {
+        List<Runnable> run;
+        synchronized (AdherenceCacheWatcher.class) {
+            if (watch.pendingBaselines == 0) return;
+            watch.pendingBaselines = cancelled ? 0 : watch.pendingBaselines - 1;
+            if (watch.pendingBaselines > 0) return;
+            run = new ArrayList<>(watch.ready);
+            watch.ready.clear();
+        }
+        for (Runnable r : run) r.run();
+    }
+}
@@ -1,13 +1,11 @@
 package com.example.SmartAirGroup2;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
+import java.util.TimeZone;
 /**
  * AdherenceCalculator
  *
@@ -19,15 +17,17 @@ import java.util.Map;
  * The calculator works in three main steps:
  *
  * 1) Aggregate actual doses per day:
- *    - For each ControllerLog within [startMillis, endMillis], group
- *      by calendar date ("yyyy-MM-dd") to build:
- *        date -> actual count of controller uses
+ *    - Every day of the window is numbered by its epoch day (days since
+ *      1970-01-01 in the child's time zone). Each ControllerLog within
+ *      [startMillis, endMillis] increments an int[] slot for its day, so
+ *      the per-log work is one offset lookup and no allocation.
  *
  * 2) Walk day-by-day from start to end:
+ *    - The schedule's daysOfWeek are turned into a weekday bit mask once.
  *    - For each day:
  *        expected = schedule.timesPerDay if that weekday is active
- *                   in schedule.daysOfWeek, otherwise 0.
- *        actual   = count from the aggregated map for that date (default 0).
+ *                   in the mask, otherwise 0.
+ *        actual   = the day's slot in the count array.
  *        used     = min(actual, expected) so "over-dosing" does not
  *                   inflate adherence above 100%.
  *        percent  = used / expected * 100 for days with expected > 0.
@@ -38,11 +38,20 @@ import java.util.Map;
  *    - overallPercent = totalActualUsed / totalExpected * 100
  *      (if totalExpected == 0, overallPercent is 0.0).
  *
+ * fromDailyCounts runs steps 2 and 3 on doses already counted per day.
+ * calculatePerMedication does it for several scheduled controllers from the
+ * controllerDaily counters (total and meds/{key} per day): one pass over the
+ * window's days gives each schedule the doses of its own medication, and
+ * each schedule then gets its own AdherenceResult.
+ *
  * Output:
  * - AdherenceResult:
  *      overallPercent : adherence across the entire window
  *      dailyList      : per-day expected/actual/percent details
  *
+ * Dates are computed from epoch days directly with DateCodec, so no
+ * SimpleDateFormat or Calendar is involved.
+ *
  * This class is shared by:
  * - ParentAdherenceActivity: for parents to see their child’s adherence.
  * - ProviderAdherenceActivity: for providers to see the same metric
@@ -74,68 +83,124 @@ public class AdherenceCalculator {
         }
     }
 
+
+    /** Weekday keys used by ControllerSchedule.daysOfWeek, Monday first. */
+    static final String[] DAY_KEYS = {"MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN"};
+
+    /** Same as {@link #calculate(ControllerSchedule, List, long, long, TimeZone)} in the device's zone. */
     public static AdherenceResult calculate(ControllerSchedule schedule, List<ControllerLog> logs, long startMillis, long endMillis) {
-        SimpleDateFormat simple_date = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        Map<String, Integer> actualPerDay = new HashMap<String, Integer>();
-        for (int i = 0; i < logs.size(); i++) {
-            ControllerLog log = logs.get(i);
-            long time = log.timestamp;
+        return calculate(schedule, logs, startMillis, endMillis, TimeZone.getDefault());
+    }
+
+    /**
+     * @param zone the child's time zone; decides which calendar day a dose falls on
+     */
+    public static AdherenceResult calculate(ControllerSchedule schedule, List<ControllerLog> logs,
+                                            long startMillis, long endMillis, TimeZone zone) {
+        int firstDay = epochDay(startMillis, zone);
+        int lastDay = epochDay(endMillis, zone);
+        int days = Math.max(0, lastDay - firstDay + 1);
 
+        // actual doses per day, indexed by epochDay - firstDay
+        int[] actualPerDay = new int[days];
+        for (int i = 0; i < logs.size(); i++) {
+            long time = logs.get(i).timestamp;
             if (time < startMillis || time > endMillis) {
                 continue;
             }
+            int index = epochDay(time, zone) - firstDay;
+            if (index >= 0 && index < days) actualPerDay[index]++;
+        }
 
+        return fromDailyCounts(schedule, firstDay, actualPerDay);
+    }
 
-            Date date = new Date(time);
-            String dateKey = simple_date.format(date);   // i.e. "2025-11-29"
-
-            Integer count = actualPerDay.get(dateKey);
-            if (count == null) {
-                count = 0;
+    /**
+     * Adherence for several scheduled controllers from the controllerDaily
+     * counters of a window, in one pass over its days. Each schedule counts
+     * only the doses of its medication (matched ignoring case, see
+     * ControllerDailyCount.count); doses of unscheduled medications count
+     * towards none.
+     *
+     * @param firstDay epoch day of days[0]
+     * @return one result per schedule medication, in schedule order;
+     *         schedules without a medication are left out
+     */
+    public static Map<String, AdherenceResult> calculatePerMedication(List<ControllerSchedule> schedules,
+                                                                     int firstDay, ControllerDailyCount[] days) {
+        int[][] actualPerDay = dosesPerSchedule(schedules, days);
+        Map<String, AdherenceResult> results = new LinkedHashMap<>();
+        for (int s = 0; s < schedules.size(); s++) {
+            ControllerSchedule schedule = schedules.get(s);
+            if (schedule == null || ControllerDailyCount.medicationKey(schedule.medication) == null
+                    || results.containsKey(schedule.medication)) {
+                continue;
             }
-            count = count + 1;
-            actualPerDay.put(dateKey, count);
+            results.put(schedule.medication, fromDailyCounts(schedule, firstDay, actualPerDay[s]));
         }
-        List<DailyAdherence> dailyList = new ArrayList<DailyAdherence>();
+        return results;
+    }
 
-        Calendar cal = Calendar.getInstance();
-        cal.setTimeInMillis(startMillis);
-        setToDefaultDay(cal);   // turn time to 00:00:00
+    /**
+     * Adherence of one schedule from the controllerDaily counters: the doses
+     * of its medication, or every controller dose when it names none (or
+     * there is no schedule).
+     *
+     * @param firstDay epoch day of days[0]
+     */
+    public static AdherenceResult fromDailyCounts(ControllerSchedule schedule, int firstDay,
+                                                  ControllerDailyCount[] days) {
+        return fromDailyCounts(schedule, firstDay,
+                dosesPerSchedule(Collections.singletonList(schedule), days)[0]);
+    }
+
+    /** Doses per schedule and day, in one pass over the days. */
+    private static int[][] dosesPerSchedule(List<ControllerSchedule> schedules, ControllerDailyCount[] days) {
+        int n = schedules.size();
+        String[] keys = new String[n];
+        for (int s = 0; s < n; s++) {
+            ControllerSchedule schedule = schedules.get(s);
+            keys[s] = schedule != null ? ControllerDailyCount.medicationKey(schedule.medication) : null;
+        }
+        int[][] doses = new int[n][days.length];
+        for (int i = 0; i < days.length; i++) {
+            ControllerDailyCount day = days[i];
+            if (day.isEmpty()) continue;
+            for (int s = 0; s < n; s++) {
+                long taken = keys[s] == null ? day.total : day.count(keys[s]);
+                doses[s][i] = (int) Math.max(0, taken);
+            }
+        }
+        return doses;
+    }
 
-        Calendar endCal = Calendar.getInstance();
-        endCal.setTimeInMillis(endMillis);
-        setToDefaultDay(endCal);
+    /**
+     * Adherence from doses already counted per day (e.g. the controllerDaily
+     * counters), skipping the log scan.
+     *
+     * @param firstDay     epoch day of actualPerDay[0]
+     * @param actualPerDay doses taken on each day of the window
+     */
+    public static AdherenceResult fromDailyCounts(ControllerSchedule schedule, int firstDay, int[] actualPerDay) {
+        int days = actualPerDay.length;
+        int mask = weekdayMask(schedule);
+        int timesPerDay = schedule != null ? schedule.timesPerDay : 0;
 
+        List<DailyAdherence> dailyList = new ArrayList<DailyAdherence>(days);
         int totalExpected = 0;
         int totalActualUsed = 0;
 
-        while (!cal.after(endCal)) {
-
-            Date currentDate = cal.getTime();
-            String dateKey = simple_date.format(currentDate);
+        for (int i = 0; i < days; i++) {
+            int day = firstDay + i;
 
             // calculate expected
-            int expected = 0;
-            if (schedule != null && schedule.daysOfWeek != null) {
-                String dowKey = getDayOfWeekKey(cal); // "MON"/"TUE"...
-                Boolean active = schedule.daysOfWeek.get(dowKey);
-                if (active != null && active.booleanValue()) {
-                    expected = schedule.timesPerDay;
-                }
-            }
+            int expected = (mask & (1 << weekdayIndex(day))) != 0 ? timesPerDay : 0;
 
             // calculate actual
-            int actual = 0;
-            Integer count = actualPerDay.get(dateKey);
-            if (count != null) {
-                actual = count.intValue();
-            }
+            int actual = actualPerDay[i];
 
             // should not exceed expected num
-            int used = actual;
-            if (used > expected) {
-                used = expected;
-            }
+            int used = Math.min(actual, expected);
 
             double percent = 0.0;
             if (expected > 0) {
@@ -144,11 +209,7 @@ public class AdherenceCalculator {
                 totalActualUsed = totalActualUsed + used;
             }
 
-            DailyAdherence dayResult = new DailyAdherence(dateKey, expected, actual, percent);
-            dailyList.add(dayResult);
-
-            // next day
-            cal.add(Calendar.DAY_OF_MONTH, 1);
+            dailyList.add(new DailyAdherence(dateKey(day), expected, actual, percent));
         }
 
         double overall = 0.0;
@@ -156,35 +217,55 @@ public class AdherenceCalculator {
             overall = (totalActualUsed * 100.0) / totalExpected;
         }
 
-        AdherenceResult result = new AdherenceResult(overall, dailyList);
-        return result;
+        return new AdherenceResult(overall, dailyList);
     }
 
-    private static void setToDefaultDay(Calendar cal) {
-        cal.set(Calendar.HOUR_OF_DAY, 0);
-        cal.set(Calendar.MINUTE, 0);
-        cal.set(Calendar.SECOND, 0);
-        cal.set(Calendar.MILLISECOND, 0);
+    // ─────────────────────────────────────────────────────────────────
+    // EPOCH DAYS
+    // ─────────────────────────────────────────────────────────────────
+
+    /** Days since 1970-01-01 of the local date of {@code millis} in {@code zone}. */
+    public static int epochDay(long millis, TimeZone zone) {
+        return DateCodec.epochDay(millis, zone);
     }
-    private static String getDayOfWeekKey(Calendar cal) {
-        int dow = cal.get(Calendar.DAY_OF_WEEK); // SUNDAY=1, MONDAY=2, ...
-        if (dow == Calendar.MONDAY) {
-            return "MON";
-        } else if (dow == Calendar.TUESDAY) {
-            return "TUE";
-        } else if (dow == Calendar.WEDNESDAY) {
-            return "WED";
-        } else if (dow == Calendar.THURSDAY) {
-            return "THU";
-        } else if (dow == Calendar.FRIDAY) {
-            return "FRI";
-        } else if (dow == Calendar.SATURDAY) {
-            return "SAT";
-        } else {
-            // SUNDAY
-            return "SUN";
+
+    /** Weekday of an epoch day, 0 = Monday ... 6 = Sunday (1970-01-01 was a Thursday). */
+    public static int weekdayIndex(int epochDay) {
+        return Math.floorMod(epochDay + 3, 7);
+    }
+
+    /** Bit i set when DAY_KEYS[i] is an active day of the schedule; 0 without a schedule. */
+    public static int weekdayMask(ControllerSchedule schedule) {
+        if (schedule == null || schedule.daysOfWeek == null) return 0;
+        int mask = 0;
+        for (int i = 0; i < DAY_KEYS.length; i++) {
+            Boolean active = schedule.daysOfWeek.get(DAY_KEYS[i]);
+            if (active != null && active.booleanValue()) mask |= 1 << i;
         }
+        return mask;
+    }
+
+    /** "yyyy-MM-dd" of an epoch day (proleptic Gregorian). */
+    public static String dateKey(int epochDay) {
+        return DateCodec.formatDay(epochDay, DateCodec.Layout.DATE_DASH);
     }
 
+    /** Date of an epoch day packed as yyyyMMdd, e.g. 20250301. */
+    public static int civil(int epochDay) {
+        return DateCodec.civil(epochDay);
+    }
+
+    /** Epoch day of a date; month 1..12. Inverse of civil. */
+    public static int epochDay(int year, int month, int day) {
+        return DateCodec.epochDay(year, month, day);
+    }
 
+    /**
+     * Epoch day of a "yyyy-MM-dd" key (only the first 10 characters are
+     * read), or Integer.MIN_VALUE if it is not one.
+     */
+    public static int epochDayOfKey(CharSequence key) {
+        if (key == null || key.length() < 10 || key.charAt(4) != '-') return Integer.MIN_VALUE;
+        return DateCodec.parseDay(key);
+    }
 }
@@ -1,15 +1,7 @@
 package com.example.SmartAirGroup2;
 
-import androidx.annotation.NonNull;
-
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
-
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashMap;
+import java.util.TimeZone;
 
 public class AdherenceRepository {
 
@@ -19,53 +11,103 @@ public class AdherenceRepository {
     }
 
     public static void getLast7DaysAdherence(String childUname, AdherenceCallback callback) {
+        // Load once the watcher has its baseline, so the result stays cached until a real change
+        AdherenceCacheWatcher.watch(childUname,
+                () -> getLast7DaysAdherence(new FirebaseUserTreeRepository(), childUname, callback));
+    }
 
-        DatabaseReference childRef = FirebaseDatabase.getInstance()
-                .getReference("categories")
-                .child("users")
-                .child("children")
-                .child(childUname);
-
-        DatabaseReference scheduleRef = childRef.child("controller_schedule");
-        DatabaseReference logRef = childRef.child("logs").child("controller_log");
-
-        scheduleRef.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                ControllerSchedule schedule = snapshot.getValue(ControllerSchedule.class);
-
-                logRef.addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        List<ControllerLog> logs = new ArrayList<>();
-
-                        for (DataSnapshot child : snapshot.getChildren()) {
-                            Long ts = child.child("timestamp").getValue(Long.class);
-                            String med = child.child("medication").getValue(String.class);
-                            if (ts == null) continue;
-                            logs.add(new ControllerLog(ts, med));
-                        }
+    public static void getLast7DaysAdherence(UserTreeRepository repo, String childUname, AdherenceCallback callback) {
+        long endMillis = System.currentTimeMillis();
+        long startMillis = endMillis - 6L * 24L * 60L * 60L * 1000L;
+        getAdherence(repo, childUname, startMillis, endMillis, callback);
+    }
 
-                        long endMillis = System.currentTimeMillis();
-                        long startMillis = endMillis - 6L * 24L * 60L * 60L * 1000L;
+    /**
+     * Adherence over the local days from startMillis to endMillis: the schedule
+     * plus the controllerDaily counters of those days (ControllerDailyStore),
+     * never the whole controller_log. Shared by the adherence screens and the
+     * provider report so both show the same numbers.
+     *
+     * The result is the scheduled medication's, from AdherenceCalculator's
+     * per-medication mode: doses of other controllers logged on those days do
+     * not count towards it. A schedule that names no medication counts every
+     * controller dose.
+     *
+     * Served from the shared AdherenceCache without reading when the child's
+     * data has not changed since the same window was last computed.
+     */
+    public static void getAdherence(UserTreeRepository repo, String childUname,
+                                    long startMillis, long endMillis, AdherenceCallback callback) {
+        getAdherence(repo, AdherenceCache.getInstance(), childUname, startMillis, endMillis, callback);
+    }
 
-                        AdherenceCalculator.AdherenceResult result =
-                                AdherenceCalculator.calculate(schedule, logs, startMillis, endMillis);
+    /** Same as above with an explicit cache; null always reads. */
+    public static void getAdherence(UserTreeRepository repo, AdherenceCache cache, String childUname,
+                                    long startMillis, long endMillis, AdherenceCallback callback) {
+
+        TimeZone zone = TimeZone.getDefault();
+        int firstDay = AdherenceCalculator.epochDay(startMillis, zone);
+        int lastDay = AdherenceCalculator.epochDay(endMillis, zone);
+        if (cache != null) {
+            AdherenceCalculator.AdherenceResult cached = cache.get(childUname, firstDay, lastDay);
+            if (cached != null) {
+                callback.onResult(cached);
+                return;
+            }
+        }
+        long version = cache != null ? cache.version(childUname) : 0;
 
-                        callback.onResult(result);
-                    }
+        String childPath = "children/" + childUname;
+        String schedulePath = childPath + "/controller_schedule";
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        callback.onError(error.toException());
-                    }
-                });
+        repo.read(schedulePath, new UserTreeRepository.NodeCallback() {
+            @Override
+            public void onResult(TreeNode snapshot) {
+                ControllerSchedule schedule = scheduleFrom(snapshot);
+
+                ControllerDailyStore.loadWindow(repo, childUname, startMillis, endMillis, zone,
+                        new ControllerDailyStore.WindowCallback() {
+                            @Override
+                            public void onResult(int firstDay, ControllerDailyCount[] days) {
+                                // Only doses of the scheduled medication count towards it
+                                AdherenceCalculator.AdherenceResult result =
+                                        AdherenceCalculator.fromDailyCounts(schedule, firstDay, days);
+                                if (cache != null) cache.put(childUname, firstDay, lastDay, version, result);
+                                callback.onResult(result);
+                            }
+
+                            @Override
+                            public void onError(String message) {
+                                callback.onError(new Exception(message));
+                            }
+                        });
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                callback.onError(error.toException());
+            public void onError(String message) {
+                callback.onError(new Exception(message));
             }
         });
     }
+
+    /**
+     * Same mapping as snapshot.getValue(ControllerSchedule.class); null when the
+     * child has no schedule.
+     */
+    static ControllerSchedule scheduleFrom(TreeNode node) {
+        if (!node.exists()) return null;
+        ControllerSchedule schedule = new ControllerSchedule();
+        schedule.medication = node.child("medication").getString();
+        Integer times = node.child("timesPerDay").getInteger();
+        schedule.timesPerDay = times == null ? 0 : times;
+        TreeNode days = node.child("daysOfWeek");
+        if (days.exists()) {
+            schedule.daysOfWeek = new HashMap<>();
+            for (TreeNode day : days.getChildren()) {
+                Boolean active = day.getBoolean();
+                if (active != null) schedule.daysOfWeek.put(day.getKey(), active);
+            }
+        }
+        return schedule;
+    }
 }
@@ -24,9 +24,9 @@ public class Alert {
         if (timestamp == 0L) {
             return "";   // Do not show time
         }
-        java.text.SimpleDateFormat sdf =
-                new java.text.SimpleDateFormat("yyyy-MM-dd - HH:mm", java.util.Locale.getDefault());
-        return sdf.format(new java.util.Date(timestamp));
+        // "yyyy-MM-dd - HH:mm"
+        String t = DateCodec.format(timestamp, java.util.TimeZone.getDefault(), DateCodec.Layout.MINUTES_DASH);
+        return t.substring(0, 10) + " - " + t.substring(11);
     }
 
 }
@@ -15,11 +15,7 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import java.util.ArrayList;
 import java.util.List;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
 
 
 
@@ -27,11 +23,8 @@ public class AlertCenterFragment extends Fragment{
     private RecyclerView Recycler_Alerts;
     private AlertAdapter Alert_Adapter;
     private List<Alert> List_alert = new ArrayList<>();
-    private List<Alert> criticalAlerts = new ArrayList<>(); // for pefZone alerts
-    private List<Alert> normalAlerts   = new ArrayList<>(); // other
 
     private FirebaseDatabase db;
-    private DatabaseReference statusRef;
     private String childName = "Andy"; // testing
     private String childUname = "andy6687"; // testing
     private String parentUname = "kevin579"; // testing
@@ -97,186 +90,24 @@ public class AlertCenterFragment extends Fragment{
         Recycler_Alerts.setAdapter(Alert_Adapter);
 
         db = FirebaseDatabase.getInstance("https://smart-air-group2-default-rtdb.firebaseio.com/");
-        DatabaseReference childrenRef  = db.getReference("categories/users/parents")
-                .child(parentUname)
-                .child("children");
+        AlertLoader loader = new AlertLoader(
+                new FirebaseUserTreeRepository(db.getReference("categories").child("users")));
 
-        loadAlertsForAllChildren(childrenRef);
+        loadAlertsForAllChildren(loader);
 
         return view;
     }
 
-    private void loadAlertsForAllChildren(DatabaseReference childrenRef) {
+    private void loadAlertsForAllChildren(AlertLoader loader) {
         List_alert.clear();
-        criticalAlerts.clear();
-        normalAlerts.clear();
 
-        childrenRef.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                if (!snapshot.exists()) {
-                    Alert_Adapter.notifyDataSetChanged();
-                    return;
-                }
-
-                int totalChildren = (int) snapshot.getChildrenCount();
-                if (totalChildren == 0) {
-                    Alert_Adapter.notifyDataSetChanged();
-                    return;
-                }
-
-                final int[] done = {0};
-
-                for (DataSnapshot childSnap : snapshot.getChildren()) {
-                    String childUname = childSnap.getValue(String.class);
-                    if (childUname == null || childUname.trim().isEmpty()) {
-                        if (++done[0] == totalChildren) {
-                            finishLoading();
-                        }
-                        continue;
-                    }
-
-                    DatabaseReference childRef = db.getReference("categories/users/children")
-                            .child(childUname);
-
-                    childRef.addListenerForSingleValueEvent(new ValueEventListener() {
-                        @Override
-                        public void onDataChange(@NonNull DataSnapshot childData) {
-                            String displayName = childData.child("name").getValue(String.class);
-                            if (displayName == null || displayName.trim().isEmpty()) {
-                                displayName = childUname;
-                            }
-
-                            DataSnapshot statusSnap = childData.child("status");
-                            DataSnapshot inventorySnap = childData.child("inventory");
-                            parseStatusForChild(displayName, statusSnap, inventorySnap);
+        loader.load(parentUname, alerts -> {
+            List_alert.clear();
+            List_alert.addAll(alerts);
 
-                            if (++done[0] == totalChildren) {
-                                finishLoading();
-                            }
-                        }
-
-                        @Override
-                        public void onCancelled(@NonNull DatabaseError error) {
-                            if (++done[0] == totalChildren) {
-                                finishLoading();
-                            }
-                        }
-                    });
-                }
-            }
-
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) { }
+            // Refresh
+            Alert_Adapter.notifyDataSetChanged();
         });
     }
 
-
-    private void parseStatusForChild(String childDisplayName,
-                                     DataSnapshot statusSnap,
-                                     DataSnapshot inventorySnap) {
-        if (statusSnap == null || !statusSnap.exists()) return;
-
-        //  PEF alert
-        Integer pefZone = statusSnap.child("pefZone").getValue(Integer.class);
-        if (pefZone != null && pefZone == 2) {
-
-            criticalAlerts.add(new Alert(
-                    "PEF Safety Alert",
-                    childDisplayName + " is in the red PEF zone.",
-                    0L
-            ));
-        }
-
-        // medicine alerts
-        DataSnapshot statusInvSnap = statusSnap.child("inventory");
-        if (statusInvSnap == null || !statusInvSnap.exists()) {
-            return;
-        }
-        if (inventorySnap == null || !inventorySnap.exists()) {
-            // if inventory doesn't exist, just reurn
-            return;
-        }
-
-        for (DataSnapshot medSnap : statusInvSnap.getChildren()) {
-            String medName = medSnap.getKey();
-            if (medName == null) continue;
-
-            boolean checkLow = false;
-            boolean checkExpired = false;
-
-            for (DataSnapshot snapIndex : medSnap.getChildren()) {
-                Integer code = snapIndex.getValue(Integer.class);
-                if (code == null) {
-                    continue;
-                }
-                if (code == 1) {
-                    checkLow = true;
-                }
-                if (code == 2) {
-                    checkExpired = true;
-                }
-            }
-
-            long alertTime = getMedicineTime(inventorySnap, medName);
-
-            if (checkLow) {
-                normalAlerts.add(new Alert(
-                        "Medicine Low",
-                        childDisplayName + ":" + medName + " is running low.",
-                        alertTime
-                ));
-            }
-
-            if (checkExpired) {
-                normalAlerts.add(new Alert(
-                        "Medicine Expired",
-                        childDisplayName + ":" + medName + " has expired.",
-                        alertTime
-                ));
-            }
-        }
-    }
-
-
-    private long getMedicineTime(DataSnapshot inventorySnap, String medName) {
-        if (inventorySnap == null) {
-            return System.currentTimeMillis();
-        }
-
-        DataSnapshot medInv = inventorySnap.child(medName);
-        if (!medInv.exists()) {
-            return System.currentTimeMillis();
-        }
-
-        Long timestamp = medInv.child("lastUpdated").getValue(Long.class);
-        if (timestamp != null) {
-            return timestamp;
-        }
-
-        return System.currentTimeMillis();
-    }
-
-
-    private void finishLoading() {
-            // Sort the alerts in chronological order from new to old
-        java.util.Collections.sort(normalAlerts,
-                (a, b) -> Long.compare(b.getTimestamp(), a.getTimestamp()));
-
-        List_alert.clear();
-        // put PEF（critical） first
-        List_alert.addAll(criticalAlerts);
-        // then put medicine alerts
-        List_alert.addAll(normalAlerts);
-
-        // Refresh
-        Alert_Adapter.notifyDataSetChanged();
-    }
-
 }
-
-
-
-
-
-
@@ -0,0 +1,182 @@
+package com.example.SmartAirGroup2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * AlertLoader
+ *
+ * Builds the Alert Center list for a parent: reads the parent's linked
+ * children, then each child's node, and turns status/pefZone and
+ * status/inventory codes into alerts. Red-zone PEF alerts come first, then
+ * medicine alerts newest first.
+ *
+ * Firebase paths (relative to categories/users):
+ *   parents/{parentUname}/children/{childUname} = childUname
+ *   children/{childUname}/name
+ *   children/{childUname}/status/pefZone            (2 = red)
+ *   children/{childUname}/status/pefZoneDay         (the day of pefZone)
+ *   children/{childUname}/status/inventory/{med}/*  (1 = low, 2 = expired)
+ *   children/{childUname}/inventory/{med}/lastUpdated
+ */
+public class AlertLoader {
+
+    public interface Callback {
+        void onLoaded(List<Alert> alerts);
+    }
+
+    private final UserTreeRepository repo;
+
+    public AlertLoader(UserTreeRepository repo) {
+        this.repo = repo;
+    }
+
+    public void load(String parentUname, final Callback callback) {
+        final List<Alert> criticalAlerts = new ArrayList<>(); // for pefZone alerts
+        final List<Alert> normalAlerts = new ArrayList<>();   // other
+
+        repo.read("parents/" + parentUname + "/children", new UserTreeRepository.NodeCallback() {
+            @Override
+            public void onResult(TreeNode snapshot) {
+                int totalChildren = (int) snapshot.getChildrenCount();
+                if (!snapshot.exists() || totalChildren == 0) {
+                    callback.onLoaded(new ArrayList<>());
+                    return;
+                }
+
+                final int[] done = {0};
+
+                for (TreeNode childSnap : snapshot.getChildren()) {
+                    final String childUname = childSnap.getString();
+                    if (childUname == null || childUname.trim().isEmpty()) {
+                        if (++done[0] == totalChildren) {
+                            callback.onLoaded(merge(criticalAlerts, normalAlerts));
+                        }
+                        continue;
+                    }
+
+                    repo.read("children/" + childUname, new UserTreeRepository.NodeCallback() {
+                        @Override
+                        public void onResult(TreeNode childData) {
+                            String displayName = childData.child("name").getString();
+                            if (displayName == null || displayName.trim().isEmpty()) {
+                                displayName = childUname;
+                            }
+
+                            parseStatusForChild(displayName, childData.child("status"),
+                                    childData.child("inventory"), criticalAlerts, normalAlerts);
+
+                            if (++done[0] == totalChildren) {
+                                callback.onLoaded(merge(criticalAlerts, normalAlerts));
+                            }
+                        }
+
+                        @Override
+                        public void onError(String message) {
+                            if (++done[0] == totalChildren) {
+                                callback.onLoaded(merge(criticalAlerts, normalAlerts));
+                            }
+                        }
+                    });
+                }
+            }
+
+            @Override
+            public void onError(String message) {
+                callback.onLoaded(new ArrayList<>());
+            }
+        });
+    }
+
+    static void parseStatusForChild(String childDisplayName,
+                                    TreeNode statusSnap,
+                                    TreeNode inventorySnap,
+                                    List<Alert> criticalAlerts,
+                                    List<Alert> normalAlerts) {
+        if (statusSnap == null || !statusSnap.exists()) return;
+
+        //  PEF alert (only for today's zone)
+        int pefZone = PefZoneStore.current(statusSnap.child("pefZone").getValue(),
+                statusSnap.child("pefZoneDay").getValue());
+        if (pefZone == PefZoneStore.ALERT) {
+            criticalAlerts.add(new Alert(
+                    "PEF Safety Alert",
+                    childDisplayName + " is in the red PEF zone.",
+                    0L
+            ));
+        }
+
+        // medicine alerts
+        TreeNode statusInvSnap = statusSnap.child("inventory");
+        if (!statusInvSnap.exists()) {
+            return;
+        }
+        if (inventorySnap == null || !inventorySnap.exists()) {
+            // if inventory doesn't exist, just return
+            return;
+        }
+
+        for (TreeNode medSnap : statusInvSnap.getChildren()) {
+            String medName = medSnap.getKey();
+            if (medName == null) continue;
+
+            boolean checkLow = false;
+            boolean checkExpired = false;
+
+            for (TreeNode snapIndex : medSnap.getChildren()) {
+                Integer code = snapIndex.getInteger();
+                if (code == null) {
+                    continue;
+                }
+                if (code == 1) {
+                    checkLow = true;
+                }
+                if (code == 2) {
+                    checkExpired = true;
+                }
+            }
+
+            long alertTime = getMedicineTime(inventorySnap, medName);
+
+            if (checkLow) {
+                normalAlerts.add(new Alert(
+                        "Medicine Low",
+                        childDisplayName + ":" + medName + " is running low.",
+                        alertTime
+                ));
+            }
+
+            if (checkExpired) {
+                normalAlerts.add(new Alert(
+                        "Medicine Expired",
+                        childDisplayName + ":" + medName + " has expired.",
+                        alertTime
+                ));
+            }
+        }
+    }
+
+    private static long getMedicineTime(TreeNode inventorySnap, String medName) {
+        TreeNode medInv = inventorySnap.child(medName);
+        if (!medInv.exists()) {
+            return System.currentTimeMillis();
+        }
+
+        Long timestamp = medInv.child("lastUpdated").getLong();
+        if (timestamp != null) {
+            return timestamp;
+        }
+
+        return System.currentTimeMillis();
+    }
+
+    /** PEF (critical) alerts first, then medicine alerts from new to old. */
+    private static List<Alert> merge(List<Alert> criticalAlerts, List<Alert> normalAlerts) {
+        Collections.sort(normalAlerts, (a, b) -> Long.compare(b.getTimestamp(), a.getTimestamp()));
+        List<Alert> out = new ArrayList<>(criticalAlerts.size() + normalAlerts.size());
+        out.addAll(criticalAlerts);
+        out.addAll(normalAlerts);
+        return out;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.SmartAirGroup2;
+
+import java.util.List;
+
+/**
+ * ChartDownsampler
+ *
+ * Largest-triangle-three-buckets (LTTB) downsampling for the PEF charts.
+ * Keeps the first and last points, splits the rest into target - 2
+ * equal runs and keeps from each run the point that spans the largest
+ * triangle with the point kept before it and the mean of the next run. Peaks,
+ * dips and the overall shape survive, where taking every n-th point drops
+ * them.
+ *
+ * Works on indices: select() returns which points of a series to draw, in
+ * order, so callers keep their own labels, colours and x positions. NaN
+ * values (empty buckets, days without readings) are gaps: they are never
+ * selected and never averaged. A series at or under the target comes back
+ * whole.
+ *
+ * One pass over the series; allocates the returned array and, when the series
+ * has gaps, an index of its non-NaN points.
+ *
+ * Count series (rescues per day) are not sampled: dropping a day drops its
+ * rescues from the chart. sumRuns() instead adds up runs of consecutive days
+ * into one bar each, labelled with the run's first and last day.
+ */
+public final class ChartDownsampler {
+
+    /** Points drawn by the on-screen charts. */
+    public static final int SCREEN_POINTS = 90;
+    /** Points in the PDF report's PEF chart (about one per 5 px of its 500 px). */
+    public static final int PDF_POINTS = 100;
+
+    private ChartDownsampler() {
+    }
+
+    /** Indices of the points to keep, x taken as the index. */
+    public static int[] select(double[] y, int target) {
+        return select(null, y, y.length, target);
+    }
+
+    /**
+     * Indices of at most target (at least 3) points of (x[i], y[i]), i < n,
+     * in increasing order. x must be increasing; null means x[i] = i.
+     */
+    public static int[] select(double[] x, double[] y, int n, int target) {
+        int[] valid = null;
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            if (!Double.isNaN(y[i])) m++;
+        }
+        if (m < n) {
+            valid = new int[m];
+            for (int i = 0, k = 0; i < n; i++) {
+                if (!Double.isNaN(y[i])) valid[k++] = i;
+            }
+        }
+
+        target = Math.max(target, 3); // both ends and at least one point between
+        if (m <= target) {
+            int[] all = new int[m];
+            for (int k = 0; k < m; k++) all[k] = at(valid, k);
+            return all;
+        }
+
+        int[] out = new int[target];
+        out[0] = at(valid, 0);
+        int a = 0; // point kept from the previous run (position among the valid points)
+        double every = (double) (m - 2) / (target - 2);
+
+        for (int bucket = 0; bucket < target - 2; bucket++) {
+            // mean of the next run (the last point for the final run)
+            int nextFrom = (int) ((bucket + 1) * every) + 1;
+            int nextTo = Math.min((int) ((bucket + 2) * every) + 1, m);
+            double meanX = 0;
+            double meanY = 0;
+            for (int k = nextFrom; k < nextTo; k++) {
+                int i = at(valid, k);
+                meanX += xOf(x, i);
+                meanY += y[i];
+            }
+            int span = nextTo - nextFrom;
+            meanX /= span;
+            meanY /= span;
+
+            int from = (int) (bucket * every) + 1;
+            int to = (int) ((bucket + 1) * every) + 1;
+            int ia = at(valid, a);
+            double ax = xOf(x, ia);
+            double ay = y[ia];
+            double best = -1;
+            int pick = from;
+            for (int k = from; k < to; k++) {
+                int i = at(valid, k);
+                // twice the triangle's area
+                double area = Math.abs((ax - meanX) * (y[i] - ay) - (ax - xOf(x, i)) * (meanY - ay));
+                if (area > best) {
+                    best = area;
+                    pick = k;
+                }
+            }
+            out[bucket + 1] = at(valid, pick);
+            a = pick;
+        }
+        out[target - 1] = at(valid, m - 1);
+        return out;
+    }
+
+    /** A count series as bars: values[i] is labelled labels[i]. */
+    public static final class Bars {
+        public final double[] values;
+        public final String[] labels;
+
+        Bars(double[] values, String[] labels) {
+            this.values = values;
+            this.labels = labels;
+        }
+    }
+
+    /**
+     * At most target bars from counts (one per label): runs of equally many
+     * consecutive points are summed (the last run may be shorter) and
+     * labelled "first–last". A series at or under the target comes back one
+     * bar per point. NaN counts add nothing.
+     */
+    public static Bars sumRuns(List<String> labels, double[] counts, int target) {
+        int n = counts.length;
+        int run = Math.max(1, (n + Math.max(target, 1) - 1) / Math.max(target, 1));
+        int bars = (n + run - 1) / run;
+        double[] values = new double[bars];
+        String[] names = new String[bars];
+        for (int b = 0; b < bars; b++) {
+            int from = b * run;
+            int to = Math.min(from + run, n);
+            double sum = 0;
+            for (int i = from; i < to; i++) {
+                if (!Double.isNaN(counts[i])) sum += counts[i];
+            }
+            values[b] = sum;
+            names[b] = to - from == 1 ? labels.get(from) : labels.get(from) + "–" + labels.get(to - 1);
+        }
+        return new Bars(values, names);
+    }
+
+    private static int at(int[] valid, int k) {
+        return valid == null ? k : valid[k];
+    }
+
+    private static double xOf(double[] x, int i) {
+        return x == null ? i : x[i];
+    }
+}
@@ -111,6 +111,11 @@ public class ChildDashboardFragment extends Fragment {
             currentChildId = getArguments().getString("username");
         }
 
+        // The child's own session brings old records up to timestamps and
+        // builds the daily counters, so the log screens and the reports can
+        // range-query them
+        DailyBackfill.ensureInBackground(currentChildId);
+
         // Safety check: ensure currentChildId is not null, though it should be set by the host Activity/Fragment
         if (currentChildId == null || currentChildId.isEmpty()) {
             currentChildId = "User"; // Fallback value
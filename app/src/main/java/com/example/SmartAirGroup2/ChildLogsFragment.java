@@ -5,7 +5,6 @@ import android.app.DatePickerDialog;
 import android.app.TimePickerDialog;
 import android.os.Bundle;
 import android.text.InputType;
-import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuInflater;
@@ -24,25 +23,15 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentTransaction;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.ValueEventListener;
 
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.Date;
-import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.HashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * ChildLogsFragment serves as the main screen for viewing and logging a child's
@@ -53,7 +42,7 @@ import java.util.regex.Pattern;
  * 2. Retrieving the target child's ID via Fragment arguments.
  * 3. Initializing the Firebase Realtime Database connection for the child's logs.
  * 4. Managing filter states and launching logging dialogs.
- * 5. Displaying the log history loaded via {@code loadLogs()}.
+ * 5. Displaying the log history, kept current by {@code startLogFeed()}.
  */
 public class ChildLogsFragment extends Fragment {
 
@@ -76,17 +65,40 @@ public class ChildLogsFragment extends Fragment {
     private DatabaseReference childrenRef;
 
     /**
-     * Container LinearLayout that holds the created log views.
-     * Is filled by the loadLogs() method.
+     * Recycled list of log rows, kept in step with {@code feed} by logAdapter.
      */
-    private LinearLayout logsContainer;
+    private RecyclerView logsRecycler;
+    private LogListAdapter logAdapter;
 
     /**
-     * Current filter for log view.
-     * Can be one of: "all", "pef", "controller", "rescue".
-     * Defaults to "all".
+     * Shown instead of the list while the feed has no visible entries.
      */
-    private String currentFilter = "all";
+    private TextView emptyView;
+
+    /**
+     * Start loading the next page when this many rows remain below the last visible one.
+     */
+    private static final int LOAD_MORE_THRESHOLD = 10;
+
+    /**
+     * Ordered in-memory model of the child's logs, fed by child events.
+     * Also holds the current filter: one of "all", "pef", "medication", "inhaler".
+     */
+    private final LogFeed feed = new LogFeed();
+
+    /**
+     * Pages the log groups selected by the current filter into {@code feed}.
+     * Replaced whenever the filter changes; stopped in onDestroyView().
+     */
+    private PagedLogSource logSource;
+
+    /**
+     * The feed pages by timestamp, so it starts once the child's records are
+     * migrated (TimestampMigration.ensure); waitingForMigration is set while
+     * a start waits for that.
+     */
+    private boolean timestampsReady;
+    private boolean waitingForMigration;
     private Toolbar toolbar;
 
 
@@ -133,34 +145,6 @@ public class ChildLogsFragment extends Fragment {
         transaction.commit();
     }
 
-    /**
-     * Placeholder class for a data log item retrieved from Firebase.
-     * Includes the unique key, category, timestamp, and a data map.
-     */
-    private static class LogItem {
-        public String key;
-        public String category;
-        public long timestamp;
-
-        // Added for deletion/unique reference in Firebase
-        public String groupKey;
-        public String nodeKey;
-
-
-        public Map<String, Object> data;
-
-        // Placeholder constructor
-        public LogItem(String key, String category, long timestamp, String groupKey, String nodeKey, Map<String, Object> data) {
-            this.key = key;
-            this.category = category;
-            this.timestamp = timestamp;
-            this.groupKey = groupKey;
-            this.nodeKey = nodeKey;
-            this.data = data;
-        }
-    }
-
-
     // ─────────────────────────────────────────────────────────────────
     // LIFECYCLE
     // ─────────────────────────────────────────────────────────────────
@@ -219,7 +203,38 @@ public class ChildLogsFragment extends Fragment {
         childrenRef = db.getReference("categories").child("users").child("children");
 
         // 2. Locate Views (Using the inflated 'view')
-        logsContainer = view.findViewById(R.id.logsContainer);
+        logsRecycler = view.findViewById(R.id.logsRecycler);
+        emptyView = view.findViewById(R.id.emptyLogs);
+        logAdapter = new LogListAdapter(this::confirmAndDelete);
+        logsRecycler.setLayoutManager(new LinearLayoutManager(requireContext()));
+        logsRecycler.setAdapter(logAdapter);
+        logAdapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onChanged() {
+                updateEmptyView();
+            }
+
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                updateEmptyView();
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                updateEmptyView();
+            }
+        });
+        // Fetch the next page as the user nears the end of what is loaded
+        logsRecycler.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                LinearLayoutManager lm = (LinearLayoutManager) recyclerView.getLayoutManager();
+                if (lm != null && logSource != null
+                        && lm.findLastVisibleItemPosition() >= logAdapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    logSource.loadOlder();
+                }
+            }
+        });
 
         Button addInhalorButton = view.findViewById(R.id.addInhalor);
         Button addPEFButton = view.findViewById(R.id.addPEF);
@@ -233,20 +248,16 @@ public class ChildLogsFragment extends Fragment {
         // 3. Set up listeners
         //filter button actions
         filterAll.setOnClickListener(v -> {
-            currentFilter = "all";
-            loadLogs();
+            applyFilter("all");
         });
         filterPEF.setOnClickListener(v -> {
-            currentFilter = "pef";
-            loadLogs();
+            applyFilter("pef");
         });
         filterController.setOnClickListener(v -> {
-            currentFilter = "medication";
-            loadLogs();
+            applyFilter("medication");
         });
         filterRescue.setOnClickListener(v -> {
-            currentFilter = "inhaler";
-            loadLogs();
+            applyFilter("inhaler");
         });
 
         addInhalorButton.setOnClickListener(v -> showMedicationDialog("Log Inhaler Use", false));
@@ -254,22 +265,18 @@ public class ChildLogsFragment extends Fragment {
         addPEFButton.setOnClickListener(v -> showPEFDialog());
 
         // 4. Initial Load
-        loadLogs();
+        startLogFeed();
 
         return view;
     }
 
     /**
-     * String conversion for display. Returns default if null or literal "null".
-     *
-     * @param o   object to stringify
-     * @param def default string if o is null or "null"
-     * @return string
+     * Detach the log listeners together with the views they update.
      */
-    private String safeToString(Object o, String def) {
-        if (o == null) return def == null ? "" : def;
-        String s = String.valueOf(o);
-        return s.equals("null") ? (def == null ? "" : def) : s;
+    @Override
+    public void onDestroyView() {
+        stopLogFeed();
+        super.onDestroyView();
     }
 
     /**
@@ -279,8 +286,8 @@ public class ChildLogsFragment extends Fragment {
      * @param calendar The Calendar instance containing the date/time.
      */
     private void setDateTimeEditTextFromCalendar(EditText editText, Calendar calendar) {
-        SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
-        editText.setText(fmt.format(calendar.getTime()));
+        editText.setText(DateCodec.format(calendar.getTimeInMillis(), calendar.getTimeZone(),
+                DateCodec.Layout.MINUTES_DASH));
     }
 
     /**
@@ -304,99 +311,61 @@ public class ChildLogsFragment extends Fragment {
     }
 
     /**
-     * Utility to safely extract Map<String, Object> from a DataSnapshot.
+     * Keep the daily stores (pefDaily, controllerDaily, rescueDaily) in step with
+     * a saved entry. Touches only that entry's day; see the stores.
+     * Runs from the write's completion even after the fragment is gone, so it
+     * uses only the child's node and no UI state.
+     *
+     * @param childRef categories/users/children/{childId}
+     * @param groupKey "PEF_log" / "controller_log" / "rescue_log"
+     * @param entryMap the saved entry
      */
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> snapshotToMap(DataSnapshot snapshot) {
-        Object value = snapshot.getValue();
-        if (value instanceof Map) {
-            return (Map<String, Object>) value;
+    private static void updateDailyStores(DatabaseReference childRef, String groupKey, Map<String, Object> entryMap) {
+        Object ts = entryMap.get("timestamp");
+        long timestamp = ts instanceof Number ? ((Number) ts).longValue() : 0;
+        if ("PEF_log".equals(groupKey)) {
+            Double value = PefDailyAggregate.readingValue(entryMap.get("value"));
+            if (value != null && timestamp > 0) PefDailyStore.recordReading(childRef, timestamp, value);
+        } else if ("controller_log".equals(groupKey) && timestamp > 0) {
+            ControllerDailyStore.recordDose(childRef, timestamp, (String) entryMap.get("medication"));
+        } else if ("rescue_log".equals(groupKey)) {
+            RescueDailyStore.recordRescue(childRef, timestamp, (String) entryMap.get("dateTime"));
         }
-        return new HashMap<>();
     }
 
-    /**
-     * Utility to extract the timestamp from a log entry map.
-     */
-    private long getTimestampFromMap(Map<String, Object> map) {
-        Object tsObj = map.get("timestamp");
-        if (tsObj instanceof Long) {
-            return (Long) tsObj;
+    /** The same for a deleted entry. */
+    private static void updateDailyStores(DatabaseReference childRef, LogRecord item) {
+        if (item instanceof PefLogRecord && ((PefLogRecord) item).hasValue() && item.timestamp > 0) {
+            PefDailyStore.removeReading(childRef, item.timestamp, ((PefLogRecord) item).value);
+        } else if (item instanceof ControllerLogRecord && item.timestamp > 0) {
+            ControllerDailyStore.removeDose(childRef, item.timestamp, ((ControllerLogRecord) item).medication);
+        } else if (item instanceof RescueLogRecord) {
+            RescueDailyStore.removeRescue(childRef, item.timestamp, item.dateTime);
         }
-        // Handle other types if necessary
-        return 0;
-    }
-
-    /**
-     * Placeholder method for Daily PEF update.
-     * @see #updateDailyPEF() for implementation details.
-     */
-    private void updateDailyPEF() {
-        DatabaseReference pefRef = childrenRef.child(currentChildId).child("logs").child("PEF_log");
-        pefRef.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                List<Integer> todayVals = new ArrayList<>();
-
-                Calendar c = Calendar.getInstance();
-                c.set(Calendar.HOUR_OF_DAY, 0);
-                c.set(Calendar.MINUTE, 0);
-                c.set(Calendar.SECOND, 0);
-                c.set(Calendar.MILLISECOND, 0);
-                long startOfDay = c.getTimeInMillis();
-                c.add(Calendar.DAY_OF_MONTH, 1);
-                long startOfNextDay = c.getTimeInMillis();
-
-                for (DataSnapshot entry : snapshot.getChildren()) {
-                    Map<String, Object> map = snapshotToMap(entry);
-                    long ts = getTimestampFromMap(map);
-                    if (ts >= startOfDay && ts < startOfNextDay) {
-                        Object v = map.get("value");
-                        if (v != null) {
-                            try {
-                                int val = Integer.parseInt(String.valueOf(v));
-                                todayVals.add(val);
-                            } catch (Exception ignored) { }
-                        }
-                    }
-                }
-
-                DatabaseReference dataRef = childrenRef.child(currentChildId).child("data").child("dailyPEF");
-                dataRef.setValue(todayVals, (err, ref) -> {
-                    if (err != null) {
-                        Toast.makeText(requireContext(), "Failed to update dailyPEF: " + err.getMessage(), Toast.LENGTH_SHORT).show();
-                    }
-                });
-            }
-
-            @Override
-            public void onCancelled(DatabaseError error) {
-                // ignore
-            }
-        });
     }
 
-    // ─────────────────────────────────────────────────────────────────
-    // LOG ENTRY MANAGEMENT
-    // ─────────────────────────────────────────────────────────────────
-
     /**
      * confirmAndDelete - shows an AlertDialog for confirming deletion of a specific log item.
-     * On confirmation, it removes the node from Firebase and refreshes the log list.
+     * On confirmation, it removes the node from Firebase; the feed drops the row
+     * when the removal event arrives.
      *
-     * @param item The LogItem to be deleted.
+     * @param item The log entry to be deleted.
      */
-    private void confirmAndDelete(final LogItem item) {
+    private void confirmAndDelete(final LogRecord item) {
         new AlertDialog.Builder(requireContext()) // CONTEXT FIX
                 .setTitle("Delete Log")
                 .setMessage("Are you sure you want to delete this log?")
                 .setPositiveButton("Delete", (dialog, which) -> {
                     DatabaseReference nodeRef = childrenRef.child(currentChildId).child("logs").child(item.groupKey).child(item.nodeKey);
+                    final DatabaseReference childRef = childrenRef.child(currentChildId);
                     nodeRef.removeValue((err, ref) -> {
+                        // The daily stores are updated whether or not this screen is
+                        // still showing; only the toast and the feed need it
+                        if (err == null) updateDailyStores(childRef, item);
+                        if (getContext() == null) return;
                         if (err == null) {
                             Toast.makeText(requireContext(), "Log deleted", Toast.LENGTH_SHORT).show(); // CONTEXT FIX
-                            loadLogs();
-                            if ("PEF_log".equals(item.groupKey)) updateDailyPEF();
+                            feed.onChildRemoved(item.groupKey, item.nodeKey);
                         } else {
                             Toast.makeText(requireContext(), "Failed to delete: " + err.getMessage(), Toast.LENGTH_LONG).show(); // CONTEXT FIX
                         }
@@ -652,10 +621,11 @@ public class ChildLogsFragment extends Fragment {
 
     /**
      * Save an entry under a given groupKey using sequential key.
-     * It scans existing keys under the group to find the highest index at the suffix, increments it,
-     * and writes the new node
+     * The key is allocated from the group's counter by LogKeyAllocator, so the group
+     * itself is not read and concurrent writers (parent and child) never collide.
      *
-     * After saving, onCompleteToast is shown and loadLogs() is called to refresh the UI.
+     * After saving, onCompleteToast is shown and the entry is added to the feed directly,
+     * since a back-dated entry may fall outside the live newest page.
      *
      * @param logsRoot       reference to children/{childId}/logs
      * @param groupKey       "PEF_log" / "controller_log" / "rescue_log"
@@ -668,31 +638,21 @@ public class ChildLogsFragment extends Fragment {
                                             final String keyPrefix,
                                             final Map<String, Object> entryMap,
                                             final String onCompleteToast) {
+        final DatabaseReference childRef = childrenRef.child(currentChildId);
         DatabaseReference groupRef = logsRoot.child(groupKey);
-        groupRef.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                int maxIndex = 0;
-                Pattern p = Pattern.compile("(\\d+)$");
-                for (DataSnapshot child : snapshot.getChildren()) {
-                    String key = child.getKey();
-                    if (key == null) continue;
-                    Matcher m = p.matcher(key);
-                    if (m.find()) {
-                        try {
-                            int val = Integer.parseInt(m.group(1));
-                            if (val > maxIndex) maxIndex = val;
-                        } catch (NumberFormatException ignored) {}
-                    }
-                }
-                int next = maxIndex + 1;
-                String newKey = keyPrefix + next;
+        DatabaseReference counterRef = childRef.child("counters").child(groupKey);
 
+        LogKeyAllocator.allocate(counterRef, groupRef, keyPrefix, new LogKeyAllocator.KeyCallback() {
+            @Override
+            public void onKey(String newKey) {
                 groupRef.child(newKey).setValue(entryMap, (err, ref) -> {
+                    // The daily stores are updated whether or not this screen is
+                    // still showing; only the toast and the feed need it
+                    if (err == null) updateDailyStores(childRef, groupKey, entryMap);
+                    if (getContext() == null) return;
                     if (err == null) {
                         Toast.makeText(requireContext(), onCompleteToast, Toast.LENGTH_LONG).show(); // CONTEXT FIX
-                        loadLogs();
-                        if ("PEF_log".equals(groupKey)) updateDailyPEF();
+                        feed.onChildAdded(groupKey, newKey, entryMap);
                     } else {
                         Toast.makeText(requireContext(), "Failed saving log: " + err.getMessage(), Toast.LENGTH_LONG).show(); // CONTEXT FIX
                     }
@@ -700,8 +660,9 @@ public class ChildLogsFragment extends Fragment {
             }
 
             @Override
-            public void onCancelled(DatabaseError error) {
-                Toast.makeText(requireContext(), "Failed to read existing logs: " + error.getMessage(), Toast.LENGTH_LONG).show(); // CONTEXT FIX
+            public void onError(String message) {
+                if (getContext() == null) return;
+                Toast.makeText(requireContext(), "Failed to allocate log key: " + message, Toast.LENGTH_LONG).show(); // CONTEXT FIX
             }
         });
     }
@@ -711,267 +672,103 @@ public class ChildLogsFragment extends Fragment {
     // ─────────────────────────────────────────────────────────────────
 
     /**
-     * Dynamically creates a UI element (LinearLayout) to display the details of a single log item.
-     *
-     * @param item The log item data (PEF, Controller, or Rescue) to display.
-     */
-    private void addLogItemToView(final LogItem item) {
-        Map<String, Object> map = item.data;
-        String headerText = item.category.toUpperCase();
-        String dateText = "";
-        long ts = item.timestamp;
-
-        // Date formatting logic
-        if (ts > 0) {
-            Date date = new Date(ts);
-            SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
-            dateText = fmt.format(date);
-        } else {
-            dateText = safeToString(map.get("dateTime"), "");
-        }
-
-        // --- View Creation (Context fix: ChildLogsActivity.this -> requireContext()) ---
-        LinearLayout itemLayout = new LinearLayout(requireContext());
-        itemLayout.setOrientation(LinearLayout.VERTICAL);
-        int pad = dpToPx(10);
-        itemLayout.setPadding(pad, pad, pad, pad);
-
-        LinearLayout.LayoutParams lp = new LinearLayout.LayoutParams(
-                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
-        lp.setMargins(0, dpToPx(6), 0, dpToPx(6));
-        itemLayout.setLayoutParams(lp);
-
-        LinearLayout headerRow = new LinearLayout(requireContext());
-        headerRow.setOrientation(LinearLayout.HORIZONTAL);
-        headerRow.setLayoutParams(new LinearLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
-        headerRow.setGravity(Gravity.CENTER_VERTICAL);
-
-        TextView header = new TextView(requireContext());
-        header.setText(headerText + (dateText.isEmpty() ? "" : " — " + dateText));
-        header.setTextSize(16f);
-        header.setTypeface(header.getTypeface(), android.graphics.Typeface.BOLD);
-        LinearLayout.LayoutParams headerLp = new LinearLayout.LayoutParams(0, ViewGroup.LayoutParams.WRAP_CONTENT, 1f);
-        header.setLayoutParams(headerLp);
-        headerRow.addView(header);
-
-        TextView deleteBtn = new TextView(requireContext());
-        deleteBtn.setText("✖");
-        deleteBtn.setTextSize(16f);
-        deleteBtn.setPadding(dpToPx(8), dpToPx(4), dpToPx(8), dpToPx(4));
-        deleteBtn.setClickable(true);
-        deleteBtn.setFocusable(true);
-        deleteBtn.setLayoutParams(new LinearLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT));
-        deleteBtn.setOnClickListener(v -> confirmAndDelete(item));
-        headerRow.addView(deleteBtn);
-
-        itemLayout.addView(headerRow);
-
-        // PEF Log Details
-        if ("pef".equalsIgnoreCase(item.category)) {
-            String val = safeToString(map.get("value"), "—");
-            TextView v1 = new TextView(requireContext());
-            v1.setText("PEF: " + val);
-            itemLayout.addView(v1);
-
-            String pre = safeToString(map.get("preMedVal"), "");
-            String post = safeToString(map.get("postMedVal"), "");
-            if (!pre.isEmpty()) {
-                TextView preV = new TextView(requireContext());
-                preV.setText("Pre-med value: " + pre);
-                itemLayout.addView(preV);
-            }
-            if (!post.isEmpty()) {
-                TextView postV = new TextView(requireContext());
-                postV.setText("Post-med value: " + post);
-                itemLayout.addView(postV);
-            }
-
-            String note = safeToString(map.get("note"), "");
-            if (!note.isEmpty()) {
-                TextView noteV = new TextView(requireContext());
-                noteV.setText("Note: " + note);
-                itemLayout.addView(noteV);
-            }
-        }
-        // Controller Log Details
-        else if ("controller".equalsIgnoreCase(item.category)) {
-            String med = safeToString(map.get("medication"), "");
-            String dose = safeToString(map.get("dose"), "");
-            String units = safeToString(map.get("units"), "");
-            String note = safeToString(map.get("note"), "");
-            String pre = safeToString(map.get("preDose"), "");
-            String post = safeToString(map.get("postDose"), "");
-            if (!med.isEmpty()) {
-                TextView medV = new TextView(requireContext());
-                medV.setText("Medication: " + med);
-                itemLayout.addView(medV);
-            }
-            if (!dose.isEmpty() || !units.isEmpty()) {
-                TextView doseV = new TextView(requireContext());
-                doseV.setText("Dose: " + dose + (units.isEmpty() ? "" : " " + units));
-                itemLayout.addView(doseV);
-            }
-            if (!pre.isEmpty()) {
-                TextView preV = new TextView(requireContext());
-                preV.setText("Before: " + pre);
-                itemLayout.addView(preV);
-            }
-            if (!post.isEmpty()) {
-                TextView postV = new TextView(requireContext());
-                postV.setText("After: " + post);
-                itemLayout.addView(postV);
-            }
-            if (!note.isEmpty()) {
-                TextView noteV = new TextView(requireContext());
-                noteV.setText("Note: " + note);
-                itemLayout.addView(noteV);
-            }
-        }
-        // Rescue Log Details
-        else if ("rescue".equalsIgnoreCase(item.category)) {
-            String med = safeToString(map.get("medication"), "");
-            String dose = safeToString(map.get("dose"), "");
-            String units = safeToString(map.get("units"), "");
-            String note = safeToString(map.get("note"), "");
-            String pre = safeToString(map.get("preDose"), "");
-            String post = safeToString(map.get("postDose"), "");
-            if (!med.isEmpty()) {
-                TextView medV = new TextView(requireContext());
-                medV.setText("Medication: " + med);
-                itemLayout.addView(medV);
-            }
-            if (!dose.isEmpty() || !units.isEmpty()) {
-                TextView doseV = new TextView(requireContext());
-                doseV.setText("Dose: " + dose + (units.isEmpty() ? "" : " " + units));
-                itemLayout.addView(doseV);
-            }
-            if (!pre.isEmpty()) {
-                TextView preV = new TextView(requireContext());
-                preV.setText("Before: " + pre);
-                itemLayout.addView(preV);
-            }
-            if (!post.isEmpty()) {
-                TextView postV = new TextView(requireContext());
-                postV.setText("After: " + post);
-                itemLayout.addView(postV);
-            }
-            if (!note.isEmpty()) {
-                TextView noteV = new TextView(requireContext());
-                noteV.setText("Note: " + note);
-                itemLayout.addView(noteV);
-            }
-        }
-        // Generic Log Details (Fallback)
-        else {
-            for (Map.Entry<String,Object> e : map.entrySet()) {
-                TextView tv = new TextView(requireContext());
-                tv.setText(e.getKey() + ": " + String.valueOf(e.getValue()));
-                itemLayout.addView(tv);
-            }
-        }
-
-        TextView divider = new TextView(requireContext());
-        divider.setText("────────────────────────────");
-        divider.setPadding(0, dpToPx(6), 0, 0);
-        itemLayout.addView(divider);
-
-        // Add the new item to the container at the top
-        logsContainer.addView(itemLayout, 0);
-    }
-
-
-    /**
-     * Assumed placeholder method from original activity to load Firebase data.
-     * Fetches logs from Firebase, filters them based on {@code currentFilter},
-     * sorts them, clears the UI, and calls {@code addLogItemToView} for each.
+     * Start the incremental log feed for the current filter. Only the log groups
+     * the filter selects are queried, newest PAGE_SIZE entries each; the newest
+     * page stays live, so saves, edits and deletes (from this device or another)
+     * arrive as single-row changes. Older pages are fetched on scroll.
+     * The first start waits for the child's timestamp migration.
      */
-    private void loadLogs() {
+    private void startLogFeed() {
         if (currentChildId == null) {
             Toast.makeText(requireContext(), "Cannot load logs: Child ID is missing.", Toast.LENGTH_LONG).show();
             return;
         }
+        if (logSource != null) return;
+        if (!timestampsReady) {
+            if (waitingForMigration) return;
+            waitingForMigration = true;
+            // Legacy records without a timestamp would sort first and page wrong
+            TimestampMigration.ensure(new FirebaseUserTreeRepository(), currentChildId,
+                    new UserTreeRepository.WriteCallback() {
+                        @Override
+                        public void onSuccess() {
+                            migrationFinished();
+                        }
 
-        // 1. Clear existing views before loading new ones
-        if (logsContainer != null) {
-            logsContainer.removeAllViews();
+                        @Override
+                        public void onError(String message) {
+                            // Page what is migrated; the next open resumes the migration
+                            migrationFinished();
+                        }
+                    });
+            return;
         }
 
-        // 2. Fetch data from Firebase
-        DatabaseReference childLogsRef = childrenRef.child(currentChildId).child("logs");
-
-        childLogsRef.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                List<LogItem> items = new ArrayList<>();
-
-                for (DataSnapshot groupSnapshot : snapshot.getChildren()) {
-                    String groupKey = groupSnapshot.getKey(); // e.g., PEF_log, rescue_log
+        feed.setListener(logAdapter);
+        feed.clear();
 
-                    for (DataSnapshot logSnapshot : groupSnapshot.getChildren()) {
-                        try {
-                            String nodeKey = logSnapshot.getKey();
-
-                            @SuppressWarnings("unchecked")
-                            Map<String, Object> logMap = (Map<String, Object>) logSnapshot.getValue();
-
-                            if (logMap != null) {
-                                String category = safeToString(logMap.get("type"), "unknown"); // Changed from category to type based on PEF/Med dialogs
-
-                                // Check filter criteria
-                                if (currentFilter.equals("all") || currentFilter.equalsIgnoreCase(category)) {
-                                    long timestamp = 0;
-                                    Object tsObj = logMap.get("timestamp");
-                                    if (tsObj instanceof Long) {
-                                        timestamp = (Long) tsObj;
-                                    }
-
-                                    // Create a copy for display data
-                                    Map<String, Object> displayData = new HashMap<>(logMap);
-                                    displayData.remove("type");
-                                    displayData.remove("timestamp");
-
-                                    items.add(new LogItem(nodeKey, category, timestamp, groupKey, nodeKey, displayData));
-                                }
-                            }
-                        } catch (Exception e) {
-                            // Log parsing error
-                            if (getContext() != null) {
-                                Toast.makeText(getContext(), "Error parsing log data: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                            }
+        DatabaseReference childLogsRef = childrenRef.child(currentChildId).child("logs");
+        logSource = new PagedLogSource(childLogsRef, LogPager.groupsFor(feed.getFilter()), feed, true,
+                new PagedLogSource.Callback() {
+                    @Override
+                    public void onPageLoaded() {
+                        updateEmptyView();
+                        // A short list cannot be scrolled, so keep paging until it fills or runs out
+                        if (logSource != null && logAdapter.getItemCount() < LogPager.PAGE_SIZE) {
+                            logSource.loadOlder();
                         }
                     }
-                }
 
-                // 3. Sort logs by timestamp (newest first)
-                Collections.sort(items, new Comparator<LogItem>() {
                     @Override
-                    public int compare(LogItem o1, LogItem o2) {
-                        // Descending order (newest first)
-                        return Long.compare(o2.timestamp, o1.timestamp);
+                    public void onError(String message) {
+                        if (getContext() != null) {
+                            Toast.makeText(getContext(), "Failed to load logs: " + message, Toast.LENGTH_LONG).show();
+                        }
                     }
                 });
+        logSource.start();
+    }
 
-                // 4. Populate UI or show empty message
-                if (items.isEmpty()) {
-                    // FIX: Changed ChildLogsActivity.this to requireContext()
-                    TextView empty = new TextView(requireContext());
-                    empty.setText("No logs yet. Use the + buttons below to add PEF, inhaler, or medicine logs.");
-                    empty.setPadding(dpToPx(12), dpToPx(12), dpToPx(12), dpToPx(12));
-                    logsContainer.addView(empty);
-                } else {
-                    for (LogItem item : items) {
-                        addLogItemToView(item);
-                    }
-                }
-            }
+    private void migrationFinished() {
+        timestampsReady = true;
+        if (!waitingForMigration) return; // the view went away meanwhile
+        waitingForMigration = false;
+        startLogFeed();
+    }
 
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                if (getContext() != null) {
-                    Toast.makeText(getContext(), "Failed to load logs: " + error.getMessage(), Toast.LENGTH_LONG).show();
-                }
-            }
-        });
+    /**
+     * Remove the listeners attached by startLogFeed().
+     */
+    private void stopLogFeed() {
+        waitingForMigration = false;
+        if (logSource != null) {
+            logSource.stop();
+            logSource = null;
+        }
+        feed.setListener(null);
+        feed.clear();
+        if (logsRecycler != null) logsRecycler.setAdapter(null);
+    }
+
+    /**
+     * Switch category filter. The filter decides which log groups are queried,
+     * so the feed is restarted on just those groups.
+     *
+     * @param filter "all", "pef", "medication" or "inhaler"
+     */
+    private void applyFilter(String filter) {
+        if (logSource != null) {
+            logSource.stop();
+            logSource = null;
+        }
+        feed.setFilter(filter);
+        startLogFeed();
+    }
+
+    private void updateEmptyView() {
+        if (emptyView == null) return;
+        boolean empty = logAdapter.getItemCount() == 0 && (logSource == null || !logSource.hasMore());
+        emptyView.setVisibility(empty ? View.VISIBLE : View.GONE);
     }
 
 
@@ -0,0 +1,123 @@
+package com.example.SmartAirGroup2;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * ControllerDailyCount
+ *
+ * Number of controller doses logged on one local day, in total and per
+ * medication. Stored per child at
+ *
+ *   categories/users/children/{childUname}/controllerDaily/{yyyy-MM-dd}
+ *     total: Long
+ *     meds/{medicationKey}: Long
+ *
+ * and updated in a transaction as each controller log is saved or deleted
+ * (see ControllerDailyStore), so adherence reads one small node per day of
+ * its window instead of the whole controller_log.
+ *
+ * Medication names are used as keys after replacing the characters RTDB does
+ * not allow in keys (see medicationKey). Doses without a medication only
+ * count towards the total.
+ */
+public class ControllerDailyCount {
+
+    public long total;
+    public Map<String, Long> meds = new HashMap<>();
+
+    public ControllerDailyCount() {
+    }
+
+    public boolean isEmpty() {
+        return total <= 0;
+    }
+
+    /**
+     * Doses of one medication (by name or key) on this day. The name is
+     * matched ignoring case, so "Flovent" also counts doses logged as
+     * "flovent".
+     */
+    public long count(String medication) {
+        String key = medicationKey(medication);
+        if (key == null) return 0;
+        long sum = 0;
+        for (Map.Entry<String, Long> e : meds.entrySet()) {
+            if (e.getKey().equalsIgnoreCase(key)) sum += e.getValue();
+        }
+        return sum;
+    }
+
+    public void add(String medication) {
+        total++;
+        String key = medicationKey(medication);
+        if (key != null) {
+            Long n = meds.get(key);
+            meds.put(key, n == null ? 1 : n + 1);
+        }
+    }
+
+    public void remove(String medication) {
+        if (total > 0) total--;
+        String key = medicationKey(medication);
+        Long n = key == null ? null : meds.get(key);
+        if (n == null) return;
+        if (n <= 1) {
+            meds.remove(key);
+        } else {
+            meds.put(key, n - 1);
+        }
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> m = new HashMap<>();
+        m.put("total", total);
+        if (!meds.isEmpty()) m.put("meds", new HashMap<String, Object>(meds));
+        return m;
+    }
+
+    /** Rebuild from a stored node value; null or malformed values give an empty count. */
+    public static ControllerDailyCount fromValue(Object value) {
+        ControllerDailyCount count = new ControllerDailyCount();
+        if (!(value instanceof Map)) return count;
+        Map<?, ?> m = (Map<?, ?>) value;
+        count.total = number(m.get("total"));
+        Object meds = m.get("meds");
+        if (meds instanceof Map) {
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) meds).entrySet()) {
+                long n = number(e.getValue());
+                if (n > 0) count.meds.put(String.valueOf(e.getKey()), n);
+            }
+        }
+        return count;
+    }
+
+    private static long number(Object o) {
+        return o instanceof Number ? ((Number) o).longValue() : 0;
+    }
+
+    /**
+     * RTDB key for a medication name: trimmed, with . # $ [ ] / replaced by _.
+     * Null for a missing or blank name.
+     */
+    public static String medicationKey(String medication) {
+        if (medication == null) return null;
+        String name = medication.trim();
+        if (name.isEmpty()) return null;
+        StringBuilder sb = null;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '.' || c == '#' || c == '$' || c == '[' || c == ']' || c == '/') {
+                if (sb == null) sb = new StringBuilder(name);
+                sb.setCharAt(i, '_');
+            }
+        }
+        return sb == null ? name : sb.toString();
+    }
+
+    /** Local date of a timestamp as "yyyy-MM-dd", the key of its day. */
+    public static String dayKey(long timestamp, TimeZone zone) {
+        return AdherenceCalculator.dateKey(AdherenceCalculator.epochDay(timestamp, zone));
+    }
+}
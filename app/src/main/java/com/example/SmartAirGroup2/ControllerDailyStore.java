@@ -0,0 +1,208 @@
+package com.example.SmartAirGroup2;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.Transaction;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * ControllerDailyStore
+ *
+ * Maintains and reads the per-day controller dose counters
+ * (ControllerDailyCount) under children/{childUname}/controllerDaily.
+ *
+ * - recordDose / removeDose: transactional update of the dose's day. Take the
+ *   child's node, categories/users/children/{childUname}, like PefDailyStore.
+ * - backfill: rebuild every day from the child's controller_log and mark the
+ *   counters as complete (controllerDaily/backfilledAt). Run by
+ *   DailyBackfill from the sessions that own the child's records.
+ * - loadWindow: the counters of each day of a time window, read from the
+ *   counters only; counted from controller_log (read only) while the child's
+ *   counters are not built yet.
+ *   AdherenceCalculator turns them into adherence per scheduled medication.
+ *
+ * Days are keyed by the device's local date, as the logs are written.
+ * Every change also stamps controllerDaily/updatedAt and invalidates the
+ * child's AdherenceCache entries.
+ */
+public class ControllerDailyStore {
+
+    static final String NODE = "controllerDaily";
+    static final String BACKFILLED_AT = "backfilledAt";
+    /** Set on every change, so other devices can watch one leaf (AdherenceCacheWatcher). */
+    static final String UPDATED_AT = "updatedAt";
+
+    public interface WindowCallback {
+        /**
+         * @param firstDay epoch day of days[0]
+         * @param days     the counters of each day of the window (empty on days without doses)
+         */
+        void onResult(int firstDay, ControllerDailyCount[] days);
+        void onError(String message);
+    }
+
+    public static DatabaseReference dayRef(DatabaseReference childRef, String dayKey) {
+        return childRef.child(NODE).child(dayKey);
+    }
+
+    /**
+     * Count a saved dose on its day. Call after the controller_log write succeeded.
+     */
+    public static void recordDose(final DatabaseReference childRef, long timestamp, final String medication) {
+        String day = ControllerDailyCount.dayKey(timestamp, TimeZone.getDefault());
+        dayRef(childRef, day).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData data) {
+                ControllerDailyCount count = ControllerDailyCount.fromValue(data.getValue());
+                count.add(medication);
+                data.setValue(count.toMap());
+                return Transaction.success(data);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                if (error == null && committed) changed(childRef);
+            }
+        });
+    }
+
+    /**
+     * Uncount a deleted dose. Call after the controller_log delete succeeded.
+     */
+    public static void removeDose(final DatabaseReference childRef, long timestamp, final String medication) {
+        String day = ControllerDailyCount.dayKey(timestamp, TimeZone.getDefault());
+        dayRef(childRef, day).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData data) {
+                if (data.getValue() == null) {
+                    // Never counted (day predates the counters); backfill will get it right
+                    return Transaction.success(data);
+                }
+                ControllerDailyCount count = ControllerDailyCount.fromValue(data.getValue());
+                count.remove(medication);
+                data.setValue(count.isEmpty() ? null : count.toMap());
+                return Transaction.success(data);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                if (error == null && committed) changed(childRef);
+            }
+        });
+    }
+
+    private static void changed(DatabaseReference childRef) {
+        childRef.child(NODE).child(UPDATED_AT).setValue(ServerValue.TIMESTAMP);
+        AdherenceCache.getInstance().invalidate(childRef.getKey());
+    }
+
+    /**
+     * Rebuild the child's counters from the whole controller_log in one write
+     * (DailyBackfill.run), unless a dose is counted meanwhile. Reads the full
+     * history once; run it per child, not on every open.
+     */
+    public static void backfill(UserTreeRepository repo, String childUname, final TimeZone zone,
+                                UserTreeRepository.WriteCallback callback) {
+        String childPath = "children/" + childUname;
+        DailyBackfill.run(repo, childPath + "/" + NODE, childPath + "/logs/controller_log",
+                new String[]{BACKFILLED_AT, UPDATED_AT}, log -> countsFromLog(log, zone), callback);
+    }
+
+    /** controllerDaily day nodes for every dose in a controller_log snapshot. */
+    static Map<String, Object> countsFromLog(TreeNode log, TimeZone zone) {
+        Map<String, ControllerDailyCount> days = new HashMap<>();
+        for (TreeNode entry : log.getChildren()) {
+            Long ts = entry.child("timestamp").getLong();
+            if (ts == null) continue;
+            String day = ControllerDailyCount.dayKey(ts, zone);
+            ControllerDailyCount count = days.get(day);
+            if (count == null) {
+                count = new ControllerDailyCount();
+                days.put(day, count);
+            }
+            count.add(entry.child("medication").getString());
+        }
+        Map<String, Object> out = new HashMap<>();
+        for (Map.Entry<String, ControllerDailyCount> e : days.entrySet()) {
+            out.put(e.getKey(), e.getValue().toMap());
+        }
+        return out;
+    }
+
+    /**
+     * The counters of each local day of [startMillis, endMillis] (whole
+     * days), from the counters of those days only. Until the child's counters
+     * are built they are counted from controller_log, without writing them.
+     */
+    public static void loadWindow(final UserTreeRepository repo, final String childUname,
+                                  long startMillis, long endMillis, final TimeZone zone,
+                                  final WindowCallback callback) {
+        final String childPath = "children/" + childUname;
+        final int firstDay = AdherenceCalculator.epochDay(startMillis, zone);
+        final int lastDay = AdherenceCalculator.epochDay(endMillis, zone);
+
+        repo.read(childPath + "/" + NODE + "/" + BACKFILLED_AT, new UserTreeRepository.NodeCallback() {
+            @Override
+            public void onResult(TreeNode marker) {
+                if (marker.exists()) {
+                    queryWindow(repo, childPath + "/" + NODE, firstDay, lastDay, callback);
+                    return;
+                }
+                repo.read(childPath + "/logs/controller_log", new UserTreeRepository.NodeCallback() {
+                    @Override
+                    public void onResult(TreeNode log) {
+                        Map<String, Object> days = countsFromLog(log, zone);
+                        ControllerDailyCount[] perDay = new ControllerDailyCount[Math.max(0, lastDay - firstDay + 1)];
+                        for (int i = 0; i < perDay.length; i++) {
+                            perDay[i] = ControllerDailyCount.fromValue(days.get(AdherenceCalculator.dateKey(firstDay + i)));
+                        }
+                        callback.onResult(firstDay, perDay);
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        callback.onError(message);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(String message) {
+                callback.onError(message);
+            }
+        });
+    }
+
+    private static void queryWindow(UserTreeRepository repo, String nodePath, final int firstDay, final int lastDay,
+                                    final WindowCallback callback) {
+        TreeQuery window = TreeQuery.orderByKey()
+                .startAt(AdherenceCalculator.dateKey(firstDay))
+                .endAt(AdherenceCalculator.dateKey(lastDay));
+        repo.query(nodePath, window, new UserTreeRepository.NodeCallback() {
+            @Override
+            public void onResult(TreeNode days) {
+                ControllerDailyCount[] perDay = new ControllerDailyCount[Math.max(0, lastDay - firstDay + 1)];
+                for (int i = 0; i < perDay.length; i++) {
+                    perDay[i] = ControllerDailyCount.fromValue(
+                            days.child(AdherenceCalculator.dateKey(firstDay + i)).getValue());
+                }
+                callback.onResult(firstDay, perDay);
+            }
+
+            @Override
+            public void onError(String message) {
+                callback.onError(message);
+            }
+        });
+    }
+}
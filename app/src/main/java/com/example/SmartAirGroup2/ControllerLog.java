@@ -12,11 +12,11 @@ package com.example.SmartAirGroup2;
  *              medication was taken. Used to determine which calendar
  *              day the dose belongs to.
  * - medication: String. Name of the medication recorded at the time
- *               of use (e.g., "Flovent"). Currently not used as a
- *               strict filter in adherence calculation, but kept for
- *               display and possible future per-medication adherence.
+ *               of use (e.g., "Flovent"). Counted per medication in the
+ *               controllerDaily counters, so adherence only counts doses
+ *               of the scheduled medication.
  *
- * The adherence engine uses only the timestamp to aggregate how many
+ * The adherence engine uses the timestamp to aggregate how many
  * controller doses were actually taken on each day within a time window.
  */
 
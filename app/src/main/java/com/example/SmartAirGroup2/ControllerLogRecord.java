@@ -0,0 +1,10 @@
+package com.example.SmartAirGroup2;
+
+/**
+ * ControllerLogRecord
+ *
+ * One controller medication dose under logs/controller_log.
+ * See MedicationLogRecord for the fields.
+ */
+public class ControllerLogRecord extends MedicationLogRecord {
+}
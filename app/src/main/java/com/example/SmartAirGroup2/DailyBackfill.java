@@ -0,0 +1,177 @@
+package com.example.SmartAirGroup2;
+
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * DailyBackfill
+ *
+ * Builds a child's per-day counters from the logs they count, for the sessions
+ * that own the child's records:
+ *
+ * - run: rebuild one counters node from its log, for the stores' backfill().
+ *   The node is read first, then the log, and the rebuilt node is stored only
+ *   if the node still holds what was read (UserTreeRepository.compareAndSet).
+ *   A dose counted by a store's transaction in between is never overwritten:
+ *   the rebuild starts over instead, up to ATTEMPTS times.
+ * - ensureInBackground: migrate the child's timestamps (the counters are keyed
+ *   by them), then backfill every counters node that is not built yet. Called
+ *   by the child's and a parent's dashboard, like TimestampMigration; the read
+ *   paths never write, they count from the log until the counters exist.
+ */
+public final class DailyBackfill {
+
+    /** Rebuilds of a node that keeps changing under them before giving up. */
+    static final int ATTEMPTS = 3;
+
+    /** The day nodes for every entry of a log snapshot. */
+    interface Counter {
+        Map<String, Object> countsFromLog(TreeNode log);
+    }
+
+    /** One store's backfill, as ControllerDailyStore.backfill. */
+    interface Backfill {
+        void run(UserTreeRepository repo, String childUname, TimeZone zone, UserTreeRepository.WriteCallback callback);
+    }
+
+    /** Counters nodes under children/{childUname}, their complete marker, and how to build them. */
+    private static final String[] NODES = {
+            ControllerDailyStore.NODE + "/" + ControllerDailyStore.BACKFILLED_AT,
+            RescueDailyStore.NODE + "/" + RescueDailyStore.BACKFILLED_AT,
+            PefDailyStore.NODE + "/" + PefDailyStore.BACKFILLED_AT,
+    };
+    private static final Backfill[] BACKFILLS = {
+            ControllerDailyStore::backfill, RescueDailyStore::backfill, PefDailyStore::backfill,
+    };
+
+    private DailyBackfill() {
+    }
+
+    /**
+     * Replace the node at nodePath with counters built from the log at
+     * logPath, each stamp key set to now, unless the node changes meanwhile.
+     */
+    static void run(UserTreeRepository repo, String nodePath, String logPath, String[] stamps,
+                    Counter counter, UserTreeRepository.WriteCallback callback) {
+        attempt(repo, nodePath, logPath, stamps, counter, ATTEMPTS, callback);
+    }
+
+    private static void attempt(final UserTreeRepository repo, final String nodePath, final String logPath,
+                                final String[] stamps, final Counter counter, final int attemptsLeft,
+                                final UserTreeRepository.WriteCallback callback) {
+        repo.read(nodePath, new UserTreeRepository.NodeCallback() {
+            @Override
+            public void onResult(final TreeNode seen) {
+                repo.read(logPath, new UserTreeRepository.NodeCallback() {
+                    @Override
+                    public void onResult(TreeNode log) {
+                        Map<String, Object> node = new HashMap<>(counter.countsFromLog(log));
+                        long now = System.currentTimeMillis();
+                        for (String stamp : stamps) node.put(stamp, now);
+                        repo.compareAndSet(nodePath, seen.getValue(), node, new UserTreeRepository.SetCallback() {
+                            @Override
+                            public void onResult(boolean committed) {
+                                if (committed) {
+                                    callback.onSuccess();
+                                } else if (attemptsLeft > 1) {
+                                    attempt(repo, nodePath, logPath, stamps, counter, attemptsLeft - 1, callback);
+                                } else {
+                                    callback.onError("Counters kept changing during the backfill.");
+                                }
+                            }
+
+                            @Override
+                            public void onError(String message) {
+                                callback.onError(message);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        callback.onError(message);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(String message) {
+                callback.onError(message);
+            }
+        });
+    }
+
+    /**
+     * Migrate the child's timestamps and build the counters that are missing,
+     * logging failures. For the sessions that own the child's records, never
+     * a provider's read paths.
+     */
+    public static void ensureInBackground(final String childUname) {
+        if (childUname == null || childUname.trim().isEmpty()) return;
+        final UserTreeRepository repo = new FirebaseUserTreeRepository();
+        final UserTreeRepository.WriteCallback logErrors = new UserTreeRepository.WriteCallback() {
+            @Override
+            public void onSuccess() {
+            }
+
+            @Override
+            public void onError(String message) {
+                Log.e("DailyBackfill", "Backfill failed: " + message);
+            }
+        };
+        TimestampMigration.ensure(repo, childUname, new UserTreeRepository.WriteCallback() {
+            @Override
+            public void onSuccess() {
+                ensure(repo, childUname, TimeZone.getDefault(), logErrors);
+            }
+
+            @Override
+            public void onError(String message) {
+                logErrors.onError(message);
+            }
+        });
+    }
+
+    /** Backfill, one after the other, every counters node of the child without its complete marker. */
+    static void ensure(UserTreeRepository repo, String childUname, TimeZone zone,
+                       UserTreeRepository.WriteCallback callback) {
+        ensureFrom(0, repo, childUname, zone, callback);
+    }
+
+    private static void ensureFrom(final int i, final UserTreeRepository repo, final String childUname,
+                                   final TimeZone zone, final UserTreeRepository.WriteCallback callback) {
+        if (i == NODES.length) {
+            callback.onSuccess();
+            return;
+        }
+        final UserTreeRepository.WriteCallback next = new UserTreeRepository.WriteCallback() {
+            @Override
+            public void onSuccess() {
+                ensureFrom(i + 1, repo, childUname, zone, callback);
+            }
+
+            @Override
+            public void onError(String message) {
+                callback.onError(message);
+            }
+        };
+        repo.read("children/" + childUname + "/" + NODES[i], new UserTreeRepository.NodeCallback() {
+            @Override
+            public void onResult(TreeNode marker) {
+                if (marker.exists()) {
+                    next.onSuccess();
+                } else {
+                    BACKFILLS[i].run(repo, childUname, zone, next);
+                }
+            }
+
+            @Override
+            public void onError(String message) {
+                callback.onError(message);
+            }
+        });
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.SmartAirGroup2;
+
+import java.util.TimeZone;
+
+/**
+ * DateCodec
+ *
+ * Parses and formats the app's fixed-width date strings straight between
+ * characters and epoch millis / epoch days (days since 1970-01-01):
+ *
+ *   DATE_DASH       "yyyy-MM-dd"            day keys, streaks
+ *   DATE_SLASH      "yyyy/MM/dd"            filters, inventory, report dates
+ *   MINUTES_DASH    "yyyy-MM-dd HH:mm"      log dateTime
+ *   MINUTES_SLASH   "yyyy/MM/dd HH:mm"      symptom time
+ *   SECONDS_SLASH   "yyyy/MM/dd HH:mm:ss"   triage time
+ *
+ * Parsing reads any of them (the separator and length tell which) and
+ * reports bad input with INVALID / INVALID_DAY rather than an exception, so
+ * it is safe to call per record. No Date, Calendar or SimpleDateFormat is
+ * created: dates go through the civil-calendar arithmetic below (java.time
+ * needs API 26, minSdk is 24) and local times are placed with
+ * TimeZone.getOffset. Every method is static and stateless, so the codec
+ * is thread-safe; formatting allocates only the returned String, or nothing
+ * with write().
+ *
+ * A local time skipped by a DST change is read as the same wall-clock
+ * distance past the change (02:30 becomes 03:30), and a repeated one as its
+ * later (standard-time) instant, as a lenient Calendar does.
+ */
+public final class DateCodec {
+
+    public static final long INVALID = Long.MIN_VALUE;
+    public static final int INVALID_DAY = Integer.MIN_VALUE;
+    public static final long DAY_MS = 24L * 60L * 60L * 1000L;
+
+    public enum Layout {
+        DATE_DASH('-', 10),
+        DATE_SLASH('/', 10),
+        MINUTES_DASH('-', 16),
+        MINUTES_SLASH('/', 16),
+        SECONDS_SLASH('/', 19);
+
+        final char separator;
+        /** Characters written by format(). */
+        public final int length;
+
+        Layout(char separator, int length) {
+            this.separator = separator;
+            this.length = length;
+        }
+    }
+
+    private DateCodec() {
+    }
+
+    // ─────────────────────────────────────────────────────────────────
+    // PARSING
+    // ─────────────────────────────────────────────────────────────────
+
+    /**
+     * Epoch millis of a date string in any layout, read as local time in
+     * zone (midnight for dates without a time). Surrounding whitespace is
+     * ignored. INVALID if the string is not one of the layouts or names a
+     * date or time that does not exist.
+     */
+    public static long parseMillis(CharSequence s, TimeZone zone) {
+        if (s == null) return INVALID;
+        int from = 0;
+        int to = s.length();
+        while (from < to && s.charAt(from) <= ' ') from++;
+        while (to > from && s.charAt(to - 1) <= ' ') to--;
+
+        int day = day(s, from, to);
+        if (day == INVALID_DAY) return INVALID;
+        int n = to - from;
+        if (n == 10) return toUtc(day * DAY_MS, zone);
+
+        if (n != 16 && n != 19) return INVALID;
+        if (s.charAt(from + 10) != ' ' || s.charAt(from + 13) != ':') return INVALID;
+        int hour = digits(s, from + 11, 2);
+        int minute = digits(s, from + 14, 2);
+        int second = 0;
+        if (n == 19) {
+            if (s.charAt(from + 16) != ':') return INVALID;
+            second = digits(s, from + 17, 2);
+        }
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) return INVALID;
+        return toUtc(day * DAY_MS + (hour * 3600L + minute * 60L + second) * 1000L, zone);
+    }
+
+    /**
+     * Epoch day of the date at the start of a string in any layout (the time
+     * of day, if any, is not read). INVALID_DAY if there is no valid date.
+     */
+    public static int parseDay(CharSequence s) {
+        if (s == null || s.length() < 10) return INVALID_DAY;
+        return day(s, 0, s.length());
+    }
+
+    /** Epoch day of "yyyy?MM?dd" at from, with ? either '-' or '/' (the same both times). */
+    private static int day(CharSequence s, int from, int to) {
+        if (to - from < 10) return INVALID_DAY;
+        char sep = s.charAt(from + 4);
+        if ((sep != '-' && sep != '/') || s.charAt(from + 7) != sep) return INVALID_DAY;
+        int y = digits(s, from, 4);
+        int m = digits(s, from + 5, 2);
+        int d = digits(s, from + 8, 2);
+        if (y < 0 || m < 1 || m > 12 || d < 1 || d > daysInMonth(y, m)) return INVALID_DAY;
+        return epochDay(y, m, d);
+    }
+
+    /** Non-negative value of count decimal digits at from, or -1. */
+    private static int digits(CharSequence s, int from, int count) {
+        int v = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    // ─────────────────────────────────────────────────────────────────
+    // FORMATTING
+    // ─────────────────────────────────────────────────────────────────
+
+    /** Local time of millis in zone, in the given layout. */
+    public static String format(long millis, TimeZone zone, Layout layout) {
+        char[] out = new char[layout.length];
+        write(out, 0, millis, zone, layout);
+        return new String(out);
+    }
+
+    /** An epoch day in a date layout (DATE_DASH or DATE_SLASH). */
+    public static String formatDay(int epochDay, Layout layout) {
+        char[] out = new char[10];
+        writeDate(out, 0, civil(epochDay), layout.separator);
+        return new String(out);
+    }
+
+    /**
+     * Write the local time of millis into out at offset at, without
+     * allocating. Returns the offset after the last character written.
+     */
+    public static int write(char[] out, int at, long millis, TimeZone zone, Layout layout) {
+        long local = millis + zone.getOffset(millis);
+        int day = (int) Math.floorDiv(local, DAY_MS);
+        writeDate(out, at, civil(day), layout.separator);
+        if (layout.length == 10) return at + 10;
+
+        int secondOfDay = (int) (Math.floorMod(local, DAY_MS) / 1000);
+        out[at + 10] = ' ';
+        two(out, at + 11, secondOfDay / 3600);
+        out[at + 13] = ':';
+        two(out, at + 14, secondOfDay / 60 % 60);
+        if (layout.length == 16) return at + 16;
+        out[at + 16] = ':';
+        two(out, at + 17, secondOfDay % 60);
+        return at + 19;
+    }
+
+    private static void writeDate(char[] out, int at, int ymd, char sep) {
+        int y = ymd / 10000;
+        two(out, at, y / 100 % 100);
+        two(out, at + 2, y % 100);
+        out[at + 4] = sep;
+        two(out, at + 5, ymd / 100 % 100);
+        out[at + 7] = sep;
+        two(out, at + 8, ymd % 100);
+    }
+
+    private static void two(char[] out, int at, int v) {
+        out[at] = (char) ('0' + v / 10);
+        out[at + 1] = (char) ('0' + v % 10);
+    }
+
+    // ─────────────────────────────────────────────────────────────────
+    // CALENDAR ARITHMETIC
+    // ─────────────────────────────────────────────────────────────────
+
+    /** Days since 1970-01-01 of the local date of millis in zone. */
+    public static int epochDay(long millis, TimeZone zone) {
+        return (int) Math.floorDiv(millis + zone.getOffset(millis), DAY_MS);
+    }
+
+    /** Epoch millis of local midnight at the start of an epoch day. */
+    public static long startOfDay(int epochDay, TimeZone zone) {
+        return toUtc(epochDay * DAY_MS, zone);
+    }
+
+    /** Date of an epoch day packed as yyyyMMdd, e.g. 20250301 (proleptic Gregorian). */
+    public static int civil(int epochDay) {
+        // civil-from-days: shift to 0000-03-01 so leap days fall at the end of a year
+        long z = epochDay + 719468L;
+        long era = Math.floorDiv(z, 146097L);
+        long doe = z - era * 146097L;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int d = (int) (doy - (153 * mp + 2) / 5 + 1);
+        int m = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int y = (int) (yoe + era * 400 + (m <= 2 ? 1 : 0));
+        return y * 10000 + m * 100 + d;
+    }
+
+    /** Epoch day of a date; month 1..12. Inverse of civil. */
+    public static int epochDay(int year, int month, int day) {
+        // days-from-civil, same March-based year as civil
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400L);
+        long yoe = y - era * 400;
+        long doy = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return (int) (era * 146097 + doe - 719468);
+    }
+
+    /**
+     * The same day of the month, months later (earlier if negative), moved
+     * back to the last day of a shorter month as Calendar.add does.
+     */
+    public static int plusMonths(int epochDay, int months) {
+        int ymd = civil(epochDay);
+        int index = ymd / 10000 * 12 + ymd / 100 % 100 - 1 + months;
+        int y = Math.floorDiv(index, 12);
+        int m = Math.floorMod(index, 12) + 1;
+        return epochDay(y, m, Math.min(ymd % 100, daysInMonth(y, m)));
+    }
+
+    static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            boolean leap = year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+            return leap ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    /** UTC millis of a local wall-clock time (millis since local 1970-01-01 00:00). */
+    private static long toUtc(long local, TimeZone zone) {
+        long guess = local - zone.getOffset(local - zone.getRawOffset());
+        return local - zone.getOffset(guess);
+    }
+}
@@ -22,6 +22,7 @@ import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
+import com.example.SmartAirGroup2.auth.data.repo.CredentialIndex;
 import com.example.SmartAirGroup2.models.User;
 
 import java.util.HashMap;
@@ -104,6 +105,9 @@ public class EnterInviteCodeFragment extends Fragment {
 
                 updates.put("categories/users/provider/" + providerUname, newProviderData);
 
+                updates.put(CredentialIndex.path("provider", providerUname), CredentialIndex.entry(
+                        providerUname, "provider@smart-air.com", providerPassword, "Provider"));
+
                 updates.put("categories/users/parents/" + parentUname + "/providers/" + providerUname, providerUname);
 
                 updates.put("provider_invites/" + code, null);
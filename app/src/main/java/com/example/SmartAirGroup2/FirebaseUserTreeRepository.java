@@ -0,0 +1,178 @@
+package com.example.SmartAirGroup2;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.Transaction;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * FirebaseUserTreeRepository
+ *
+ * Production UserTreeRepository: every read is one addListenerForSingleValueEvent
+ * on categories/users/{path}, and the snapshot is handed over wrapped, so no
+ * values are copied until a read path asks for them.
+ */
+public class FirebaseUserTreeRepository implements UserTreeRepository {
+
+    private final DatabaseReference usersRoot;
+
+    public FirebaseUserTreeRepository() {
+        this(FirebaseDatabase.getInstance().getReference("categories").child("users"));
+    }
+
+    public FirebaseUserTreeRepository(DatabaseReference usersRoot) {
+        this.usersRoot = usersRoot;
+    }
+
+    public DatabaseReference ref(String path) {
+        return usersRoot.child(path);
+    }
+
+    @Override
+    public void read(String path, NodeCallback callback) {
+        ref(path).addListenerForSingleValueEvent(listener(callback));
+    }
+
+    @Override
+    public void query(String path, TreeQuery query, NodeCallback callback) {
+        Query q = query.orderBy == null ? ref(path).orderByKey() : ref(path).orderByChild(query.orderBy);
+        if (query.start instanceof String) {
+            q = query.startExclusive ? q.startAfter((String) query.start) : q.startAt((String) query.start);
+        }
+        if (query.start instanceof Double) {
+            q = query.startExclusive ? q.startAfter((Double) query.start) : q.startAt((Double) query.start);
+        }
+        if (query.end instanceof String) {
+            q = query.endExclusive ? q.endBefore((String) query.end) : q.endAt((String) query.end);
+        }
+        if (query.end instanceof Double) {
+            q = query.endExclusive ? q.endBefore((Double) query.end) : q.endAt((Double) query.end);
+        }
+        if (query.limitToFirst > 0) q = q.limitToFirst(query.limitToFirst);
+        if (query.limitToLast > 0) q = q.limitToLast(query.limitToLast);
+        q.addListenerForSingleValueEvent(listener(callback));
+    }
+
+    @Override
+    public void write(String path, Object value, final WriteCallback callback) {
+        ref(path).setValue(value, (error, ref) -> {
+            if (error == null) {
+                callback.onSuccess();
+            } else {
+                callback.onError(error.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void update(String path, Map<String, Object> values, final WriteCallback callback) {
+        ref(path).updateChildren(values, (error, ref) -> {
+            if (error == null) {
+                callback.onSuccess();
+            } else {
+                callback.onError(error.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void compareAndSet(String path, final Object expected, final Object value, final SetCallback callback) {
+        ref(path).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData data) {
+                Object current = data.getValue();
+                // The first try may see null for a node not cached yet; the
+                // server rejects that guess if it holds something else and
+                // the handler runs again with the stored value
+                if (current != null && !current.equals(expected)) return Transaction.abort();
+                data.setValue(value);
+                return Transaction.success(data);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                if (error == null) {
+                    callback.onResult(committed);
+                } else {
+                    callback.onError(error.getMessage());
+                }
+            }
+        });
+    }
+
+    private static ValueEventListener listener(final NodeCallback callback) {
+        return new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                callback.onResult(new SnapshotNode(snapshot));
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onError(error.getMessage());
+            }
+        };
+    }
+
+    /** TreeNode over a DataSnapshot. */
+    static final class SnapshotNode implements TreeNode {
+        private final DataSnapshot snapshot;
+
+        SnapshotNode(DataSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public String getKey() {
+            return snapshot.getKey();
+        }
+
+        @Override
+        public boolean exists() {
+            return snapshot.exists();
+        }
+
+        @Override
+        public TreeNode child(String path) {
+            return new SnapshotNode(snapshot.child(path));
+        }
+
+        @Override
+        public Iterable<TreeNode> getChildren() {
+            return () -> {
+                final Iterator<DataSnapshot> it = snapshot.getChildren().iterator();
+                return new Iterator<TreeNode>() {
+                    @Override
+                    public boolean hasNext() {
+                        return it.hasNext();
+                    }
+
+                    @Override
+                    public TreeNode next() {
+                        return new SnapshotNode(it.next());
+                    }
+                };
+            };
+        }
+
+        @Override
+        public long getChildrenCount() {
+            return snapshot.getChildrenCount();
+        }
+
+        @Override
+        public Object getValue() {
+            return snapshot.getValue();
+        }
+    }
+}
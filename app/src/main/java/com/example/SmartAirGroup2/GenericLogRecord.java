@@ -0,0 +1,28 @@
+package com.example.SmartAirGroup2;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * GenericLogRecord
+ *
+ * Entry from a log group without a typed record. Unknown fields are kept
+ * as-is so they can still be displayed.
+ */
+public class GenericLogRecord extends LogRecord {
+
+    public final Map<String, Object> fields = new LinkedHashMap<>();
+
+    @Override
+    protected boolean set(String field, Object v) {
+        if (super.set(field, v)) return true;
+        fields.put(field, v);
+        return true;
+    }
+
+    @Override
+    public boolean contentEquals(LogRecord o) {
+        return super.contentEquals(o) && Objects.equals(fields, ((GenericLogRecord) o).fields);
+    }
+}
@@ -0,0 +1,390 @@
+package com.example.SmartAirGroup2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * InMemoryUserTreeRepository
+ *
+ * UserTreeRepository over a plain Java tree, for running the read paths on the
+ * JVM (tests, benchmarks, seeded demo data). Behaves like RTDB where the read
+ * paths can tell:
+ *
+ * - children iterate in RTDB key order (integer-like keys first, numerically);
+ * - queries order by a child value (null < booleans < numbers < strings < maps,
+ *   ties by key) or by key, then apply the range and limitToFirst/limitToLast;
+ * - update() applies all of its paths under one lock, like a multi-path update;
+ * - compareAndSet() compares and writes under that lock, like a transaction;
+ * - every read returns a fresh copy of the selected nodes, like a snapshot.
+ *
+ * Each read also counts the nodes it materialised, which is what a snapshot
+ * costs on the wire, so read paths can be compared by nodes read as well as
+ * by time. Callbacks run synchronously on the calling thread.
+ */
+public class InMemoryUserTreeRepository implements UserTreeRepository {
+
+    /** RTDB key order: 32-bit integer keys first (numerically), then the rest lexicographically. */
+    static final Comparator<String> KEY_ORDER = (a, b) -> {
+        Integer ia = intKey(a);
+        Integer ib = intKey(b);
+        if (ia != null && ib != null) {
+            int c = Integer.compare(ia, ib);
+            return c != 0 ? c : a.compareTo(b);
+        }
+        if (ia != null) return -1;
+        if (ib != null) return 1;
+        return a.compareTo(b);
+    };
+
+    private final Map<String, Object> root = new TreeMap<>(KEY_ORDER);
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong nodesRead = new AtomicLong();
+
+    // ─────────────────────────────────────────────────────────────────
+    // WRITES (seeding)
+    // ─────────────────────────────────────────────────────────────────
+
+    /**
+     * Set the value at a path, replacing what was there. Maps are stored as
+     * nested nodes; null removes the node. Integers are stored as Long and
+     * floats as Double, as RTDB returns them.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized void put(String path, Object value) {
+        String[] parts = split(path);
+        if (parts.length == 0) {
+            root.clear();
+            if (value instanceof Map) root.putAll((Map<String, Object>) normalize(value));
+            return;
+        }
+        Map<String, Object> node = root;
+        List<Map<String, Object>> trail = new ArrayList<>();
+        for (int i = 0; i < parts.length - 1; i++) {
+            trail.add(node);
+            Object next = node.get(parts[i]);
+            if (!(next instanceof Map)) {
+                if (value == null) return;
+                next = new TreeMap<String, Object>(KEY_ORDER);
+                node.put(parts[i], next);
+            }
+            node = (Map<String, Object>) next;
+        }
+        Object stored = normalize(value);
+        if (stored == null) {
+            node.remove(parts[parts.length - 1]);
+            // RTDB drops nodes left without children
+            for (int i = parts.length - 2; i >= 0 && node.isEmpty(); i--) {
+                Map<String, Object> parent = trail.get(i);
+                parent.remove(parts[i]);
+                node = parent;
+            }
+        } else {
+            node.put(parts[parts.length - 1], stored);
+        }
+    }
+
+    /** Raw stored value at a path (not counted as a read). */
+    public synchronized Object get(String path) {
+        return lookup(path);
+    }
+
+    // ─────────────────────────────────────────────────────────────────
+    // READS
+    // ─────────────────────────────────────────────────────────────────
+
+    @Override
+    public void read(String path, NodeCallback callback) {
+        TreeNode node;
+        synchronized (this) {
+            Object value = copy(lookup(path));
+            node = new MapNode(lastSegment(path), value);
+        }
+        reads.incrementAndGet();
+        callback.onResult(node);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void query(String path, TreeQuery query, NodeCallback callback) {
+        TreeNode node;
+        synchronized (this) {
+            Object value = lookup(path);
+            Map<String, Object> out = null;
+            if (value instanceof Map) {
+                List<Map.Entry<String, Object>> selected = new ArrayList<>();
+                for (Map.Entry<String, Object> e : ((Map<String, Object>) value).entrySet()) {
+                    if (query.orderBy == null ? keyInRange(e.getKey(), query)
+                            : inRange(orderValue(e.getValue(), query.orderBy), query)) {
+                        selected.add(e);
+                    }
+                }
+                // stored maps are already in key order
+                if (query.orderBy != null) {
+                    Collections.sort(selected, (a, b) -> {
+                        int c = compareValues(orderValue(a.getValue(), query.orderBy),
+                                orderValue(b.getValue(), query.orderBy));
+                        return c != 0 ? c : KEY_ORDER.compare(a.getKey(), b.getKey());
+                    });
+                }
+                int from = query.limitToLast > 0 ? Math.max(0, selected.size() - query.limitToLast) : 0;
+                int to = query.limitToFirst > 0 ? Math.min(selected.size(), query.limitToFirst) : selected.size();
+                out = new LinkedHashMap<>();
+                for (int i = from; i < to; i++) {
+                    Map.Entry<String, Object> e = selected.get(i);
+                    out.put(e.getKey(), copy(e.getValue()));
+                }
+                if (out.isEmpty()) out = null;
+            }
+            node = new MapNode(lastSegment(path), out);
+        }
+        reads.incrementAndGet();
+        callback.onResult(node);
+    }
+
+    @Override
+    public void write(String path, Object value, WriteCallback callback) {
+        put(path, value);
+        callback.onSuccess();
+    }
+
+    @Override
+    public void update(String path, Map<String, Object> values, WriteCallback callback) {
+        synchronized (this) {
+            for (Map.Entry<String, Object> e : values.entrySet()) {
+                put(path + "/" + e.getKey(), e.getValue());
+            }
+        }
+        callback.onSuccess();
+    }
+
+    @Override
+    public void compareAndSet(String path, Object expected, Object value, SetCallback callback) {
+        boolean committed;
+        synchronized (this) {
+            Object current = lookup(path);
+            committed = current == null ? expected == null : current.equals(normalize(expected));
+            if (committed) put(path, value);
+        }
+        callback.onResult(committed);
+    }
+
+    // ─────────────────────────────────────────────────────────────────
+    // STATS
+    // ─────────────────────────────────────────────────────────────────
+
+    /** Number of read / query calls since the last reset. */
+    public long getReads() {
+        return reads.get();
+    }
+
+    /** Nodes (inner nodes and leaves) returned by those reads. */
+    public long getNodesRead() {
+        return nodesRead.get();
+    }
+
+    public void resetStats() {
+        reads.set(0);
+        nodesRead.set(0);
+    }
+
+    // ─────────────────────────────────────────────────────────────────
+    // HELPERS
+    // ─────────────────────────────────────────────────────────────────
+
+    private Object lookup(String path) {
+        Object node = root;
+        for (String part : split(path)) {
+            if (!(node instanceof Map)) return null;
+            node = ((Map<?, ?>) node).get(part);
+        }
+        return node;
+    }
+
+    /** Snapshot copy of a stored subtree; counts every node copied. */
+    @SuppressWarnings("unchecked")
+    private Object copy(Object value) {
+        if (value == null) return null;
+        nodesRead.incrementAndGet();
+        if (!(value instanceof Map)) return value;
+        Map<String, Object> src = (Map<String, Object>) value;
+        Map<String, Object> out = new LinkedHashMap<>(src.size() * 4 / 3 + 1);
+        for (Map.Entry<String, Object> e : src.entrySet()) {
+            out.put(e.getKey(), copy(e.getValue()));
+        }
+        return out;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object normalize(Object value) {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Float) return ((Float) value).doubleValue();
+        if (!(value instanceof Map)) return value;
+        Map<String, Object> out = new TreeMap<>(KEY_ORDER);
+        for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+            Object v = normalize(e.getValue());
+            if (v != null) out.put(String.valueOf(e.getKey()), v);
+        }
+        return out.isEmpty() ? null : out;
+    }
+
+    private static Object orderValue(Object node, String orderBy) {
+        if (!(node instanceof Map)) return null;
+        Object v = node;
+        for (String part : split(orderBy)) {
+            if (!(v instanceof Map)) return null;
+            v = ((Map<?, ?>) v).get(part);
+        }
+        return v;
+    }
+
+    private static boolean inRange(Object v, TreeQuery q) {
+        if (q.start != null) {
+            int c = compareValues(v, q.start);
+            if (q.startExclusive ? c <= 0 : c < 0) return false;
+        }
+        if (q.end != null) {
+            int c = compareValues(v, q.end);
+            if (q.endExclusive ? c >= 0 : c > 0) return false;
+        }
+        return true;
+    }
+
+    private static boolean keyInRange(String key, TreeQuery q) {
+        if (q.start != null) {
+            int c = KEY_ORDER.compare(key, String.valueOf(q.start));
+            if (q.startExclusive ? c <= 0 : c < 0) return false;
+        }
+        if (q.end != null) {
+            int c = KEY_ORDER.compare(key, String.valueOf(q.end));
+            if (q.endExclusive ? c >= 0 : c > 0) return false;
+        }
+        return true;
+    }
+
+    /** RTDB value order: null, false, true, numbers, strings, maps. */
+    static int compareValues(Object a, Object b) {
+        int ra = rank(a);
+        int rb = rank(b);
+        if (ra != rb) return Integer.compare(ra, rb);
+        switch (ra) {
+            case 1:
+                return Boolean.compare((Boolean) a, (Boolean) b);
+            case 2:
+                return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+            case 3:
+                return ((String) a).compareTo((String) b);
+            default:
+                return 0;
+        }
+    }
+
+    private static int rank(Object v) {
+        if (v == null) return 0;
+        if (v instanceof Boolean) return 1;
+        if (v instanceof Number) return 2;
+        if (v instanceof String) return 3;
+        return 4;
+    }
+
+    private static Integer intKey(String key) {
+        int n = key.length();
+        if (n == 0 || n > 11) return null;
+        int i = key.charAt(0) == '-' ? 1 : 0;
+        if (i == n) return null;
+        // "007" and "-0" are not integer keys in RTDB
+        if (key.charAt(i) == '0' && (n > i + 1 || i == 1)) return null;
+        long v = 0;
+        for (; i < n; i++) {
+            char c = key.charAt(i);
+            if (c < '0' || c > '9') return null;
+            v = v * 10 + (c - '0');
+        }
+        if (key.charAt(0) == '-') v = -v;
+        return v < Integer.MIN_VALUE || v > Integer.MAX_VALUE ? null : (int) v;
+    }
+
+    private static String[] split(String path) {
+        if (path == null) return new String[0];
+        String p = path;
+        while (p.startsWith("/")) p = p.substring(1);
+        while (p.endsWith("/")) p = p.substring(0, p.length() - 1);
+        return p.isEmpty() ? new String[0] : p.split("/");
+    }
+
+    private static String lastSegment(String path) {
+        String[] parts = split(path);
+        return parts.length == 0 ? null : parts[parts.length - 1];
+    }
+
+    /** TreeNode over a copied value. */
+    static final class MapNode implements TreeNode {
+        private final String key;
+        private final Object value;
+
+        MapNode(String key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public boolean exists() {
+            return value != null;
+        }
+
+        @Override
+        public TreeNode child(String path) {
+            Object v = value;
+            String[] parts = split(path);
+            for (String part : parts) {
+                v = v instanceof Map ? ((Map<?, ?>) v).get(part) : null;
+            }
+            return new MapNode(parts.length == 0 ? key : parts[parts.length - 1], v);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Iterable<TreeNode> getChildren() {
+            if (!(value instanceof Map)) return Collections.emptyList();
+            final Map<String, Object> map = (Map<String, Object>) value;
+            return () -> {
+                final Iterator<Map.Entry<String, Object>> it = map.entrySet().iterator();
+                return new Iterator<TreeNode>() {
+                    @Override
+                    public boolean hasNext() {
+                        return it.hasNext();
+                    }
+
+                    @Override
+                    public TreeNode next() {
+                        Map.Entry<String, Object> e = it.next();
+                        return new MapNode(e.getKey(), e.getValue());
+                    }
+                };
+            };
+        }
+
+        @Override
+        public long getChildrenCount() {
+            return value instanceof Map ? ((Map<?, ?>) value).size() : 0;
+        }
+
+        @Override
+        public Object getValue() {
+            return value;
+        }
+    }
+}
@@ -38,12 +38,9 @@ import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
+import java.util.TimeZone;
 
 /**
  * InventoryFragment
@@ -263,17 +260,11 @@ public class InventoryFragment extends Fragment {
         }
 
         // 2. Check expiration
-        try {
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy/MM/dd", Locale.getDefault());
-
-            Date expDate = sdf.parse(expireDate);
-            Date today = Calendar.getInstance().getTime();
-
-            if (expDate != null && expDate.before(today)) {
-                statusList.add(2); // Expired
-            }
-        } catch (Exception e) {
+        long expires = DateCodec.parseMillis(expireDate, TimeZone.getDefault());
+        if (expires == DateCodec.INVALID) {
             Log.e("updateStatus", "⚠️ Date parse error for: " + expireDate);
+        } else if (expires < System.currentTimeMillis()) {
+            statusList.add(2); // Expired
         }
 
         // 3. Upload updated status list (empty means no issues)
@@ -0,0 +1,209 @@
+package com.example.SmartAirGroup2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LogFeed
+ *
+ * In-memory, ordered model of a child's logs (PEF_log, controller_log,
+ * rescue_log) that is fed one child event at a time instead of re-reading the
+ * whole logs node. Every added / changed / removed event is applied to a list
+ * sorted newest first, and only the resulting position change is reported to
+ * the Listener, so the UI can insert or remove a single row.
+ *
+ * The feed keeps every entry it has seen; the current category filter and
+ * the paging horizon (see LogPager) only decide which of them are visible.
+ * Changing either is local and reported as a single reset.
+ *
+ * Entries are typed LogRecords (see LogRecordDecoder).
+ *
+ * Plain Java: no Android or Firebase types, so it can be unit tested directly.
+ */
+public class LogFeed {
+
+    /** Receives the minimal changes to the visible list. Positions are in the visible list. */
+    public interface Listener {
+        void onInserted(int position, LogRecord entry);
+        void onChanged(int position, LogRecord entry);
+        void onMoved(int fromPosition, int toPosition, LogRecord entry);
+        void onRemoved(int position, LogRecord entry);
+
+        /** The visible list was replaced wholesale (filter change or clear). */
+        void onReset(List<LogRecord> visible);
+    }
+
+    /** Newest first; ties are broken by id so the order is stable. */
+    static final Comparator<LogRecord> NEWEST_FIRST = (a, b) -> {
+        int c = Long.compare(b.timestamp, a.timestamp);
+        return c != 0 ? c : a.id().compareTo(b.id());
+    };
+
+    private final Map<String, LogRecord> all = new HashMap<>();
+    private final List<LogRecord> visible = new ArrayList<>();
+    private String filter = "all";
+    private long horizon = Long.MIN_VALUE;
+    private Listener listener;
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public String getFilter() {
+        return filter;
+    }
+
+    /**
+     * Change the category filter ("all", "pef", "medication", "inhaler").
+     * No data is re-read; the visible list is rebuilt from what the feed holds.
+     */
+    public void setFilter(String filter) {
+        this.filter = filter == null ? "all" : filter;
+        rebuild();
+    }
+
+    /**
+     * Hide entries older than {@code horizon}. Used while paging several groups,
+     * so rows from a group that has not been read that far back are not skipped.
+     */
+    public void setHorizon(long horizon) {
+        if (this.horizon == horizon) return;
+        this.horizon = horizon;
+        rebuild();
+    }
+
+    private void rebuild() {
+        visible.clear();
+        for (LogRecord e : all.values()) {
+            if (matches(e)) visible.add(e);
+        }
+        Collections.sort(visible, NEWEST_FIRST);
+        if (listener != null) listener.onReset(Collections.unmodifiableList(visible));
+    }
+
+    /** Drop everything, e.g. when the listeners are detached. */
+    public void clear() {
+        all.clear();
+        visible.clear();
+        if (listener != null) listener.onReset(Collections.unmodifiableList(visible));
+    }
+
+    /** Read-only view of the visible entries, newest first. */
+    public List<LogRecord> visible() {
+        return Collections.unmodifiableList(visible);
+    }
+
+    public int size() {
+        return visible.size();
+    }
+
+    public LogRecord get(int position) {
+        return visible.get(position);
+    }
+
+    // ─────────────────────────────────────────────────────────────────
+    // EVENTS
+    // ─────────────────────────────────────────────────────────────────
+
+    /** A child was added under a log group. Non-map values are ignored. */
+    public void onChildAdded(String groupKey, String nodeKey, Object value) {
+        onChildAdded(LogRecordDecoder.decode(groupKey, nodeKey, value));
+    }
+
+    /** A decoded entry was added. Null (not a log entry) is ignored. */
+    public void onChildAdded(LogRecord entry) {
+        if (entry == null) return;
+        if (all.containsKey(entry.id())) {
+            // Re-delivered after a reconnect: treat as an update
+            onChildChanged(entry);
+            return;
+        }
+        all.put(entry.id(), entry);
+        if (matches(entry)) {
+            int pos = insertionPoint(entry);
+            visible.add(pos, entry);
+            if (listener != null) listener.onInserted(pos, entry);
+        }
+    }
+
+    /** A child under a log group changed. */
+    public void onChildChanged(String groupKey, String nodeKey, Object value) {
+        LogRecord updated = LogRecordDecoder.decode(groupKey, nodeKey, value);
+        if (updated == null) {
+            onChildRemoved(groupKey, nodeKey);
+            return;
+        }
+        onChildChanged(updated);
+    }
+
+    /** A decoded entry changed. */
+    public void onChildChanged(LogRecord updated) {
+        if (updated == null) return;
+        LogRecord previous = all.put(updated.id(), updated);
+        if (previous == null) {
+            all.remove(updated.id());
+            onChildAdded(updated);
+            return;
+        }
+
+        int from = matches(previous) ? indexOf(previous) : -1;
+        boolean show = matches(updated);
+
+        if (from < 0 && !show) return;
+        if (from < 0) {
+            int pos = insertionPoint(updated);
+            visible.add(pos, updated);
+            if (listener != null) listener.onInserted(pos, updated);
+            return;
+        }
+        visible.remove(from);
+        if (!show) {
+            if (listener != null) listener.onRemoved(from, previous);
+            return;
+        }
+        int to = insertionPoint(updated);
+        visible.add(to, updated);
+        if (listener != null) {
+            if (from != to) listener.onMoved(from, to, updated);
+            listener.onChanged(to, updated);
+        }
+    }
+
+    /** A child was removed from a log group. */
+    public void onChildRemoved(String groupKey, String nodeKey) {
+        LogRecord previous = all.remove(groupKey + "/" + nodeKey);
+        if (previous == null || !matches(previous)) return;
+        int pos = indexOf(previous);
+        if (pos < 0) return;
+        visible.remove(pos);
+        if (listener != null) listener.onRemoved(pos, previous);
+    }
+
+    // ─────────────────────────────────────────────────────────────────
+    // HELPERS
+    // ─────────────────────────────────────────────────────────────────
+
+    /** True when two entries would render identically (used for list diffing). */
+    static boolean sameContent(LogRecord a, LogRecord b) {
+        return a.contentEquals(b);
+    }
+
+    private boolean matches(LogRecord e) {
+        if (e.timestamp < horizon) return false;
+        return "all".equals(filter) || filter.equalsIgnoreCase(e.type);
+    }
+
+    private int insertionPoint(LogRecord e) {
+        int i = Collections.binarySearch(visible, e, NEWEST_FIRST);
+        return i >= 0 ? i : -(i + 1);
+    }
+
+    private int indexOf(LogRecord e) {
+        int i = Collections.binarySearch(visible, e, NEWEST_FIRST);
+        return i >= 0 && visible.get(i).id().equals(e.id()) ? i : -1;
+    }
+}
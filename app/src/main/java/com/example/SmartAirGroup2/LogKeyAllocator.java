@@ -0,0 +1,126 @@
+package com.example.SmartAirGroup2;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Transaction;
+import com.google.firebase.database.ValueEventListener;
+
+/**
+ * LogKeyAllocator
+ *
+ * Hands out sequential node keys ("PEF12", "rescue7", "incident3") for a log
+ * group without reading the group. Each group has a counter node that is
+ * advanced with a Firebase transaction, so parent and child logging at the same
+ * time always get different keys and a save costs one tiny read-modify-write.
+ *
+ * Counters live outside the log groups so readers that iterate a group never
+ * see them:
+ *
+ *   categories/users/children/{childUname}/counters/{groupKey} : Long
+ *
+ * Existing keys are left untouched. The first allocation for a group that has
+ * no counter yet scans the group once to find the highest numeric suffix and
+ * seeds the counter from it; every later allocation is O(1).
+ */
+public class LogKeyAllocator {
+
+    public interface KeyCallback {
+        void onKey(String key);
+        void onError(String message);
+    }
+
+    /**
+     * Allocate the next key for a group.
+     *
+     * @param counterRef reference to the group's counter node
+     * @param groupRef   reference to the group itself, only read when seeding
+     * @param prefix     key prefix, e.g. "PEF"
+     */
+    public static void allocate(DatabaseReference counterRef, DatabaseReference groupRef,
+                                String prefix, KeyCallback callback) {
+        runAllocation(counterRef, groupRef, prefix, -1, callback);
+    }
+
+    private static void runAllocation(DatabaseReference counterRef, DatabaseReference groupRef,
+                                      String prefix, long floor, KeyCallback callback) {
+        counterRef.runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData data) {
+                Long next = step(data.getValue(Long.class), floor);
+                // Leaving the value null still commits, and tells us the counter really is absent
+                if (next != null) data.setValue(next);
+                return Transaction.success(data);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                if (error != null) {
+                    callback.onError(error.getMessage());
+                    return;
+                }
+                Long value = snapshot == null ? null : snapshot.getValue(Long.class);
+                if (committed && value != null) {
+                    callback.onKey(prefix + value);
+                    return;
+                }
+                if (floor >= 0) {
+                    callback.onError("Could not allocate a key for " + prefix);
+                    return;
+                }
+
+                // No counter yet: seed it once from the keys already in the group
+                groupRef.addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot groupSnap) {
+                        long max = 0;
+                        for (DataSnapshot child : groupSnap.getChildren()) {
+                            max = Math.max(max, numericSuffix(child.getKey()));
+                        }
+                        runAllocation(counterRef, groupRef, prefix, max, callback);
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError e) {
+                        callback.onError(e.getMessage());
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Transaction step. Returns the new counter value, or null when the counter
+     * is absent and no floor is known yet (the caller must seed first).
+     *
+     * @param current counter value as seen by the transaction, may be null
+     * @param floor   highest suffix already used in the group, or -1 if unknown
+     */
+    static Long step(Long current, long floor) {
+        if (current == null && floor < 0) {
+            return null;
+        }
+        long base = current == null ? 0 : current;
+        return Math.max(base, floor) + 1;
+    }
+
+    /**
+     * Trailing decimal digits of a key ("PEF12" -> 12), or 0 if there are none.
+     * Scans characters directly instead of compiling a regex per key.
+     */
+    static long numericSuffix(String key) {
+        if (key == null) return 0;
+        int i = key.length();
+        while (i > 0 && Character.isDigit(key.charAt(i - 1))) i--;
+        if (i == key.length() || key.length() - i > 18) return 0;
+        long value = 0;
+        for (int j = i; j < key.length(); j++) {
+            value = value * 10 + (key.charAt(j) - '0');
+        }
+        return value;
+    }
+}
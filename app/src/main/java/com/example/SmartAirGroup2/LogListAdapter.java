@@ -0,0 +1,302 @@
+package com.example.SmartAirGroup2;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * LogListAdapter
+ *
+ * Recycled list of log rows for ChildLogsFragment and ProviderRescueLogsFragment.
+ * Only the rows on screen hold views, so memory no longer grows with history.
+ *
+ * - Stable ids: each entry's "group/node" id is mapped to a long once.
+ * - View types: PEF (item_log_pef: the reading on its own line), medication
+ *   (item_log_medication, controller and rescue: medication and dose lines)
+ *   and other (item_log: every field as text). Each type has its own layout
+ *   and holder, so a recycled row is rebound with the fields it was created
+ *   for.
+ * - Updates: as a LogFeed.Listener it applies the feed's single-row changes
+ *   directly; whole-list replacements go through submitList(), which uses
+ *   DiffUtil so only the rows that really changed are rebound.
+ *
+ * Pass a null DeleteListener for read-only lists; the delete button is hidden.
+ */
+public class LogListAdapter extends RecyclerView.Adapter<LogListAdapter.LogViewHolder>
+        implements LogFeed.Listener {
+
+    public interface DeleteListener {
+        void onDelete(LogRecord entry);
+    }
+
+    static final int TYPE_PEF = 0;
+    static final int TYPE_MEDICATION = 1;
+    static final int TYPE_OTHER = 2;
+
+    private final List<LogRecord> items = new ArrayList<>();
+    private final Map<String, Long> stableIds = new HashMap<>();
+    private final DeleteListener deleteListener;
+
+    public LogListAdapter(@Nullable DeleteListener deleteListener) {
+        this.deleteListener = deleteListener;
+        setHasStableIds(true);
+    }
+
+    // ─────────────────────────────────────────────────────────────────
+    // DATA
+    // ─────────────────────────────────────────────────────────────────
+
+    /**
+     * Replace the whole list, dispatching only the differences.
+     */
+    public void submitList(List<LogRecord> newItems) {
+        final List<LogRecord> oldItems = new ArrayList<>(items);
+        final List<LogRecord> next = new ArrayList<>(newItems);
+
+        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldItems.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return next.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPos, int newPos) {
+                return oldItems.get(oldPos).id().equals(next.get(newPos).id());
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPos, int newPos) {
+                return LogFeed.sameContent(oldItems.get(oldPos), next.get(newPos));
+            }
+        });
+
+        items.clear();
+        items.addAll(next);
+        diff.dispatchUpdatesTo(this);
+    }
+
+    public LogRecord getItem(int position) {
+        return items.get(position);
+    }
+
+    @Override
+    public int getItemCount() {
+        return items.size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        String id = items.get(position).id();
+        Long stable = stableIds.get(id);
+        if (stable == null) {
+            stable = (long) stableIds.size();
+            stableIds.put(id, stable);
+        }
+        return stable;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return viewTypeFor(items.get(position));
+    }
+
+    static int viewTypeFor(LogRecord record) {
+        if (record instanceof PefLogRecord) return TYPE_PEF;
+        if (record instanceof MedicationLogRecord) return TYPE_MEDICATION;
+        return TYPE_OTHER;
+    }
+
+    // ─────────────────────────────────────────────────────────────────
+    // LogFeed.Listener
+    // ─────────────────────────────────────────────────────────────────
+
+    @Override
+    public void onInserted(int position, LogRecord entry) {
+        items.add(position, entry);
+        notifyItemInserted(position);
+    }
+
+    @Override
+    public void onChanged(int position, LogRecord entry) {
+        items.set(position, entry);
+        notifyItemChanged(position);
+    }
+
+    @Override
+    public void onMoved(int fromPosition, int toPosition, LogRecord entry) {
+        items.add(toPosition, items.remove(fromPosition));
+        notifyItemMoved(fromPosition, toPosition);
+    }
+
+    @Override
+    public void onRemoved(int position, LogRecord entry) {
+        items.remove(position);
+        notifyItemRemoved(position);
+    }
+
+    @Override
+    public void onReset(List<LogRecord> visible) {
+        submitList(visible);
+    }
+
+    // ─────────────────────────────────────────────────────────────────
+    // VIEWS
+    // ─────────────────────────────────────────────────────────────────
+
+    @NonNull
+    @Override
+    public LogViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+        switch (viewType) {
+            case TYPE_PEF:
+                return new PefViewHolder(inflater.inflate(R.layout.item_log_pef, parent, false));
+            case TYPE_MEDICATION:
+                return new MedicationViewHolder(inflater.inflate(R.layout.item_log_medication, parent, false));
+            default:
+                return new LogViewHolder(inflater.inflate(R.layout.item_log, parent, false));
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull LogViewHolder holder, int position) {
+        final LogRecord item = items.get(position);
+
+        String dateText = item.timestamp > 0 ? DateCodec.format(item.timestamp, TimeZone.getDefault(), DateCodec.Layout.MINUTES_DASH) : item.dateTime;
+        String headerText = item.type != null ? item.type.toUpperCase() : "";
+        holder.textView_Header.setText(headerText + (dateText.isEmpty() ? "" : " — " + dateText));
+        holder.bind(item);
+
+        if (deleteListener == null) {
+            holder.textView_Delete.setVisibility(View.GONE);
+            holder.textView_Delete.setOnClickListener(null);
+        } else {
+            holder.textView_Delete.setVisibility(View.VISIBLE);
+            holder.textView_Delete.setOnClickListener(v -> {
+                int pos = holder.getAdapterPosition();
+                if (pos != RecyclerView.NO_POSITION) deleteListener.onDelete(items.get(pos));
+            });
+        }
+    }
+
+    /** The reading of a PEF row. */
+    static String pefValue(PefLogRecord pef) {
+        return pef.hasValue() ? LogRecord.formatNumber(pef.value) : "—";
+    }
+
+    /** The dose line of a medication row: dose and units, or empty. */
+    static String dose(MedicationLogRecord med) {
+        if (med.dose.isEmpty()) return med.units;
+        return med.dose + (med.units.isEmpty() ? "" : " " + med.units);
+    }
+
+    /**
+     * Detail lines for a row, one field per line, skipping empty fields and
+     * the fields the row's layout shows on their own (pefValue, the
+     * medication and dose).
+     */
+    static String details(LogRecord record) {
+        StringBuilder sb = new StringBuilder();
+        if (record instanceof PefLogRecord) {
+            PefLogRecord pef = (PefLogRecord) record;
+            appendLine(sb, "Pre-med value: ", pef.preMedVal);
+            appendLine(sb, "Post-med value: ", pef.postMedVal);
+            appendLine(sb, "Note: ", pef.note);
+        } else if (record instanceof MedicationLogRecord) {
+            MedicationLogRecord med = (MedicationLogRecord) record;
+            appendLine(sb, "Before: ", med.preDose);
+            appendLine(sb, "After: ", med.postDose);
+            appendLine(sb, "Note: ", med.note);
+        } else {
+            appendLine(sb, "type: ", record.type);
+            appendLine(sb, "dateTime: ", record.dateTime);
+            appendLine(sb, "note: ", record.note);
+            if (record instanceof GenericLogRecord) {
+                for (Map.Entry<String, Object> e : ((GenericLogRecord) record).fields.entrySet()) {
+                    appendLine(sb, e.getKey() + ": ", String.valueOf(e.getValue()));
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendLine(StringBuilder sb, String label, String value) {
+        if (value.isEmpty()) return;
+        if (sb.length() > 0) sb.append('\n');
+        sb.append(label).append(value);
+    }
+
+    /** Row of type other (item_log); the typed rows add their own fields. */
+    static class LogViewHolder extends RecyclerView.ViewHolder {
+        TextView textView_Header;
+        TextView textView_Delete;
+        TextView textView_Details;
+
+        public LogViewHolder(@NonNull View itemView) {
+            super(itemView);
+            textView_Header = itemView.findViewById(R.id.tvLogHeader);
+            textView_Delete = itemView.findViewById(R.id.tvLogDelete);
+            textView_Details = itemView.findViewById(R.id.tvLogDetails);
+        }
+
+        /** Fill the fields below the header. */
+        void bind(LogRecord record) {
+            setOrHide(textView_Details, details(record));
+        }
+    }
+
+    static class PefViewHolder extends LogViewHolder {
+        TextView textView_Value;
+
+        PefViewHolder(@NonNull View itemView) {
+            super(itemView);
+            textView_Value = itemView.findViewById(R.id.tvPefValue);
+        }
+
+        @Override
+        void bind(LogRecord record) {
+            super.bind(record);
+            textView_Value.setText(pefValue((PefLogRecord) record));
+        }
+    }
+
+    static class MedicationViewHolder extends LogViewHolder {
+        TextView textView_Medication;
+        TextView textView_Dose;
+
+        MedicationViewHolder(@NonNull View itemView) {
+            super(itemView);
+            textView_Medication = itemView.findViewById(R.id.tvMedication);
+            textView_Dose = itemView.findViewById(R.id.tvDose);
+        }
+
+        @Override
+        void bind(LogRecord record) {
+            super.bind(record);
+            MedicationLogRecord med = (MedicationLogRecord) record;
+            setOrHide(textView_Medication, med.medication);
+            setOrHide(textView_Dose, dose(med));
+        }
+    }
+
+    private static void setOrHide(TextView view, String text) {
+        view.setText(text);
+        view.setVisibility(text.isEmpty() ? View.GONE : View.VISIBLE);
+    }
+}
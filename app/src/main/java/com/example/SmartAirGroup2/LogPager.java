@@ -0,0 +1,166 @@
+package com.example.SmartAirGroup2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LogPager
+ *
+ * Cursor bookkeeping for reading log groups page by page, newest first.
+ * Each group is read with orderByChild("timestamp").limitToLast(PAGE_SIZE);
+ * older pages continue from the group's cursor with endBefore(timestamp, key).
+ *
+ * Because each group is paged on its own, the merged list is only complete
+ * down to the "horizon": the newest of the groups' cursors among groups that
+ * still have older entries. Anything older than that may still be missing
+ * from another group, so the feed hides it until that group catches up.
+ *
+ * Plain Java so the paging rules can be unit tested; PagedLogSource runs the
+ * actual queries.
+ */
+public class LogPager {
+
+    /** Entries requested per group per page. */
+    public static final int PAGE_SIZE = 50;
+
+    /** Paging state for one log group. */
+    public static class Cursor {
+        boolean started;     // first page has arrived
+        boolean exhausted;   // no older entries left
+        boolean loading;     // a page request is in flight
+        long timestamp;      // oldest loaded entry
+        boolean noTimestamp; // ... which has no timestamp (legacy; sorts first, as null)
+        String key;
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /** The oldest loaded entry has no timestamp: continue with endBefore(null, key). */
+        public boolean isTimestampNull() {
+            return noTimestamp;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private final Map<String, Cursor> cursors = new LinkedHashMap<>();
+
+    public LogPager(Collection<String> groups) {
+        for (String group : groups) {
+            cursors.put(group, new Cursor());
+        }
+    }
+
+    /**
+     * Log groups that hold entries for a ChildLogsFragment filter, so only those
+     * groups are queried.
+     *
+     * @param filter "all", "pef", "medication" or "inhaler"
+     */
+    public static List<String> groupsFor(String filter) {
+        if ("pef".equalsIgnoreCase(filter)) return Collections.singletonList("PEF_log");
+        if ("medication".equalsIgnoreCase(filter)) return Collections.singletonList("controller_log");
+        if ("inhaler".equalsIgnoreCase(filter)) return Collections.singletonList("rescue_log");
+        return Arrays.asList("PEF_log", "controller_log", "rescue_log");
+    }
+
+    public List<String> groups() {
+        return new ArrayList<>(cursors.keySet());
+    }
+
+    public Cursor cursor(String group) {
+        return cursors.get(group);
+    }
+
+    /** Mark a page request as in flight. */
+    public void markLoading(String group) {
+        Cursor c = cursors.get(group);
+        if (c != null) c.loading = true;
+    }
+
+    /**
+     * Record a page that arrived.
+     *
+     * @param requested page size that was asked for
+     * @param count     entries returned
+     * @param oldestTs  timestamp of the oldest returned entry (ignored if count == 0)
+     * @param oldestKey key of the oldest returned entry (ignored if count == 0)
+     */
+    public void onPageLoaded(String group, int requested, int count, long oldestTs, String oldestKey) {
+        onPageLoaded(group, requested, count, Long.valueOf(oldestTs), oldestKey);
+    }
+
+    /**
+     * Record a page that arrived; oldestTs is null when the oldest entry has
+     * no timestamp. A page that ends on the entry the cursor already points
+     * at brought nothing new, so the group is treated as exhausted rather than
+     * asked for the same page again.
+     */
+    public void onPageLoaded(String group, int requested, int count, Long oldestTs, String oldestKey) {
+        Cursor c = cursors.get(group);
+        if (c == null) return;
+        boolean repeated = c.started && count > 0 && oldestKey != null && oldestKey.equals(c.key);
+        c.started = true;
+        c.loading = false;
+        if (count > 0) {
+            c.timestamp = oldestTs == null ? 0 : oldestTs;
+            c.noTimestamp = oldestTs == null;
+            c.key = oldestKey;
+        }
+        if (count < requested || repeated) c.exhausted = true;
+    }
+
+    /** A page request failed; allow it to be retried. */
+    public void onPageFailed(String group) {
+        Cursor c = cursors.get(group);
+        if (c != null) c.loading = false;
+    }
+
+    /**
+     * Oldest timestamp that is complete across all groups. Long.MAX_VALUE until
+     * every group has delivered its first page, Long.MIN_VALUE once every group
+     * is exhausted.
+     */
+    public long horizon() {
+        long horizon = Long.MIN_VALUE;
+        for (Cursor c : cursors.values()) {
+            if (!c.started) return Long.MAX_VALUE;
+            if (!c.exhausted) horizon = Math.max(horizon, c.timestamp);
+        }
+        return horizon;
+    }
+
+    /** True while some group may still have older entries. */
+    public boolean hasMore() {
+        for (Cursor c : cursors.values()) {
+            if (!c.started || !c.exhausted) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Groups to fetch for the next "load older" step: those whose cursor sets the
+     * horizon. Empty while any request is still in flight or before the first
+     * pages have arrived.
+     */
+    public List<String> groupsToLoadOlder() {
+        List<String> out = new ArrayList<>();
+        for (Cursor c : cursors.values()) {
+            if (!c.started || c.loading) return out;
+        }
+        long horizon = horizon();
+        for (Map.Entry<String, Cursor> e : cursors.entrySet()) {
+            Cursor c = e.getValue();
+            if (!c.exhausted && c.timestamp == horizon) out.add(e.getKey());
+        }
+        return out;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.SmartAirGroup2;
+
+import java.util.Objects;
+
+/**
+ * LogRecord
+ *
+ * Typed form of one entry under categories/users/children/{childUname}/logs/{group}/{key}.
+ * Subclasses hold the fields of each group:
+ *
+ *   PEF_log        -> PefLogRecord
+ *   controller_log -> ControllerLogRecord
+ *   rescue_log     -> RescueLogRecord
+ *   anything else  -> GenericLogRecord
+ *
+ * Records are filled field by field by LogRecordDecoder, straight from the
+ * snapshot, so no intermediate Map copy is made per entry.
+ *
+ * Fields common to every log:
+ * - type:      String. "pef", "medication" or "inhaler" as written by ChildLogsFragment.
+ * - timestamp: Long. Epoch millis of the reading / dose.
+ * - dateTime:  String. "yyyy-MM-dd HH:mm" as entered.
+ * - note:      String. Optional free text.
+ */
+public abstract class LogRecord {
+
+    public String groupKey;
+    public String nodeKey;
+
+    public String type = "unknown";
+    public long timestamp;
+    public String dateTime = "";
+    public String note = "";
+
+    /** Unique id across all groups, "group/key". */
+    public String id() {
+        return groupKey + "/" + nodeKey;
+    }
+
+    /**
+     * Apply one stored field.
+     *
+     * @return false if the field is not known to this record type
+     */
+    protected boolean set(String field, Object value) {
+        switch (field) {
+            case "type":
+                type = text(value, "unknown");
+                return true;
+            case "timestamp":
+                timestamp = value instanceof Number ? ((Number) value).longValue() : 0;
+                return true;
+            case "dateTime":
+                dateTime = text(value, "");
+                return true;
+            case "note":
+                note = text(value, "");
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /** True when two records would display identically (used for list diffing). */
+    public boolean contentEquals(LogRecord o) {
+        return o != null
+                && getClass() == o.getClass()
+                && timestamp == o.timestamp
+                && Objects.equals(type, o.type)
+                && Objects.equals(dateTime, o.dateTime)
+                && Objects.equals(note, o.note);
+    }
+
+    // ─────────────────────────────────────────────────────────────────
+    // FIELD HELPERS
+    // ─────────────────────────────────────────────────────────────────
+
+    /** String form of a stored value; null and literal "null" give the default. */
+    static String text(Object o, String def) {
+        if (o == null) return def;
+        if (o instanceof String) return "null".equals(o) ? def : (String) o;
+        return String.valueOf(o);
+    }
+
+    /** Numeric form of a stored value (numbers or numeric text), NaN if absent. */
+    static double number(Object o) {
+        if (o instanceof Number) return ((Number) o).doubleValue();
+        if (o instanceof String) {
+            String s = ((String) o).trim();
+            if (s.isEmpty()) return Double.NaN;
+            try {
+                return Double.parseDouble(s);
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+
+    /** Display form of a number: integral values without ".0". */
+    static String formatNumber(double v) {
+        if (Double.isNaN(v)) return "";
+        if (v == Math.rint(v) && Math.abs(v) < 1e15) return Long.toString((long) v);
+        return Double.toString(v);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.SmartAirGroup2;
+
+import com.google.firebase.database.DataSnapshot;
+
+import java.util.Map;
+
+/**
+ * LogRecordDecoder
+ *
+ * Builds typed LogRecords from log entries.
+ *
+ * decode(group, snapshot) walks the entry's child snapshots and assigns each
+ * field directly, instead of snapshot.getValue() building a Map that the
+ * screens then copied again for display. decode(group, key, value) does the
+ * same for a value that is already a Map (e.g. an entry just written).
+ */
+public final class LogRecordDecoder {
+
+    private LogRecordDecoder() {
+    }
+
+    /** Empty record of the type stored in {@code groupKey}. */
+    public static LogRecord newRecord(String groupKey) {
+        if ("PEF_log".equals(groupKey)) return new PefLogRecord();
+        if ("controller_log".equals(groupKey)) return new ControllerLogRecord();
+        if ("rescue_log".equals(groupKey)) return new RescueLogRecord();
+        return new GenericLogRecord();
+    }
+
+    /**
+     * Decode one entry snapshot. Returns null for leaf values (not a log entry).
+     */
+    public static LogRecord decode(String groupKey, DataSnapshot snapshot) {
+        if (!snapshot.hasChildren()) return null;
+        LogRecord record = newRecord(groupKey);
+        record.groupKey = groupKey;
+        record.nodeKey = snapshot.getKey();
+        for (DataSnapshot field : snapshot.getChildren()) {
+            record.set(field.getKey(), field.getValue());
+        }
+        return timed(record);
+    }
+
+    /**
+     * Decode an entry that is already materialised as a Map. Returns null for
+     * anything that is not a Map.
+     */
+    public static LogRecord decode(String groupKey, String nodeKey, Object value) {
+        if (!(value instanceof Map)) return null;
+        LogRecord record = newRecord(groupKey);
+        record.groupKey = groupKey;
+        record.nodeKey = nodeKey;
+        for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+            record.set(String.valueOf(e.getKey()), e.getValue());
+        }
+        return timed(record);
+    }
+
+    /** A legacy entry without a timestamp is placed by its dateTime string. */
+    private static LogRecord timed(LogRecord record) {
+        if (record.timestamp <= 0) record.timestamp = RecordTime.parse(record.dateTime);
+        return record;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.SmartAirGroup2;
+
+import java.util.Objects;
+
+/**
+ * MedicationLogRecord
+ *
+ * Fields shared by controller and rescue medication logs.
+ *
+ * Expected fields in Firebase (besides the common ones in LogRecord):
+ * - medication: String. Medication name ("Inhaler" for rescue logs).
+ * - dosage:     Number. Numeric dose, optional.
+ * - dose:       String. Dose as displayed, e.g. "2.0 puffs".
+ * - units:      String. Dose units, optional.
+ * - preDose:    String. How the child felt before, optional.
+ * - postDose:   String. How the child felt after, optional.
+ */
+public abstract class MedicationLogRecord extends LogRecord {
+
+    public String medication = "";
+    public double dosage = Double.NaN;
+    public String dose = "";
+    public String units = "";
+    public String preDose = "";
+    public String postDose = "";
+
+    @Override
+    protected boolean set(String field, Object v) {
+        switch (field) {
+            case "medication":
+                medication = text(v, "");
+                return true;
+            case "dosage":
+                dosage = number(v);
+                return true;
+            case "dose":
+                dose = text(v, "");
+                return true;
+            case "units":
+                units = text(v, "");
+                return true;
+            case "preDose":
+                preDose = text(v, "");
+                return true;
+            case "postDose":
+                postDose = text(v, "");
+                return true;
+            default:
+                return super.set(field, v);
+        }
+    }
+
+    @Override
+    public boolean contentEquals(LogRecord o) {
+        if (!super.contentEquals(o)) return false;
+        MedicationLogRecord m = (MedicationLogRecord) o;
+        return Double.compare(dosage, m.dosage) == 0
+                && Objects.equals(medication, m.medication)
+                && Objects.equals(dose, m.dose)
+                && Objects.equals(units, m.units)
+                && Objects.equals(preDose, m.preDose)
+                && Objects.equals(postDose, m.postDose);
+    }
+}
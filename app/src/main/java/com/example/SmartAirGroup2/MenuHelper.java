@@ -266,9 +266,10 @@ public class MenuHelper {
             return false;
         }
 
-        // 1. pefZone == 2 : red zone
-        Integer pefZone = statusSnap.child("pefZone").getValue(Integer.class);
-        if (pefZone != null && pefZone == 2) {
+        // 1. pefZone == 2 today : red zone
+        int pefZone = PefZoneStore.current(statusSnap.child("pefZone").getValue(),
+                statusSnap.child("pefZoneDay").getValue());
+        if (pefZone == PefZoneStore.ALERT) {
             return true;
         }
 
@@ -24,16 +24,11 @@ import androidx.core.view.WindowInsetsCompat;
 import androidx.viewpager.widget.ViewPager;
 import android.widget.EditText;
 import android.widget.CheckBox;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
+import java.util.TimeZone;
 import com.example.SmartAirGroup2.Adapters.OnBoardingAdapter;
 import com.example.SmartAirGroup2.Helpers.SaveState;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.ValueEventListener;
 import androidx.annotation.NonNull;
 
 public class OnboardingActivity extends AppCompatActivity {
@@ -179,26 +174,26 @@ public class OnboardingActivity extends AppCompatActivity {
                 .child("data")
                 .child("triages");
 
-        // 3. READ FIRST: Query Firebase to count how many incidents already exist.
-        //    We use .addListenerForSingleValueEvent() because we only need this data once.
-        triagesRef.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                // 4. Calculate the next incident number.
-                long incidentCount = 0;
-                if (snapshot.exists()) {
-                    // snapshot.getChildrenCount() returns the number of direct children (e.g., incident1, incident2)
-                    incidentCount = snapshot.getChildrenCount();
-                }
-                // Create the new key, e.g., "incident" + (1 + 1) becomes "incident2"
-                String nextIncidentKey = "incident" + (incidentCount + 1);
+        // 3. Allocate the next incident key from the triage counter. The counter is
+        //    advanced in a transaction, so keys never repeat even after deletions
+        //    or when two devices save at the same time.
+        final DatabaseReference counterRef = FirebaseDatabase.getInstance()
+                .getReference("categories/users/children")
+                .child(currentUserId)
+                .child("counters")
+                .child("triages");
 
-                // 5. Prepare the final data object with timestamp and placeholder values.
-                incidentData.time = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss", Locale.getDefault()).format(new Date());
+        LogKeyAllocator.allocate(counterRef, triagesRef, "incident", new LogKeyAllocator.KeyCallback() {
+            @Override
+            public void onKey(String nextIncidentKey) {
+                // 4. Prepare the final data object with timestamp and placeholder values.
+                long now = System.currentTimeMillis();
+                incidentData.time = DateCodec.format(now, TimeZone.getDefault(), DateCodec.Layout.SECONDS_SLASH);
+                incidentData.timestamp = now;
                 incidentData.guidance = "cpr"; // Example placeholder
                 incidentData.response = "died"; // Example placeholder
 
-                // 6. WRITE DATA: Save the new incident using the calculated sequential key.
+                // 5. WRITE DATA: Save the new incident using the allocated sequential key.
                 //    We use .child(nextIncidentKey) instead of .push().
                 triagesRef.child(nextIncidentKey).setValue(incidentData)
                         .addOnSuccessListener(aVoid -> {
@@ -211,10 +206,8 @@ public class OnboardingActivity extends AppCompatActivity {
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                // This method is called if the app doesn't have permission to read the data
-                // or if another error occurs during the read operation.
-                Toast.makeText(OnboardingActivity.this, "Database read failed: " + error.getMessage(), Toast.LENGTH_SHORT).show();
+            public void onError(String message) {
+                Toast.makeText(OnboardingActivity.this, "Database read failed: " + message, Toast.LENGTH_SHORT).show();
             }
         });
     }
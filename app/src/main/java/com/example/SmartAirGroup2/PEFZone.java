@@ -21,34 +21,31 @@ import androidx.cardview.widget.CardView;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentTransaction;
 
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
 
-import java.util.Arrays;
 
 /**
  * PEFZone Fragment
  * --------------------------
  * This fragment displays and manages the Peak Expiratory Flow (PEF) status for a selected child user.
  * It retrieves the child's daily PEF history and PB (Personal Best) value from Firebase, computes their
- * current asthma control zone, updates UI color indicators, and stores the zone status back to Firebase.
+ * current asthma control zone and updates UI color indicators.
  *
  * Functional Responsibilities:
- *  - Fetch PB and daily PEF data from Firebase.
+ *  - Fetch PB and the last two weeks of PEF statistics (PefStatsLoader).
  *  - Compute average daily PEF and determine the current asthma zone:
  *        * Green Zone (Good):    avgPEF >= 80% of PB
  *        * Yellow Zone (Warning): avgPEF >= 50% of PB
  *        * Red Zone (Alert):     avgPEF < 50% of PB
  *  - Update UI elements including:
  *        * PB text
- *        * Average PEF text
+ *        * Average PEF text, with the 7-day trend, daily variability
+ *          and share of days below 80% of PB
  *        * Status card color based on zone
- *  - Allow parent users to update the PB manually.
- *  - Save the resulting zone classification in Firebase under:
+ *  - Allow parent users to update the PB manually; the stored zone
  *        categories/users/children/{username}/status/pefZone
+ *    is then re-evaluated by PefZoneStore (as it is when a reading is saved),
+ *    not each time this screen opens.
  *
  * Expected Database Structure:
  *  categories/
@@ -56,12 +53,11 @@ import java.util.Arrays;
  *          children/{uname}/
  *              data/
  *                  pb: double
- *                  dailyPEF/
- *                      timestamp1: double
- *                      timestamp2: double
- *                      ...
+ *              pefDaily/
+ *                  {yyyy-MM-dd}: { count, sum, min, max }   (see PefDailyAggregate)
  *              status/
  *                  pefZone: int (0 = good, 1 = warning, 2 = alert)
+ *                  pefZoneDay: yyyy-MM-dd the zone was evaluated for
  *
  * Navigation:
  *  Uses standard Fragment navigation and toolbar back action.
@@ -86,7 +82,7 @@ public class PEFZone extends Fragment {
     private String name, uname,user;
     private String status;
     private double pb, averagePEF;
-    private double[] pefs;
+    private PefStats stats;
 
     // ───────────────────────────────
     // LIFECYCLE: Initialization
@@ -150,78 +146,58 @@ public class PEFZone extends Fragment {
     }
 
     /**
-     * Retrieves PB and daily PEF values from Firebase,
-     * converts them to numeric values, and triggers display update.
+     * Loads PB and the last two weeks of PEF statistics (today's average,
+     * 7-day trend, variability, days below 80% PB) and triggers display update.
      */
     private void getPEF() {
-        DatabaseReference pefRef = FirebaseDatabase.getInstance()
-                .getReference("categories/users/children")
-                .child(uname)
-                .child("data");
-
-        pefRef.addListenerForSingleValueEvent(new ValueEventListener() {
+        new PefStatsLoader().loadRecent(uname, new PefStatsLoader.StatsCallback() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-
-                // Load PB
-                pb = snapshot.child("pb").getValue(Double.class) != null ? snapshot.child("pb").getValue(Double.class) : 0;
-
-                // Load daily PEF measurements
-                if (snapshot.child("dailyPEF").exists()) {
-                    DataSnapshot pefListSnap = snapshot.child("dailyPEF");
-                    pefs = new double[(int) pefListSnap.getChildrenCount()];
-                    int index = 0;
-
-                    for (DataSnapshot item : pefListSnap.getChildren()) {
-                        pefs[index++] = item.getValue(Double.class) != null ? item.getValue(Double.class) : 0;
-                    }
-
-                    // Compute average
-                    averagePEF = Arrays.stream(pefs).average().orElse(0);
-                }
-
+            public void onResult(PefStats result) {
+                if (getContext() == null) return;
+                stats = result;
+                pb = result.pb;
+                averagePEF = result.lastDayMean;
                 setPEF();
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
+            public void onError(String message) {
+                if (getContext() == null) return;
                 Toast.makeText(getContext(), "Cannot access Data", Toast.LENGTH_SHORT).show();
             }
         });
     }
 
     /**
-     * Determines zone status, updates UI text & color, and saves zone to Firebase.
+     * Determines zone status and updates UI text & color. The stored zone
+     * (status/pefZone) is kept by PefZoneStore when readings or PB change.
      */
     private void setPEF() {
-
-        // Determine zone logic only if PB exists
-        if (pb > 0 && averagePEF > 0) {
-            if (averagePEF >= pb * 0.8) status = "good";
-            else if (averagePEF >= pb * 0.5) status = "warning";
-            else status = "alert";
-        } else {
-            status = "good"; // Default if no PB or values exist
-        }
+        int zone = PefZoneStore.zoneOf(averagePEF, pb);
+        status = zone == PefZoneStore.GOOD ? "good" : zone == PefZoneStore.WARNING ? "warning" : "alert";
 
         // Update UI
         textPB.setText(pb > 0 ? "Personal Best: " + pb : "Haven't set Personal Best yet");
-        textAveragePEF.setText(averagePEF > 0 ? "Average Daily PEF: " + averagePEF : "There is no PEF entry today");
+        textAveragePEF.setText((averagePEF > 0 ? "Average Daily PEF: " + averagePEF : "There is no PEF entry today")
+                + statsText());
 
         // Apply color theme
         int colorId = status.equals("good") ? R.color.good : status.equals("warning") ? R.color.warning : R.color.alert;
         cardAveragePEF.setCardBackgroundColor(getResources().getColor(colorId));
+    }
 
-        // Convert status to numeric constant
-        int pefZoneValue = status.equals("good") ? 0 : status.equals("warning") ? 1 : 2;
-
-        // Save result in Firebase
-        FirebaseDatabase.getInstance()
-                .getReference("categories/users/children")
-                .child(uname)
-                .child("status")
-                .child("pefZone")
-                .setValue(pefZoneValue);
+    /** Trend lines under today's average, or "" before any reading in the window. */
+    private String statsText() {
+        if (stats == null || stats.isEmpty()) return "";
+        StringBuilder sb = new StringBuilder();
+        sb.append("\n").append(PefStats.EWMA_DAYS).append("-day trend: ").append(String.format("%.1f", stats.ewma));
+        if (stats.variabilityDays > 0) {
+            sb.append("\nDaily variability: ").append(String.format("%.1f", stats.variability)).append("%");
+        }
+        if (stats.pb > 0) {
+            sb.append("\nDays below 80% of PB: ").append(String.format("%.0f", stats.percentBelowPb())).append("%");
+        }
+        return sb.toString();
     }
 
     /**
@@ -251,8 +227,10 @@ public class PEFZone extends Fragment {
                 .setValue(newPB)
                 .addOnSuccessListener(a -> {
                     Toast.makeText(getContext(), "Personal Best updated!", Toast.LENGTH_SHORT).show();
-                    pb = newPB;
-                    setPEF();
+                    PefStatsCache.getInstance().invalidate(uname);
+                    PefZoneStore.pbChanged(FirebaseDatabase.getInstance()
+                            .getReference("categories/users/children").child(uname), newPB);
+                    getPEF(); // days below 80% depend on PB
                 });
     }
 }
@@ -0,0 +1,197 @@
+package com.example.SmartAirGroup2;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PagedLogSource
+ *
+ * Feeds a LogFeed from a child's logs node one page at a time:
+ *
+ * - start(): for each group, the newest PAGE_SIZE entries by timestamp.
+ * - loadOlder(): the next page for the group(s) holding back the horizon,
+ *   continuing from the cursor with endBefore(timestamp, key). Entries the
+ *   timestamp migration has not reached yet sort first (null) and are paged
+ *   with a null cursor; a page that brings nothing new ends the group.
+ *
+ * When live, the first page of each group is a ChildEventListener, so new and
+ * edited entries stream in. Note that a limitToLast() listener also reports a
+ * removal when an entry merely slides out of the window; such removals are
+ * checked against the database before the row is dropped.
+ *
+ * Only the groups passed in are queried, so a category filter costs nothing
+ * for the other groups.
+ */
+public class PagedLogSource {
+
+    public interface Callback {
+        /** A page was merged into the feed. */
+        void onPageLoaded();
+        void onError(String message);
+    }
+
+    private final DatabaseReference logsRef;
+    private final LogFeed feed;
+    private final LogPager pager;
+    private final boolean live;
+    private final Callback callback;
+
+    private final List<Query> headQueries = new ArrayList<>();
+    private final List<ChildEventListener> headListeners = new ArrayList<>();
+    private boolean stopped;
+
+    /**
+     * @param logsRef reference to children/{childId}/logs
+     * @param groups  log groups to read, e.g. from LogPager.groupsFor(filter)
+     * @param feed    feed that receives the entries
+     * @param live    keep the newest page of each group listening for changes
+     */
+    public PagedLogSource(DatabaseReference logsRef, List<String> groups, LogFeed feed,
+                          boolean live, Callback callback) {
+        this.logsRef = logsRef;
+        this.feed = feed;
+        this.pager = new LogPager(groups);
+        this.live = live;
+        this.callback = callback;
+    }
+
+    public void start() {
+        feed.setHorizon(pager.horizon());
+        for (String group : pager.groups()) {
+            Query head = logsRef.child(group).orderByChild("timestamp").limitToLast(LogPager.PAGE_SIZE);
+            pager.markLoading(group);
+            if (live) {
+                ChildEventListener listener = headListener(group);
+                head.addChildEventListener(listener);
+                headQueries.add(head);
+                headListeners.add(listener);
+            }
+            // Value events fire after the child events for the same data, so this
+            // only closes the page; with a live head the rows come from the listener.
+            head.addListenerForSingleValueEvent(pageListener(group, !live));
+        }
+    }
+
+    /**
+     * Fetch the next older page. Does nothing while a page is in flight or when
+     * every group is exhausted, so it can be called on every scroll event.
+     */
+    public void loadOlder() {
+        if (stopped) return;
+        for (String group : pager.groupsToLoadOlder()) {
+            LogPager.Cursor c = pager.cursor(group);
+            pager.markLoading(group);
+            Query byTime = logsRef.child(group).orderByChild("timestamp");
+            // Entries without a timestamp sort first, as null; their cursor is null too
+            Query older = c.isTimestampNull()
+                    ? byTime.endBefore((String) null, c.getKey())
+                    : byTime.endBefore(c.getTimestamp(), c.getKey());
+            older.limitToLast(LogPager.PAGE_SIZE)
+                    .addListenerForSingleValueEvent(pageListener(group, true));
+        }
+    }
+
+    public boolean hasMore() {
+        return pager.hasMore();
+    }
+
+    public void stop() {
+        stopped = true;
+        for (int i = 0; i < headQueries.size(); i++) {
+            headQueries.get(i).removeEventListener(headListeners.get(i));
+        }
+        headQueries.clear();
+        headListeners.clear();
+    }
+
+    private ValueEventListener pageListener(final String group, final boolean addToFeed) {
+        return new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                if (stopped) return;
+                int count = 0;
+                Long oldestTs = null;
+                String oldestKey = null;
+                // Children arrive in query order, oldest first
+                for (DataSnapshot child : snapshot.getChildren()) {
+                    if (count == 0) {
+                        oldestTs = timestampOf(child);
+                        oldestKey = child.getKey();
+                    }
+                    count++;
+                    if (addToFeed) feed.onChildAdded(LogRecordDecoder.decode(group, child));
+                }
+                pager.onPageLoaded(group, LogPager.PAGE_SIZE, count, oldestTs, oldestKey);
+                feed.setHorizon(pager.horizon());
+                callback.onPageLoaded();
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                pager.onPageFailed(group);
+                if (!stopped) callback.onError(error.getMessage());
+            }
+        };
+    }
+
+    private ChildEventListener headListener(final String group) {
+        return new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                feed.onChildAdded(LogRecordDecoder.decode(group, snapshot));
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                LogRecord updated = LogRecordDecoder.decode(group, snapshot);
+                if (updated == null) {
+                    feed.onChildRemoved(group, snapshot.getKey());
+                } else {
+                    feed.onChildChanged(updated);
+                }
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                final String key = snapshot.getKey();
+                // Either deleted, or pushed out of the newest-page window by a new entry
+                logsRef.child(group).child(key).addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot current) {
+                        if (!stopped && !current.exists()) feed.onChildRemoved(group, key);
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                    }
+                });
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                // Display order comes from the timestamp held in the feed
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                if (!stopped) callback.onError(error.getMessage());
+            }
+        };
+    }
+
+    /** The entry's timestamp, or null for a legacy entry without one. */
+    private static Long timestampOf(DataSnapshot child) {
+        Object ts = child.child("timestamp").getValue();
+        return ts instanceof Number ? ((Number) ts).longValue() : null;
+    }
+}
@@ -19,9 +19,7 @@ import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
@@ -58,11 +56,9 @@ import java.util.Map;
  *        - Recomputes adherence to reflect the updated plan.
  *
  *   4) For adherence calculation:
- *        - Reads all controller_log entries for the child.
- *        - Calls AdherenceCalculator.calculate(...) with:
- *             - schedule
- *             - logs
- *             - last 7 days time window
+ *        - AdherenceRepository.getLast7DaysAdherence(...) reads the
+ *          schedule and the last 7 days of controllerDaily counters
+ *          (see ControllerDailyStore) and runs AdherenceCalculator.
  *        - Displays overallPercent and a qualitative level.
  *
  * Navigation:
@@ -197,6 +193,7 @@ public class ParentAdherenceActivity extends AppCompatActivity {
                 .addOnCompleteListener(task -> {
                     if (task.isSuccessful()) {
                         Toast.makeText(this, "Schedule saved", Toast.LENGTH_SHORT).show();
+                        AdherenceCache.getInstance().invalidate(childUsername);
                         calculateAndShowAdherence();
                     } else {
                         Toast.makeText(this, "Failed to save", Toast.LENGTH_SHORT).show();
@@ -205,62 +202,29 @@ public class ParentAdherenceActivity extends AppCompatActivity {
     }
 
     private void calculateAndShowAdherence() {
-        DatabaseReference logRef = getChildRef()
-                .child("logs")
-                .child("controller_log");
-
-        DatabaseReference scheduleRef = getChildRef()
-                .child("controller_schedule");
-
-        scheduleRef.addListenerForSingleValueEvent(new ValueEventListener() {
+        // Schedule plus the last 7 days of controllerDaily counters
+        AdherenceRepository.getLast7DaysAdherence(childUsername, new AdherenceRepository.AdherenceCallback() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                ControllerSchedule schedule = snapshot.getValue(ControllerSchedule.class);
-
-                logRef.addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        List<ControllerLog> logs = new ArrayList<>();
-                        for (DataSnapshot child : snapshot.getChildren()) {
-                            Long ts = child.child("timestamp").getValue(Long.class);
-                            String med = child.child("medication").getValue(String.class);
-                            if (ts == null) continue;
-                            logs.add(new ControllerLog(ts, med));
-                        }
-
-                        long endMillis = System.currentTimeMillis();
-                        long startMillis = endMillis -6L * 24L * 60L * 60L * 1000L;
-
-                        AdherenceCalculator.AdherenceResult result =AdherenceCalculator.calculate(schedule, logs, startMillis, endMillis);
-
-                        double p = result.overallPercent;
-
-                        String level;
-                        if (p >= 80.0) {
-                            level = "Good";
-                        } else if (p >= 50.0) {
-                            level ="Needs attention";
-                        } else {
-                            level = "Poor";
-                        }
-
-                        String valueText = String.format(Locale.getDefault(), "%.0f%%", p);
-                        tvAdherenceValue.setText(valueText);
-                        tvAdherenceLevel.setText(level);
-                    }
+            public void onResult(AdherenceCalculator.AdherenceResult result) {
+                double p = result.overallPercent;
+
+                String level;
+                if (p >= 80.0) {
+                    level = "Good";
+                } else if (p >= 50.0) {
+                    level = "Needs attention";
+                } else {
+                    level = "Poor";
+                }
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        Log.e("Adherence", "loadLogs failed", error.toException());
-                        tvAdherenceValue.setText("--");
-                        tvAdherenceLevel.setText("");
-                    }
-                });
+                String valueText = String.format(Locale.getDefault(), "%.0f%%", p);
+                tvAdherenceValue.setText(valueText);
+                tvAdherenceLevel.setText(level);
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e("Adherence", "loadSchedule failed", error.toException());
+            public void onError(Exception e) {
+                Log.e("Adherence", "loadAdherence failed", e);
                 tvAdherenceValue.setText("--");
                 tvAdherenceLevel.setText("");
             }
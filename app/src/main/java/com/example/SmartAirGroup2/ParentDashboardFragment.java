@@ -133,6 +133,9 @@ public class ParentDashboardFragment extends Fragment {
                     if (childUname == null || childUname.trim().isEmpty()) {
                         continue;
                     }
+                    // The parent's session brings the child's old records up to
+                    // timestamps and builds the daily counters too
+                    DailyBackfill.ensureInBackground(childUname);
 
                     DatabaseReference childRef = data.getReference("categories/users/children")
                             .child(childUname);
@@ -150,9 +153,10 @@ public class ParentDashboardFragment extends Fragment {
                             }
 
                             DataSnapshot statusSnap = snapshot.child("status");
-                            Integer pefZone = statusSnap.child("pefZone").getValue(Integer.class);
+                            int pefZone = PefZoneStore.current(statusSnap.child("pefZone").getValue(),
+                                    statusSnap.child("pefZoneDay").getValue());
 
-                            if (pefZone != null && pefZone == 2 && !safetyAlertShown) {
+                            if (pefZone == PefZoneStore.ALERT && !safetyAlertShown) {
                                 safetyAlertShown = true;
                                 showSafetyAlertDialog(childUname, show_name);
                             }
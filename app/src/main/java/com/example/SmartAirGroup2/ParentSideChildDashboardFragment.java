@@ -85,6 +85,7 @@ import com.example.SmartAirGroup2.OnboardingActivity;
  *         └── children/{childUname}/
  *             └── status/
  *                 ├── pefZone: Integer (0=green, 1=yellow, 2=red)
+ *                 ├── pefZoneDay: String (yyyy-MM-dd the zone is for)
  *                 └── inventory/
  *                     └── {medicineName}/
  *                         └── {timestamp: Integer (0=good, 1=warning, 2=alert)}
@@ -461,7 +462,8 @@ public class ParentSideChildDashboardFragment extends Fragment {
      *      - Otherwise, card remains green
      *
      *   2. PEF Status (Breathing Zones):
-     *      - Reads pefZone value directly from status node
+     *      - Reads pefZone from status node; a zone whose pefZoneDay is
+     *        not today is treated as green (PefZoneStore.current)
      *      - Zone 2 (Red): Severe breathing difficulty
      *      - Zone 1 (Yellow): Caution zone
      *      - Zone 0 (Green): Normal breathing
@@ -495,8 +497,9 @@ public class ParentSideChildDashboardFragment extends Fragment {
                 // ─────────────────────────────────────────────────────────
                 // Read PEF Zone Status
                 // ─────────────────────────────────────────────────────────
-                Long pefZoneVal = snapshot.child("pefZone").getValue(Long.class);
-                int pefZone = pefZoneVal != null ? pefZoneVal.intValue() : 0;
+                // A zone from an earlier day counts as green (no reading today)
+                int pefZone = PefZoneStore.current(snapshot.child("pefZone").getValue(),
+                        snapshot.child("pefZoneDay").getValue());
 
                 // ─────────────────────────────────────────────────────────
                 // Read Inventory Status Array
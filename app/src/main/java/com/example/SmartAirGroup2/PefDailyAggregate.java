@@ -0,0 +1,138 @@
+package com.example.SmartAirGroup2;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * PefDailyAggregate
+ *
+ * Count, sum, min and max of one local day's PEF readings. Stored per child at
+ *
+ *   categories/users/children/{childUname}/pefDaily/{yyyy-MM-dd}
+ *
+ * and updated in a transaction as each reading is saved or deleted, so the
+ * zone and average readers load one small node instead of the PEF history.
+ * Days are keyed by the reading's local date, which is what rolls the "today"
+ * aggregate over at midnight.
+ *
+ * Min and max cannot be undone by subtraction: remove() reports when the
+ * deleted reading was an extreme, and the caller then rebuilds that one day
+ * from its readings (see PefDailyStore).
+ */
+public class PefDailyAggregate {
+
+    public long count;
+    public double sum;
+    public double min;
+    public double max;
+
+    public PefDailyAggregate() {
+    }
+
+    public boolean isEmpty() {
+        return count <= 0;
+    }
+
+    /** Average of the day's readings, or 0 when there are none. */
+    public double average() {
+        return count > 0 ? sum / count : 0;
+    }
+
+    public void add(double value) {
+        if (count <= 0) {
+            count = 1;
+            sum = value;
+            min = value;
+            max = value;
+            return;
+        }
+        count++;
+        sum += value;
+        if (value < min) min = value;
+        if (value > max) max = value;
+    }
+
+    /**
+     * Remove one reading.
+     *
+     * @return true when min or max may now be wrong and the day must be rebuilt
+     */
+    public boolean remove(double value) {
+        if (count <= 1) {
+            count = 0;
+            sum = 0;
+            min = 0;
+            max = 0;
+            return false;
+        }
+        count--;
+        sum -= value;
+        return value <= min || value >= max;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> m = new HashMap<>();
+        m.put("count", count);
+        m.put("sum", sum);
+        m.put("min", min);
+        m.put("max", max);
+        return m;
+    }
+
+    /** Rebuild from a stored node value; null or malformed values give an empty aggregate. */
+    public static PefDailyAggregate fromValue(Object value) {
+        PefDailyAggregate agg = new PefDailyAggregate();
+        if (!(value instanceof Map)) return agg;
+        Map<?, ?> m = (Map<?, ?>) value;
+        agg.count = (long) number(m.get("count"));
+        agg.sum = number(m.get("sum"));
+        agg.min = number(m.get("min"));
+        agg.max = number(m.get("max"));
+        return agg;
+    }
+
+    /** Parse a reading's "value" field (stored as a number, older entries as text). */
+    public static Double readingValue(Object value) {
+        if (value instanceof Number) return ((Number) value).doubleValue();
+        if (value == null) return null;
+        try {
+            return Double.parseDouble(String.valueOf(value).trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static double number(Object o) {
+        return o instanceof Number ? ((Number) o).doubleValue() : 0;
+    }
+
+    // ─────────────────────────────────────────────────────────────────
+    // DAY KEYS
+    // ─────────────────────────────────────────────────────────────────
+
+    /**
+     * Local date of a timestamp as "yyyy-MM-dd", in the device's zone. Same
+     * key as the other daily stores (ControllerDailyCount.dayKey), all from
+     * DateCodec.
+     */
+    public static String dayKey(long timestamp) {
+        return dayKey(timestamp, TimeZone.getDefault());
+    }
+
+    static String dayKey(long timestamp, TimeZone zone) {
+        return DateCodec.formatDay(DateCodec.epochDay(timestamp, zone), DateCodec.Layout.DATE_DASH);
+    }
+
+    /** Local midnight at the start of the timestamp's day. */
+    public static long startOfDay(long timestamp) {
+        TimeZone zone = TimeZone.getDefault();
+        return DateCodec.startOfDay(DateCodec.epochDay(timestamp, zone), zone);
+    }
+
+    /** Local midnight at the start of the following day (DST-safe). */
+    public static long startOfNextDay(long timestamp) {
+        TimeZone zone = TimeZone.getDefault();
+        return DateCodec.startOfDay(DateCodec.epochDay(timestamp, zone) + 1, zone);
+    }
+}
@@ -0,0 +1,298 @@
+package com.example.SmartAirGroup2;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.Transaction;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * PefDailyStore
+ *
+ * Firebase side of PefDailyAggregate. All methods take the child's node,
+ * categories/users/children/{childUname}.
+ *
+ * - recordReading / removeReading: transactional update of the reading's day.
+ * - rescanDay: rebuild one day from its PEF_log entries (timestamp range query),
+ *   used after deleting an extreme and to backfill days written before the
+ *   aggregate existed. Stored only if no reading changed the day meanwhile.
+ * - loadDay: read a day's aggregate, backfilling it when missing.
+ * - backfill: rebuild every day from the whole PEF_log in one write and mark
+ *   the aggregates as complete (pefDaily/backfilledAt), for range readers
+ *   such as TrendLoader. Run by DailyBackfill from the sessions that own the
+ *   child's records.
+ *
+ * Every change also stamps pefDaily/updatedAt and invalidates the child's
+ * PefStatsCache entries; a change to today's aggregate re-evaluates the
+ * stored PEF zone (PefZoneStore).
+ */
+public class PefDailyStore {
+
+    static final String NODE = "pefDaily";
+    static final String BACKFILLED_AT = "backfilledAt";
+    /** Set on every change, so other devices can watch one leaf (PefStatsWatcher). */
+    static final String UPDATED_AT = "updatedAt";
+    /** Rescans of a day that keeps changing under it before giving up. */
+    static final int RESCAN_ATTEMPTS = 3;
+
+    public interface AggregateCallback {
+        void onResult(PefDailyAggregate aggregate);
+        void onError(String message);
+    }
+
+    public static DatabaseReference dayRef(DatabaseReference childRef, String dayKey) {
+        return childRef.child(NODE).child(dayKey);
+    }
+
+    /**
+     * Add a saved reading to its day. Call after the PEF_log write succeeded.
+     */
+    public static void recordReading(final DatabaseReference childRef, final long timestamp, final double value) {
+        final boolean[] wasEmpty = {false};
+        dayRef(childRef, PefDailyAggregate.dayKey(timestamp)).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData data) {
+                PefDailyAggregate agg = PefDailyAggregate.fromValue(data.getValue());
+                wasEmpty[0] = agg.isEmpty();
+                agg.add(value);
+                data.setValue(agg.toMap());
+                return Transaction.success(data);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                if (error != null || !committed) return;
+                // A day without an aggregate may still hold readings saved before it
+                // existed; rebuild it once so they are counted.
+                if (wasEmpty[0]) {
+                    rescanDay(childRef, timestamp, zoneAfterRescan(childRef, timestamp));
+                } else {
+                    changed(childRef);
+                    dayChanged(childRef, timestamp, PefDailyAggregate.fromValue(snapshot.getValue()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Remove a deleted reading from its day. Call after the PEF_log delete succeeded.
+     */
+    public static void removeReading(final DatabaseReference childRef, final long timestamp, final double value) {
+        final boolean[] needsRescan = {false};
+        dayRef(childRef, PefDailyAggregate.dayKey(timestamp)).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData data) {
+                if (data.getValue() == null) {
+                    needsRescan[0] = true;
+                    return Transaction.success(data);
+                }
+                PefDailyAggregate agg = PefDailyAggregate.fromValue(data.getValue());
+                needsRescan[0] = agg.remove(value);
+                data.setValue(agg.isEmpty() ? null : agg.toMap());
+                return Transaction.success(data);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                if (error != null || !committed) return;
+                if (needsRescan[0]) {
+                    rescanDay(childRef, timestamp, zoneAfterRescan(childRef, timestamp));
+                } else {
+                    changed(childRef);
+                    dayChanged(childRef, timestamp, PefDailyAggregate.fromValue(snapshot.getValue()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Rebuild the aggregate of the day containing {@code dayTimestamp} from that
+     * day's readings only, and store it.
+     *
+     * The day node is read first and the rebuilt aggregate is stored in a
+     * transaction that only writes it if the node still holds what was read.
+     * A recordReading/removeReading that lands in between is therefore never
+     * overwritten; the day is rescanned instead (up to RESCAN_ATTEMPTS times).
+     */
+    public static void rescanDay(final DatabaseReference childRef, final long dayTimestamp,
+                                 final AggregateCallback callback) {
+        rescanDay(childRef, dayTimestamp, RESCAN_ATTEMPTS, callback);
+    }
+
+    private static void rescanDay(final DatabaseReference childRef, final long dayTimestamp, final int attempts,
+                                  final AggregateCallback callback) {
+        final DatabaseReference day = dayRef(childRef, PefDailyAggregate.dayKey(dayTimestamp));
+        day.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot seen) {
+                rescanSince(childRef, dayTimestamp, day, seen.getValue(), attempts, callback);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                if (callback != null) callback.onError(error.getMessage());
+            }
+        });
+    }
+
+    /** Rebuild from the readings and store it unless the day moved on from {@code seen}. */
+    private static void rescanSince(final DatabaseReference childRef, final long dayTimestamp,
+                                    final DatabaseReference day, final Object seen, final int attempts,
+                                    final AggregateCallback callback) {
+        long start = PefDailyAggregate.startOfDay(dayTimestamp);
+        long end = PefDailyAggregate.startOfNextDay(dayTimestamp);
+
+        childRef.child("logs").child("PEF_log")
+                .orderByChild("timestamp")
+                .startAt(start)
+                .endBefore(end)
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        final PefDailyAggregate agg = new PefDailyAggregate();
+                        for (DataSnapshot entry : snapshot.getChildren()) {
+                            Double v = PefDailyAggregate.readingValue(entry.child("value").getValue());
+                            if (v != null) agg.add(v);
+                        }
+                        final boolean[] moved = {false};
+                        day.runTransaction(new Transaction.Handler() {
+                            @NonNull
+                            @Override
+                            public Transaction.Result doTransaction(@NonNull MutableData data) {
+                                // Leave a day that changed alone (a no-op write that only
+                                // commits against the server's value) and rescan it
+                                moved[0] = !sameDay(data.getValue(), seen);
+                                if (!moved[0]) data.setValue(agg.isEmpty() ? null : agg.toMap());
+                                return Transaction.success(data);
+                            }
+
+                            @Override
+                            public void onComplete(DatabaseError error, boolean committed, DataSnapshot stored) {
+                                if (error != null || !committed) {
+                                    if (callback != null) {
+                                        callback.onError(error != null ? error.getMessage() : "Rescan not stored");
+                                    }
+                                } else if (moved[0]) {
+                                    if (attempts > 1) {
+                                        rescanDay(childRef, dayTimestamp, attempts - 1, callback);
+                                    } else if (callback != null) {
+                                        callback.onError("Day kept changing during the rescan");
+                                    }
+                                } else {
+                                    changed(childRef);
+                                    if (callback != null) callback.onResult(agg);
+                                }
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        if (callback != null) callback.onError(error.getMessage());
+                    }
+                });
+    }
+
+    /** Whether two stored day values hold the same aggregate (null and malformed are empty). */
+    static boolean sameDay(Object a, Object b) {
+        PefDailyAggregate x = PefDailyAggregate.fromValue(a);
+        PefDailyAggregate y = PefDailyAggregate.fromValue(b);
+        if (x.isEmpty() || y.isEmpty()) return x.isEmpty() == y.isEmpty();
+        return x.count == y.count && x.sum == y.sum && x.min == y.min && x.max == y.max;
+    }
+
+    private static void changed(DatabaseReference childRef) {
+        childRef.child(NODE).child(UPDATED_AT).setValue(ServerValue.TIMESTAMP);
+        PefStatsCache.getInstance().invalidate(childRef.getKey());
+    }
+
+    /** A day's aggregate is now agg; today's decides the stored zone (PefZoneStore). */
+    private static void dayChanged(DatabaseReference childRef, long timestamp, PefDailyAggregate agg) {
+        String day = PefDailyAggregate.dayKey(timestamp);
+        if (day.equals(PefDailyAggregate.dayKey(System.currentTimeMillis()))) {
+            PefZoneStore.todayChanged(childRef, day, agg);
+        }
+    }
+
+    private static AggregateCallback zoneAfterRescan(final DatabaseReference childRef, final long timestamp) {
+        return new AggregateCallback() {
+            @Override
+            public void onResult(PefDailyAggregate aggregate) {
+                dayChanged(childRef, timestamp, aggregate);
+            }
+
+            @Override
+            public void onError(String message) {
+                // The zone is re-evaluated with the next reading
+            }
+        };
+    }
+
+    /**
+     * Load the aggregate of the day containing {@code dayTimestamp}, rebuilding
+     * it from that day's readings if it has not been written yet.
+     */
+    public static void loadDay(final DatabaseReference childRef, final long dayTimestamp,
+                               final AggregateCallback callback) {
+        dayRef(childRef, PefDailyAggregate.dayKey(dayTimestamp))
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        if (snapshot.exists()) {
+                            callback.onResult(PefDailyAggregate.fromValue(snapshot.getValue()));
+                        } else {
+                            rescanDay(childRef, dayTimestamp, callback);
+                        }
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        callback.onError(error.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Rebuild the child's day aggregates from the whole PEF_log in one write
+     * (DailyBackfill.run), unless a reading is added meanwhile. Reads the
+     * full history once; run it per child, not on every open.
+     */
+    public static void backfill(UserTreeRepository repo, String childUname, final TimeZone zone,
+                                UserTreeRepository.WriteCallback callback) {
+        String childPath = "children/" + childUname;
+        DailyBackfill.run(repo, childPath + "/" + NODE, childPath + "/logs/PEF_log",
+                new String[]{BACKFILLED_AT}, log -> countsFromLog(log, zone), callback);
+    }
+
+    /** pefDaily day nodes for every reading in a PEF_log snapshot. */
+    static Map<String, Object> countsFromLog(TreeNode log, TimeZone zone) {
+        Map<String, PefDailyAggregate> days = new HashMap<>();
+        for (TreeNode entry : log.getChildren()) {
+            Long ts = entry.child("timestamp").getLong();
+            Double v = PefDailyAggregate.readingValue(entry.child("value").getValue());
+            if (ts == null || v == null) continue;
+            String day = AdherenceCalculator.dateKey(AdherenceCalculator.epochDay(ts, zone));
+            PefDailyAggregate agg = days.get(day);
+            if (agg == null) {
+                agg = new PefDailyAggregate();
+                days.put(day, agg);
+            }
+            agg.add(v);
+        }
+        Map<String, Object> out = new HashMap<>();
+        for (Map.Entry<String, PefDailyAggregate> e : days.entrySet()) {
+            out.put(e.getKey(), e.getValue().toMap());
+        }
+        return out;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.SmartAirGroup2;
+
+import java.util.Objects;
+
+/**
+ * PefLogRecord
+ *
+ * One peak-flow reading under logs/PEF_log.
+ *
+ * Expected fields in Firebase (besides the common ones in LogRecord):
+ * - value:      Number. Peak flow in L/min.
+ * - preMedVal:  String. Optional reading before medication.
+ * - postMedVal: String. Optional reading after medication.
+ */
+public class PefLogRecord extends LogRecord {
+
+    /** Peak flow, NaN when missing or unreadable. */
+    public double value = Double.NaN;
+    public String preMedVal = "";
+    public String postMedVal = "";
+
+    @Override
+    protected boolean set(String field, Object v) {
+        switch (field) {
+            case "value":
+                value = number(v);
+                return true;
+            case "preMedVal":
+                preMedVal = text(v, "");
+                return true;
+            case "postMedVal":
+                postMedVal = text(v, "");
+                return true;
+            default:
+                return super.set(field, v);
+        }
+    }
+
+    public boolean hasValue() {
+        return !Double.isNaN(value);
+    }
+
+    @Override
+    public boolean contentEquals(LogRecord o) {
+        if (!super.contentEquals(o)) return false;
+        PefLogRecord p = (PefLogRecord) o;
+        return Double.compare(value, p.value) == 0
+                && Objects.equals(preMedVal, p.preMedVal)
+                && Objects.equals(postMedVal, p.postMedVal);
+    }
+}
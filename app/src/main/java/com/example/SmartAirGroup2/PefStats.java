@@ -0,0 +1,167 @@
+package com.example.SmartAirGroup2;
+
+import java.util.Arrays;
+
+/**
+ * PefStats
+ *
+ * PEF statistics for a window of days, computed in one pass over the day
+ * aggregates (PefDailyAggregate: count/sum/min/max per local day) held in
+ * primitive arrays:
+ *
+ *   mean, min, max        over every reading in the window
+ *   lastDayMean           the window's last day (today for the screens)
+ *   ewma                  7-day exponentially weighted mean of the daily means
+ *   variability           mean diurnal variability of the days with two or
+ *                         more readings: (highest - lowest) / mean of the two,
+ *                         as a percentage (morning vs evening in practice)
+ *   daysBelowPb           days whose mean is under 80% of the personal best
+ *
+ * The EWMA uses alpha = 2 / (EWMA_DAYS + 1) per day; a day without readings
+ * decays the old mean rather than being counted as zero. Anything that needs
+ * a personal best is 0 when pb is not set.
+ *
+ * Shared by PEFZone, ViewStatusFragment and the provider report; see
+ * PefStatsLoader for loading and caching. Instances are shared through the
+ * cache; callers must not modify them.
+ */
+public class PefStats {
+
+    public static final int EWMA_DAYS = 7;
+    static final double EWMA_ALPHA = 2.0 / (EWMA_DAYS + 1);
+    /** Fraction of the personal best below which a day counts as low. */
+    public static final double LOW_FRACTION = 0.8;
+
+    public final int firstDay;
+    public final int lastDay;
+    public final double pb;
+
+    public long readings;
+    public int daysWithReadings;
+    public double mean;
+    public double min;
+    public double max;
+    public double lastDayMean;
+
+    public double ewma;
+    /** Epoch day the EWMA is as of (the last day with readings). */
+    public int ewmaDay = Integer.MIN_VALUE;
+
+    public double variability;
+    public double maxVariability;
+    public int variabilityDays;
+
+    public int daysBelowPb;
+
+    PefStats(int firstDay, int lastDay, double pb) {
+        this.firstDay = firstDay;
+        this.lastDay = lastDay;
+        this.pb = pb;
+    }
+
+    public boolean isEmpty() {
+        return readings == 0;
+    }
+
+    /** Share of the days with readings whose mean was under 80% of PB, 0..100. */
+    public double percentBelowPb() {
+        return pb > 0 && daysWithReadings > 0 ? 100.0 * daysBelowPb / daysWithReadings : 0;
+    }
+
+    /**
+     * Day aggregates of a window, as parallel arrays in day order. Filled
+     * with add() as the day nodes are read; grows by doubling.
+     */
+    public static final class Days {
+        int size;
+        int[] day;
+        long[] count;
+        double[] sum;
+        double[] min;
+        double[] max;
+
+        public Days(int capacity) {
+            int n = Math.max(capacity, 4);
+            day = new int[n];
+            count = new long[n];
+            sum = new double[n];
+            min = new double[n];
+            max = new double[n];
+        }
+
+        /** Append a day; days must come in increasing order. Empty days are skipped. */
+        public void add(int epochDay, long n, double s, double lo, double hi) {
+            if (n <= 0) return;
+            if (size == day.length) {
+                int grown = size * 2;
+                day = Arrays.copyOf(day, grown);
+                count = Arrays.copyOf(count, grown);
+                sum = Arrays.copyOf(sum, grown);
+                min = Arrays.copyOf(min, grown);
+                max = Arrays.copyOf(max, grown);
+            }
+            day[size] = epochDay;
+            count[size] = n;
+            sum[size] = s;
+            min[size] = lo;
+            max[size] = hi;
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+
+    /** Fold the days inside [firstDay, lastDay] into one PefStats. */
+    public static PefStats compute(Days days, int firstDay, int lastDay, double pb) {
+        PefStats s = new PefStats(firstDay, lastDay, pb);
+        double total = 0;
+        double variabilitySum = 0;
+        double low = pb > 0 ? pb * LOW_FRACTION : 0;
+        double keep = 1 - EWMA_ALPHA;
+        int previous = Integer.MIN_VALUE;
+
+        for (int i = 0; i < days.size; i++) {
+            int d = days.day[i];
+            if (d < firstDay || d > lastDay) continue;
+            long n = days.count[i];
+            double dayMean = days.sum[i] / n;
+            double lo = days.min[i];
+            double hi = days.max[i];
+
+            if (s.readings == 0) {
+                s.min = lo;
+                s.max = hi;
+                s.ewma = dayMean;
+            } else {
+                if (lo < s.min) s.min = lo;
+                if (hi > s.max) s.max = hi;
+                // gap of g days: the old mean keeps (1 - alpha)^g of its weight
+                int gap = d - previous;
+                double weight = gap == 1 ? EWMA_ALPHA : 1 - Math.pow(keep, gap);
+                s.ewma += weight * (dayMean - s.ewma);
+            }
+            previous = d;
+            s.readings += n;
+            s.daysWithReadings++;
+            total += days.sum[i];
+
+            if (n >= 2 && hi + lo > 0) {
+                double v = 200 * (hi - lo) / (hi + lo);
+                variabilitySum += v;
+                if (v > s.maxVariability) s.maxVariability = v;
+                s.variabilityDays++;
+            }
+            if (dayMean < low) s.daysBelowPb++;
+            if (d == lastDay) s.lastDayMean = dayMean;
+        }
+
+        if (s.readings > 0) {
+            s.mean = total / s.readings;
+            s.ewmaDay = previous;
+        }
+        if (s.variabilityDays > 0) s.variability = variabilitySum / s.variabilityDays;
+        return s;
+    }
+}
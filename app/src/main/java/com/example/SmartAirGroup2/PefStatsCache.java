@@ -0,0 +1,106 @@
+package com.example.SmartAirGroup2;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * PefStatsCache
+ *
+ * In-process LRU cache of PefStats, keyed like AdherenceCache by child,
+ * window (first and last epoch day) and the child's data version. The last
+ * day is today for the screens, so entries roll over at midnight on their
+ * own. The version is bumped by invalidate(child), called when a PEF
+ * reading or the personal best changes:
+ * - from this device: PefDailyStore (readings) and PEFZone.updatePB;
+ * - from other devices: PefStatsWatcher.
+ * A result computed from reads that started before an invalidation is put
+ * under the old version and is never returned.
+ */
+public class PefStatsCache {
+
+    static final int DEFAULT_MAX_ENTRIES = 64;
+
+    private static PefStatsCache instance; // Singleton instance
+
+    private final int maxEntries;
+    private final Map<String, PefStats> entries;
+    private final Map<String, Long> versions = new HashMap<>();
+    private long hits;
+    private long misses;
+
+    PefStatsCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        // access order: iteration starts at the least recently used entry
+        this.entries = new LinkedHashMap<String, PefStats>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PefStats> eldest) {
+                return size() > PefStatsCache.this.maxEntries;
+            }
+        };
+    }
+
+    public static synchronized PefStatsCache getInstance() {
+        if (instance == null) {
+            instance = new PefStatsCache(DEFAULT_MAX_ENTRIES);
+        }
+        return instance;
+    }
+
+    /** Current data version of a child; pass it to put() with the stats read under it. */
+    public synchronized long version(String childUname) {
+        Long v = versions.get(childUname);
+        return v == null ? 0 : v;
+    }
+
+    /** Cached stats for the window, or null (counted as a miss). */
+    public synchronized PefStats get(String childUname, int firstDay, int lastDay) {
+        PefStats stats = entries.get(key(childUname, firstDay, lastDay, version(childUname)));
+        if (stats == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return stats;
+    }
+
+    public synchronized void put(String childUname, int firstDay, int lastDay, long version, PefStats stats) {
+        if (version != version(childUname)) return; // data changed while it was being read
+        entries.put(key(childUname, firstDay, lastDay, version), stats);
+    }
+
+    /** The child's PEF readings or personal best changed: drop its stats. */
+    public synchronized void invalidate(String childUname) {
+        if (childUname == null) return;
+        versions.put(childUname, version(childUname) + 1);
+        String prefix = childUname + "|";
+        Iterator<String> it = entries.keySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().startsWith(prefix)) it.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        versions.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static String key(String childUname, int firstDay, int lastDay, long version) {
+        return childUname + "|" + firstDay + "|" + lastDay + "|" + version;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.SmartAirGroup2;
+
+import java.util.TimeZone;
+
+/**
+ * PefStatsLoader
+ *
+ * Loads PefStats for a child and a range of days:
+ *
+ *   read   children/{childUname}/data/pb
+ *   query  children/{childUname}/pefDaily  orderByKey() over the range
+ *          (counted from PEF_log until they are built, see TrendLoader)
+ *
+ * The day nodes are copied into PefStats.Days as they are iterated and
+ * folded in one pass. Results go through a PefStatsCache (per child, range
+ * and data version), so reopening a screen on the same day reads nothing.
+ */
+public class PefStatsLoader {
+
+    /** Days the screens look back over (today included): two weeks, the usual span for variability. */
+    public static final int RECENT_DAYS = 14;
+
+    public interface StatsCallback {
+        void onResult(PefStats stats);
+        void onError(String message);
+    }
+
+    private final UserTreeRepository repo;
+    private final PefStatsCache cache;
+    private final boolean watchRemote;
+
+    /** Firebase-backed, with the shared cache kept current across devices. */
+    public PefStatsLoader() {
+        this(new FirebaseUserTreeRepository(), PefStatsCache.getInstance(), true);
+    }
+
+    /** cache may be null to always read. */
+    public PefStatsLoader(UserTreeRepository repo, PefStatsCache cache) {
+        this(repo, cache, false);
+    }
+
+    private PefStatsLoader(UserTreeRepository repo, PefStatsCache cache, boolean watchRemote) {
+        this.repo = repo;
+        this.cache = cache;
+        this.watchRemote = watchRemote;
+    }
+
+    /** Stats for the RECENT_DAYS days ending today; lastDayMean is today's average. */
+    public void loadRecent(String childUname, StatsCallback callback) {
+        TimeZone zone = TimeZone.getDefault();
+        int today = AdherenceCalculator.epochDay(System.currentTimeMillis(), zone);
+        load(childUname, today - RECENT_DAYS + 1, today, zone, callback);
+    }
+
+    /** Stats for the local days of [startMillis, endMillis]. */
+    public void load(String childUname, long startMillis, long endMillis, StatsCallback callback) {
+        TimeZone zone = TimeZone.getDefault();
+        load(childUname, AdherenceCalculator.epochDay(startMillis, zone),
+                AdherenceCalculator.epochDay(endMillis, zone), zone, callback);
+    }
+
+    void load(final String childUname, final int firstDay, final int lastDay, final TimeZone zone,
+              final StatsCallback callback) {
+        if (childUname == null || childUname.trim().isEmpty()) {
+            callback.onError("Child username is missing.");
+            return;
+        }
+        if (firstDay > lastDay) {
+            callback.onError("Invalid range.");
+            return;
+        }
+        if (watchRemote) PefStatsWatcher.watch(childUname);
+
+        if (cache != null) {
+            PefStats cached = cache.get(childUname, firstDay, lastDay);
+            if (cached != null) {
+                callback.onResult(cached);
+                return;
+            }
+        }
+        final long version = cache != null ? cache.version(childUname) : 0;
+
+        repo.read("children/" + childUname + "/data/pb", new UserTreeRepository.NodeCallback() {
+            @Override
+            public void onResult(TreeNode pbNode) {
+                Double stored = pbNode.getDouble();
+                final double pb = stored != null ? stored : 0;
+
+                new TrendLoader(repo).loadPefDays(childUname, firstDay, lastDay, zone, new UserTreeRepository.NodeCallback() {
+                    @Override
+                    public void onResult(TreeNode dayNodes) {
+                        PefStats.Days days = new PefStats.Days(Math.min(lastDay - firstDay + 1, 366));
+                        for (TreeNode node : dayNodes.getChildren()) {
+                            int d = AdherenceCalculator.epochDayOfKey(node.getKey());
+                            if (d == Integer.MIN_VALUE) continue;
+                            Long n = node.child("count").getLong();
+                            Double sum = node.child("sum").getDouble();
+                            Double min = node.child("min").getDouble();
+                            Double max = node.child("max").getDouble();
+                            if (n == null || sum == null || min == null || max == null) continue;
+                            days.add(d, n, sum, min, max);
+                        }
+                        PefStats stats = PefStats.compute(days, firstDay, lastDay, pb);
+                        if (cache != null) cache.put(childUname, firstDay, lastDay, version, stats);
+                        callback.onResult(stats);
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        callback.onError(message);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(String message) {
+                callback.onError(message);
+            }
+        });
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.SmartAirGroup2;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * PefStatsWatcher
+ *
+ * Invalidates a child's PefStatsCache entries when its PEF data changes on
+ * another device, like AdherenceCacheWatcher does for adherence. Listens to
+ * two small nodes per watched child:
+ *
+ *   categories/users/children/{childUname}/data/pb
+ *   categories/users/children/{childUname}/pefDaily/updatedAt
+ *
+ * (updatedAt is stamped by PefDailyStore on every reading saved or
+ * deleted). Each child is watched at most once for the life of the process.
+ */
+public class PefStatsWatcher {
+
+    private static final Set<String> watched = new HashSet<>();
+
+    public static synchronized void watch(String childUname) {
+        if (childUname == null || !watched.add(childUname)) return;
+
+        DatabaseReference childRef = FirebaseDatabase.getInstance()
+                .getReference("categories")
+                .child("users")
+                .child("children")
+                .child(childUname);
+        childRef.child("data").child("pb").addValueEventListener(invalidateOnChange(childUname));
+        childRef.child(PefDailyStore.NODE).child(PefDailyStore.UPDATED_AT)
+                .addValueEventListener(invalidateOnChange(childUname));
+    }
+
+    private static ValueEventListener invalidateOnChange(final String childUname) {
+        return new ValueEventListener() {
+            private boolean initial = true;
+
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                // The first event is the current value, not a change
+                if (initial) {
+                    initial = false;
+                    return;
+                }
+                PefStatsCache.getInstance().invalidate(childUname);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                // Without the listener changes from other devices go unnoticed
+                synchronized (PefStatsWatcher.class) {
+                    watched.remove(childUname);
+                }
+                PefStatsCache.getInstance().invalidate(childUname);
+            }
+        };
+    }
+}
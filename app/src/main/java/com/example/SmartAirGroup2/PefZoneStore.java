@@ -0,0 +1,152 @@
+package com.example.SmartAirGroup2;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Transaction;
+import com.google.firebase.database.ValueEventListener;
+
+/**
+ * PefZoneStore
+ *
+ * Keeps categories/users/children/{childUname}/status/pefZone current. The
+ * zone is re-evaluated when something it depends on is written, not when a
+ * screen is opened:
+ * - a reading dated today is saved or deleted (PefDailyStore, which passes
+ *   today's new aggregate);
+ * - the personal best is changed (PEFZone.updatePB).
+ *
+ * The zone is written in a transaction that aborts when it is unchanged, so
+ * a reading that does not move the zone costs no write. status/pefZoneDay
+ * holds the day (yyyy-MM-dd) the zone was evaluated for. Nothing is written
+ * at midnight, so a zone from an earlier day only says something about that
+ * day: with no reading yet today the zone is GOOD. The readers (AlertLoader,
+ * MenuHelper, the dashboards) go through current() rather than reading
+ * status/pefZone on its own.
+ *
+ * Zones, from today's average PEF against the personal best:
+ *   GOOD     >= 80% of PB, or no PB / no reading today
+ *   WARNING  >= 50% of PB
+ *   ALERT    <  50% of PB
+ */
+public class PefZoneStore {
+
+    public static final int GOOD = 0;
+    public static final int WARNING = 1;
+    public static final int ALERT = 2;
+
+    static final String STATUS = "status";
+    static final String ZONE = "pefZone";
+    static final String ZONE_DAY = "pefZoneDay";
+
+    public static int zoneOf(double averagePef, double pb) {
+        if (pb <= 0 || averagePef <= 0) return GOOD;
+        if (averagePef >= pb * 0.8) return GOOD;
+        if (averagePef >= pb * 0.5) return WARNING;
+        return ALERT;
+    }
+
+    public static DatabaseReference zoneRef(DatabaseReference childRef) {
+        return childRef.child(STATUS).child(ZONE);
+    }
+
+    /**
+     * The zone to show from the stored status/pefZone and status/pefZoneDay:
+     * the stored zone if it was evaluated today, GOOD otherwise (an earlier
+     * day, or a zone stored before the day was kept).
+     */
+    public static int current(Object zone, Object zoneDay) {
+        return current(zone, zoneDay, PefDailyAggregate.dayKey(System.currentTimeMillis()));
+    }
+
+    static int current(Object zone, Object zoneDay, String today) {
+        if (!(zone instanceof Number) || !today.equals(zoneDay)) return GOOD;
+        int z = ((Number) zone).intValue();
+        return z == WARNING || z == ALERT ? z : GOOD;
+    }
+
+    /** The aggregate of {@code day} (today) is now {@code today}: re-evaluate against the stored PB. */
+    static void todayChanged(final DatabaseReference childRef, final String day,
+                             final PefDailyAggregate today) {
+        childRef.child("data").child("pb").addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                store(childRef, zoneOf(today.average(), number(snapshot.getValue())), day);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                // Left as it was; the next reading or PB change tries again
+            }
+        });
+    }
+
+    /** The personal best is now {@code pb}: re-evaluate against today's aggregate. */
+    public static void pbChanged(final DatabaseReference childRef, final double pb) {
+        final String day = PefDailyAggregate.dayKey(System.currentTimeMillis());
+        PefDailyStore.dayRef(childRef, day)
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        PefDailyAggregate today = PefDailyAggregate.fromValue(snapshot.getValue());
+                        store(childRef, zoneOf(today.average(), pb), day);
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        // Left as it was; the next reading or PB change tries again
+                    }
+                });
+    }
+
+    /**
+     * Write the zone unless it is already stored, then the day it was
+     * evaluated for unless that is already stored. The zone goes first: a
+     * reader between the two writes sees a zone without today's day and
+     * shows GOOD, never an earlier day's zone as today's.
+     */
+    static void store(final DatabaseReference childRef, final int zone, final String day) {
+        zoneRef(childRef).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData data) {
+                if (!differs(data.getValue(), zone)) return Transaction.abort();
+                data.setValue(zone);
+                return Transaction.success(data);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                if (error == null) storeDay(childRef, day);
+            }
+        });
+    }
+
+    private static void storeDay(DatabaseReference childRef, final String day) {
+        childRef.child(STATUS).child(ZONE_DAY).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData data) {
+                if (day.equals(data.getValue())) return Transaction.abort();
+                data.setValue(day);
+                return Transaction.success(data);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot snapshot) {
+            }
+        });
+    }
+
+    /** Whether the stored value is not already the zone (missing or stale). */
+    static boolean differs(Object stored, int zone) {
+        return !(stored instanceof Number) || ((Number) stored).intValue() != zone;
+    }
+
+    private static double number(Object o) {
+        return o instanceof Number ? ((Number) o).doubleValue() : 0;
+    }
+}
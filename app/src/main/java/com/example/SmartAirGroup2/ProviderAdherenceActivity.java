@@ -18,8 +18,6 @@ import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Locale;
 
 /**
@@ -48,8 +46,9 @@ import java.util.Locale;
  *     the parent's controller plan.
  *
  *   - Computes last 7 days controller adherence using the same
- *     AdherenceCalculator as the parent side, by reading:
- *       categories/users/children/{childUname}/logs/controller_log
+ *     AdherenceCalculator as the parent side (AdherenceRepository), from
+ *     the per-day counters in
+ *       categories/users/children/{childUname}/controllerDaily
  *     and showing:
  *       - tv_overall_adherence_value (percentage)
  *       - tv_overall_adherence_level (Good / Needs attention / Poor).
@@ -173,62 +172,29 @@ public class ProviderAdherenceActivity extends AppCompatActivity {
     }
 
     private void calculateAndShowAdherence() {
-        DatabaseReference logRef = getChildRef()
-                .child("logs")
-                .child("controller_log");
-
-        DatabaseReference scheduleRef = getChildRef()
-                .child("controller_schedule");
-
-        scheduleRef.addListenerForSingleValueEvent(new ValueEventListener() {
+        // Schedule plus the last 7 days of controllerDaily counters
+        AdherenceRepository.getLast7DaysAdherence(childUname, new AdherenceRepository.AdherenceCallback() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                ControllerSchedule schedule = snapshot.getValue(ControllerSchedule.class);
+            public void onResult(AdherenceCalculator.AdherenceResult result) {
+                double p = result.overallPercent;
+
+                String level;
+                if (p >= 80.0) {
+                    level = "Good";
+                } else if (p >= 50.0) {
+                    level = "Needs attention";
+                } else {
+                    level = "Poor";
+                }
 
-                logRef.addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        List<ControllerLog> logs = new ArrayList<ControllerLog>();
-                        for (DataSnapshot child : snapshot.getChildren()) {
-                            Long ts = child.child("timestamp").getValue(Long.class);
-                            String med = child.child("medication").getValue(String.class);
-                            if (ts == null) continue;
-                            logs.add(new ControllerLog(ts.longValue(), med));
-                        }
-
-                        long endMillis = System.currentTimeMillis();
-                        long startMillis = endMillis - 6L * 24L * 60L* 60L * 1000L;
-
-                        AdherenceCalculator.AdherenceResult result =
-                                AdherenceCalculator.calculate(schedule, logs, startMillis, endMillis);
-
-                        double p = result.overallPercent;
-
-                        String level;
-                        if (p >= 80.0) {
-                            level = "Good";
-                        } else if (p >= 50.0) {
-                            level = "Needs attention";
-                        } else {
-                            level = "Poor";
-                        }
-
-                        String valueText = String.format(Locale.getDefault(), "%.0f%%", p);
-                        tvAdherenceValue.setText(valueText);
-                        tvAdherenceLevel.setText(level);
-                    }
-
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        Log.e("ProvAdherence", "loadLogs failed", error.toException());
-                        tvAdherenceValue.setText("--");
-                        tvAdherenceLevel.setText("");
-                    }
-                });
+                String valueText = String.format(Locale.getDefault(), "%.0f%%", p);
+                tvAdherenceValue.setText(valueText);
+                tvAdherenceLevel.setText(level);
             }
+
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e("ProvAdherence", "loadSchedule failed", error.toException());
+            public void onError(Exception e) {
+                Log.e("ProvAdherence", "loadAdherence failed", e);
                 tvAdherenceValue.setText("--");
                 tvAdherenceLevel.setText("");
             }
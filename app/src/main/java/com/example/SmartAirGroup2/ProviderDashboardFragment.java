@@ -37,6 +37,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
@@ -150,6 +151,12 @@ public class ProviderDashboardFragment extends Fragment {
     private View notificationActionView;
     private View notificationBadge;
 
+    /**
+     * Adherence line of each card whose child shares controllerAdherence,
+     * filled in by one AdherenceBatch once every child has loaded.
+     */
+    private final Map<String, TextView> adherenceViews = new HashMap<>();
+
 
     // ═══════════════════════════════════════════════════════════════════════
     // LIFECYCLE METHODS
@@ -252,6 +259,7 @@ public class ProviderDashboardFragment extends Fragment {
             Toast.makeText(getContext(), "Provider username is invalid.", Toast.LENGTH_LONG).show();
             return;
         }
+        adherenceViews.clear();
 
         // 1. Get the list of parents linked to this provider
         DatabaseReference selfRef = db.getReference("categories/users/provider/" + uname + "/parents");
@@ -370,7 +378,9 @@ public class ProviderDashboardFragment extends Fragment {
                     }
 
                     childrenProcessed[0]++;
-
+                    if (childrenProcessed[0] == totalChildren) {
+                        loadAdherence();
+                    }
                 }
 
                 @Override
@@ -380,6 +390,7 @@ public class ProviderDashboardFragment extends Fragment {
                     if (childrenProcessed[0] == totalChildren) {
                         // Complete the operation with whatever data was successfully retrieved
                         Toast.makeText(getContext(), "Some Children failed to load.", Toast.LENGTH_LONG).show();
+                        loadAdherence();
                     }
                 }
             });
@@ -388,6 +399,32 @@ public class ProviderDashboardFragment extends Fragment {
 
 
 
+    /**
+     * Step 4: Last 7 days' controller adherence of every child that shares it,
+     * read together by AdherenceBatch (a few children in flight at a time,
+     * cached results without reading) rather than one screen per child.
+     */
+    private void loadAdherence() {
+        if (adherenceViews.isEmpty()) return;
+
+        List<String> children = new ArrayList<>(adherenceViews.keySet());
+        for (String child : children) AdherenceCacheWatcher.watch(child);
+
+        long endMillis = System.currentTimeMillis();
+        long startMillis = endMillis - 6L * 24L * 60L * 60L * 1000L;
+        new AdherenceBatch().load(children, startMillis, endMillis, lowestFirst -> {
+            if (!isAdded()) return;
+            for (AdherenceBatch.ChildAdherence line : lowestFirst) {
+                TextView view = adherenceViews.get(line.childUname);
+                if (view == null) continue;
+                view.setText(line.result == null
+                        ? "Adherence: unavailable"
+                        : String.format(Locale.getDefault(), "Adherence (7 days): %.0f%%",
+                                line.result.overallPercent));
+            }
+        });
+    }
+
     // ═══════════════════════════════════════════════════════════════════════
     // UI CONSTRUCTION HELPERS
     // ═══════════════════════════════════════════════════════════════════════
@@ -397,6 +434,7 @@ public class ProviderDashboardFragment extends Fragment {
      *
      * Card Features:
      *   - Displays child's name (or username as fallback)
+     *   - Shows the last 7 days' adherence when the child shares it
      *   - Color-coded background based on status:
      *       • Red if status list contains 1 or 2 (alert)
      *       • Green otherwise (good)
@@ -465,10 +503,24 @@ public class ProviderDashboardFragment extends Fragment {
         textView.setTextSize(18);
 
 
+        // ─────────────────────────────────────────────────────────────────
+        // Adherence TextView (filled in by loadAdherence)
+        // ─────────────────────────────────────────────────────────────────
+        TextView adherenceView = null;
+        if (permissions.contains("controllerAdherence")) {
+            adherenceView = new TextView(ctx);
+            adherenceView.setLayoutParams(new LinearLayout.LayoutParams(
+                    LinearLayout.LayoutParams.WRAP_CONTENT, LinearLayout.LayoutParams.WRAP_CONTENT));
+            adherenceView.setText("Adherence: ...");
+            adherenceView.setTextSize(14);
+            adherenceViews.put(childKey, adherenceView);
+        }
+
         // ─────────────────────────────────────────────────────────────────
         // Assemble Card
         // ─────────────────────────────────────────────────────────────────
         innerLayout.addView(textView);
+        if (adherenceView != null) innerLayout.addView(adherenceView);
         cardView.addView(innerLayout);
 
         // ─────────────────────────────────────────────────────────────────
@@ -25,17 +25,9 @@ import androidx.appcompat.widget.Toolbar;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentTransaction;
 
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
-
 import java.io.IOException;
 import java.io.OutputStream;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Locale;
+import java.util.List;
 import java.util.Map;
 
 public class ProviderReport extends Fragment {
@@ -51,6 +43,7 @@ public class ProviderReport extends Fragment {
     private ProviderReportHelper helper;
 
     private static final int CREATE_PDF_REQUEST_CODE = 2001;
+    private static final String NOT_AVAILABLE = "not available";
 
     // ───────────────────────────────
     // LIFECYCLE METHODS
@@ -116,6 +109,12 @@ public class ProviderReport extends Fragment {
     }
 
     private void exportPdfToUri(Uri uri) {
+        // Every metric is fetched at once; the page is drawn when they are all
+        // in, or at the timeout with whatever arrived
+        new ProviderReportLoader(helper).load(startDate, report -> drawReport(report, uri));
+    }
+
+    private void drawReport(ProviderReportLoader.Report report, Uri uri) {
         PdfDocument pdfDocument = new PdfDocument();
         PdfDocument.PageInfo pageInfo = new PdfDocument.PageInfo.Builder(595, 842, 1).create();
         PdfDocument.Page page = pdfDocument.startPage(pageInfo);
@@ -123,107 +122,88 @@ public class ProviderReport extends Fragment {
         Paint paint = new Paint();
         paint.setColor(Color.BLACK);
         paint.setTextSize(16);
-        int[] y = {50};
-
-        canvas.drawText("Provider Report:", 50, y[0], paint);
-        y[0] += 50;
-
-        // Step 1-4: Rescue, Controller, Symptom, Average PEF (same as before)
-        helper.countRescueFrequency(startDate, rescueFreq -> {
-            canvas.drawText("Rescue Frequency: " + String.format("%.2f", rescueFreq) + " per day", 50, y[0], paint);
-            y[0] += 30;
-
-            helper.controllerAdherence(startDate, adherence -> {
-                canvas.drawText("Controller Adherence: " + String.format("%.2f", adherence) + "%", 50, y[0], paint);
-
-                // Draw pie chart below the text
-                drawAdherencePieChart(canvas, paint, adherence, 400, y[0] - 70, 100);
-
-                y[0] += 30; // space for pie chart
-
-                helper.countUniqueSymptomDays(startDate, symptomDays -> {
-                    canvas.drawText("Symptom Burden: " + symptomDays + " days", 50, y[0], paint);
-                    y[0] += 30;
-
-                    helper.averagePEF(startDate, avgPEF -> {
-                        canvas.drawText("Average PEF: " + String.format("%.2f", avgPEF), 50, y[0], paint);
-                        y[0] += 50;
-
-                        // Step 5: Plot PEF graph
-                        helper.dailyAveragePEF(startDate, dailyAvgMap -> {
-                            plotPEFWithPB(canvas, paint, startDate, 60, y[0], 500, 200, () -> {
-                                y[0] += 300;
-
-                                // NOW check triage AFTER graph is done
-                                helper.checkPermission(hasPermission -> {
-                                    if (!hasPermission) {
-                                        canvas.drawText("Triage Incidents: no permission", 50, y[0], paint);
-                                        y[0] += 30;
-                                        finishPdf(pdfDocument, page, uri);
-                                    } else {
-                                        helper.triageIncidents(startDate, triages -> {
-                                            if (triages.isEmpty()) {
-                                                canvas.drawText("Triage Incidents: none", 50, y[0], paint);
-                                                y[0] += 30;
-                                            } else {
-                                                canvas.drawText("Triage Incidents:", 50, y[0], paint);
-                                                y[0] += 30;
-                                                for (Map.Entry<String, ProviderReportHelper.TriageIncident> entry : triages.entrySet()) {
-                                                    ProviderReportHelper.TriageIncident t = entry.getValue();
-                                                    canvas.drawText("Time: " + t.time, 70, y[0], paint); y[0] += 20;
-                                                    if (t.pef != null) { canvas.drawText("PEF: " + t.pef, 70, y[0], paint); y[0] += 20; }
-                                                    if (t.guidance != null) { canvas.drawText("Guidance: " + t.guidance, 70, y[0], paint); y[0] += 20; }
-                                                    if (t.response != null) { canvas.drawText("Response: " + t.response, 70, y[0], paint); y[0] += 20; }
-                                                    if (!t.redflags.isEmpty()) {
-                                                        canvas.drawText("Red Flags:", 70, y[0], paint); y[0] += 20;
-                                                        for (Map.Entry<String, Boolean> flag : t.redflags.entrySet()) {
-                                                            if (flag.getValue()) { canvas.drawText(" - " + flag.getKey(), 90, y[0], paint); y[0] += 20; }
-                                                        }
-                                                    }
-                                                    y[0] += 10;
-                                                }
-                                            }
-                                            finishPdf(pdfDocument, page, uri);
-                                        });
-                                    }
-                                });
-                            });
-                        });
-                    });
-                });
-            });
-        });
-    }
-
-    // New helper to fetch PB and then plot PEF
-    private void plotPEFWithPB(Canvas canvas, Paint paint, String startDate, int x, int y, int width, int height, Runnable callback) {
-        DatabaseReference pbRef = FirebaseDatabase.getInstance().getReference()
-                .child("categories").child("users").child("children").child(uname).child("data").child("pb");
-
-        pbRef.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                Double PB = snapshot.getValue(Double.class);
-                if (PB == null || PB <= 0) PB = 1.0; // default PB if missing
-
-                // Fetch daily average PEF
-                Double finalPB = PB;
-                helper.dailyAveragePEF(startDate, dailyAvgMap -> {
-                    drawPEFGraphWithPB(canvas, paint, dailyAvgMap, finalPB, startDate, x, y, width, height);
-                    if (callback != null) callback.run();
-                });
+        int y = 50;
+
+        canvas.drawText("Provider Report:", 50, y, paint);
+        y += 50;
+
+        // Rescue, Controller, Symptom, PEF statistics
+        canvas.drawText("Rescue Frequency: " + (report.has(ProviderReportLoader.RESCUE)
+                ? String.format("%.2f", report.rescueFrequency) + " per day" : NOT_AVAILABLE), 50, y, paint);
+        y += 30;
+
+        if (report.has(ProviderReportLoader.ADHERENCE)) {
+            canvas.drawText("Controller Adherence: " + String.format("%.2f", report.adherence) + "%", 50, y, paint);
+            // Draw pie chart beside the text
+            drawAdherencePieChart(canvas, paint, report.adherence, 400, y - 70, 100);
+        } else {
+            canvas.drawText("Controller Adherence: " + NOT_AVAILABLE, 50, y, paint);
+        }
+        y += 30;
+
+        canvas.drawText("Symptom Burden: " + (report.has(ProviderReportLoader.SYMPTOMS)
+                ? report.symptomDays + " days" : NOT_AVAILABLE), 50, y, paint);
+        y += 30;
+
+        PefStats pef = report.has(ProviderReportLoader.PEF_STATS) ? report.pef : null;
+        canvas.drawText("Average PEF: " + (pef != null ? String.format("%.2f", pef.mean) : NOT_AVAILABLE), 50, y, paint);
+        y += 20;
+        if (pef != null && !pef.isEmpty()) {
+            canvas.drawText("7-day PEF trend (EWMA): " + String.format("%.1f", pef.ewma)
+                    + "   Diurnal variability: " + String.format("%.1f", pef.variability) + "%", 70, y, paint);
+            y += 20;
+            if (pef.pb > 0) {
+                canvas.drawText("Days below 80% of personal best: " + pef.daysBelowPb + " of "
+                        + pef.daysWithReadings + " (" + String.format("%.0f", pef.percentBelowPb()) + "%)", 70, y, paint);
+                y += 20;
             }
+        }
+        y += 30;
+
+        // PEF graph, coloured against the PB that came with the statistics
+        if (report.has(ProviderReportLoader.PEF_TREND)) {
+            double pb = pef != null && pef.pb > 0 ? pef.pb : 1.0; // default PB if missing
+            drawPEFGraphWithPB(canvas, paint, report.pefTrend, pb, 60, y, 500, 200);
+            y += 300;
+        } else {
+            canvas.drawText("PEF Trend: " + NOT_AVAILABLE, 50, y, paint);
+            y += 30;
+        }
 
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                if (callback != null) callback.run();
+        // Triage incidents
+        if (!report.has(ProviderReportLoader.TRIAGE)) {
+            canvas.drawText("Triage Incidents: " + NOT_AVAILABLE, 50, y, paint);
+            y += 30;
+        } else if (report.triages == null) {
+            canvas.drawText("Triage Incidents: no permission", 50, y, paint);
+            y += 30;
+        } else if (report.triages.isEmpty()) {
+            canvas.drawText("Triage Incidents: none", 50, y, paint);
+            y += 30;
+        } else {
+            canvas.drawText("Triage Incidents:", 50, y, paint);
+            y += 30;
+            for (Map.Entry<String, ProviderReportHelper.TriageIncident> entry : report.triages.entrySet()) {
+                ProviderReportHelper.TriageIncident t = entry.getValue();
+                canvas.drawText("Time: " + t.time, 70, y, paint); y += 20;
+                if (t.pef != null) { canvas.drawText("PEF: " + t.pef, 70, y, paint); y += 20; }
+                if (t.guidance != null) { canvas.drawText("Guidance: " + t.guidance, 70, y, paint); y += 20; }
+                if (t.response != null) { canvas.drawText("Response: " + t.response, 70, y, paint); y += 20; }
+                if (!t.redflags.isEmpty()) {
+                    canvas.drawText("Red Flags:", 70, y, paint); y += 20;
+                    for (Map.Entry<String, Boolean> flag : t.redflags.entrySet()) {
+                        if (flag.getValue()) { canvas.drawText(" - " + flag.getKey(), 90, y, paint); y += 20; }
+                    }
+                }
+                y += 10;
             }
-        });
+        }
+        finishPdf(pdfDocument, page, uri);
     }
 
     // Draw line chart with PB-based coloring
-    private void drawPEFGraphWithPB(Canvas canvas, Paint paint, Map<String, Double> dailyAvgMap, double PB,
-                                    String startDate, int x, int y, int width, int height) {
+    private void drawPEFGraphWithPB(Canvas canvas, Paint paint, TrendBuckets trend, double PB,
+                                    int x, int y, int width, int height) {
         // Legend at top
         int legendX = x;
         int legendY = y;
@@ -249,23 +229,20 @@ public class ProviderReport extends Fragment {
         // Move y down past legend
         y += blockSize + spacing * 2;
 
-        // Prepare data arrays
-        long startMillis = helper.convertDateToLong(startDate);
-        long endMillis = helper.convertDateToLong(helper.today());
-        int totalDays = (int) ((endMillis - startMillis) / (1000*60*60*24)) + 1;
-
-        double[] values = new double[totalDays];
-        String[] dates = new String[totalDays];
-        Calendar cal = Calendar.getInstance();
-        cal.setTimeInMillis(startMillis);
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy/MM/dd", Locale.getDefault());
-
-        for (int i = 0; i < totalDays; i++) {
-            String dayStr = sdf.format(cal.getTime());
-            dates[i] = dayStr;
-            values[i] = dailyAvgMap.getOrDefault(dayStr, Double.NaN);
-            cal.add(Calendar.DAY_OF_MONTH, 1);
+        // Prepare data arrays: one point per bucket (day, week or month)
+        List<TrendBuckets.Bucket> buckets = trend.buckets();
+        int points = buckets.size();
+        boolean hasData = false;
+
+        double[] values = new double[points];
+        String[] dates = new String[points];
+        for (int i = 0; i < points; i++) {
+            TrendBuckets.Bucket bucket = buckets.get(i);
+            dates[i] = bucket.label;
+            values[i] = bucket.average();
+            if (!bucket.isEmpty()) hasData = true;
         }
+        float step = (float) width / Math.max(1, points - 1);
 
         // Y-axis scaling relative to PB
         double graphMin = 0;
@@ -298,15 +275,18 @@ public class ProviderReport extends Fragment {
         canvas.drawLine(x, eightyPBY, x + width, eightyPBY, guidePaint);
         canvas.drawText("0.8 PB", x - 50, eightyPBY + 5, paint);
 
-        // Plot points
-        if (!dailyAvgMap.isEmpty()){
+        // Plot points: at most PDF_POINTS of them, picked to keep the line's shape
+        if (hasData){
             Paint linePaint = new Paint();
             linePaint.setStrokeWidth(3);
 
-            for (int i = 0; i < totalDays; i++) {
-                if (Double.isNaN(values[i])) continue;
+            // gaps[i]: empty buckets before i, so a line is not drawn across one
+            int[] gaps = new int[points + 1];
+            for (int i = 0; i < points; i++) gaps[i + 1] = gaps[i] + (Double.isNaN(values[i]) ? 1 : 0);
 
-                float px = x + (i * (float) width / (totalDays - 1));
+            int prev = -1;
+            for (int i : ChartDownsampler.select(values, ChartDownsampler.PDF_POINTS)) {
+                float px = x + i * step;
                 float py = y + height - (float) ((values[i] - graphMin) / (maxVal - graphMin) * height);
 
                 // Color by PB thresholds
@@ -316,11 +296,12 @@ public class ProviderReport extends Fragment {
 
                 canvas.drawCircle(px, py, 6, linePaint);
 
-                if (i > 0 && !Double.isNaN(values[i-1])) {
-                    float prevPy = y + height - (float) ((values[i-1] - graphMin) / (maxVal - graphMin) * height);
-                    float prevPx = x + ((i-1) * (float) width / (totalDays - 1));
+                if (prev >= 0 && gaps[i] == gaps[prev]) {
+                    float prevPy = y + height - (float) ((values[prev] - graphMin) / (maxVal - graphMin) * height);
+                    float prevPx = x + prev * step;
                     canvas.drawLine(prevPx, prevPy, px, py, linePaint);
                 }
+                prev = i;
             }
         }
         else{
@@ -334,10 +315,10 @@ public class ProviderReport extends Fragment {
         paint.setColor(Color.BLACK);
         canvas.drawText("PEF zone over time", x + 200, y - 5, paint);
 
-        // Optional X-axis tick labels every month
-        int tickStep = Math.max(1, totalDays / 3);
-        for (int i = 0; i < totalDays; i += tickStep) {
-            canvas.drawText(dates[i], x + (i * (float) width / (totalDays - 1)), y + height + 15, paint);
+        // X-axis tick labels at about a third of the range
+        int tickStep = Math.max(1, points / 3);
+        for (int i = 0; i < points; i += tickStep) {
+            canvas.drawText(dates[i], x + i * step, y + height + 15, paint);
         }
         paint.setTextSize(16);
         paint.setColor(Color.BLACK);
@@ -2,35 +2,103 @@ package com.example.SmartAirGroup2;
 
 import android.util.Log;
 
-import androidx.annotation.NonNull;
-
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
-
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Locale;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TimeZone;
 import java.util.function.Consumer;
 
 public class ProviderReportHelper {
 
     private final String uname;
     private final String name;
-    private final DatabaseReference db;
+    private final UserTreeRepository repo;
+
+    // prepare(): whether the migration marker was read, what it said, and who waits for it
+    private boolean prepared;
+    private boolean migrated;
+    private List<Runnable> preparing;
 
     public ProviderReportHelper(String uname, String name) {
+        this(uname, name, new FirebaseUserTreeRepository());
+        AdherenceCacheWatcher.watch(uname);
+        PefStatsWatcher.watch(uname);
+    }
+
+    public ProviderReportHelper(String uname, String name, UserTreeRepository repo) {
         this.uname = uname;
         this.name = name;
-        this.db = FirebaseDatabase.getInstance().getReference();
+        this.repo = repo;
+    }
+
+    /** Path of a node under this child, relative to categories/users. */
+    private String childPath(String sub) {
+        return "children/" + uname + "/" + sub;
+    }
+
+    /**
+     * Records of a collection under this child with a timestamp at or after
+     * start: one orderByChild("timestamp") query once the child's records are
+     * migrated to timestamps; until then the whole collection, filtered here
+     * on the records' date strings (TimestampMigration.since).
+     */
+    private void since(final String sub, final long start, final UserTreeRepository.NodeCallback callback) {
+        prepare(() -> {
+            if (migrated) {
+                repo.query(childPath(sub), TreeQuery.orderByChild(RecordTime.FIELD)
+                        .startAt(start).endAt(Double.MAX_VALUE), callback);
+                return;
+            }
+            repo.read(childPath(sub), new UserTreeRepository.NodeCallback() {
+                @Override
+                public void onResult(TreeNode records) {
+                    callback.onResult(TimestampMigration.since(records, sub, start, TimeZone.getDefault()));
+                }
+
+                @Override
+                public void onError(String message) {
+                    callback.onError(message);
+                }
+            });
+        });
+    }
+
+    /**
+     * Run then once it is known whether the child's records are migrated to
+     * timestamps (one marker read; see since). The report only reads: the
+     * migration itself runs from the child's and parents' own sessions. The
+     * check runs once per helper: callers that arrive while it is running
+     * wait for it, and later callers go straight through.
+     */
+    public void prepare(Runnable then) {
+        synchronized (this) {
+            if (!prepared) {
+                boolean first = preparing == null;
+                if (first) preparing = new ArrayList<>();
+                preparing.add(then);
+                if (!first) return;
+                then = null;
+            }
+        }
+        if (then != null) {
+            then.run();
+        } else {
+            TimestampMigration.isDone(repo, uname, this::prepared);
+        }
+    }
+
+    private void prepared(boolean done) {
+        List<Runnable> waiting;
+        synchronized (this) {
+            waiting = preparing;
+            preparing = null;
+            migrated = done;
+            prepared = true;
+        }
+        for (Runnable r : waiting) r.run();
     }
 
     // ============================================================
@@ -40,28 +108,19 @@ public class ProviderReportHelper {
         long start = convertDateToLong(startDate);
         Set<String> days = new HashSet<>();
 
-        DatabaseReference ref = db.child("categories")
-                .child("users")
-                .child("children")
-                .child(uname)
-                .child("data")
-                .child("symptoms");
-
-        ref.addListenerForSingleValueEvent(new ValueEventListener() {
+        since("data/symptoms", start, new UserTreeRepository.NodeCallback() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                for (DataSnapshot snap : snapshot.getChildren()) {
-                    String date = snap.child("time").getValue(String.class);
-                    if (date != null && convertDateToLong(date) >= start) {
-                        days.add(date);
-                    }
+            public void onResult(TreeNode snapshot) {
+                TimeZone zone = TimeZone.getDefault();
+                for (TreeNode snap : snapshot.getChildren()) {
+                    days.add(ControllerDailyCount.dayKey(RecordTime.of(snap), zone));
                 }
                 callback.accept(days.size());
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e("ProviderReportHelper", "Error fetching symptoms: " + error.getMessage());
+            public void onError(String message) {
+                Log.e("ProviderReportHelper", "Error fetching symptoms: " + message);
                 callback.accept(0);
             }
         });
@@ -70,87 +129,26 @@ public class ProviderReportHelper {
     // ============================================================
     // 2. controllerAdherence percentage (asynchronous)
     // ============================================================
-    // Adherence % = (days with logged controller dose / planned dose days) × 100
+    // Adherence % = doses taken (capped per day) / doses planned × 100, from the
+    // controllerDaily counters of the report window; same as the adherence screens
     public void controllerAdherence(String startDate, Consumer<Double> callback) {
         long start = convertDateToLong(startDate);
-        long totalDays = computeDaysBetween(startDate, today());
+        long end = System.currentTimeMillis();
 
-        if (totalDays == 0) {
+        if (start <= 0 || start > end) {
             callback.accept(0.0);
             return;
         }
 
-        DatabaseReference ref = db.child("categories")
-                .child("users")
-                .child("children")
-                .child(uname)
-                .child("logs")
-                .child("controller_log");
-
-        DatabaseReference med = db.child("categories")
-                .child("users")
-                .child("children")
-                .child(uname)
-                .child("controller_schedule");
-
-        // First, fetch the medication schedule
-        med.addListenerForSingleValueEvent(new ValueEventListener() {
+        AdherenceRepository.getAdherence(repo, uname, start, end, new AdherenceRepository.AdherenceCallback() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot medSnapshot) {
-                String scheduledMedication = medSnapshot.child("medication").getValue(String.class);
-
-                // Count days per week from daysOfWeek
-                int daysPerWeek = 0;
-                DataSnapshot daysOfWeek = medSnapshot.child("daysOfWeek");
-                if (daysOfWeek.exists()) {
-                    for (DataSnapshot day : daysOfWeek.getChildren()) {
-                        Boolean isActive = day.getValue(Boolean.class);
-                        if (isActive != null && isActive) {
-                            daysPerWeek++;
-                        }
-                    }
-                }
-
-                if (daysPerWeek == 0 || scheduledMedication == null) {
-                    callback.accept(0.0);
-                    return;
-                }
-
-                int finalDaysPerWeek = daysPerWeek;
-
-                // Now fetch controller log entries
-                ref.addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        Set<String> uniqueDays = new HashSet<>();
-
-                        for (DataSnapshot snap : snapshot.getChildren()) {
-                            String dateTime = snap.child("dateTime").getValue(String.class);
-                            String logMedication = snap.child("medication").getValue(String.class);
-
-                            if (dateTime != null && convertDateTimeToLong(dateTime) >= start
-                                    && logMedication != null && logMedication.equals(scheduledMedication)) {
-                                // Extract date (first 10 characters: yyyy/MM/dd)
-                                uniqueDays.add(dateTime.substring(0, 10));
-                            }
-                        }
-
-                        // Scale by daysPerWeek/7
-                        double expectedDays = totalDays * (finalDaysPerWeek / 7.0);
-                        double adherencePercent = expectedDays > 0 ? (uniqueDays.size() * 100.0 / expectedDays) : 0.0;
-
-                        callback.accept(adherencePercent);
-                    }
-
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        callback.accept(0.0);
-                    }
-                });
+            public void onResult(AdherenceCalculator.AdherenceResult result) {
+                callback.accept(result.overallPercent);
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
+            public void onError(Exception e) {
+                Log.e("ProviderReportHelper", "Error fetching adherence: " + e.getMessage());
                 callback.accept(0.0);
             }
         });
@@ -168,29 +166,15 @@ public class ProviderReportHelper {
             return;
         }
 
-        DatabaseReference ref = db.child("categories")
-                .child("users")
-                .child("children")
-                .child(uname)
-                .child("logs")
-                .child("rescue_log");
-
-        ref.addListenerForSingleValueEvent(new ValueEventListener() {
+        since("logs/rescue_log", start, new UserTreeRepository.NodeCallback() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                int count = 0;
-                for (DataSnapshot snap : snapshot.getChildren()) {
-                    String dt = snap.child("dateTime").getValue(String.class);
-                    if (dt != null && convertDateTimeToLong(dt) >= start) {
-                        count++;
-                    }
-                }
-                callback.accept((double) count / totalDays);
+            public void onResult(TreeNode snapshot) {
+                callback.accept((double) snapshot.getChildrenCount() / totalDays);
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e("ProviderReportHelper", "Error fetching rescue logs: " + error.getMessage());
+            public void onError(String message) {
+                Log.e("ProviderReportHelper", "Error fetching rescue logs: " + message);
                 callback.accept(0.0);
             }
         });
@@ -199,38 +183,9 @@ public class ProviderReportHelper {
     // ============================================================
     // 4. Average PEF (asynchronous)
     // ============================================================
+    // Mean of every reading since startDate, from the pefDaily aggregates
     public void averagePEF(String startDate, Consumer<Double> callback) {
-        long start = convertDateToLong(startDate);
-
-        DatabaseReference ref = db.child("categories")
-                .child("users")
-                .child("children")
-                .child(uname)
-                .child("logs")
-                .child("PEF_log");
-
-        ref.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                double sum = 0;
-                int count = 0;
-                for (DataSnapshot snap : snapshot.getChildren()) {
-                    String dt = snap.child("dateTime").getValue(String.class);
-                    Double pef = snap.child("value").getValue(Double.class);
-                    if (pef != null && dt != null && convertDateTimeToLong(dt) >= start) {
-                        sum += pef;
-                        count++;
-                    }
-                }
-                callback.accept(count == 0 ? 0.0 : sum / count);
-            }
-
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e("ProviderReportHelper", "Error fetching PEF: " + error.getMessage());
-                callback.accept(0.0);
-            }
-        });
+        pefStats(startDate, stats -> callback.accept(stats.mean));
     }
 
     // ============================================================
@@ -240,27 +195,17 @@ public class ProviderReportHelper {
         long start = convertDateToLong(startDate);
         Map<String, TriageIncident> incidents = new HashMap<>();
 
-        DatabaseReference ref = db.child("categories")
-                .child("users")
-                .child("children")
-                .child(uname)
-                .child("data")
-                .child("triages");
-
-        ref.addListenerForSingleValueEvent(new ValueEventListener() {
+        since("data/triages", start, new UserTreeRepository.NodeCallback() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot root) {
-                for (DataSnapshot snap : root.getChildren()) {
-                    String date = snap.child("time").getValue(String.class);
-                    if (date == null || convertDateToLong2(date) < start) continue;
-
+            public void onResult(TreeNode root) {
+                for (TreeNode snap : root.getChildren()) {
                     TriageIncident t = new TriageIncident();
-                    t.pef = snap.child("PEF").getValue(String.class);
-                    t.guidance = snap.child("guidance").getValue(String.class);
-                    t.response = snap.child("response").getValue(String.class);
-                    t.time = snap.child("time").getValue(String.class);;
+                    t.pef = snap.child("PEF").getString();
+                    t.guidance = snap.child("guidance").getString();
+                    t.response = snap.child("response").getString();
+                    t.time = snap.child("time").getString();;
 
-                    DataSnapshot red = snap.child("redflags");
+                    TreeNode red = snap.child("redflags");
                     if (red.exists()) {
                         t.redflags.put("Chest Pulling or Retraction", getBool(red, "Chest Pulling or Retraction"));
                         t.redflags.put("Grey or Blue lips", getBool(red, "Grey or Blue lips"));
@@ -274,30 +219,25 @@ public class ProviderReportHelper {
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e("ProviderReportHelper", "Error fetching triages: " + error.getMessage());
+            public void onError(String message) {
+                Log.e("ProviderReportHelper", "Error fetching triages: " + message);
                 callback.accept(incidents);
             }
         });
     }
 
     public void checkPermission(Consumer<Boolean> callback) {
-        DatabaseReference ref = db.child("categories")
-                .child("users")
-                .child("children")
-                .child(uname)
-                .child("shareToProviderPermissions")
-                .child("triage");
-
-        ref.addListenerForSingleValueEvent(new ValueEventListener() {
+        String path = childPath("shareToProviderPermissions/triage");
+
+        repo.read(path, new UserTreeRepository.NodeCallback() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                Boolean hasPermission = snapshot.getValue(Boolean.class);
+            public void onResult(TreeNode snapshot) {
+                Boolean hasPermission = snapshot.getBoolean();
                 callback.accept(hasPermission != null && hasPermission);
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
+            public void onError(String message) {
                 callback.accept(false); // default to false if error
             }
         });
@@ -305,8 +245,8 @@ public class ProviderReportHelper {
 
 
 
-    private boolean getBool(DataSnapshot snap, String key) {
-        Boolean v = snap.child(key).getValue(Boolean.class);
+    private boolean getBool(TreeNode snap, String key) {
+        Boolean v = snap.child(key).getBoolean();
         return v != null && v;
     }
 
@@ -325,114 +265,82 @@ public class ProviderReportHelper {
     // Date Utilities
     // ============================================================
     long convertDateToLong(String date) {
-        try {
-            return new SimpleDateFormat("yyyy/MM/dd", Locale.getDefault())
-                    .parse(date).getTime();
-        } catch (Exception e) {
-            return 0;
-        }
-    }
-
-    long convertDateToLong2(String date) {
-        if (date == null) return 0;
-
-        try {
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy/MM/dd", Locale.US);
-            sdf.setLenient(false);
-            return sdf.parse(date).getTime();
-        } catch (Exception e) {
-            Log.e("ProviderReportHelper", "Failed to parse date: " + date, e);
-            return 0;
-        }
-    }
-
-
-    private long convertDateTimeToLong(String dt) {
-        try {
-            return new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault())
-                    .parse(dt).getTime();
-        } catch (Exception e) {
-            return 0;
-        }
+        long millis = DateCodec.parseMillis(date, TimeZone.getDefault());
+        return millis == DateCodec.INVALID ? 0 : millis;
     }
 
     private long computeDaysBetween(String start, String end) {
-        long s = convertDateToLong(start);
-        long e = convertDateToLong(end);
-        return (e - s) / (1000 * 60 * 60 * 24);
+        int s = DateCodec.parseDay(start);
+        int e = DateCodec.parseDay(end);
+        return s == DateCodec.INVALID_DAY || e == DateCodec.INVALID_DAY ? 0 : e - s;
     }
 
     public String today() {
-        return new SimpleDateFormat("yyyy/MM/dd", Locale.getDefault())
-                .format(new Date());
+        return DateCodec.format(System.currentTimeMillis(), TimeZone.getDefault(), DateCodec.Layout.DATE_SLASH);
     }
 
     public String reverseDate(String date, int monthsBack) {
-        try {
-            // Same format as your today() method
-            SimpleDateFormat format = new SimpleDateFormat("yyyy/MM/dd", Locale.getDefault());
-            Date parsed = format.parse(date);
-
-            Calendar cal = Calendar.getInstance();
-            cal.setTime(parsed);
-
-            // Subtract N months
-            cal.add(Calendar.MONTH, -monthsBack);
-
-            return format.format(cal.getTime());
-
-        } catch (ParseException e) {
-            e.printStackTrace();
-            return "";
-        }
+        int day = DateCodec.parseDay(date);
+        if (day == DateCodec.INVALID_DAY) return "";
+        return DateCodec.formatDay(DateCodec.plusMonths(day, -monthsBack), DateCodec.Layout.DATE_SLASH);
     }
 
     // ============================================================
-    // 6. Compute Daily Average PEF Values (asynchronous)
+    // 6. PEF Trend for the report range (asynchronous)
     // ============================================================
-    public void dailyAveragePEF(String startDate, Consumer<Map<String, Double>> callback) {
+    // Average/min/max PEF per day, week or month (picked from the range length,
+    // at most TrendBuckets.MAX_POINTS points) from the pefDaily aggregates
+    public void pefTrend(String startDate, Consumer<TrendBuckets> callback) {
         long start = convertDateToLong(startDate);
+        long end = System.currentTimeMillis();
+        int today = AdherenceCalculator.epochDay(end, TimeZone.getDefault());
 
-        DatabaseReference ref = db.child("categories")
-                .child("users")
-                .child("children")
-                .child(uname)
-                .child("logs")
-                .child("PEF_log");
+        if (start <= 0 || start > end) {
+            callback.accept(new TrendBuckets(today, today));
+            return;
+        }
 
-        ref.addListenerForSingleValueEvent(new ValueEventListener() {
+        new TrendLoader(repo).loadPefTrend(uname, start, end, new TrendLoader.TrendCallback() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                Map<String, Double> dailySum = new HashMap<>();
-                Map<String, Integer> dailyCount = new HashMap<>();
-
-                for (DataSnapshot snap : snapshot.getChildren()) {
-                    String dt = snap.child("dateTime").getValue(String.class);
-                    Double pef = snap.child("value").getValue(Double.class);
+            public void onResult(TrendBuckets trend) {
+                callback.accept(trend);
+            }
 
-                    if (dt != null && pef != null && convertDateTimeToLong(dt) >= start) {
-                        String dateOnly = dt.substring(0, 10).replace("-", "/"); // yyyy/MM/dd
+            @Override
+            public void onError(String message) {
+                Log.e("ProviderReportHelper", "Error fetching PEF trend: " + message);
+                callback.accept(new TrendBuckets(today, today));
+            }
+        });
+    }
 
-                        dailySum.put(dateOnly, dailySum.getOrDefault(dateOnly, 0.0) + pef);
-                        dailyCount.put(dateOnly, dailyCount.getOrDefault(dateOnly, 0) + 1);
-                    }
-                }
+    // ============================================================
+    // 7. PEF statistics for the report range (asynchronous)
+    // ============================================================
+    // Mean, 7-day EWMA, diurnal variability and days below 80% of PB in one
+    // pass over the pefDaily aggregates (PefStats); cached per child and day
+    public void pefStats(String startDate, Consumer<PefStats> callback) {
+        long start = convertDateToLong(startDate);
+        long end = System.currentTimeMillis();
+        TimeZone zone = TimeZone.getDefault();
+        int today = AdherenceCalculator.epochDay(end, zone);
 
-                Map<String, Double> dailyAvg = new HashMap<>();
-                for (String date : dailySum.keySet()) {
-                    dailyAvg.put(date, dailySum.get(date) / dailyCount.get(date));
-                }
+        if (start <= 0 || start > end) {
+            callback.accept(PefStats.compute(new PefStats.Days(0), today, today, 0));
+            return;
+        }
 
-                callback.accept(dailyAvg);
+        new PefStatsLoader(repo, PefStatsCache.getInstance()).load(uname, start, end, new PefStatsLoader.StatsCallback() {
+            @Override
+            public void onResult(PefStats stats) {
+                callback.accept(stats);
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e("ProviderReportHelper", "Error fetching PEF logs: " + error.getMessage());
-                callback.accept(new HashMap<>());
+            public void onError(String message) {
+                Log.e("ProviderReportHelper", "Error fetching PEF statistics: " + message);
+                callback.accept(PefStats.compute(new PefStats.Days(0), today, today, 0));
             }
         });
     }
-
-
 }
@@ -0,0 +1,169 @@
+package com.example.SmartAirGroup2;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProviderReportLoader
+ *
+ * Everything the provider report draws, fetched at once:
+ * - the rescue frequency, controller adherence, symptom days, PEF statistics
+ *   and PEF trend are independent, so all five start together;
+ * - the triage permission is read alongside them, and the incidents right
+ *   after it when it is granted (the one dependent step);
+ * - a join collects the results and delivers the Report once, so the page
+ *   is laid out and drawn in one pass. The total time is close to the
+ *   slowest metric rather than the sum of all of them.
+ *
+ * Whether the child's records are migrated to timestamps is checked first,
+ * once, before any metric starts (ProviderReportHelper.prepare). The check
+ * and the metrics together have until timeoutMs after load() to arrive. A
+ * metric that has not arrived by then is left out of the Report (has() is
+ * false) and the report goes ahead with the rest; its late result is
+ * dropped. A read that
+ * fails still arrives, with ProviderReportHelper's fallback value.
+ */
+public class ProviderReportLoader {
+
+    static final long DEFAULT_TIMEOUT_MS = 10_000;
+
+    public static final int RESCUE = 0;
+    public static final int ADHERENCE = 1;
+    public static final int SYMPTOMS = 2;
+    public static final int PEF_STATS = 3;
+    public static final int PEF_TREND = 4;
+    public static final int TRIAGE = 5;
+    static final int METRICS = 6;
+
+    // Shared by every report: it only fires deadlines
+    private static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1);
+    static {
+        TIMER.setKeepAliveTime(30L, TimeUnit.SECONDS);
+        TIMER.allowCoreThreadTimeOut(true);
+        TIMER.setRemoveOnCancelPolicy(true);
+    }
+
+    /** The report's data; a field is only meaningful when has() is true for its metric. */
+    public static class Report {
+        public double rescueFrequency;
+        public double adherence;
+        public int symptomDays;
+        public PefStats pef;
+        public TrendBuckets pefTrend;
+        /** Null when the child does not share triage incidents with the provider. */
+        public Map<String, ProviderReportHelper.TriageIncident> triages;
+
+        private final boolean[] arrived = new boolean[METRICS];
+
+        public boolean has(int metric) {
+            return arrived[metric];
+        }
+
+        /** Whether every metric arrived before the timeout. */
+        public boolean isComplete() {
+            for (boolean a : arrived) if (!a) return false;
+            return true;
+        }
+    }
+
+    public interface ReportCallback {
+        void onResult(Report report);
+    }
+
+    private final ProviderReportHelper helper;
+    private final long timeoutMs;
+    private final ScheduledExecutorService timer;
+    private final Executor deliverExecutor;
+
+    public ProviderReportLoader(ProviderReportHelper helper) {
+        this(helper, DEFAULT_TIMEOUT_MS, TIMER, new Handler(Looper.getMainLooper())::post);
+    }
+
+    /**
+     * @param timer           fires the deadline
+     * @param deliverExecutor runs the callback (the main thread in the app)
+     */
+    public ProviderReportLoader(ProviderReportHelper helper, long timeoutMs,
+                                ScheduledExecutorService timer, Executor deliverExecutor) {
+        this.helper = helper;
+        this.timeoutMs = timeoutMs;
+        this.timer = timer;
+        this.deliverExecutor = deliverExecutor;
+    }
+
+    public void load(String startDate, ReportCallback callback) {
+        new Join(callback).start(startDate);
+    }
+
+    /** State of one load() call. */
+    private final class Join {
+        private final ReportCallback callback;
+        private final Report report = new Report();
+        private int pending = METRICS;
+        private boolean delivered;
+        private ScheduledFuture<?> deadline;
+
+        Join(ReportCallback callback) {
+            this.callback = callback;
+        }
+
+        /**
+         * Check the migration marker once, then fan out. The deadline starts
+         * first: a marker read that never answers (offline, nothing cached)
+         * still ends in a report, without the metrics.
+         */
+        void start(final String startDate) {
+            synchronized (this) {
+                deadline = timer.schedule(this::timeOut, timeoutMs, TimeUnit.MILLISECONDS);
+            }
+            helper.prepare(() -> fanOut(startDate));
+        }
+
+        private void fanOut(final String startDate) {
+            synchronized (this) {
+                if (delivered) return;
+            }
+            helper.countRescueFrequency(startDate, v -> arrive(RESCUE, () -> report.rescueFrequency = v));
+            helper.controllerAdherence(startDate, v -> arrive(ADHERENCE, () -> report.adherence = v));
+            helper.countUniqueSymptomDays(startDate, v -> arrive(SYMPTOMS, () -> report.symptomDays = v));
+            helper.pefStats(startDate, v -> arrive(PEF_STATS, () -> report.pef = v));
+            helper.pefTrend(startDate, v -> arrive(PEF_TREND, () -> report.pefTrend = v));
+            helper.checkPermission(granted -> {
+                if (!granted) {
+                    arrive(TRIAGE, () -> report.triages = null);
+                } else {
+                    helper.triageIncidents(startDate, v -> arrive(TRIAGE, () -> report.triages = v));
+                }
+            });
+        }
+
+        /** Store one metric unless the report already went out; deliver after the last. */
+        private void arrive(int metric, Runnable store) {
+            synchronized (this) {
+                if (delivered || report.arrived[metric]) return;
+                store.run();
+                report.arrived[metric] = true;
+                if (--pending > 0) return;
+                delivered = true;
+                if (deadline != null) deadline.cancel(false);
+            }
+            deliverExecutor.execute(() -> callback.onResult(report));
+        }
+
+        /** Deliver what has arrived; the missing metrics stay has() == false. */
+        private void timeOut() {
+            synchronized (this) {
+                if (delivered) return;
+                delivered = true;
+            }
+            deliverExecutor.execute(() -> callback.onResult(report));
+        }
+    }
+}
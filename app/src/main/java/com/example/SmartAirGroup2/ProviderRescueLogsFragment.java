@@ -1,13 +1,11 @@
 package com.example.SmartAirGroup2;
 
 import android.os.Bundle;
-import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -17,29 +15,20 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentTransaction;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
 
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Locale;
-import java.util.Map;
 
 /**
  * ProviderRescueLogsFragment
  *
  * Read-only fragment for provider users that shows ONLY rescue (inhaler) logs for a given child.
  * - No add / edit / delete controls.
- * - Only displays logs where type == "inhaler" or "rescue".
+ * - Only reads the rescue_log group, newest page first; older pages load on scroll.
  *
  * Usage: ProviderRescueLogsFragment.newInstance(childId)
  */
@@ -48,9 +37,17 @@ public class ProviderRescueLogsFragment extends Fragment {
     private String currentChildId;
     private FirebaseDatabase db;
     private DatabaseReference childrenRef;
-    private LinearLayout logsContainer;
+    private RecyclerView logsRecycler;
+    private LogListAdapter logAdapter;
+    private TextView emptyView;
     private Toolbar toolbar;
 
+    private final LogFeed feed = new LogFeed();
+    private PagedLogSource logSource;
+
+    /** Start loading the next page when this many rows remain below the last visible one. */
+    private static final int LOAD_MORE_THRESHOLD = 10;
+
     public static ProviderRescueLogsFragment newInstance(String childId) {
         ProviderRescueLogsFragment frag = new ProviderRescueLogsFragment();
         Bundle args = new Bundle();
@@ -59,24 +56,6 @@ public class ProviderRescueLogsFragment extends Fragment {
         return frag;
     }
 
-    private static class LogItem {
-        public String key;
-        public String category;
-        public long timestamp;
-        public String groupKey;
-        public String nodeKey;
-        public Map<String, Object> data;
-
-        public LogItem(String key, String category, long timestamp, String groupKey, String nodeKey, Map<String, Object> data) {
-            this.key = key;
-            this.category = category;
-            this.timestamp = timestamp;
-            this.groupKey = groupKey;
-            this.nodeKey = nodeKey;
-            this.data = data;
-        }
-    }
-
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -108,7 +87,21 @@ public class ProviderRescueLogsFragment extends Fragment {
         db = FirebaseDatabase.getInstance("https://smart-air-group2-default-rtdb.firebaseio.com/");
         childrenRef = db.getReference("categories").child("users").child("children");
 
-        logsContainer = view.findViewById(R.id.logsContainer);
+        logsRecycler = view.findViewById(R.id.logsRecycler);
+        emptyView = view.findViewById(R.id.emptyLogs);
+        logAdapter = new LogListAdapter(null); // read-only: no delete
+        logsRecycler.setLayoutManager(new LinearLayoutManager(requireContext()));
+        logsRecycler.setAdapter(logAdapter);
+        logsRecycler.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                LinearLayoutManager lm = (LinearLayoutManager) recyclerView.getLayoutManager();
+                if (lm != null && logSource != null
+                        && lm.findLastVisibleItemPosition() >= logAdapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    logSource.loadOlder();
+                }
+            }
+        });
 
         // load only rescue logs (read-only)
         loadRescueLogs();
@@ -116,107 +109,19 @@ public class ProviderRescueLogsFragment extends Fragment {
         return view;
     }
 
-    private int dpToPx(int dp) {
-        return (int) (dp * getResources().getDisplayMetrics().density + 0.5f);
-    }
-
-    private String safeToString(Object o, String def) {
-        if (o == null) return def == null ? "" : def;
-        String s = String.valueOf(o);
-        return s.equals("null") ? (def == null ? "" : def) : s;
-    }
-
-    private long getTimestampFromMap(Map<String, Object> map) {
-        Object tsObj = map.get("timestamp");
-        if (tsObj instanceof Long) return (Long) tsObj;
-        if (tsObj instanceof Integer) return ((Integer) tsObj).longValue();
-        if (tsObj instanceof Double) return ((Double) tsObj).longValue();
-        return 0;
-    }
-
-    private void addLogItemToView(final LogItem item) {
-        Map<String, Object> map = item.data;
-        String headerText = item.category != null ? item.category.toUpperCase() : "RESCUE";
-        String dateText = "";
-        long ts = item.timestamp;
-
-        if (ts > 0) {
-            Date date = new Date(ts);
-            SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
-            dateText = fmt.format(date);
-        } else {
-            dateText = safeToString(map.get("dateTime"), "");
-        }
-
-        LinearLayout itemLayout = new LinearLayout(requireContext());
-        itemLayout.setOrientation(LinearLayout.VERTICAL);
-        int pad = dpToPx(10);
-        itemLayout.setPadding(pad, pad, pad, pad);
-
-        LinearLayout.LayoutParams lp = new LinearLayout.LayoutParams(
-                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
-        lp.setMargins(0, dpToPx(6), 0, dpToPx(6));
-        itemLayout.setLayoutParams(lp);
-
-        LinearLayout headerRow = new LinearLayout(requireContext());
-        headerRow.setOrientation(LinearLayout.HORIZONTAL);
-        headerRow.setLayoutParams(new LinearLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
-        headerRow.setGravity(Gravity.CENTER_VERTICAL);
-
-        TextView header = new TextView(requireContext());
-        header.setText(headerText + (dateText.isEmpty() ? "" : " — " + dateText));
-        header.setTextSize(16f);
-        header.setTypeface(header.getTypeface(), android.graphics.Typeface.BOLD);
-        LinearLayout.LayoutParams headerLp = new LinearLayout.LayoutParams(0, ViewGroup.LayoutParams.WRAP_CONTENT, 1f);
-        header.setLayoutParams(headerLp);
-        headerRow.addView(header);
-
-        itemLayout.addView(headerRow);
-
-        // Display rescue-specific details (medication, dose, before/after, note)
-        String med = safeToString(map.get("medication"), "");
-        String dose = safeToString(map.get("dose"), "");
-        String units = safeToString(map.get("units"), "");
-        String note = safeToString(map.get("note"), "");
-        String pre = safeToString(map.get("preDose"), "");
-        String post = safeToString(map.get("postDose"), "");
-
-        if (!med.isEmpty()) {
-            TextView medV = new TextView(requireContext());
-            medV.setText("Medication: " + med);
-            itemLayout.addView(medV);
-        }
-        if (!dose.isEmpty() || !units.isEmpty()) {
-            TextView doseV = new TextView(requireContext());
-            doseV.setText("Dose: " + dose + (units.isEmpty() ? "" : " " + units));
-            itemLayout.addView(doseV);
-        }
-        if (!pre.isEmpty()) {
-            TextView preV = new TextView(requireContext());
-            preV.setText("Before: " + pre);
-            itemLayout.addView(preV);
-        }
-        if (!post.isEmpty()) {
-            TextView postV = new TextView(requireContext());
-            postV.setText("After: " + post);
-            itemLayout.addView(postV);
-        }
-        if (!note.isEmpty()) {
-            TextView noteV = new TextView(requireContext());
-            noteV.setText("Note: " + note);
-            itemLayout.addView(noteV);
+    @Override
+    public void onDestroyView() {
+        if (logSource != null) {
+            logSource.stop();
+            logSource = null;
         }
-
-        TextView divider = new TextView(requireContext());
-        divider.setText("────────────────────────────");
-        divider.setPadding(0, dpToPx(6), 0, 0);
-        itemLayout.addView(divider);
-
-        logsContainer.addView(itemLayout, 0);
+        feed.setListener(null);
+        logAdapter = null;
+        super.onDestroyView();
     }
 
     /**
-     * Loads logs and filters to rescue/inhaler only.
+     * Loads rescue logs page by page into the list.
      * Read-only: no delete/save actions.
      */
     private void loadRescueLogs() {
@@ -225,77 +130,28 @@ public class ProviderRescueLogsFragment extends Fragment {
             return;
         }
 
-        if (logsContainer != null) logsContainer.removeAllViews();
+        feed.setListener(logAdapter);
+        feed.clear();
 
         DatabaseReference childLogsRef = childrenRef.child(currentChildId).child("logs");
-        childLogsRef.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                List<LogItem> items = new ArrayList<>();
-
-                for (DataSnapshot groupSnapshot : snapshot.getChildren()) {
-                    String groupKey = groupSnapshot.getKey(); // e.g., PEF_log, rescue_log, controller_log
-
-                    for (DataSnapshot logSnapshot : groupSnapshot.getChildren()) {
-                        try {
-                            String nodeKey = logSnapshot.getKey();
-
-                            @SuppressWarnings("unchecked")
-                            Map<String, Object> logMap = (Map<String, Object>) logSnapshot.getValue();
-
-                            if (logMap != null) {
-                                String type = safeToString(logMap.get("type"), "").toLowerCase();
-
-                                // Accept both explicit "rescue"/"inhaler" or group key rescue_log
-                                boolean isRescue = "rescue".equalsIgnoreCase(type)
-                                        || "inhaler".equalsIgnoreCase(type)
-                                        || (groupKey != null && groupKey.toLowerCase().contains("rescue"));
-
-                                if (!isRescue) continue; // skip non-rescue logs
-
-                                long timestamp = getTimestampFromMap(logMap);
-
-                                Map<String, Object> displayData = new HashMap<>(logMap);
-                                displayData.remove("type");
-                                displayData.remove("timestamp");
-
-                                items.add(new LogItem(nodeKey, "rescue", timestamp, groupKey, nodeKey, displayData));
-                            }
-                        } catch (Exception e) {
-                            if (getContext() != null) {
-                                Toast.makeText(getContext(), "Error parsing log: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                            }
-                        }
+        logSource = new PagedLogSource(childLogsRef, Collections.singletonList("rescue_log"), feed, false,
+                new PagedLogSource.Callback() {
+                    @Override
+                    public void onPageLoaded() {
+                        if (logAdapter == null) return; // view already destroyed
+                        boolean empty = logAdapter.getItemCount() == 0 && !logSource.hasMore();
+                        emptyView.setVisibility(empty ? View.VISIBLE : View.GONE);
+                        if (logAdapter.getItemCount() < LogPager.PAGE_SIZE) logSource.loadOlder();
                     }
-                }
 
-                // sort newest first
-                Collections.sort(items, new Comparator<LogItem>() {
                     @Override
-                    public int compare(LogItem o1, LogItem o2) {
-                        return Long.compare(o2.timestamp, o1.timestamp);
+                    public void onError(String message) {
+                        if (getContext() != null) {
+                            Toast.makeText(getContext(), "Failed to load logs: " + message, Toast.LENGTH_LONG).show();
+                        }
                     }
                 });
-
-                if (items.isEmpty()) {
-                    TextView empty = new TextView(requireContext());
-                    empty.setText("No rescue logs available for this child.");
-                    empty.setPadding(dpToPx(12), dpToPx(12), dpToPx(12), dpToPx(12));
-                    logsContainer.addView(empty);
-                } else {
-                    for (LogItem item : items) {
-                        addLogItemToView(item);
-                    }
-                }
-            }
-
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                if (getContext() != null) {
-                    Toast.makeText(getContext(), "Failed to load logs: " + error.getMessage(), Toast.LENGTH_LONG).show();
-                }
-            }
-        });
+        logSource.start();
     }
 
     @Override
@@ -65,6 +65,7 @@ import java.util.ArrayList;
  *         └── children/{childUname}/
  *             └── status/
  *                 ├── pefZone: Integer (0=green, 1=yellow, 2=red)
+ *                 ├── pefZoneDay: String (yyyy-MM-dd the zone is for)
  *                 └── inventory/
  *                     └── {medicineName}/
  *                         └── {timestamp: Integer (0=good, 1=warning, 2=alert)}
@@ -83,6 +83,7 @@ import java.util.TreeMap;
  *         └── children/{childUname}/
  *             └── status/
  *                 ├── pefZone: Integer (0=green, 1=yellow, 2=red)
+ *                 ├── pefZoneDay: String (yyyy-MM-dd the zone is for)
  *                 └── inventory/
  *                     └── {medicineName}/
  *                         └── {timestamp: Integer (0=good, 1=warning, 2=alert)}
@@ -325,12 +326,18 @@ public class ProviderSideChildRescueSummary extends Fragment {
                 List<BarEntry> entries = new ArrayList<>();
                 // TreeMap sorts by date string keys automatically
                 Map<String, Integer> sortedDailyCounts = new TreeMap<>(dailyCounts);
-                List<String> labels = new ArrayList<>(sortedDailyCounts.keySet());
+                List<String> days = new ArrayList<>(sortedDailyCounts.keySet());
 
-                for (int i = 0; i < labels.size(); i++) {
-                    String date = labels.get(i);
-                    Integer count = sortedDailyCounts.get(date);
-                    entries.add(new BarEntry(i, count));
+                double[] counts = new double[days.size()];
+                for (int i = 0; i < days.size(); i++) {
+                    counts[i] = sortedDailyCounts.get(days.get(i));
+                }
+                // Long windows are summed into runs of consecutive days (at most
+                // SCREEN_POINTS bars), so every rescue is still in some bar
+                ChartDownsampler.Bars bars = ChartDownsampler.sumRuns(days, counts, ChartDownsampler.SCREEN_POINTS);
+                List<String> labels = Arrays.asList(bars.labels);
+                for (int i = 0; i < bars.values.length; i++) {
+                    entries.add(new BarEntry(i, (float) bars.values[i]));
                 }
 
                 // Configure DataSet
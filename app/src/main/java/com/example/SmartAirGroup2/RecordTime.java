@@ -0,0 +1,45 @@
+package com.example.SmartAirGroup2;
+
+import java.util.TimeZone;
+
+/**
+ * RecordTime
+ *
+ * The canonical time of a log, symptom or triage record: epoch millis in its
+ * "timestamp" child, indexed in database.rules.json so range filters are
+ * orderByChild("timestamp") queries.
+ *
+ * The display strings written before the field existed come in a few shapes,
+ * all read here:
+ *
+ *   logs (dateTime)          "yyyy-MM-dd HH:mm"
+ *   symptoms (time)          "yyyy/MM/dd HH:mm"
+ *   triages (time)           "yyyy/MM/dd HH:mm:ss"
+ *   dates only               "yyyy/MM/dd", "yyyy-MM-dd"
+ */
+public final class RecordTime {
+
+    public static final String FIELD = "timestamp";
+
+    private RecordTime() {
+    }
+
+    /** The record's timestamp child, or 0 if it has none. */
+    public static long of(TreeNode record) {
+        Long ts = record.child(FIELD).getLong();
+        return ts == null || ts <= 0 ? 0 : ts;
+    }
+
+    /**
+     * Local time of a date string in any of the stored formats, or 0 if it is
+     * not one of them. A missing time of day is midnight.
+     */
+    public static long parse(String s, TimeZone zone) {
+        long millis = DateCodec.parseMillis(s, zone);
+        return millis == DateCodec.INVALID ? 0 : millis;
+    }
+
+    public static long parse(String s) {
+        return parse(s, TimeZone.getDefault());
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.SmartAirGroup2;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.Transaction;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeSet;
+
+/**
+ * RescueDailyStore
+ *
+ * Per-day rescue counts, one number per local day:
+ *
+ *   categories/users/children/{childUname}/rescueDaily/{yyyy-MM-dd}: Long
+ *
+ * - recordRescue / removeRescue: transactional update of the rescue's day.
+ *   Take the child's node, categories/users/children/{childUname}, like
+ *   ControllerDailyStore.
+ * - backfill: rebuild every day from the child's rescue_log and mark the
+ *   counters as complete (rescueDaily/backfilledAt). Run by DailyBackfill
+ *   from the sessions that own the child's records.
+ * - loadWindow: rescues per day for a range of days, read from the counters
+ *   only; counted from rescue_log (read only) while the child's counters are
+ *   not built yet.
+ * - check: recompute the counters from rescue_log and report (and optionally
+ *   repair) every day whose stored count drifted.
+ *
+ * A rescue's day is the local date of its timestamp, or the date part of its
+ * dateTime for entries without one.
+ */
+public class RescueDailyStore {
+
+    static final String NODE = "rescueDaily";
+    static final String BACKFILLED_AT = "backfilledAt";
+    static final String UPDATED_AT = "updatedAt";
+
+    public interface WindowCallback {
+        /**
+         * @param firstDay       epoch day of rescuesPerDay[0]
+         * @param rescuesPerDay  rescues logged on each day of the window
+         */
+        void onResult(int firstDay, int[] rescuesPerDay);
+        void onError(String message);
+    }
+
+    public interface CheckCallback {
+        /** @param drift days whose stored count differs from rescue_log, by day */
+        void onResult(List<Drift> drift);
+        void onError(String message);
+    }
+
+    /** One day whose counter does not match the log. */
+    public static class Drift {
+        public final String day;
+        public final long stored;
+        public final long actual;
+
+        Drift(String day, long stored, long actual) {
+            this.day = day;
+            this.stored = stored;
+            this.actual = actual;
+        }
+
+        @Override
+        public String toString() {
+            return day + ": stored " + stored + ", log " + actual;
+        }
+    }
+
+    public static DatabaseReference dayRef(DatabaseReference childRef, String dayKey) {
+        return childRef.child(NODE).child(dayKey);
+    }
+
+    /**
+     * Day key of a rescue_log entry, or null if it has neither a timestamp
+     * nor a dateTime starting with a date.
+     */
+    public static String dayKey(long timestamp, String dateTime, TimeZone zone) {
+        if (timestamp > 0) return ControllerDailyCount.dayKey(timestamp, zone);
+        if (dateTime != null && dateTime.length() >= 10 && dateTime.charAt(4) == '-' && dateTime.charAt(7) == '-') {
+            return dateTime.substring(0, 10);
+        }
+        return null;
+    }
+
+    /**
+     * Count a saved rescue on its day. Call after the rescue_log write succeeded.
+     */
+    public static void recordRescue(final DatabaseReference childRef, long timestamp, String dateTime) {
+        String day = dayKey(timestamp, dateTime, TimeZone.getDefault());
+        if (day == null) return;
+        dayRef(childRef, day).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData data) {
+                data.setValue(number(data.getValue()) + 1);
+                return Transaction.success(data);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                if (error == null && committed) changed(childRef);
+            }
+        });
+    }
+
+    /**
+     * Uncount a deleted rescue. Call after the rescue_log delete succeeded.
+     */
+    public static void removeRescue(final DatabaseReference childRef, long timestamp, String dateTime) {
+        String day = dayKey(timestamp, dateTime, TimeZone.getDefault());
+        if (day == null) return;
+        dayRef(childRef, day).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData data) {
+                long n = number(data.getValue());
+                // Days never counted predate the counters; backfill will get them right
+                data.setValue(n <= 1 ? null : n - 1);
+                return Transaction.success(data);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                if (error == null && committed) changed(childRef);
+            }
+        });
+    }
+
+    private static void changed(DatabaseReference childRef) {
+        childRef.child(NODE).child(UPDATED_AT).setValue(ServerValue.TIMESTAMP);
+    }
+
+    private static long number(Object o) {
+        return o instanceof Number ? ((Number) o).longValue() : 0;
+    }
+
+    /**
+     * Rebuild the child's counters from the whole rescue_log in one write
+     * (DailyBackfill.run), unless a rescue is counted meanwhile. Reads the
+     * full history once; run it per child, not on every open.
+     */
+    public static void backfill(UserTreeRepository repo, String childUname, final TimeZone zone,
+                                UserTreeRepository.WriteCallback callback) {
+        String childPath = "children/" + childUname;
+        DailyBackfill.run(repo, childPath + "/" + NODE, childPath + "/logs/rescue_log",
+                new String[]{BACKFILLED_AT, UPDATED_AT},
+                log -> new HashMap<String, Object>(countsFromLog(log, zone)), callback);
+    }
+
+    /** Rescues per day key for every entry in a rescue_log snapshot. */
+    static Map<String, Long> countsFromLog(TreeNode log, TimeZone zone) {
+        Map<String, Long> days = new HashMap<>();
+        for (TreeNode entry : log.getChildren()) {
+            Long ts = entry.child("timestamp").getLong();
+            String day = dayKey(ts == null ? 0 : ts, entry.child("dateTime").getString(), zone);
+            if (day == null) continue;
+            Long n = days.get(day);
+            days.put(day, n == null ? 1 : n + 1);
+        }
+        return days;
+    }
+
+    /**
+     * Rescues per local day for epoch days firstDay..lastDay, from the
+     * counters of those days only. Until the child's counters are built they
+     * are counted from rescue_log, without writing them.
+     */
+    public static void loadWindow(final UserTreeRepository repo, final String childUname,
+                                  final int firstDay, final int lastDay, final TimeZone zone,
+                                  final WindowCallback callback) {
+        final String childPath = "children/" + childUname;
+        repo.read(childPath + "/" + NODE + "/" + BACKFILLED_AT, new UserTreeRepository.NodeCallback() {
+            @Override
+            public void onResult(TreeNode marker) {
+                if (marker.exists()) {
+                    queryWindow(repo, childPath + "/" + NODE, firstDay, lastDay, callback);
+                    return;
+                }
+                repo.read(childPath + "/logs/rescue_log", new UserTreeRepository.NodeCallback() {
+                    @Override
+                    public void onResult(TreeNode log) {
+                        Map<String, Long> days = countsFromLog(log, zone);
+                        int[] perDay = new int[Math.max(0, lastDay - firstDay + 1)];
+                        for (int i = 0; i < perDay.length; i++) {
+                            Long n = days.get(AdherenceCalculator.dateKey(firstDay + i));
+                            perDay[i] = n == null ? 0 : n.intValue();
+                        }
+                        callback.onResult(firstDay, perDay);
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        callback.onError(message);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(String message) {
+                callback.onError(message);
+            }
+        });
+    }
+
+    private static void queryWindow(UserTreeRepository repo, String nodePath, final int firstDay, final int lastDay,
+                                    final WindowCallback callback) {
+        TreeQuery window = TreeQuery.orderByKey()
+                .startAt(AdherenceCalculator.dateKey(firstDay))
+                .endAt(AdherenceCalculator.dateKey(lastDay));
+        repo.query(nodePath, window, new UserTreeRepository.NodeCallback() {
+            @Override
+            public void onResult(TreeNode days) {
+                int[] perDay = new int[Math.max(0, lastDay - firstDay + 1)];
+                for (int i = 0; i < perDay.length; i++) {
+                    Long n = days.child(AdherenceCalculator.dateKey(firstDay + i)).getLong();
+                    perDay[i] = n == null ? 0 : (int) Math.max(0, n);
+                }
+                callback.onResult(firstDay, perDay);
+            }
+
+            @Override
+            public void onError(String message) {
+                callback.onError(message);
+            }
+        });
+    }
+
+    /**
+     * Recompute the child's counters from rescue_log and compare them with
+     * the stored ones. With repair, the counters are rebuilt by backfill
+     * (which reads the log again) before the report is delivered. Reads the full rescue_log: a maintenance job, not a screen
+     * load.
+     */
+    public static void check(final UserTreeRepository repo, final String childUname, final TimeZone zone,
+                             final boolean repair, final CheckCallback callback) {
+        repo.read("children/" + childUname + "/logs/rescue_log", new UserTreeRepository.NodeCallback() {
+            @Override
+            public void onResult(TreeNode log) {
+                final Map<String, Long> actual = countsFromLog(log, zone);
+                repo.read("children/" + childUname + "/" + NODE, new UserTreeRepository.NodeCallback() {
+                    @Override
+                    public void onResult(TreeNode stored) {
+                        final List<Drift> drift = compare(stored, actual);
+                        if (!repair || (drift.isEmpty() && stored.child(BACKFILLED_AT).exists())) {
+                            callback.onResult(drift);
+                            return;
+                        }
+                        backfill(repo, childUname, zone, new UserTreeRepository.WriteCallback() {
+                            @Override
+                            public void onSuccess() {
+                                callback.onResult(drift);
+                            }
+
+                            @Override
+                            public void onError(String message) {
+                                callback.onError(message);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        callback.onError(message);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(String message) {
+                callback.onError(message);
+            }
+        });
+    }
+
+    /** Days whose count in the stored rescueDaily node differs from actual, by day. */
+    static List<Drift> compare(TreeNode stored, Map<String, Long> actual) {
+        Map<String, Long> counted = new HashMap<>();
+        for (TreeNode day : stored.getChildren()) {
+            String key = day.getKey();
+            if (BACKFILLED_AT.equals(key) || UPDATED_AT.equals(key)) continue;
+            Long n = day.getLong();
+            counted.put(key, n == null ? 0 : n);
+        }
+        TreeSet<String> days = new TreeSet<>(counted.keySet());
+        days.addAll(actual.keySet());
+
+        List<Drift> drift = new ArrayList<>();
+        for (String day : days) {
+            Long s = counted.get(day);
+            Long a = actual.get(day);
+            long storedCount = s == null ? 0 : s;
+            long actualCount = a == null ? 0 : a;
+            if (storedCount != actualCount) drift.add(new Drift(day, storedCount, actualCount));
+        }
+        return drift;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.SmartAirGroup2;
+
+/**
+ * RescueLogRecord
+ *
+ * One rescue inhaler use under logs/rescue_log.
+ * See MedicationLogRecord for the fields.
+ */
+public class RescueLogRecord extends MedicationLogRecord {
+}
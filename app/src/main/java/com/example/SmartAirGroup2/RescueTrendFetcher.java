@@ -1,24 +1,14 @@
 package com.example.SmartAirGroup2;
 
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.Query;
-import com.google.firebase.database.ValueEventListener;
-
 import android.content.Context;
 import android.widget.Toast;
 import android.util.Log;
 import androidx.annotation.NonNull;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Date;
 import java.util.HashMap;
-import java.util.Locale;
 import java.util.Map;
+import java.util.TimeZone;
 import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 
@@ -42,136 +32,195 @@ interface ChartDataCallback {
 }
 
 /**
- * Fetches and aggregates rescue log data for trend charting (7 or 30 days).
+ * Fetches and aggregates rescue log data for trend charting (7 or 30 days, or any longer range).
  * Assumes Context and uname fields are accessible in the calling class scope.
  */
 public class RescueTrendFetcher {
 
     private static final String TAG = "RescueTrendFetcher";
-    private final FirebaseDatabase db;
+    private final UserTreeRepository repo;
 
     public RescueTrendFetcher() {
-        this.db = FirebaseDatabase.getInstance();
+        this(new FirebaseUserTreeRepository());
+    }
+
+    public RescueTrendFetcher(UserTreeRepository repo) {
+        this.repo = repo;
+    }
+
+    /** Delivers the rescue window loaded by loadRescueWindow. */
+    public interface RescueWindowCallback {
+        void onWindowReady(RescueWindow window);
+        void onFailure(String errorMessage);
+    }
+
+    /** Delivers the newest rescue dateTime, or null if the child has none. */
+    public interface LastRescueCallback {
+        void onResult(String dateTime);
+        void onFailure(String errorMessage);
     }
 
     /**
-     * Loads rescue log data for the specified duration (7 or 30 days), aggregates it by day,
-     * and passes the result to the ChartDataCallback.
+     * Loads the last RescueWindow.DAYS days of rescue counts from the
+     * rescueDaily counters (at most 30 small numbers) and, at the same time,
+     * the newest rescue entry. The status screen derives the last rescue time,
+     * the weekly count and both histograms from the result, so toggling the
+     * chart range reads nothing.
      *
      * @param uname The child's username.
-     * @param days The number of days to query (7 or 30).
-     * @param context The context for Toast messages.
-     * @param callback The interface to deliver the processed data to the charting component.
+     * @param callback Receives the window.
      */
-    public void loadRescueTrendData(String uname, int days, @NonNull Context context, @NonNull ChartDataCallback callback) {
+    public void loadRescueWindow(String uname, @NonNull RescueWindowCallback callback) {
+        loadRescueWindow(uname, Calendar.getInstance(), callback);
+    }
+
+    void loadRescueWindow(final String uname, Calendar now, @NonNull RescueWindowCallback callback) {
         if (uname == null || uname.trim().isEmpty()) {
             callback.onFailure("Child username is missing.");
             return;
         }
 
-        // Ensure valid range
-        if (days != 7 && days != 30) {
-            callback.onFailure("Invalid duration requested. Must be 7 or 30 days.");
-            return;
-        }
-
-        // --- 1. Date Range Calculation ---
-
-        // Format used for Firebase query (must match DB format: YYYY-MM-DD HH:MM)
-        SimpleDateFormat dbDateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
-        // Format used for Chart X-axis labels (e.g., "11-20")
-        SimpleDateFormat chartLabelFormat = new SimpleDateFormat("MM-dd", Locale.getDefault());
-
-        // Calculate the start date (X days ago)
-        Calendar calStart = Calendar.getInstance();
-        // Set to start of the day D-X days ago
-        calStart.add(Calendar.DAY_OF_YEAR, -days + 1);
-        calStart.set(Calendar.HOUR_OF_DAY, 0);
-        calStart.set(Calendar.MINUTE, 0);
-
-        // Calculate the end date (now/end of today)
-        Calendar calEnd = Calendar.getInstance();
-        // Set to end of the day today (future-proof query)
-        calEnd.set(Calendar.HOUR_OF_DAY, 23);
-        calEnd.set(Calendar.MINUTE, 59);
-
-        String startDateString = dbDateFormat.format(calStart.getTime());
-        String endDateString = dbDateFormat.format(calEnd.getTime());
-
-        Log.d(TAG, "Fetching Trend Data for " + days + " days. Range: " + startDateString + " to " + endDateString);
-
-        // --- 2. Build the Firebase Query ---
+        final RescueWindow window = new RescueWindow(now);
+        Log.d(TAG, "Fetching rescue window: " + AdherenceCalculator.dateKey(window.getFirstDay())
+                + " to " + AdherenceCalculator.dateKey(window.getLastDay()));
+
+        // The counters and the newest entry are independent: read both at once
+        final int[] arrived = {0};
+        final String[] error = new String[1];
+        final Runnable onBoth = () -> {
+            if (error[0] != null) {
+                callback.onFailure(error[0]);
+            } else {
+                callback.onWindowReady(window);
+            }
+        };
+
+        RescueDailyStore.loadWindow(repo, uname, window.getFirstDay(), window.getLastDay(), now.getTimeZone(),
+                new RescueDailyStore.WindowCallback() {
+                    @Override
+                    public void onResult(int firstDay, int[] rescuesPerDay) {
+                        window.setCounts(firstDay, rescuesPerDay);
+                        arrive(arrived, onBoth);
+                    }
 
-        DatabaseReference rescueRef = db.getReference("categories/users/children")
-                .child(uname)
-                .child("logs")
-                .child("rescue_log");
+                    @Override
+                    public void onError(String message) {
+                        error[0] = "Database error: " + message;
+                        arrive(arrived, onBoth);
+                    }
+                });
+        loadLastRescueTime(uname, new LastRescueCallback() {
+            @Override
+            public void onResult(String dateTime) {
+                window.setLastRescueTime(dateTime);
+                arrive(arrived, onBoth);
+            }
 
-        // Query: Order by 'dateTime' (the field containing the YYYY-MM-DD HH:MM string)
-        Query trendQuery = rescueRef
-                .orderByChild("dateTime")
-                .startAt(startDateString)
-                .endAt(endDateString);
+            @Override
+            public void onFailure(String errorMessage) {
+                error[0] = errorMessage;
+                arrive(arrived, onBoth);
+            }
+        });
+    }
 
-        // --- 3. Execute the Query and Aggregate Data ---
+    private static void arrive(int[] arrived, Runnable onBoth) {
+        boolean both;
+        synchronized (arrived) {
+            both = ++arrived[0] == 2;
+        }
+        if (both) onBoth.run();
+    }
 
-        trendQuery.addListenerForSingleValueEvent(new ValueEventListener() {
+    /**
+     * Newest rescue over the child's whole history: one rescue_log entry.
+     */
+    public void loadLastRescueTime(String uname, @NonNull LastRescueCallback callback) {
+        TreeQuery lastQuery = TreeQuery.orderByChild("dateTime").limitToLast(1);
+        repo.query("children/" + uname + "/logs/rescue_log", lastQuery, new UserTreeRepository.NodeCallback() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                if (!snapshot.exists()) {
-                    callback.onDataReady(new TreeMap<>()); // Return empty map if no data
-                    return;
+            public void onResult(TreeNode snapshot) {
+                String lastTime = null;
+                for (TreeNode logSnapshot : snapshot.getChildren()) {
+                    lastTime = logSnapshot.child("dateTime").getString();
                 }
+                callback.onResult(lastTime);
+            }
 
-                // TreeMap ensures the dates/keys are ordered correctly for the chart
-                Map<String, Integer> dailyCounts = new TreeMap<>();
+            @Override
+            public void onError(String message) {
+                callback.onFailure("Database error: " + message);
+            }
+        });
+    }
 
-                // Initialize the map with 0 for all days in the range (for sparse data)
-                initializeDailyCounts(dailyCounts, calStart, days, chartLabelFormat);
+    /**
+     * Loads rescue counts for the last {@code days} days (any positive number), aggregates them
+     * into chart points, and passes the result to the ChartDataCallback.
+     *
+     * Up to RescueWindow.DAYS days: one point per day keyed "MM-dd", from a whole rescue window;
+     * callers showing more than one such range should keep a RescueWindow from loadRescueWindow
+     * instead. Longer ranges: TrendLoader buckets keyed by their label ("yyyy-MM-dd" of the day or
+     * week, "yyyy-MM" for months), at most TrendBuckets.MAX_POINTS of them.
+     *
+     * @param uname The child's username.
+     * @param days The number of days to load, today included.
+     * @param context The context for Toast messages.
+     * @param callback The interface to deliver the processed data to the charting component.
+     */
+    public void loadRescueTrendData(String uname, int days, @NonNull Context context, @NonNull ChartDataCallback callback) {
+        // Ensure valid range
+        if (days < 1) {
+            callback.onFailure("Invalid duration requested. Must be at least 1 day.");
+            return;
+        }
 
+        if (days > RescueWindow.DAYS) {
+            loadLongRescueTrend(uname, days, context, callback);
+            return;
+        }
 
-                // Process the fetched rescue logs
-                for (DataSnapshot logSnapshot : snapshot.getChildren()) {
-                    String fullDateTime = logSnapshot.child("dateTime").getValue(String.class);
+        loadRescueWindow(uname, new RescueWindowCallback() {
+            @Override
+            public void onWindowReady(RescueWindow window) {
+                callback.onDataReady(window.dailyCounts(days));
+            }
 
-                    if (fullDateTime != null) {
-                        try {
-                            // Extract only the date part to use as the grouping key
-                            Date logDate = dbDateFormat.parse(fullDateTime);
-                            String dateKey = chartLabelFormat.format(logDate); // e.g., "11-27"
+            @Override
+            public void onFailure(String errorMessage) {
+                if (context != null) {
+                    Toast.makeText(context, "Failed to load trend data.", Toast.LENGTH_LONG).show();
+                }
+                callback.onFailure(errorMessage);
+            }
+        });
+    }
 
-                            // Increment the count for that specific day
-                            dailyCounts.put(dateKey, dailyCounts.getOrDefault(dateKey, 0) + 1);
+    private void loadLongRescueTrend(String uname, int days, Context context, ChartDataCallback callback) {
+        TimeZone zone = TimeZone.getDefault();
+        long end = System.currentTimeMillis();
+        long start = DateCodec.startOfDay(DateCodec.epochDay(end, zone) - days + 1, zone);
 
-                        } catch (ParseException e) {
-                            Log.e(TAG, "Error parsing dateTime: " + fullDateTime, e);
-                            // Skip invalid log entry
-                        }
-                    }
+        new TrendLoader(repo).loadRescueTrend(uname, start, end, new TrendLoader.TrendCallback() {
+            @Override
+            public void onResult(TrendBuckets trend) {
+                Map<String, Integer> counts = new TreeMap<>();
+                long total = 0;
+                for (TrendBuckets.Bucket bucket : trend.buckets()) {
+                    counts.put(bucket.label, (int) bucket.count);
+                    total += bucket.count;
                 }
-
-                // --- 4. Deliver Result to Chart Component ---
-                callback.onDataReady(dailyCounts);
+                if (total == 0) counts.clear();
+                callback.onDataReady(counts);
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError databaseError) {
-                Toast.makeText(context, "Failed to load trend data.", Toast.LENGTH_LONG).show();
-                callback.onFailure("Database error: " + databaseError.getMessage());
+            public void onError(String message) {
+                if (context != null) {
+                    Toast.makeText(context, "Failed to load trend data.", Toast.LENGTH_LONG).show();
+                }
+                callback.onFailure("Database error: " + message);
             }
         });
     }
-
-    /**
-     * Helper method to initialize the dailyCounts map with all days in the range set to 0.
-     * This is essential to prevent gaps in the chart when no rescues occurred on a specific day.
-     */
-    private void initializeDailyCounts(Map<String, Integer> dailyCounts, Calendar startDate, int days, SimpleDateFormat labelFormat) {
-        Calendar tempCal = (Calendar) startDate.clone();
-        for (int i = 0; i < days; i++) {
-            String dateKey = labelFormat.format(tempCal.getTime());
-            dailyCounts.put(dateKey, 0);
-            tempCal.add(Calendar.DAY_OF_YEAR, 1);
-        }
-    }
-}
\ No newline at end of file
+}
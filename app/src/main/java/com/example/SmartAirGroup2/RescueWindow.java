@@ -0,0 +1,88 @@
+package com.example.SmartAirGroup2;
+
+import java.util.Calendar;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * RescueWindow
+ *
+ * Rescue counts for the last DAYS days, read once (see
+ * RescueTrendFetcher.loadRescueWindow), and everything the status screen
+ * shows about rescues derived from it:
+ *
+ * - getLastRescueTime: newest rescue dateTime (null if none)
+ * - getWeeklyCount:    rescues on the last 7 days, today included
+ * - dailyCounts(days): per-day histogram of the last 7 or 30 days
+ *
+ * The per-day counts come from the rescueDaily counters (RescueDailyStore),
+ * keyed by local date.
+ */
+public class RescueWindow {
+
+    /** Widest range the status screen needs. */
+    public static final int DAYS = 30;
+
+    private final int firstDay;     // epoch day of perDay[0]
+    private final int[] perDay = new int[DAYS];
+    private String lastRescueTime;
+
+    /**
+     * Empty window of DAYS days ending on now's day (in now's time zone).
+     */
+    RescueWindow(Calendar now) {
+        firstDay = AdherenceCalculator.epochDay(now.getTimeInMillis(), now.getTimeZone()) - DAYS + 1;
+    }
+
+    int getFirstDay() {
+        return firstDay;
+    }
+
+    int getLastDay() {
+        return firstDay + DAYS - 1;
+    }
+
+    /** Set the counts of days starting at epoch day first; days outside the window are ignored. */
+    void setCounts(int first, int[] rescuesPerDay) {
+        for (int i = 0; i < rescuesPerDay.length; i++) {
+            int index = first + i - firstDay;
+            if (index >= 0 && index < DAYS) perDay[index] = rescuesPerDay[i];
+        }
+    }
+
+    void setLastRescueTime(String dateTime) {
+        lastRescueTime = dateTime;
+    }
+
+    /** Newest rescue in the child's whole log, or null if there is none. */
+    public String getLastRescueTime() {
+        return lastRescueTime;
+    }
+
+    public int getWeeklyCount() {
+        return total(7);
+    }
+
+    private int total(int days) {
+        int total = 0;
+        for (int i = DAYS - clamp(days); i < DAYS; i++) total += perDay[i];
+        return total;
+    }
+
+    private static int clamp(int days) {
+        return Math.min(Math.max(days, 1), DAYS);
+    }
+
+    /**
+     * Rescues per day for the last days days (1..DAYS), keyed "MM-dd" with
+     * every day present; empty if there were no rescues in those days.
+     */
+    public Map<String, Integer> dailyCounts(int days) {
+        Map<String, Integer> counts = new TreeMap<>();
+        if (total(days) == 0) return counts;
+        for (int i = DAYS - clamp(days); i < DAYS; i++) {
+            counts.put(AdherenceCalculator.dateKey(firstDay + i).substring(5), perDay[i]);
+        }
+        return counts;
+    }
+}
@@ -19,11 +19,9 @@ import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
 import java.util.HashMap;
-import java.util.Locale;
 import java.util.Map;
+import java.util.TimeZone;
 
 public class StreakFragment extends Fragment {
 
@@ -229,9 +227,7 @@ public class StreakFragment extends Fragment {
      * Return the string format，e.g. "2025-11-25"
      */
     private String getTodayString() {
-        Calendar calendar = Calendar.getInstance();
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        return sdf.format(calendar.getTime());
+        return DateCodec.format(System.currentTimeMillis(), TimeZone.getDefault(), DateCodec.Layout.DATE_DASH);
     }
 
     private void updateBadges(long longestStreak){
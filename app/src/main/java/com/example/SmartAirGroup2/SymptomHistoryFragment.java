@@ -40,10 +40,7 @@ import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 
 /**
  * SymptomHistoryFragment
@@ -251,40 +248,13 @@ public class SymptomHistoryFragment extends Fragment {
             }
         }
 
-        try {
-            // Extract ONLY yyyy/MM/dd portion from stored timestamp
-            String dateOnly = time.length() >= 10 ? time.substring(0, 10) : time;
-
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy/MM/dd", Locale.getDefault());
-            Date entryDate = sdf.parse(dateOnly);
-
-            // --- HANDLE FILTER CONDITIONS ---
-            Date startDate = null;
-            Date endDate = null;
-
-            // If start date is valid, parse it; otherwise leave null (means no restriction)
-            if (filterStartDate != null  && !filterStartDate.isEmpty()) {
-                startDate = sdf.parse(filterStartDate);
-            }
-
-            // If end date is valid parse it; otherwise assume today
-            if (filterEndDate != null && !filterEndDate.isEmpty()) {
-                endDate = sdf.parse(filterEndDate);
-            }
-
-            // If startDate exists and entryDate is BEFORE it → exclude
-            if (startDate != null && entryDate.before(startDate)) {
-                return false;
-            }
-
-            // If entryDate is AFTER end date → exclude
-            if (entryDate.after(endDate)) {
-                return false;
-            }
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            // Fail-safe: don't filter out data if parsing failed
+        // --- DATE FILTER --- (entries or bounds that are not dates do not filter)
+        int entryDay = DateCodec.parseDay(time);
+        if (entryDay != DateCodec.INVALID_DAY) {
+            int startDay = DateCodec.parseDay(filterStartDate);
+            int endDay = DateCodec.parseDay(filterEndDate);
+            if (startDay != DateCodec.INVALID_DAY && entryDay < startDay) return false;
+            if (endDay != DateCodec.INVALID_DAY && entryDay > endDay) return false;
         }
 
         if (filterTriggers != null && !filterTriggers.isEmpty()) {
@@ -0,0 +1,296 @@
+package com.example.SmartAirGroup2;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * TimestampMigration
+ *
+ * Backfills the canonical timestamp (RecordTime.FIELD) on a child's records
+ * that were saved with a date string only, so every range filter can be an
+ * orderByChild("timestamp") query. Collections are walked in key order,
+ * BATCH_SIZE records per round trip:
+ *
+ *   read   {collection} orderByKey().startAfter(cursor).limitToFirst(BATCH_SIZE)
+ *   write  one multi-path update under children/{childUname}:
+ *            {collection}/{key}/timestamp        for each record without one
+ *            migrations/timestamps/{collection}  the batch's last key (cursor)
+ *
+ * The cursor moves in the same atomic update as the batch it covers, so a run
+ * that stops (app killed, connection lost) resumes after the last batch that
+ * landed. Once every collection is through, migrations/timestamps/done is
+ * set and ensure() costs one marker read. Records whose string is in none of
+ * the known formats are left alone and counted as unparseable.
+ */
+public class TimestampMigration {
+
+    public static final int BATCH_SIZE = 200;
+
+    static final String STATE = "migrations/timestamps";
+    static final String DONE = "done";
+
+    // ensure(): children with a run in progress, and who waits for it
+    private static final Map<String, List<UserTreeRepository.WriteCallback>> RUNNING = new HashMap<>();
+
+    /** Collections under children/{childUname}, and the child their date string is in. */
+    static final String[][] COLLECTIONS = {
+            {"logs/PEF_log", "dateTime"},
+            {"logs/controller_log", "dateTime"},
+            {"logs/rescue_log", "dateTime"},
+            {"data/symptoms", "time"},
+            {"data/triages", "time"},
+    };
+
+    public interface MigrationCallback {
+        void onDone(Result result);
+        void onError(String message);
+    }
+
+    /** What one run did. */
+    public static class Result {
+        /** Records that were given a timestamp. */
+        public int migrated;
+        /** Records without a timestamp whose date string could not be read. */
+        public int unparseable;
+        /** Multi-path updates written. */
+        public int batches;
+    }
+
+    private final UserTreeRepository repo;
+    private final String childPath;
+    private final TimeZone zone;
+    private final int batchSize;
+    private final MigrationCallback callback;
+    private final Result result = new Result();
+    private int collection;
+
+    private TimestampMigration(UserTreeRepository repo, String childUname, TimeZone zone, int batchSize,
+                               MigrationCallback callback) {
+        this.repo = repo;
+        this.childPath = "children/" + childUname;
+        this.zone = zone;
+        this.batchSize = batchSize;
+        this.callback = callback;
+    }
+
+    /**
+     * Migrate the child's records, resuming from the stored cursors. Returns
+     * at once (with an empty result) if the child was already migrated.
+     */
+    public static void run(UserTreeRepository repo, String childUname, TimeZone zone, MigrationCallback callback) {
+        run(repo, childUname, zone, BATCH_SIZE, callback);
+    }
+
+    static void run(UserTreeRepository repo, String childUname, TimeZone zone, int batchSize,
+                    MigrationCallback callback) {
+        if (childUname == null || childUname.trim().isEmpty()) {
+            callback.onError("Child username is missing.");
+            return;
+        }
+        new TimestampMigration(repo, childUname, zone, batchSize, callback).start();
+    }
+
+    /**
+     * Run the migration if the child's records are not migrated yet. Called by
+     * the sessions that own the records (the child's dashboard, a parent's
+     * dashboard, the log screen), never from a provider's read paths. Calls
+     * for a child whose run is still going wait for that run instead of
+     * starting another.
+     */
+    public static void ensure(UserTreeRepository repo, String childUname, final UserTreeRepository.WriteCallback callback) {
+        synchronized (RUNNING) {
+            List<UserTreeRepository.WriteCallback> waiting = RUNNING.get(childUname);
+            if (waiting != null) {
+                waiting.add(callback);
+                return;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(callback);
+            RUNNING.put(childUname, waiting);
+        }
+        final String key = childUname;
+        run(repo, childUname, TimeZone.getDefault(), new MigrationCallback() {
+            @Override
+            public void onDone(Result result) {
+                for (UserTreeRepository.WriteCallback c : finished(key)) c.onSuccess();
+            }
+
+            @Override
+            public void onError(String message) {
+                for (UserTreeRepository.WriteCallback c : finished(key)) c.onError(message);
+            }
+        });
+    }
+
+    private static List<UserTreeRepository.WriteCallback> finished(String childUname) {
+        synchronized (RUNNING) {
+            return RUNNING.remove(childUname);
+        }
+    }
+
+    /** Whether the child's records are migrated, from one marker read; reads only. */
+    public static void isDone(UserTreeRepository repo, String childUname, final DoneCallback callback) {
+        repo.read("children/" + childUname + "/" + STATE + "/" + DONE, new UserTreeRepository.NodeCallback() {
+            @Override
+            public void onResult(TreeNode done) {
+                callback.onResult(done.exists());
+            }
+
+            @Override
+            public void onError(String message) {
+                callback.onResult(false);
+            }
+        });
+    }
+
+    public interface DoneCallback {
+        void onResult(boolean done);
+    }
+
+    /**
+     * Read-only stand-in for the orderByChild("timestamp").startAt(start)
+     * query on a child not migrated yet: the records of a whole collection
+     * read with a time at or after start, each with its timestamp filled in
+     * from its date string where it has none. Nothing is written back.
+     */
+    static TreeNode since(TreeNode records, String collection, long start, TimeZone zone) {
+        String field = null;
+        for (String[] c : COLLECTIONS) {
+            if (c[0].equals(collection)) field = c[1];
+        }
+        Map<String, Object> out = new LinkedHashMap<>();
+        for (TreeNode record : records.getChildren()) {
+            long ts = RecordTime.of(record);
+            if (ts == 0 && field != null) ts = RecordTime.parse(record.child(field).getString(), zone);
+            if (ts <= 0 || ts < start || !(record.getValue() instanceof Map)) continue;
+            Map<String, Object> value = new HashMap<>();
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) record.getValue()).entrySet()) {
+                value.put(String.valueOf(e.getKey()), e.getValue());
+            }
+            value.put(RecordTime.FIELD, ts);
+            out.put(record.getKey(), value);
+        }
+        return new InMemoryUserTreeRepository.MapNode(records.getKey(), out);
+    }
+
+    private void start() {
+        repo.read(childPath + "/" + STATE + "/" + DONE, new UserTreeRepository.NodeCallback() {
+            @Override
+            public void onResult(TreeNode done) {
+                if (done.exists()) {
+                    callback.onDone(result);
+                } else {
+                    resume();
+                }
+            }
+
+            @Override
+            public void onError(String message) {
+                callback.onError(message);
+            }
+        });
+    }
+
+    /** Pick up the current collection at its stored cursor. */
+    private void resume() {
+        if (collection == COLLECTIONS.length) {
+            finish();
+            return;
+        }
+        repo.read(cursorPath(), new UserTreeRepository.NodeCallback() {
+            @Override
+            public void onResult(TreeNode cursor) {
+                batch(cursor.getString());
+            }
+
+            @Override
+            public void onError(String message) {
+                callback.onError(message);
+            }
+        });
+    }
+
+    private void batch(String after) {
+        final String path = COLLECTIONS[collection][0];
+        final String field = COLLECTIONS[collection][1];
+        TreeQuery page = TreeQuery.orderByKey().limitToFirst(batchSize);
+        if (after != null) page.startAfter(after);
+
+        repo.query(childPath + "/" + path, page, new UserTreeRepository.NodeCallback() {
+            @Override
+            public void onResult(TreeNode records) {
+                Map<String, Object> updates = new HashMap<>();
+                String last = null;
+                int seen = 0;
+                for (TreeNode record : records.getChildren()) {
+                    last = record.getKey();
+                    seen++;
+                    if (RecordTime.of(record) > 0) continue;
+                    long ts = RecordTime.parse(record.child(field).getString(), zone);
+                    if (ts > 0) {
+                        updates.put(path + "/" + last + "/" + RecordTime.FIELD, ts);
+                        result.migrated++;
+                    } else {
+                        result.unparseable++;
+                    }
+                }
+                if (seen == 0) {
+                    next();
+                    return;
+                }
+
+                updates.put(STATE + "/" + path, last);
+                final boolean more = seen >= batchSize;
+                final String cursor = last;
+                repo.update(childPath, updates, new UserTreeRepository.WriteCallback() {
+                    @Override
+                    public void onSuccess() {
+                        result.batches++;
+                        if (more) {
+                            batch(cursor);
+                        } else {
+                            next();
+                        }
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        callback.onError(message);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(String message) {
+                callback.onError(message);
+            }
+        });
+    }
+
+    private void next() {
+        collection++;
+        resume();
+    }
+
+    private void finish() {
+        repo.write(childPath + "/" + STATE + "/" + DONE, System.currentTimeMillis(), new UserTreeRepository.WriteCallback() {
+            @Override
+            public void onSuccess() {
+                callback.onDone(result);
+            }
+
+            @Override
+            public void onError(String message) {
+                callback.onError(message);
+            }
+        });
+    }
+
+    private String cursorPath() {
+        return childPath + "/" + STATE + "/" + COLLECTIONS[collection][0];
+    }
+}
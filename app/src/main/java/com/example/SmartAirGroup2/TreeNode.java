@@ -0,0 +1,54 @@
+package com.example.SmartAirGroup2;
+
+/**
+ * TreeNode
+ *
+ * Read-only view of one node returned by a UserTreeRepository, mirroring the
+ * parts of DataSnapshot the read paths use. A missing node is a TreeNode whose
+ * exists() is false, so child(...) chains never return null.
+ *
+ * The typed getters are lenient: a value of the wrong type reads as null
+ * instead of throwing, and numbers convert between Long / Integer / Double.
+ */
+public interface TreeNode {
+
+    String getKey();
+
+    boolean exists();
+
+    /** Descendant at a relative path ("a" or "a/b/c"). */
+    TreeNode child(String path);
+
+    /** Children in the order the read or query returned them. */
+    Iterable<TreeNode> getChildren();
+
+    long getChildrenCount();
+
+    /** Raw value: String, Long, Double, Boolean, Map for inner nodes, or null. */
+    Object getValue();
+
+    default String getString() {
+        Object v = getValue();
+        return v instanceof String ? (String) v : null;
+    }
+
+    default Long getLong() {
+        Object v = getValue();
+        return v instanceof Number ? ((Number) v).longValue() : null;
+    }
+
+    default Integer getInteger() {
+        Object v = getValue();
+        return v instanceof Number ? ((Number) v).intValue() : null;
+    }
+
+    default Double getDouble() {
+        Object v = getValue();
+        return v instanceof Number ? ((Number) v).doubleValue() : null;
+    }
+
+    default Boolean getBoolean() {
+        Object v = getValue();
+        return v instanceof Boolean ? (Boolean) v : null;
+    }
+}
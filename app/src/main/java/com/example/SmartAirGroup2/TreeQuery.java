@@ -0,0 +1,87 @@
+package com.example.SmartAirGroup2;
+
+/**
+ * TreeQuery
+ *
+ * The subset of RTDB query options used by the read paths:
+ * orderByChild or orderByKey plus an optional range and limitToFirst or
+ * limitToLast. Bounds
+ * are Double or String, compared the way RTDB orders child values (keys for
+ * orderByKey).
+ *
+ *   TreeQuery.orderByChild("timestamp").startAt(from).endBefore(to)
+ *   TreeQuery.orderByKey().startAt("2025-01-01").endAt("2025-01-07")
+ *   TreeQuery.orderByKey().startAfter(lastKey).limitToFirst(200)
+ */
+public final class TreeQuery {
+
+    final String orderBy;  // null = order by key
+    Object start;          // inclusive unless startExclusive
+    boolean startExclusive;
+    Object end;            // inclusive unless endExclusive
+    boolean endExclusive;
+    int limitToFirst;      // 0 = no limit
+    int limitToLast;       // 0 = no limit
+
+    private TreeQuery(String orderBy) {
+        this.orderBy = orderBy;
+    }
+
+    public static TreeQuery orderByChild(String child) {
+        return new TreeQuery(child);
+    }
+
+    public static TreeQuery orderByKey() {
+        return new TreeQuery(null);
+    }
+
+    public TreeQuery startAt(double value) {
+        start = value;
+        startExclusive = false;
+        return this;
+    }
+
+    public TreeQuery startAt(String value) {
+        start = value;
+        startExclusive = false;
+        return this;
+    }
+
+    public TreeQuery startAfter(String value) {
+        start = value;
+        startExclusive = true;
+        return this;
+    }
+
+    public TreeQuery endAt(double value) {
+        end = value;
+        endExclusive = false;
+        return this;
+    }
+
+    public TreeQuery endAt(String value) {
+        end = value;
+        endExclusive = false;
+        return this;
+    }
+
+    public TreeQuery endBefore(double value) {
+        end = value;
+        endExclusive = true;
+        return this;
+    }
+
+    public TreeQuery limitToFirst(int limit) {
+        limitToFirst = limit;
+        return this;
+    }
+
+    public TreeQuery limitToLast(int limit) {
+        limitToLast = limit;
+        return this;
+    }
+
+    public String getOrderBy() {
+        return orderBy;
+    }
+}
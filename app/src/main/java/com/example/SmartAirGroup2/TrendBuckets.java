@@ -0,0 +1,195 @@
+package com.example.SmartAirGroup2;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TrendBuckets
+ *
+ * Streaming aggregation of per-day values (rescue counts, PEF day
+ * aggregates) into chart buckets for any range of days. The bucket size is
+ * picked from the length of the range so a chart never gets more than
+ * MAX_POINTS points:
+ *
+ *   up to MAX_POINTS days       one bucket per day
+ *   up to MAX_POINTS weeks      one per week (Monday to Sunday)
+ *   longer                      one per calendar month
+ *
+ * Days are fed one at a time with add(); each lands in its bucket's running
+ * count/sum/min/max, so nothing per day is kept. The first and last buckets
+ * are clipped to the range.
+ */
+public class TrendBuckets {
+
+    public static final int MAX_POINTS = 200;
+
+    public enum Granularity { DAY, WEEK, MONTH }
+
+    /** One chart point: the values of the days firstDay..lastDay that had data. */
+    public static class Bucket {
+        public final int firstDay;
+        public final int lastDay;
+        /** "yyyy-MM-dd" of the first day, or "yyyy-MM" for months. */
+        public final String label;
+        /** Days in the bucket that had a value. */
+        public final int days;
+        public final long count;
+        public final double sum;
+        public final double min;
+        public final double max;
+
+        Bucket(int firstDay, int lastDay, String label, int days, long count, double sum, double min, double max) {
+            this.firstDay = firstDay;
+            this.lastDay = lastDay;
+            this.label = label;
+            this.days = days;
+            this.count = count;
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+        }
+
+        public boolean isEmpty() {
+            return count <= 0;
+        }
+
+        /** sum / count, or NaN for an empty bucket. */
+        public double average() {
+            return count > 0 ? sum / count : Double.NaN;
+        }
+    }
+
+    private final Granularity granularity;
+    private final int firstDay;
+    private final int lastDay;
+    private final int origin;       // bucket 0: first day of its week, or its month index
+    private final int size;
+
+    private final int[] days;
+    private final long[] count;
+    private final double[] sum;
+    private final double[] min;
+    private final double[] max;
+
+    /** Empty buckets for epoch days firstDay..lastDay. */
+    public TrendBuckets(int firstDay, int lastDay) {
+        this.firstDay = firstDay;
+        this.lastDay = Math.max(firstDay, lastDay);
+        this.granularity = granularityFor(this.lastDay - firstDay + 1);
+        switch (granularity) {
+            case DAY:
+                origin = firstDay;
+                break;
+            case WEEK:
+                origin = firstDay - AdherenceCalculator.weekdayIndex(firstDay);
+                break;
+            default:
+                origin = monthIndex(firstDay);
+                break;
+        }
+        size = index(this.lastDay) + 1;
+        days = new int[size];
+        count = new long[size];
+        sum = new double[size];
+        min = new double[size];
+        max = new double[size];
+    }
+
+    /** Coarsest-needed bucket size for a range of the given number of days. */
+    public static Granularity granularityFor(int days) {
+        if (days <= MAX_POINTS) return Granularity.DAY;
+        if ((days + 6) / 7 + 1 <= MAX_POINTS) return Granularity.WEEK;
+        return Granularity.MONTH;
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public int getFirstDay() {
+        return firstDay;
+    }
+
+    public int getLastDay() {
+        return lastDay;
+    }
+
+    /** Number of buckets (chart points) in the range. */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Add one day's values. Days outside the range are ignored; a day with
+     * count <= 0 has no data.
+     *
+     * @param n    readings (or events) on the day
+     * @param s    their sum
+     * @param lo   their minimum
+     * @param hi   their maximum
+     */
+    public void add(int day, long n, double s, double lo, double hi) {
+        if (day < firstDay || day > lastDay || n <= 0) return;
+        int i = index(day);
+        if (count[i] == 0) {
+            min[i] = lo;
+            max[i] = hi;
+        } else {
+            if (lo < min[i]) min[i] = lo;
+            if (hi > max[i]) max[i] = hi;
+        }
+        days[i]++;
+        count[i] += n;
+        sum[i] += s;
+    }
+
+    /** Add a day with n events (a counter such as rescueDaily). */
+    public void addCount(int day, long n) {
+        add(day, n, n, n, n);
+    }
+
+    /** Every bucket of the range in order, empty ones included. */
+    public List<Bucket> buckets() {
+        List<Bucket> out = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int first = Math.max(firstDay, bucketStart(i));
+            int last = Math.min(lastDay, bucketStart(i + 1) - 1);
+            out.add(new Bucket(first, last, label(first), days[i], count[i], sum[i], min[i], max[i]));
+        }
+        return out;
+    }
+
+    private int index(int day) {
+        switch (granularity) {
+            case DAY:
+                return day - origin;
+            case WEEK:
+                return (day - origin) / 7;
+            default:
+                return monthIndex(day) - origin;
+        }
+    }
+
+    private int bucketStart(int i) {
+        switch (granularity) {
+            case DAY:
+                return origin + i;
+            case WEEK:
+                return origin + 7 * i;
+            default:
+                int month = origin + i;
+                return AdherenceCalculator.epochDay(Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1, 1);
+        }
+    }
+
+    private String label(int day) {
+        String key = AdherenceCalculator.dateKey(day);
+        return granularity == Granularity.MONTH ? key.substring(0, 7) : key;
+    }
+
+    /** Months since year 0 of an epoch day's date. */
+    static int monthIndex(int epochDay) {
+        int ymd = AdherenceCalculator.civil(epochDay);
+        return ymd / 10000 * 12 + ymd / 100 % 100 - 1;
+    }
+}
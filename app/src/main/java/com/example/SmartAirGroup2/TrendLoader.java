@@ -0,0 +1,186 @@
+package com.example.SmartAirGroup2;
+
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * TrendLoader
+ *
+ * Rescue and PEF trends for any range (90 days, a year, all time), read from
+ * the per-day nodes rather than the logs:
+ *
+ *   rescue: children/{childUname}/rescueDaily/{yyyy-MM-dd}  (RescueDailyStore)
+ *   PEF:    children/{childUname}/pefDaily/{yyyy-MM-dd}     (PefDailyStore)
+ *
+ * One orderByKey range query per trend; each day node is folded into
+ * TrendBuckets as it is iterated, so the result has at most
+ * TrendBuckets.MAX_POINTS day or week points (months for multi-year ranges)
+ * whatever the range. Until a child's nodes are built (DailyBackfill, from
+ * the sessions that own the records) the days are counted from the log
+ * instead, without writing them.
+ */
+public class TrendLoader {
+
+    /** Pass as startMillis to start at the child's first recorded day. */
+    public static final long ALL_TIME = Long.MIN_VALUE;
+
+    public interface TrendCallback {
+        void onResult(TrendBuckets trend);
+        void onError(String message);
+    }
+
+    /** Counts one kind of day node from its log, as the store's backfill does. */
+    private interface FromLog {
+        Map<String, ?> countsFromLog(TreeNode log, TimeZone zone);
+    }
+
+    /** Folds one day node into the buckets. */
+    private interface DayReader {
+        void add(TrendBuckets buckets, int day, TreeNode node);
+    }
+
+    private static final DayReader RESCUE_DAY = (buckets, day, node) -> {
+        Long n = node.getLong();
+        if (n != null) buckets.addCount(day, n);
+    };
+
+    private static final DayReader PEF_DAY = (buckets, day, node) -> {
+        Long n = node.child("count").getLong();
+        if (n == null || n <= 0) return;
+        Double sum = node.child("sum").getDouble();
+        Double min = node.child("min").getDouble();
+        Double max = node.child("max").getDouble();
+        if (sum == null || min == null || max == null) return;
+        buckets.add(day, n, sum, min, max);
+    };
+
+    private final UserTreeRepository repo;
+
+    public TrendLoader() {
+        this(new FirebaseUserTreeRepository());
+    }
+
+    public TrendLoader(UserTreeRepository repo) {
+        this.repo = repo;
+    }
+
+    /** Rescues per bucket (count, and min/max per day) for [startMillis, endMillis]. */
+    public void loadRescueTrend(String childUname, long startMillis, long endMillis, TrendCallback callback) {
+        load(childUname, RescueDailyStore.NODE, RescueDailyStore.BACKFILLED_AT, "rescue_log", RescueDailyStore::countsFromLog,
+                RESCUE_DAY, startMillis, endMillis, TimeZone.getDefault(), callback);
+    }
+
+    /** PEF readings per bucket (count/sum/min/max; average()) for [startMillis, endMillis]. */
+    public void loadPefTrend(String childUname, long startMillis, long endMillis, TrendCallback callback) {
+        load(childUname, PefDailyStore.NODE, PefDailyStore.BACKFILLED_AT, "PEF_log", PefDailyStore::countsFromLog,
+                PEF_DAY, startMillis, endMillis, TimeZone.getDefault(), callback);
+    }
+
+    void load(final String childUname, String node, String marker, String log, FromLog fromLog,
+              final DayReader reader, long startMillis, long endMillis, final TimeZone zone,
+              final TrendCallback callback) {
+        final int firstDay = startMillis == ALL_TIME ? Integer.MIN_VALUE : AdherenceCalculator.epochDay(startMillis, zone);
+        final int lastDay = AdherenceCalculator.epochDay(endMillis, zone);
+
+        loadDays(childUname, node, marker, log, fromLog, firstDay, lastDay, zone, new UserTreeRepository.NodeCallback() {
+            @Override
+            public void onResult(TreeNode days) {
+                int first = firstDay;
+                if (first == Integer.MIN_VALUE) {
+                    // All time: the range starts at the first day node (keys come in order)
+                    first = lastDay;
+                    for (TreeNode day : days.getChildren()) {
+                        int d = AdherenceCalculator.epochDayOfKey(day.getKey());
+                        if (d != Integer.MIN_VALUE) {
+                            first = Math.min(first, d);
+                            break;
+                        }
+                    }
+                }
+
+                TrendBuckets buckets = new TrendBuckets(first, lastDay);
+                for (TreeNode day : days.getChildren()) {
+                    int d = AdherenceCalculator.epochDayOfKey(day.getKey());
+                    if (d != Integer.MIN_VALUE) reader.add(buckets, d, day);
+                }
+                callback.onResult(buckets);
+            }
+
+            @Override
+            public void onError(String message) {
+                callback.onError(message);
+            }
+        });
+    }
+
+    /**
+     * The child's pefDaily nodes for epoch days [firstDay, lastDay], in key
+     * order (counted from PEF_log while they are not built). For readers that fold the days
+     * themselves (PefStatsLoader).
+     */
+    void loadPefDays(String childUname, int firstDay, int lastDay, TimeZone zone,
+                     UserTreeRepository.NodeCallback callback) {
+        loadDays(childUname, PefDailyStore.NODE, PefDailyStore.BACKFILLED_AT, "PEF_log", PefDailyStore::countsFromLog,
+                firstDay, lastDay, zone, callback);
+    }
+
+    /** Day nodes in [firstDay, lastDay] (firstDay Integer.MIN_VALUE: from the first one). */
+    private void loadDays(final String childUname, final String node, String marker, final String log,
+                          final FromLog fromLog, final int firstDay, final int lastDay, final TimeZone zone,
+                          final UserTreeRepository.NodeCallback callback) {
+        if (childUname == null || childUname.trim().isEmpty()) {
+            callback.onError("Child username is missing.");
+            return;
+        }
+        if (firstDay > lastDay) {
+            callback.onError("Invalid range.");
+            return;
+        }
+        final String childPath = "children/" + childUname;
+
+        repo.read(childPath + "/" + node + "/" + marker, new UserTreeRepository.NodeCallback() {
+            @Override
+            public void onResult(TreeNode done) {
+                if (done.exists()) {
+                    query(childPath + "/" + node, firstDay, lastDay, callback);
+                    return;
+                }
+                repo.read(childPath + "/logs/" + log, new UserTreeRepository.NodeCallback() {
+                    @Override
+                    public void onResult(TreeNode entries) {
+                        callback.onResult(daysInRange(node, fromLog.countsFromLog(entries, zone), firstDay, lastDay));
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        callback.onError(message);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(String message) {
+                callback.onError(message);
+            }
+        });
+    }
+
+    /** The counted days in [firstDay, lastDay] as a node of day nodes in key order, like query() returns. */
+    private static TreeNode daysInRange(String node, Map<String, ?> counted, int firstDay, int lastDay) {
+        String from = firstDay == Integer.MIN_VALUE ? null : AdherenceCalculator.dateKey(firstDay);
+        String to = AdherenceCalculator.dateKey(lastDay);
+        Map<String, Object> days = new TreeMap<>();
+        for (Map.Entry<String, ?> e : counted.entrySet()) {
+            String key = e.getKey();
+            if ((from == null || key.compareTo(from) >= 0) && key.compareTo(to) <= 0) days.put(key, e.getValue());
+        }
+        return new InMemoryUserTreeRepository.MapNode(node, days.isEmpty() ? null : days);
+    }
+
+    private void query(String nodePath, int firstDay, int lastDay, UserTreeRepository.NodeCallback callback) {
+        TreeQuery range = TreeQuery.orderByKey().endAt(AdherenceCalculator.dateKey(lastDay));
+        if (firstDay != Integer.MIN_VALUE) range.startAt(AdherenceCalculator.dateKey(firstDay));
+        repo.query(nodePath, range, callback);
+    }
+}
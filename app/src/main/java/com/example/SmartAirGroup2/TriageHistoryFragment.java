@@ -36,10 +36,7 @@ import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -228,23 +225,13 @@ public class TriageHistoryFragment extends Fragment {
             }
         }
 
-        // --- DATE FILTER ---
-        try {
-            String dateOnly = time.length() >= 10 ? time.substring(0, 10) : time;
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy/MM/dd", Locale.getDefault());
-            Date entryDate = sdf.parse(dateOnly);
-
-            Date startDate = (filterStartDate != null && !filterStartDate.isEmpty()) ?
-                    sdf.parse(filterStartDate) : null;
-
-            Date endDate = (filterEndDate != null && !filterEndDate.isEmpty()) ?
-                    sdf.parse(filterEndDate) : null;
-
-            if (startDate != null && entryDate.before(startDate)) return false;
-            if (endDate != null && entryDate.after(endDate)) return false;
-
-        } catch (Exception e) {
-            e.printStackTrace();
+        // --- DATE FILTER --- (entries or bounds that are not dates do not filter)
+        int entryDay = DateCodec.parseDay(time);
+        if (entryDay != DateCodec.INVALID_DAY) {
+            int startDay = DateCodec.parseDay(filterStartDate);
+            int endDay = DateCodec.parseDay(filterEndDate);
+            if (startDay != DateCodec.INVALID_DAY && entryDay < startDay) return false;
+            if (endDay != DateCodec.INVALID_DAY && entryDay > endDay) return false;
         }
 
         // --- TRIGGER LIST FILTER ---
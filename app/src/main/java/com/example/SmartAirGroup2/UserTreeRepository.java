@@ -0,0 +1,57 @@
+package com.example.SmartAirGroup2;
+
+import java.util.Map;
+
+/**
+ * UserTreeRepository
+ *
+ * Read seam over categories/users, plus plain and compare-and-set writes for
+ * maintenance jobs (backfills). Paths are relative to that node, e.g.
+ * "children/{childUname}/logs/PEF_log" or "parents/{parentUname}/children".
+ *
+ * - FirebaseUserTreeRepository: production, one single-value read per call.
+ * - InMemoryUserTreeRepository: plain Java tree for JVM tests and benchmarks.
+ *
+ * Callbacks arrive on the main thread for Firebase and on the calling thread
+ * for the in-memory tree.
+ */
+public interface UserTreeRepository {
+
+    interface NodeCallback {
+        void onResult(TreeNode node);
+        void onError(String message);
+    }
+
+    interface WriteCallback {
+        void onSuccess();
+        void onError(String message);
+    }
+
+    interface SetCallback {
+        /** @param committed false if the node no longer held the expected value (nothing written) */
+        void onResult(boolean committed);
+        void onError(String message);
+    }
+
+    /** Read one node and everything below it. */
+    void read(String path, NodeCallback callback);
+
+    /** Read the children of a node selected by a query. */
+    void query(String path, TreeQuery query, NodeCallback callback);
+
+    /** Replace the value at a path (null removes it). */
+    void write(String path, Object value, WriteCallback callback);
+
+    /**
+     * Set several paths below a node in one atomic write (a multi-path
+     * update). Keys are relative to path; null values remove.
+     */
+    void update(String path, Map<String, Object> values, WriteCallback callback);
+
+    /**
+     * Replace the value at a path only if it still holds expected, as
+     * returned by an earlier read (a transaction). For rebuilds that must not
+     * overwrite what was written after they read the node.
+     */
+    void compareAndSet(String path, Object expected, Object value, SetCallback callback);
+}
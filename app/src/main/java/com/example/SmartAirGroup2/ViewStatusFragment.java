@@ -1,6 +1,5 @@
 package com.example.SmartAirGroup2;
 
-import android.content.Context;
 import android.graphics.Color;
 import android.os.Bundle;
 import android.util.Log;
@@ -30,19 +29,10 @@ import com.github.mikephil.charting.data.BarEntry;
 import com.github.mikephil.charting.formatter.IndexAxisValueFormatter;
 import com.github.mikephil.charting.formatter.ValueFormatter;
 import com.google.android.material.button.MaterialButtonToggleGroup;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.Query;
-import com.google.firebase.database.ValueEventListener;
-
-import java.text.SimpleDateFormat;
+
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Calendar;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -84,6 +74,7 @@ import java.util.TreeMap;
  *         └── children/{childUname}/
  *             └── status/
  *                 ├── pefZone: Integer (0=green, 1=yellow, 2=red)
+ *                 ├── pefZoneDay: String (yyyy-MM-dd the zone is for)
  *                 └── inventory/
  *                     └── {medicineName}/
  *                         └── {timestamp: Integer (0=good, 1=warning, 2=alert)}
@@ -157,10 +148,16 @@ public class ViewStatusFragment extends Fragment {
      */
     private String uname;
 
-    private double pb, averagePEF;
+    private double pb, averagePEF, pefTrend;
 
     private RescueTrendFetcher trendFetcher;
-    private Context chartContext;
+
+    /**
+     * Last 30 days of rescue counts, loaded once per view; null until loaded.
+     * The rescue cards and both chart ranges are derived from it.
+     */
+    private RescueWindow rescueWindow;
+    private int chartDays = 7;
 
     private BarChart chart;
     private TextView statusTextView; // tv_chart_status
@@ -243,7 +240,6 @@ public class ViewStatusFragment extends Fragment {
         btn7Days = view.findViewById(R.id.btn_7_days);
 
         trendFetcher = new RescueTrendFetcher();
-        chartContext = requireContext();
 
         setupChartAppearance();
 
@@ -260,60 +256,44 @@ public class ViewStatusFragment extends Fragment {
 
         // 4. Load Data
         getPEF();
-        getLastRescueTime();
-        getWeeklyCount();
         onDurationToggleClicked(7);
+        loadRescueWindow();
 
         return view;
     }
 
     private void getPEF() {
-        DatabaseReference pefRef = FirebaseDatabase.getInstance()
-                .getReference("categories/users/children")
-                .child(uname)
-                .child("data");
-
-        pefRef.addListenerForSingleValueEvent(new ValueEventListener() {
+        // PB, today's average and the 7-day trend from the shared PEF statistics
+        new PefStatsLoader().loadRecent(uname, new PefStatsLoader.StatsCallback() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-
-                // Load PB
-                pb = snapshot.child("pb").getValue(Double.class) != null ? snapshot.child("pb").getValue(Double.class) : 0;
-
-                // Load daily PEF measurements
-                if (snapshot.child("dailyPEF").exists()) {
-                    DataSnapshot pefListSnap = snapshot.child("dailyPEF");
-                    double[] pefs = new double[(int) pefListSnap.getChildrenCount()];
-                    int index = 0;
-
-                    for (DataSnapshot item : pefListSnap.getChildren()) {
-                        pefs[index++] = item.getValue(Double.class) != null ? item.getValue(Double.class) : 0;
-                    }
-
-                    // Compute average
-                    averagePEF = Arrays.stream(pefs).average().orElse(0);
-                }
-
+            public void onResult(PefStats stats) {
+                if (getContext() == null) return;
+                pb = stats.pb;
+                averagePEF = stats.lastDayMean;
+                pefTrend = stats.isEmpty() ? 0 : stats.ewma;
                 setPEF();
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
+            public void onError(String message) {
+                if (getContext() == null) return;
                 Toast.makeText(getContext(), "Cannot access Data", Toast.LENGTH_SHORT).show();
             }
         });
     }
 
     /**
-     * Determines zone status, updates UI text & color, and saves zone to Firebase.
+     * Determines zone status and updates UI text & color (the stored zone is
+     * kept by PefZoneStore).
      */
     private void setPEF() {
         String txt = "PEF: "+averagePEF+"/"+pb;
+        if (pefTrend > 0) txt += "\n" + PefStats.EWMA_DAYS + "-day trend: " + String.format("%.1f", pefTrend);
         PEFZone.setText(txt);
         if (pb > 0 && averagePEF > 0) {
-            if (averagePEF >= pb * 0.8) cardPEF.setCardBackgroundColor(getResources().getColor(R.color.good));
-            else if (averagePEF >= pb * 0.5) cardPEF.setCardBackgroundColor(getResources().getColor(R.color.warning));
-            else cardPEF.setCardBackgroundColor(getResources().getColor(R.color.alert));
+            int zone = PefZoneStore.zoneOf(averagePEF, pb);
+            int colorId = zone == PefZoneStore.GOOD ? R.color.good : zone == PefZoneStore.WARNING ? R.color.warning : R.color.alert;
+            cardPEF.setCardBackgroundColor(getResources().getColor(colorId));
         } else {
             cardPEF.setCardBackgroundColor(getResources().getColor(R.color.good));
             PEFZone.setText("No PEF or PB entries yet");
@@ -323,127 +303,54 @@ public class ViewStatusFragment extends Fragment {
     }
 
 
-    private void getLastRescueTime() {
+    /**
+     * Loads the last 30 days of rescue counts (and the newest rescue) once.
+     * The last rescue time, the weekly count and the 7/30-day chart are all
+     * derived from that window.
+     */
+    private void loadRescueWindow() {
         if (uname == null || uname.trim().isEmpty()) {
             RescueTime.setText("Error: Child username missing");
+            if (RescueCount != null) RescueCount.setText("Error");
             return;
         }
 
-        // 1. Define the full path to the rescue_log node
-        DatabaseReference rescueRef = FirebaseDatabase.getInstance()
-                .getReference("categories/users/children")
-                .child(uname)
-                .child("logs")
-                .child("rescue_log");
-
-        // 2. Create the query: order by 'dateTime' descending, and limit to 1 result
-        // Note: The dateTime format "YYYY-MM-DD HH:MM:SS" allows for correct string comparison/ordering.
-        Query lastRescueQuery = rescueRef.orderByChild("dateTime").limitToLast(1);
-
-        lastRescueQuery.addListenerForSingleValueEvent(new ValueEventListener() {
+        trendFetcher.loadRescueWindow(uname, new RescueTrendFetcher.RescueWindowCallback() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                if (!snapshot.exists() || !snapshot.hasChildren()) {
-                    // No rescue logs found
-                    RescueTime.setText("No rescues yet");
-                    return;
-                }
-
-                String lastTime = "No rescues yet";
-
-                // Because we used limitToLast(1), we iterate over the single expected result
-                // The result is ordered in ascending order of the key, but we only have 1 item.
-                for (DataSnapshot logSnapshot : snapshot.getChildren()) {
-                    // Get the dateTime value from the rescue entry
-                    String dateTime = logSnapshot.child("dateTime").getValue(String.class);
-
-                    if (dateTime != null) {
-                        lastTime = dateTime;
-                        // Since it's the only one, we can break immediately
-                        break;
-                    }
-                }
-
-                // Update the UI element with the found time
-                RescueTime.setText(lastTime);
+            public void onWindowReady(RescueWindow window) {
+                if (!isAdded()) return;
+                rescueWindow = window;
+                showLastRescueTime();
+                showWeeklyCount();
+                onDurationToggleClicked(chartDays);
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError databaseError) {
+            public void onFailure(String errorMessage) {
+                if (!isAdded()) return;
                 Toast.makeText(getContext(), "Failed to read rescue log data.", Toast.LENGTH_SHORT).show();
                 RescueTime.setText("Error fetching data");
+                if (RescueCount != null) RescueCount.setText("E");
+                if (chart != null) chart.setVisibility(View.INVISIBLE);
+                if (statusTextView != null) {
+                    statusTextView.setText("Error: " + errorMessage);
+                    statusTextView.setVisibility(View.VISIBLE);
+                }
             }
         });
     }
 
-    private void getWeeklyCount() {
-        if (uname == null || uname.trim().isEmpty()) {
-            if (RescueCount != null) RescueCount.setText("Error");
-            return;
-        }
-
-        // --- 1. Calculate the Date Range (7 days ago to now) ---
-
-        // Define the required date format for querying the database
-        // Must match the format used in Firebase (YYYY-MM-DD HH:MM)
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
-
-        // Get today's date and set the time to the very end of today (for the upper bound)
-        Calendar today = Calendar.getInstance();
-        String endDateString = dateFormat.format(today.getTime());
-
-        // Calculate the start date (7 days ago)
-        Calendar sevenDaysAgo = Calendar.getInstance();
-        sevenDaysAgo.add(Calendar.DAY_OF_YEAR, -7);
-        String startDateString = dateFormat.format(sevenDaysAgo.getTime());
-
-        Log.d("RESCUE_LOG", "Querying from: " + startDateString + " to: " + endDateString);
-
-        // --- 2. Build the Firebase Query ---
-
-        DatabaseReference rescueRef = FirebaseDatabase.getInstance()
-                .getReference("categories/users/children")
-                .child(uname)
-                .child("logs")
-                .child("rescue_log");
-
-        // Use Query constraints to filter by the 'dateTime' field
-        Query weeklyRescueQuery = rescueRef
-                .orderByChild("dateTime")
-                .startAt(startDateString) // Entries equal to or after the start date
-                .endAt(endDateString);     // Entries equal to or before the end date
-
-        // --- 3. Execute the Query and Count Results ---
-
-        weeklyRescueQuery.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                if (RescueCount == null) return; // Safety check
-
-                if (!snapshot.exists() || !snapshot.hasChildren()) {
-                    // No rescue logs found in the last week
-                    RescueCount.setText("Weekly Rescue Count: 0");
-                    return;
-                }
-
-                // The count is simply the number of children (rescue events) in the snapshot
-                long count = snapshot.getChildrenCount();
-
-                // Update the UI element
-                String txt = "Weekly Rescue Count: " + count;
-                RescueCount.setText(txt);
+    private void showLastRescueTime() {
+        String lastTime = rescueWindow.getLastRescueTime();
+        RescueTime.setText(lastTime != null ? lastTime : "No rescues yet");
+    }
 
-                Log.d("RESCUE_LOG", "Weekly Rescue Count: " + count);
-            }
+    private void showWeeklyCount() {
+        if (RescueCount == null) return; // Safety check
 
-            @Override
-            public void onCancelled(@NonNull DatabaseError databaseError) {
-                if (RescueCount != null) {
-                    Toast.makeText(getContext(), "Failed to read weekly rescue count.", Toast.LENGTH_SHORT).show();
-                    RescueCount.setText("E");
-                }
-            }
-        });
+        int count = rescueWindow.getWeeklyCount();
+        RescueCount.setText("Weekly Rescue Count: " + count);
+        Log.d("RESCUE_LOG", "Weekly Rescue Count: " + count);
     }
 
 
@@ -481,107 +388,108 @@ public class ViewStatusFragment extends Fragment {
 
     }
 
+    /**
+     * Shows the 7- or 30-day chart from the loaded rescue window; nothing is
+     * read here. Before the window arrives this only records the choice.
+     */
     public void onDurationToggleClicked(int days) {
+        chartDays = days;
         if (chart == null) return;
 
-        // Show loading state
-        if (statusTextView != null) {
-            statusTextView.setText("Loading data...");
-            statusTextView.setVisibility(View.VISIBLE);
+        if (rescueWindow == null) {
+            // Show loading state
+            if (statusTextView != null) {
+                statusTextView.setText("Loading data...");
+                statusTextView.setVisibility(View.VISIBLE);
+            }
+            chart.setVisibility(View.INVISIBLE);
+            return;
         }
-        chart.setVisibility(View.INVISIBLE);
 
-        trendFetcher.loadRescueTrendData(uname, days, chartContext, new ChartDataCallback() {
-            @Override
-            public void onDataReady(Map<String, Integer> dailyCounts) {
-                if (!isAdded()) return;
+        showTrend(rescueWindow.dailyCounts(days));
+    }
 
-                if (statusTextView != null) statusTextView.setVisibility(View.GONE);
-                chart.setVisibility(View.VISIBLE);
+    private void showTrend(Map<String, Integer> dailyCounts) {
+        if (statusTextView != null) statusTextView.setVisibility(View.GONE);
+        chart.setVisibility(View.VISIBLE);
 
-                if (dailyCounts.isEmpty()) {
-                    if (statusTextView != null) {
-                        statusTextView.setText("No rescue logs found in this period.");
-                        statusTextView.setVisibility(View.VISIBLE);
-                    }
-                    chart.setData(null);
-                    chart.invalidate();
-                    return;
-                }
+        if (dailyCounts.isEmpty()) {
+            if (statusTextView != null) {
+                statusTextView.setText("No rescue logs found in this period.");
+                statusTextView.setVisibility(View.VISIBLE);
+            }
+            chart.setData(null);
+            chart.invalidate();
+            return;
+        }
 
-                // Prepare Data
-                List<BarEntry> entries = new ArrayList<>();
-                // TreeMap sorts by date string keys automatically
-                Map<String, Integer> sortedDailyCounts = new TreeMap<>(dailyCounts);
-                List<String> labels = new ArrayList<>(sortedDailyCounts.keySet());
+        // Prepare Data
+        List<BarEntry> entries = new ArrayList<>();
+        // TreeMap sorts by date string keys automatically
+        Map<String, Integer> sortedDailyCounts = new TreeMap<>(dailyCounts);
+        List<String> days = new ArrayList<>(sortedDailyCounts.keySet());
 
-                for (int i = 0; i < labels.size(); i++) {
-                    String date = labels.get(i);
-                    Integer count = sortedDailyCounts.get(date);
-                    entries.add(new BarEntry(i, count));
-                }
+        double[] counts = new double[days.size()];
+        for (int i = 0; i < days.size(); i++) {
+            counts[i] = sortedDailyCounts.get(days.get(i));
+        }
+        // Long windows are summed into runs of consecutive days (at most
+        // SCREEN_POINTS bars), so every rescue is still in some bar
+        ChartDownsampler.Bars bars = ChartDownsampler.sumRuns(days, counts, ChartDownsampler.SCREEN_POINTS);
+        List<String> labels = Arrays.asList(bars.labels);
+        for (int i = 0; i < bars.values.length; i++) {
+            entries.add(new BarEntry(i, (float) bars.values[i]));
+        }
 
-                // Configure DataSet
-                BarDataSet dataSet = new BarDataSet(entries, "Rescues");
-                dataSet.setColor(Color.parseColor("#1565C0"));
-                dataSet.setValueTextColor(Color.BLACK);
-                dataSet.setValueTextSize(10f);
+        // Configure DataSet
+        BarDataSet dataSet = new BarDataSet(entries, "Rescues");
+        dataSet.setColor(Color.parseColor("#1565C0"));
+        dataSet.setValueTextColor(Color.BLACK);
+        dataSet.setValueTextSize(10f);
 //                dataSet.setHighLightEnabled(false);
 
-                // Fix: Format values as integers and hide 0 values
-                dataSet.setValueFormatter(new ValueFormatter() {
-                    @Override
-                    public String getFormattedValue(float value) {
-                        int intValue = (int) value;
-                        if (intValue == 0) {
-                            return ""; // Hide 0 values
-                        }
-                        return String.valueOf(intValue); // Show integer
-                    }
-                });
-
-
-                // Set Data
-                BarData barData = new BarData(dataSet);
-                barData.setBarWidth(0.6f); // Thinner bars look better
-                chart.setData(barData);
-
-                // Format X-Axis
-                // Fix: Show every 3rd label if we have more than 10 data points (e.g., 30 days)
-                if (labels.size() > 10) {
-                    chart.getXAxis().setValueFormatter(new ValueFormatter() {
-                        @Override
-                        public String getFormattedValue(float value) {
-                            int index = (int) value;
-                            if (index >= 0 && index < labels.size() && index % 3 == 0) {
-                                return labels.get(index);
-                            }
-                            return ""; // Hide other labels
-                        }
-                    });
-                    chart.getXAxis().setLabelCount(labels.size() / 3 + 1, false);
-                } else {
-                    // For 7 days, show all labels
-                    chart.getXAxis().setValueFormatter(new IndexAxisValueFormatter(labels));
-                    chart.getXAxis().setLabelCount(labels.size(), false);
-                }
-
-
-                // Refresh
-                chart.animateY(600);
-                chart.invalidate();
-            }
-
+        // Fix: Format values as integers and hide 0 values
+        dataSet.setValueFormatter(new ValueFormatter() {
             @Override
-            public void onFailure(String errorMessage) {
-                if (!isAdded()) return;
-                chart.setVisibility(View.INVISIBLE);
-                if (statusTextView != null) {
-                    statusTextView.setText("Error: " + errorMessage);
-                    statusTextView.setVisibility(View.VISIBLE);
+            public String getFormattedValue(float value) {
+                int intValue = (int) value;
+                if (intValue == 0) {
+                    return ""; // Hide 0 values
                 }
+                return String.valueOf(intValue); // Show integer
             }
         });
+
+
+        // Set Data
+        BarData barData = new BarData(dataSet);
+        barData.setBarWidth(0.6f); // Thinner bars look better
+        chart.setData(barData);
+
+        // Format X-Axis
+        // Fix: Show every 3rd label if we have more than 10 data points (e.g., 30 days)
+        if (labels.size() > 10) {
+            chart.getXAxis().setValueFormatter(new ValueFormatter() {
+                @Override
+                public String getFormattedValue(float value) {
+                    int index = (int) value;
+                    if (index >= 0 && index < labels.size() && index % 3 == 0) {
+                        return labels.get(index);
+                    }
+                    return ""; // Hide other labels
+                }
+            });
+            chart.getXAxis().setLabelCount(labels.size() / 3 + 1, false);
+        } else {
+            // For 7 days, show all labels
+            chart.getXAxis().setValueFormatter(new IndexAxisValueFormatter(labels));
+            chart.getXAxis().setLabelCount(labels.size(), false);
+        }
+
+
+        // Refresh
+        chart.animateY(600);
+        chart.invalidate();
     }
 
     // ═══════════════════════════════════════════════════════════════════════
@@ -0,0 +1,55 @@
+package com.example.SmartAirGroup2.auth.data.repo;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Paths and writers for the credential index:
+ *
+ *   categories/credentials/{children|parents|provider}/{uname} -> CredentialRecord
+ *
+ * Every place that creates an account writes here as well as under
+ * categories/users, so login only ever has to read this small node.
+ */
+public class CredentialIndex {
+
+    /** The index node, under categories. */
+    public static final String NODE = "credentials";
+    public static final String ROOT = "categories/" + NODE;
+
+    public static DatabaseReference root() {
+        return FirebaseDatabase.getInstance("https://smart-air-group2-default-rtdb.firebaseio.com/")
+                .getReference(ROOT);
+    }
+
+    /** Index keys use the same normalisation as login (trimmed, lower-case). */
+    public static String key(String uname) {
+        if (uname == null) {
+            return "";
+        }
+        return uname.trim().toLowerCase();
+    }
+
+    /** Relative path of an index entry, for use in multi-path updates from the database root. */
+    public static String path(String groupNode, String uname) {
+        return ROOT + "/" + groupNode + "/" + key(uname);
+    }
+
+    public static Map<String, Object> entry(String uname, String email, String password, String type) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("uname", uname);
+        map.put("email", email);
+        map.put("password", password);
+        map.put("type", type);
+        return map;
+    }
+
+    public static Task<Void> write(String groupNode, String uname, String email, String password, String type) {
+        return root().child(groupNode).child(key(uname))
+                .setValue(new CredentialRecord(uname, email, password, type));
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.SmartAirGroup2.auth.data.repo;
+
+/**
+ * Compact login record stored under categories/credentials/{group}/{uname}.
+ *
+ * Holds only what login and recovery need to compare, so reading it never
+ * pulls a child's logs, symptoms or triages along with it.
+ */
+public class CredentialRecord {
+    public String uname;
+    public String email;
+    public String password;
+    public String type;
+
+    // Empty constructor (Firebase requires it)
+    public CredentialRecord() {}
+
+    public CredentialRecord(String uname, String email, String password, String type) {
+        this.uname = uname;
+        this.email = email;
+        this.password = password;
+        this.type = type;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.SmartAirGroup2.auth.data.repo;
+
+/**
+ * Read side of the credential index used by {@link FirebaseRtdbAuthRepository}.
+ * Implementations are blocking and must be called off the main thread.
+ */
+public interface CredentialStore {
+    /**
+     * @param groupNode "children", "parents" or "provider"
+     * @param unameKey  normalised (trimmed, lower-case) username
+     * @return the record, or null if no such user exists
+     */
+    CredentialRecord find(String groupNode, String unameKey) throws Exception;
+}
@@ -0,0 +1,110 @@
+package com.example.SmartAirGroup2.auth.data.repo;
+
+import android.util.Log;
+
+import com.example.SmartAirGroup2.FirebaseUserTreeRepository;
+import com.example.SmartAirGroup2.TreeNode;
+import com.example.SmartAirGroup2.UserTreeRepository;
+import com.google.firebase.database.FirebaseDatabase;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Reads credentials from categories/credentials.
+ *
+ * Accounts created before the index existed are resolved by reading only the
+ * email/password/type leaves of the profile (never the whole user node), and
+ * the index entry is then written so the next login takes the fast path.
+ *
+ * This lazy path is the whole rollout: there is no bulk backfill. A client
+ * that read every profile to build the index would need read access to all
+ * users' credentials. An account that does not log in again stays
+ * unindexed, which costs nothing.
+ *
+ * Reads go through a UserTreeRepository rooted at categories (Firebase in the
+ * app, an InMemoryUserTreeRepository in tests and benchmarks), so paths are
+ * "credentials/{group}/{uname}" and "users/{group}/{uname}/email".
+ */
+public class FirebaseCredentialStore implements CredentialStore {
+
+    private static final String TAG = "CredentialStore";
+
+    private final UserTreeRepository categories;
+
+    public FirebaseCredentialStore() {
+        this(new FirebaseUserTreeRepository(
+                FirebaseDatabase.getInstance("https://smart-air-group2-default-rtdb.firebaseio.com/")
+                        .getReference("categories")));
+    }
+
+    public FirebaseCredentialStore(UserTreeRepository categories) {
+        this.categories = categories;
+    }
+
+    @Override
+    public CredentialRecord find(String groupNode, String unameKey) throws Exception {
+        TreeNode entry = await(CredentialIndex.NODE + "/" + groupNode + "/" + unameKey);
+        if (entry.exists()) {
+            return new CredentialRecord(entry.child("uname").getString(), entry.child("email").getString(),
+                    text(entry.child("password")), entry.child("type").getString());
+        }
+        return findInProfile(groupNode, unameKey);
+    }
+
+    private CredentialRecord findInProfile(String groupNode, final String unameKey) throws Exception {
+        String userPath = "users/" + groupNode + "/" + unameKey + "/";
+
+        TreeNode email = await(userPath + "email");
+        if (!email.exists()) {
+            return null;
+        }
+        TreeNode password = await(userPath + "password");
+        TreeNode type = await(userPath + "type");
+
+        CredentialRecord record = new CredentialRecord(
+                unameKey, email.getString(), text(password), type.getString());
+
+        categories.write(CredentialIndex.NODE + "/" + groupNode + "/" + CredentialIndex.key(record.uname),
+                CredentialIndex.entry(record.uname, record.email, record.password, record.type),
+                new UserTreeRepository.WriteCallback() {
+                    @Override
+                    public void onSuccess() {
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        Log.w(TAG, "Lazy index backfill failed for " + unameKey + ": " + message);
+                    }
+                });
+        return record;
+    }
+
+    /** Passwords stored as numbers read as their digits. */
+    private static String text(TreeNode node) {
+        Object value = node.getValue();
+        return value == null ? null : String.valueOf(value);
+    }
+
+    /** One read, blocking until it answers (find runs off the main thread). */
+    private TreeNode await(String path) throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        final TreeNode[] node = new TreeNode[1];
+        final String[] error = new String[1];
+        categories.read(path, new UserTreeRepository.NodeCallback() {
+            @Override
+            public void onResult(TreeNode result) {
+                node[0] = result;
+                done.countDown();
+            }
+
+            @Override
+            public void onError(String message) {
+                error[0] = message;
+                done.countDown();
+            }
+        });
+        done.await();
+        if (error[0] != null) throw new Exception(error[0]);
+        return node[0];
+    }
+}
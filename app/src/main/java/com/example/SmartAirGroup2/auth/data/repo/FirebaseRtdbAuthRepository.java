@@ -1,14 +1,18 @@
 package com.example.SmartAirGroup2.auth.data.repo;
 
 import com.google.firebase.database.*;
-import com.google.android.gms.tasks.Tasks;
-import android.util.Log;
 
 public class FirebaseRtdbAuthRepository implements AuthRepository {
-    private final DatabaseReference usersRoot =
-            FirebaseDatabase.getInstance("https://smart-air-group2-default-rtdb.firebaseio.com/")
-                    .getReference("categories")
-                    .child("users");
+    // Login reads the compact credential index only, never the full user node
+    private final CredentialStore credentials;
+
+    public FirebaseRtdbAuthRepository() {
+        this(new FirebaseCredentialStore());
+    }
+
+    public FirebaseRtdbAuthRepository(CredentialStore credentials) {
+        this.credentials = credentials;
+    }
 
     public static final String CHILD    = "Child";
     public static final String PARENT   = "Parent";
@@ -53,28 +57,20 @@ public class FirebaseRtdbAuthRepository implements AuthRepository {
         if (new_email.trim().isEmpty()) throw new Exception("invalid-email");
         if (new_uname.trim().isEmpty()) throw new Exception("invalid-username");
 
-        DataSnapshot userSnap = findUserByUsername(role, new_uname);
-        if (userSnap == null) {
+        CredentialRecord record = findUserByUsername(role, new_uname);
+        if (record == null) {
             return new ProfileCheck(new_email, false);
         }
 
-        String emailInDatabse = refactory(
-                userSnap.child("email").getValue(String.class)
-        );
+        String emailInDatabse = refactory(record.email);
 
         boolean existsAndMatch = new_email.equals(emailInDatabse);
         return new ProfileCheck(new_email, existsAndMatch);
     }
 
-    private DataSnapshot findUserByUsername(String role, String usernameNorm) throws Exception {
+    private CredentialRecord findUserByUsername(String role, String usernameNorm) throws Exception {
         String groupNode = roleToGroupNode(role);
-        DatabaseReference ref = usersRoot.child(groupNode).child(usernameNorm);
-
-        DataSnapshot snap = Tasks.await(ref.get());
-        if (!snap.exists()) {
-            return null;
-        }
-        return snap;
+        return credentials.find(groupNode, usernameNorm);
     }
 
     @Override
@@ -86,13 +82,11 @@ public class FirebaseRtdbAuthRepository implements AuthRepository {
         if (new_uname.trim().isEmpty()) throw new Exception("Invalid Username");
         if (password == null || password.trim().isEmpty()) throw new Exception("Invalid Password");
 
-        DataSnapshot userSnap = findUserByUsername(role, new_uname);
-        if (userSnap == null) return false;
+        CredentialRecord record = findUserByUsername(role, new_uname);
+        if (record == null) return false;
 
-        String emailInDb = refactory(
-                userSnap.child("email").getValue(String.class)
-        );
-        String pwdInDatabse = String.valueOf(userSnap.child("password").getValue());
+        String emailInDb = refactory(record.email);
+        String pwdInDatabse = record.password;
 
         return new_email.equals(emailInDb) && pwdInDatabse != null && pwdInDatabse.equals(password);
     }
@@ -1,16 +1,14 @@
 package com.example.SmartAirGroup2.auth.data.repo;
 
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.ValueEventListener;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 public class PasswordRecovery {
-    private static final DatabaseReference usersRoot =
-            FirebaseDatabase.getInstance("https://smart-air-group2-default-rtdb.firebaseio.com/")
-                    .getReference("categories")
-                    .child("users");
+    // Lookups block on a single keyed read, so keep them off the main thread
+    private static final Executor io = Executors.newSingleThreadExecutor();
 
     // Callback interface
     public interface AccountCheckCallback {
@@ -19,44 +17,51 @@ public class PasswordRecovery {
     }
 
     public static void accountExists(String username, String email, String role, AccountCheckCallback callback) {
-        DatabaseReference userBranch;
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+
+        io.execute(() -> {
+            try {
+                String password = findPassword(new FirebaseCredentialStore(), username, email, role);
+                // If nothing matched, account doesn't exist
+                mainHandler.post(() -> callback.onResult(password == null ? "null" : password));
+            } catch (Exception e) {
+                mainHandler.post(() -> callback.onError(e.getMessage()));
+            }
+        });
+    }
 
+    /**
+     * Resolves the account with one keyed read of its credential index entry,
+     * so the cost does not depend on how many users (or logs) the branch holds.
+     *
+     * @return the stored password, or null if no account matches all three fields
+     */
+    public static String findPassword(CredentialStore store, String username, String email, String role) throws Exception {
+        String groupNode;
         if (role.equalsIgnoreCase("child")) {
-            userBranch = usersRoot.child("children");
+            groupNode = "children";
         } else if (role.equalsIgnoreCase("parent")) {
-            userBranch = usersRoot.child("parents");
+            groupNode = "parents";
         } else {
-            userBranch = usersRoot.child("provider");
+            groupNode = "provider";
         }
 
-        // Use addListenerForSingleValueEvent for one-time read
-        userBranch.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot dataSnapshot) {
-                if (dataSnapshot.exists()) {
-                    // Loop through each user
-                    for (DataSnapshot userSnapshot : dataSnapshot.getChildren()) {
-                        // Get individual values
-                        String userEmail = userSnapshot.child("email").getValue(String.class);
-                        String userType = userSnapshot.child("type").getValue(String.class);
-                        String userName = userSnapshot.child("uname").getValue(String.class);
-                        String userPassword = userSnapshot.child("password").getValue(String.class);
-
-                        if (username.equals(userName) && email.equals(userEmail) && role.equalsIgnoreCase(userType)) {
-                            callback.onResult(userPassword);
-                            return; // Exit early
-                        }
-                    }
-                }
-                // If we get here, account doesn't exist
-                callback.onResult("null");
-            }
+        String key = CredentialIndex.key(username);
+        if (key.isEmpty()) {
+            return null;
+        }
 
-            @Override
-            public void onCancelled(DatabaseError databaseError) {
-                callback.onError(databaseError.getMessage());
-            }
-        });
+        CredentialRecord record = store.find(groupNode, key);
+        if (record == null) {
+            return null;
+        }
+
+        boolean emailMatches = email != null && record.email != null
+                && email.trim().equalsIgnoreCase(record.email.trim());
+        if (emailMatches && role.equalsIgnoreCase(record.type)) {
+            return record.password;
+        }
+        return null;
     }
 
 }
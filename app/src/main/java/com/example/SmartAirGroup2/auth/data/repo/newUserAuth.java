@@ -73,14 +73,15 @@ public class newUserAuth extends FirebaseRtdbAuthRepository {
 
     public static void createUser(String userType, String username, String password, String email) {
         // Decide which branch (children / parents / provider)
-        DatabaseReference userBranch;
+        String groupNode;
         if (userType.equalsIgnoreCase("child")) {
-            userBranch = usersRoot.child("children");
+            groupNode = "children";
         } else if (userType.equalsIgnoreCase("parent")) {
-            userBranch = usersRoot.child("parents");
+            groupNode = "parents";
         } else {
-            userBranch = usersRoot.child("provider");
+            groupNode = "provider";
         }
+        DatabaseReference userBranch = usersRoot.child(groupNode);
 
 
         // Create a user data object inline
@@ -94,6 +95,12 @@ public class newUserAuth extends FirebaseRtdbAuthRepository {
                 .addOnFailureListener(e -> {
                     System.err.println("Failed to add user: " + e.getMessage());
                 });
+
+        // Keep the login index in step with the profile
+        CredentialIndex.write(groupNode, username, email, password, userType)
+                .addOnFailureListener(e -> {
+                    System.err.println("Failed to index user: " + e.getMessage());
+                });
     }
 
     // Inner static class for user data model
@@ -0,0 +1,59 @@
+package com.example.SmartAirGroup2.auth.login;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-presenter counters for login attempts.
+ * Latency is measured from the moment the auth task starts running until the
+ * repository returns, so queueing on the executor is not included.
+ */
+public class LoginMetrics {
+    private final AtomicLong attempts = new AtomicLong();
+    private final AtomicLong successes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    void recordAttempt() { attempts.incrementAndGet(); }
+    void recordCoalesced() { coalesced.incrementAndGet(); }
+    void recordCancelled() { cancelled.incrementAndGet(); }
+    void recordRejected() { rejected.incrementAndGet(); }
+
+    void recordOutcome(boolean success, long latencyNanos) {
+        if (success) successes.incrementAndGet();
+        else failures.incrementAndGet();
+        recordLatency(latencyNanos);
+    }
+
+    void recordError(long latencyNanos) {
+        errors.incrementAndGet();
+        recordLatency(latencyNanos);
+    }
+
+    private void recordLatency(long latencyNanos) {
+        totalLatencyNanos.addAndGet(latencyNanos);
+        maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+    }
+
+    public long getAttempts() { return attempts.get(); }
+    public long getSuccesses() { return successes.get(); }
+    public long getFailures() { return failures.get(); }
+    public long getErrors() { return errors.get(); }
+    public long getCoalesced() { return coalesced.get(); }
+    public long getCancelled() { return cancelled.get(); }
+    public long getRejected() { return rejected.get(); }
+
+    /** Mean latency in milliseconds over attempts that reached the repository. */
+    public double getAverageLatencyMs() {
+        long completed = successes.get() + failures.get() + errors.get();
+        return completed == 0 ? 0.0 : totalLatencyNanos.get() / 1_000_000.0 / completed;
+    }
+
+    public double getMaxLatencyMs() {
+        return maxLatencyNanos.get() / 1_000_000.0;
+    }
+}
@@ -14,29 +14,72 @@ import android.os.Handler;
 import android.os.Looper;
 import android.content.Intent;
 
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 
 public class LoginPresenter implements LoginContract.Presenter{
+    // Shared by every presenter: at most two blocking auth reads at once, a short queue, no unbounded threads
+    private static final ThreadPoolExecutor AUTH_EXECUTOR = new ThreadPoolExecutor(
+            2, 2, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(8));
+    static {
+        AUTH_EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
     private final AuthRepository repo;
-    private LoginContract.View view;
+    private volatile LoginContract.View view;
     private final Handler mainHandler;
+    private final Executor executor;
+    private final LoginMetrics metrics = new LoginMetrics();
+
+    // One in-flight attempt per (role, username). A repeated tap with the same email and password
+    // joins it instead of starting another read; different credentials cancel and replace it
+    private final Map<String, Attempt> inFlight = new ConcurrentHashMap<>();
+    // Bumped on attach/detach so results from an earlier view are never delivered
+    private volatile int generation = 0;
 
     public LoginPresenter(AuthRepository repo) {
         this(repo, new Handler(Looper.getMainLooper()));
     }
 
     public LoginPresenter(AuthRepository repo, Handler handler) {
+        this(repo, handler, AUTH_EXECUTOR);
+    }
+
+    public LoginPresenter(AuthRepository repo, Handler handler, Executor executor) {
         this.repo = repo;
         this.mainHandler = handler;
+        this.executor = executor;
     }
 
     @Override
     public void attach(LoginContract.View v) {
+        generation++;
         this.view = v;
     }
     @Override
     public void detach() {
+        generation++;
         this.view = null;
+
+        // Interrupt pending reads; Tasks.await gives up as soon as its thread is interrupted
+        for (Attempt task : inFlight.values()) {
+            if (task.cancel(true)) {
+                metrics.recordCancelled();
+            }
+        }
+        inFlight.clear();
+    }
+
+    public LoginMetrics getMetrics() {
+        return metrics;
     }
 
     @Override
@@ -48,26 +91,108 @@ public class LoginPresenter implements LoginContract.Presenter{
             return;
         }
 
-        new Thread(() -> {
-            try {
-                boolean check = repo.CheckPassword(role, username, email, password);
-                mainHandler.post(() -> {
-                    if (view == null) return;
-
-                    if (check) {
-                        view.showLoginSuccess(role);
-
-                    } else {
-                        view.showLoginFailed();
-                    }
-                });
-            } catch (Exception e) {
-                mainHandler.post(() -> {
-                    if (view == null) return;
-                    view.showInputError(e.getMessage());
-                    view.showLoginFailed();
-                });
+        final String key = role + "|" + username.trim().toLowerCase();
+        final int gen = generation;
+
+        final Attempt[] self = new Attempt[1];
+        final Attempt task = new Attempt(key, email, password, () -> {
+            runLogin(gen, self[0], role, username, email, password);
+            return null;
+        });
+        self[0] = task;
+
+        final Attempt[] replaced = new Attempt[1];
+        Attempt current = inFlight.compute(key, (k, old) -> {
+            if (old != null && old.sameCredentials(email, password)) return old;
+            replaced[0] = old;
+            return task;
+        });
+        if (current != task) {
+            metrics.recordCoalesced();
+            return;
+        }
+        // The user corrected the email or password: the earlier check must not answer for this one
+        if (replaced[0] != null && replaced[0].cancel(true)) {
+            metrics.recordCancelled();
+        }
+
+        metrics.recordAttempt();
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, task);
+            metrics.recordRejected();
+            post(gen, v -> {
+                v.showInputError("Too many login attempts, please wait");
+                v.showLoginFailed();
+            });
+        }
+    }
+
+    private void runLogin(int gen, Attempt attempt, String role, String username, String email, String password) {
+        long start = System.nanoTime();
+        try {
+            boolean check = repo.CheckPassword(role, username, email, password);
+            metrics.recordOutcome(check, System.nanoTime() - start);
+            post(gen, attempt, v -> {
+                if (check) {
+                    v.showLoginSuccess(role);
+
+                } else {
+                    v.showLoginFailed();
+                }
+            });
+        } catch (Exception e) {
+            if (Thread.currentThread().isInterrupted() || e instanceof InterruptedException) {
+                return; // cancelled by detach()
             }
-        }).start();
+            metrics.recordError(System.nanoTime() - start);
+            post(gen, attempt, v -> {
+                v.showInputError(e.getMessage());
+                v.showLoginFailed();
+            });
+        }
+    }
+
+    /** A login read, with the credentials it checks so a repeated tap can tell whether to join it. */
+    private final class Attempt extends FutureTask<Void> {
+        private final String key;
+        private final String email;
+        private final String password;
+
+        Attempt(String key, String email, String password, Callable<Void> login) {
+            super(login);
+            this.key = key;
+            this.email = email;
+            this.password = password;
+        }
+
+        boolean sameCredentials(String email, String password) {
+            return this.email.equals(email) && this.password.equals(password);
+        }
+
+        @Override
+        protected void done() {
+            inFlight.remove(key, this);
+        }
+    }
+
+    private interface ViewAction {
+        void apply(LoginContract.View v);
+    }
+
+    private void post(int gen, ViewAction action) {
+        post(gen, null, action);
+    }
+
+    /** Deliver unless the view changed or the attempt was cancelled (detached or replaced). */
+    private void post(int gen, Attempt attempt, ViewAction action) {
+        if (gen != generation) return;
+        mainHandler.post(() -> {
+            LoginContract.View v = view;
+            if (v == null || gen != generation) return;
+            if (attempt != null && attempt.isCancelled()) return;
+            action.apply(v);
+        });
     }
 }
@@ -8,6 +8,8 @@ public class TriageIncident {
     public String guidance;
     public String response;
     public String time;
+    /** Epoch millis of time; the field triage range queries order by. */
+    public long timestamp;
     public Map<String, Boolean> redflags = new HashMap<>();
 
 
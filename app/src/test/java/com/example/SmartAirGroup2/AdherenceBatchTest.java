@@ -0,0 +1,241 @@
+package com.example.SmartAirGroup2;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for AdherenceBatch: summary order, failures, cache use, and
+ * bounded parallel reads against a repository with simulated latency.
+ */
+public class AdherenceBatchTest {
+
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+    private static final long LATENCY_MS = 40;
+
+    private InMemoryUserTreeRepository memory;
+    private SlowRepository slow;
+    private ExecutorService compute;
+    private long end;
+    private long start;
+
+    @Before
+    public void setUp() {
+        memory = new InMemoryUserTreeRepository();
+        slow = new SlowRepository(memory, LATENCY_MS);
+        compute = Executors.newFixedThreadPool(2);
+        end = System.currentTimeMillis();
+        start = end - 6 * DAY_MS;
+    }
+
+    @After
+    public void tearDown() {
+        slow.shutdown();
+        compute.shutdownNow();
+    }
+
+    /** A child taking its controller once a day on the given number of the last 7 days. */
+    private void child(String uname, int daysTaken) {
+        Map<String, Object> days = new HashMap<>();
+        for (String d : AdherenceCalculator.DAY_KEYS) days.put(d, true);
+        Map<String, Object> schedule = new HashMap<>();
+        schedule.put("medication", "Flovent");
+        schedule.put("timesPerDay", 1L);
+        schedule.put("daysOfWeek", days);
+        memory.put("children/" + uname + "/controller_schedule", schedule);
+        for (int i = 0; i < daysTaken; i++) {
+            Map<String, Object> dose = new HashMap<>();
+            dose.put("timestamp", end - i * DAY_MS);
+            dose.put("medication", "Flovent");
+            memory.put("children/" + uname + "/logs/controller_log/controller" + (i + 1), dose);
+        }
+    }
+
+    private List<AdherenceBatch.ChildAdherence> load(UserTreeRepository repo, AdherenceCache cache,
+                                                     int maxInFlight, List<String> children) throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        final List<List<AdherenceBatch.ChildAdherence>> out = new ArrayList<>();
+        new AdherenceBatch(repo, cache, maxInFlight, compute, Runnable::run)
+                .load(children, start, end, lowestFirst -> {
+                    out.add(lowestFirst);
+                    done.countDown();
+                });
+        assertTrue("batch did not finish", done.await(10, TimeUnit.SECONDS));
+        assertEquals(1, out.size());
+        return out.get(0);
+    }
+
+    @Test
+    public void load_sortsLowestFirstWithFailuresLast() throws Exception {
+        child("amy", 7);
+        child("ben", 2);
+        child("cat", 5);
+        slow.failPathsContaining("broken");
+        List<String> children = new ArrayList<>();
+        children.add("amy");
+        children.add("broken");
+        children.add("ben");
+        children.add("cat");
+
+        List<AdherenceBatch.ChildAdherence> summary = load(slow, null, 2, children);
+
+        assertEquals(4, summary.size());
+        assertEquals("ben", summary.get(0).childUname);
+        assertEquals("cat", summary.get(1).childUname);
+        assertEquals("amy", summary.get(2).childUname);
+        assertEquals(100.0, summary.get(2).result.overallPercent, 0.001);
+        assertEquals("broken", summary.get(3).childUname);
+        assertNull(summary.get(3).result);
+        assertNotNull(summary.get(3).error);
+    }
+
+    @Test
+    public void load_emptyListDeliversEmptySummary() throws Exception {
+        assertTrue(load(slow, null, 4, new ArrayList<String>()).isEmpty());
+    }
+
+    @Test
+    public void load_cachedChildrenAreReadFree() throws Exception {
+        List<String> children = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            child("kid" + i, i);
+            children.add("kid" + i);
+        }
+        AdherenceCache cache = new AdherenceCache(16);
+        List<AdherenceBatch.ChildAdherence> first = load(memory, cache, 3, children);
+
+        memory.resetStats();
+        List<AdherenceBatch.ChildAdherence> second = load(memory, cache, 3, children);
+        assertEquals(0, memory.getReads());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i).childUname, second.get(i).childUname);
+        }
+
+        cache.invalidate("kid2");
+        load(memory, cache, 3, children);
+        assertEquals(3, memory.getReads()); // schedule, backfill marker, window
+    }
+
+    @Test
+    public void benchmark_latencyCloseToSlowestChild() throws Exception {
+        int n = 24;
+        int maxInFlight = 8;
+        List<String> children = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            child("kid" + i, i % 8);
+            children.add("kid" + i);
+        }
+        load(memory, null, n, children); // backfill every child's counters up front
+
+        long t0 = System.nanoTime();
+        load(slow, null, 1, children.subList(0, 1));
+        long oneChildMs = (System.nanoTime() - t0) / 1_000_000;
+
+        t0 = System.nanoTime();
+        load(slow, null, 1, children);
+        long oneAtATimeMs = (System.nanoTime() - t0) / 1_000_000;
+
+        slow.resetPeak();
+        t0 = System.nanoTime();
+        List<AdherenceBatch.ChildAdherence> summary = load(slow, null, maxInFlight, children);
+        long batchMs = (System.nanoTime() - t0) / 1_000_000;
+
+        System.out.println("AdherenceBatch " + n + " children @ " + LATENCY_MS + " ms/read: one child "
+                + oneChildMs + " ms, one at a time " + oneAtATimeMs + " ms, "
+                + maxInFlight + " in flight " + batchMs + " ms (peak " + slow.getPeak() + " reads in flight)");
+
+        assertEquals(n, summary.size());
+        // two reads per child in flight at most: schedule, and marker then window
+        assertTrue(slow.getPeak() <= 2 * maxInFlight);
+        // n / maxInFlight waves of one child each, against n children in a row
+        assertTrue(batchMs < oneAtATimeMs / 4);
+        assertTrue(batchMs < oneChildMs * (n / maxInFlight + 2));
+    }
+
+    /**
+     * Delegates to an InMemoryUserTreeRepository after a fixed delay, calling
+     * back from a pool thread like a network client would.
+     */
+    private static class SlowRepository implements UserTreeRepository {
+        private final InMemoryUserTreeRepository inner;
+        private final long latencyMs;
+        private final ScheduledExecutorService timer = Executors.newScheduledThreadPool(16);
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger peak = new AtomicInteger();
+        private String failing;
+
+        SlowRepository(InMemoryUserTreeRepository inner, long latencyMs) {
+            this.inner = inner;
+            this.latencyMs = latencyMs;
+        }
+
+        void failPathsContaining(String part) {
+            failing = part;
+        }
+
+        void resetPeak() {
+            peak.set(0);
+        }
+
+        int getPeak() {
+            return peak.get();
+        }
+
+        void shutdown() {
+            timer.shutdownNow();
+        }
+
+        private void later(String path, Runnable call, NodeCallback callback) {
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            timer.schedule(() -> {
+                inFlight.decrementAndGet();
+                if (failing != null && path.contains(failing)) {
+                    callback.onError("Permission denied");
+                } else {
+                    call.run();
+                }
+            }, latencyMs, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void read(String path, NodeCallback callback) {
+            later(path, () -> inner.read(path, callback), callback);
+        }
+
+        @Override
+        public void query(String path, TreeQuery query, NodeCallback callback) {
+            later(path, () -> inner.query(path, query, callback), callback);
+        }
+
+        @Override
+        public void write(String path, Object value, WriteCallback callback) {
+            inner.write(path, value, callback);
+        }
+
+        @Override
+        public void update(String path, Map<String, Object> values, WriteCallback callback) {
+            inner.update(path, values, callback);
+        }
+
+        @Override
+        public void compareAndSet(String path, Object expected, Object value, SetCallback callback) {
+            inner.compareAndSet(path, expected, value, callback);
+        }
+    }
+}
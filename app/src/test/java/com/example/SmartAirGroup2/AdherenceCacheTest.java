@@ -0,0 +1,119 @@
+package com.example.SmartAirGroup2;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for AdherenceCache: LRU eviction, per-child invalidation,
+ * hit/miss counting, and AdherenceRepository reads served from the cache.
+ */
+public class AdherenceCacheTest {
+
+    private AdherenceCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new AdherenceCache(3);
+    }
+
+    private static AdherenceCalculator.AdherenceResult result(double percent) {
+        return new AdherenceCalculator.AdherenceResult(percent, new ArrayList<AdherenceCalculator.DailyAdherence>());
+    }
+
+    @Test
+    public void get_countsHitsAndMisses() {
+        AdherenceCalculator.AdherenceResult r = result(50);
+        assertNull(cache.get("andy", 10, 16));
+        cache.put("andy", 10, 16, cache.version("andy"), r);
+        assertSame(r, cache.get("andy", 10, 16));
+        assertNull(cache.get("andy", 11, 17));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsed() {
+        cache.put("a", 1, 7, 0, result(1));
+        cache.put("b", 1, 7, 0, result(2));
+        cache.put("c", 1, 7, 0, result(3));
+        cache.get("a", 1, 7);
+        cache.put("d", 1, 7, 0, result(4));
+
+        assertEquals(3, cache.size());
+        assertNull(cache.get("b", 1, 7));
+        assertNotNull(cache.get("a", 1, 7));
+    }
+
+    @Test
+    public void invalidate_dropsOnlyThatChild() {
+        cache.put("andy", 1, 7, 0, result(1));
+        cache.put("andy2", 1, 7, 0, result(2));
+        cache.invalidate("andy");
+        assertNull(cache.get("andy", 1, 7));
+        assertNotNull(cache.get("andy2", 1, 7));
+        assertEquals(1, cache.version("andy"));
+    }
+
+    @Test
+    public void put_ignoresResultReadBeforeInvalidation() {
+        long version = cache.version("andy");
+        cache.invalidate("andy");   // a log was saved while the read was in flight
+        cache.put("andy", 1, 7, version, result(1));
+        assertNull(cache.get("andy", 1, 7));
+    }
+
+    @Test
+    public void repository_secondOpenIsReadFree() {
+        InMemoryUserTreeRepository repo = new InMemoryUserTreeRepository();
+        Map<String, Object> days = new HashMap<>();
+        for (String d : AdherenceCalculator.DAY_KEYS) days.put(d, true);
+        Map<String, Object> schedule = new HashMap<>();
+        schedule.put("medication", "Flovent");
+        schedule.put("timesPerDay", 2L);
+        schedule.put("daysOfWeek", days);
+        repo.put("children/andy/controller_schedule", schedule);
+        Map<String, Object> dose = new HashMap<>();
+        dose.put("timestamp", System.currentTimeMillis() - 60_000L);
+        dose.put("medication", "Flovent");
+        repo.put("children/andy/logs/controller_log/controller1", dose);
+
+        final AdherenceCalculator.AdherenceResult[] out = new AdherenceCalculator.AdherenceResult[1];
+        AdherenceRepository.AdherenceCallback callback = new AdherenceRepository.AdherenceCallback() {
+            @Override
+            public void onResult(AdherenceCalculator.AdherenceResult result) {
+                out[0] = result;
+            }
+
+            @Override
+            public void onError(Exception e) {
+                throw new AssertionError(e);
+            }
+        };
+        long end = System.currentTimeMillis();
+        long start = end - 6L * 24 * 60 * 60 * 1000;
+
+        AdherenceRepository.getAdherence(repo, cache, "andy", start, end, callback);
+        AdherenceCalculator.AdherenceResult first = out[0];
+        assertNotNull(first);
+
+        repo.resetStats();
+        AdherenceRepository.getAdherence(repo, cache, "andy", start, end, callback);
+        assertSame(first, out[0]);
+        assertEquals(0, repo.getReads());
+
+        cache.invalidate("andy");
+        AdherenceRepository.getAdherence(repo, cache, "andy", start, end, callback);
+        assertEquals(3, repo.getReads());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+}
@@ -0,0 +1,323 @@
+package com.example.SmartAirGroup2;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for AdherenceCalculator's epoch-day engine, checked against the
+ * previous string-keyed implementation, plus a multi-year allocation benchmark.
+ */
+public class AdherenceCalculatorTest {
+
+    private static final long DAY = 24L * 60L * 60L * 1000L;
+    private static final TimeZone TORONTO = TimeZone.getTimeZone("America/Toronto");
+
+    private static ControllerSchedule schedule(int timesPerDay, String... activeDays) {
+        Map<String, Boolean> days = new HashMap<>();
+        for (String d : AdherenceCalculator.DAY_KEYS) days.put(d, false);
+        for (String d : activeDays) days.put(d, true);
+        return new ControllerSchedule("Flovent", timesPerDay, days);
+    }
+
+    private static long at(TimeZone zone, int year, int month, int day, int hour, int minute) {
+        Calendar c = Calendar.getInstance(zone);
+        c.clear();
+        c.set(year, month - 1, day, hour, minute);
+        return c.getTimeInMillis();
+    }
+
+    @Test
+    public void dateKey_matchesCalendarDates() {
+        assertEquals("1970-01-01", AdherenceCalculator.dateKey(0));
+        assertEquals("1969-12-31", AdherenceCalculator.dateKey(-1));
+        assertEquals("2000-02-29", AdherenceCalculator.dateKey(11016));
+        assertEquals("2024-03-01", AdherenceCalculator.dateKey(19783));
+
+        SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        fmt.setTimeZone(TimeZone.getTimeZone("UTC"));
+        for (int day = -800; day < 30000; day += 37) {
+            assertEquals(fmt.format(new Date(day * DAY)), AdherenceCalculator.dateKey(day));
+        }
+    }
+
+    @Test
+    public void weekdayIndex_startsOnMonday() {
+        // 1970-01-01 was a Thursday, 2025-01-06 a Monday
+        assertEquals(3, AdherenceCalculator.weekdayIndex(0));
+        assertEquals(0, AdherenceCalculator.weekdayIndex(AdherenceCalculator.epochDay(
+                at(TORONTO, 2025, 1, 6, 12, 0), TORONTO)));
+        assertEquals(6, AdherenceCalculator.weekdayIndex(-4));
+    }
+
+    @Test
+    public void calculate_capsOverdoseAndSkipsInactiveDays() {
+        ControllerSchedule s = schedule(2, "MON", "WED");
+        List<ControllerLog> logs = new ArrayList<>();
+        // Mon 2025-01-06: three doses (capped at 2); Tue: one dose (not expected); Wed: one dose
+        logs.add(new ControllerLog(at(TORONTO, 2025, 1, 6, 8, 0), "Flovent"));
+        logs.add(new ControllerLog(at(TORONTO, 2025, 1, 6, 12, 0), "Flovent"));
+        logs.add(new ControllerLog(at(TORONTO, 2025, 1, 6, 20, 0), "Flovent"));
+        logs.add(new ControllerLog(at(TORONTO, 2025, 1, 7, 9, 0), "Flovent"));
+        logs.add(new ControllerLog(at(TORONTO, 2025, 1, 8, 23, 59), "Flovent"));
+
+        AdherenceCalculator.AdherenceResult r = AdherenceCalculator.calculate(s, logs,
+                at(TORONTO, 2025, 1, 6, 0, 0), at(TORONTO, 2025, 1, 8, 23, 59), TORONTO);
+
+        assertEquals(3, r.dailyList.size());
+        assertEquals("2025-01-06", r.dailyList.get(0).date);
+        assertEquals(3, r.dailyList.get(0).actual);
+        assertEquals(100.0, r.dailyList.get(0).percent, 0);
+        assertEquals(0, r.dailyList.get(1).expected);
+        assertEquals(1, r.dailyList.get(1).actual);
+        assertEquals(50.0, r.dailyList.get(2).percent, 0);
+        // (2 + 1) used of 4 expected
+        assertEquals(75.0, r.overallPercent, 1e-9);
+    }
+
+    @Test
+    public void calculate_bucketsByLocalDayAcrossDst() {
+        ControllerSchedule s = schedule(1, AdherenceCalculator.DAY_KEYS);
+        List<ControllerLog> logs = new ArrayList<>();
+        // 2025-03-09 is 23 hours long in Toronto; 23:30 local still belongs to the 9th
+        logs.add(new ControllerLog(at(TORONTO, 2025, 3, 9, 23, 30), null));
+        logs.add(new ControllerLog(at(TORONTO, 2025, 3, 10, 0, 30), null));
+
+        AdherenceCalculator.AdherenceResult r = AdherenceCalculator.calculate(s, logs,
+                at(TORONTO, 2025, 3, 8, 12, 0), at(TORONTO, 2025, 3, 10, 12, 0), TORONTO);
+
+        assertEquals(3, r.dailyList.size());
+        assertEquals("2025-03-09", r.dailyList.get(1).date);
+        assertEquals(1, r.dailyList.get(1).actual);
+        assertEquals(1, r.dailyList.get(2).actual);
+    }
+
+    @Test
+    public void calculate_noScheduleExpectsNothing() {
+        List<ControllerLog> logs = new ArrayList<>();
+        logs.add(new ControllerLog(at(TORONTO, 2025, 1, 6, 8, 0), "Flovent"));
+        AdherenceCalculator.AdherenceResult r = AdherenceCalculator.calculate(null, logs,
+                at(TORONTO, 2025, 1, 1, 0, 0), at(TORONTO, 2025, 1, 7, 0, 0), TORONTO);
+        assertEquals(7, r.dailyList.size());
+        assertEquals(0.0, r.overallPercent, 0);
+    }
+
+    @Test
+    public void calculate_matchesLegacyImplementation() {
+        TimeZone saved = TimeZone.getDefault();
+        TimeZone.setDefault(TORONTO);
+        try {
+            Random random = new Random(7);
+            ControllerSchedule s = schedule(2, "MON", "TUE", "THU", "SAT", "SUN");
+            long end = at(TORONTO, 2025, 11, 20, 15, 0);
+            List<ControllerLog> logs = randomLogs(random, end - 800 * DAY, end, 1500);
+
+            for (int window : new int[]{1, 7, 30, 400}) {
+                long start = end - (window - 1) * DAY - random.nextInt(12) * 3_600_000L;
+                AdherenceCalculator.AdherenceResult expected = legacyCalculate(s, logs, start, end);
+                AdherenceCalculator.AdherenceResult actual = AdherenceCalculator.calculate(s, logs, start, end);
+
+                assertEquals(expected.overallPercent, actual.overallPercent, 1e-9);
+                assertEquals(expected.dailyList.size(), actual.dailyList.size());
+                for (int i = 0; i < expected.dailyList.size(); i++) {
+                    AdherenceCalculator.DailyAdherence e = expected.dailyList.get(i);
+                    AdherenceCalculator.DailyAdherence a = actual.dailyList.get(i);
+                    assertEquals(e.date, a.date);
+                    assertEquals(e.date, e.expected, a.expected);
+                    assertEquals(e.date, e.actual, a.actual);
+                    assertEquals(e.date, e.percent, a.percent, 1e-9);
+                }
+            }
+        } finally {
+            TimeZone.setDefault(saved);
+        }
+    }
+
+    /** controllerDaily counters of consecutive days, one {medication...} list per day. */
+    private static ControllerDailyCount[] counters(String[]... perDay) {
+        ControllerDailyCount[] days = new ControllerDailyCount[perDay.length];
+        for (int i = 0; i < perDay.length; i++) {
+            days[i] = new ControllerDailyCount();
+            for (String med : perDay[i]) days[i].add(med);
+        }
+        return days;
+    }
+
+    @Test
+    public void calculatePerMedication_splitsTheCountersByMedication() {
+        ControllerSchedule flovent = schedule(2, AdherenceCalculator.DAY_KEYS);
+        ControllerSchedule qvar = schedule(1, "MON", "WED", "FRI");
+        qvar.medication = "Qvar";
+        int monday = AdherenceCalculator.epochDay(2025, 1, 6);
+
+        ControllerDailyCount[] days = counters(
+                new String[]{"Flovent", "flovent ", "Qvar"},         // Mon
+                new String[]{"Flovent", "Ventolin"},                 // Tue
+                new String[]{"Qvar", "Qvar", "Flovent", "Flovent"},  // Wed
+                new String[]{},                                      // Thu
+                new String[]{"Flovent", null});                      // Fri
+
+        List<ControllerSchedule> schedules = new ArrayList<>();
+        schedules.add(flovent);
+        schedules.add(qvar);
+        Map<String, AdherenceCalculator.AdherenceResult> results =
+                AdherenceCalculator.calculatePerMedication(schedules, monday, days);
+        assertEquals(2, results.size());
+
+        AdherenceCalculator.AdherenceResult f = results.get("Flovent");
+        assertEquals(
+                AdherenceCalculator.fromDailyCounts(flovent, monday, new int[]{2, 1, 2, 0, 1}).overallPercent,
+                f.overallPercent, 1e-9);
+        assertEquals(60.0, f.overallPercent, 1e-9); // 6 of 10 planned
+
+        AdherenceCalculator.AdherenceResult q = results.get("Qvar");
+        int[] qvarTaken = new int[5];
+        for (int i = 0; i < 5; i++) qvarTaken[i] = q.dailyList.get(i).actual;
+        assertArrayEquals(new int[]{1, 0, 2, 0, 0}, qvarTaken);
+        assertEquals(0, q.dailyList.get(1).expected);       // Tuesday is not a Qvar day
+        assertEquals(200.0 / 3, q.overallPercent, 1e-9);    // Mon and Wed taken, Fri missed
+    }
+
+    @Test
+    public void fromDailyCounts_unnamedScheduleCountsEveryDose() {
+        ControllerSchedule unnamed = schedule(2, AdherenceCalculator.DAY_KEYS);
+        unnamed.medication = null;
+        int monday = AdherenceCalculator.epochDay(2025, 1, 6);
+        ControllerDailyCount[] days = counters(new String[]{"Flovent", "Qvar"}, new String[]{null});
+
+        AdherenceCalculator.AdherenceResult all = AdherenceCalculator.fromDailyCounts(unnamed, monday, days);
+        assertEquals(2, all.dailyList.get(0).actual);
+        assertEquals(1, all.dailyList.get(1).actual);
+        assertTrue(AdherenceCalculator.calculatePerMedication(
+                Collections.singletonList(unnamed), monday, days).isEmpty());
+    }
+
+    @Test
+    public void benchmark_multiYearWindow() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(mx.isThreadAllocatedMemorySupported());
+        mx.setThreadAllocatedMemoryEnabled(true);
+
+        final int days = 3 * 365;
+        ControllerSchedule s = schedule(2, "MON", "TUE", "WED", "THU", "FRI");
+        long end = at(TORONTO, 2025, 11, 20, 23, 0);
+        long start = end - (days - 1) * DAY;
+        Random random = new Random(11);
+        List<ControllerLog> few = randomLogs(random, start, end, 2 * days);
+        List<ControllerLog> many = randomLogs(random, start, end, 20 * days);
+
+        for (int i = 0; i < 20; i++) {
+            AdherenceCalculator.calculate(s, many, start, end, TORONTO);
+            legacyCalculate(s, few, start, end);
+        }
+
+        long tid = Thread.currentThread().getId();
+        long a0 = mx.getThreadAllocatedBytes(tid);
+        long t0 = System.nanoTime();
+        AdherenceCalculator.AdherenceResult r1 = AdherenceCalculator.calculate(s, few, start, end, TORONTO);
+        long fewNanos = System.nanoTime() - t0;
+        long fewBytes = mx.getThreadAllocatedBytes(tid) - a0;
+
+        long a1 = mx.getThreadAllocatedBytes(tid);
+        long t1 = System.nanoTime();
+        AdherenceCalculator.AdherenceResult r2 = AdherenceCalculator.calculate(s, many, start, end, TORONTO);
+        long manyNanos = System.nanoTime() - t1;
+        long manyBytes = mx.getThreadAllocatedBytes(tid) - a1;
+
+        long a2 = mx.getThreadAllocatedBytes(tid);
+        long t2 = System.nanoTime();
+        legacyCalculate(s, few, start, end);
+        long legacyNanos = System.nanoTime() - t2;
+        long legacyBytes = mx.getThreadAllocatedBytes(tid) - a2;
+
+        double bytesPerExtraLog = (manyBytes - fewBytes) / (double) (many.size() - few.size());
+        System.out.printf("AdherenceCalculator: %d days, %d logs: legacy %.2f ms %d B, epoch-day %.2f ms %d B%n",
+                days, few.size(), legacyNanos / 1e6, legacyBytes, fewNanos / 1e6, fewBytes);
+        System.out.printf("AdherenceCalculator: %d logs: %.2f ms %d B (%.2f B per extra log)%n",
+                many.size(), manyNanos / 1e6, manyBytes, bytesPerExtraLog);
+
+        assertEquals(days, r1.dailyList.size());
+        assertEquals(days, r2.dailyList.size());
+        assertTrue("epoch-day engine should allocate less", fewBytes < legacyBytes);
+        assertTrue("per-log allocation should be near zero", bytesPerExtraLog < 1.0);
+    }
+
+    private static List<ControllerLog> randomLogs(Random random, long from, long to, int n) {
+        List<ControllerLog> logs = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            logs.add(new ControllerLog(from + (long) (random.nextDouble() * (to - from)), "Flovent"));
+        }
+        return logs;
+    }
+
+    /** The SimpleDateFormat / HashMap<String,Integer> / Calendar walk this engine replaced. */
+    private static AdherenceCalculator.AdherenceResult legacyCalculate(ControllerSchedule schedule,
+                                                                      List<ControllerLog> logs,
+                                                                      long startMillis, long endMillis) {
+        SimpleDateFormat simple_date = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+        Map<String, Integer> actualPerDay = new HashMap<String, Integer>();
+        for (ControllerLog log : logs) {
+            if (log.timestamp < startMillis || log.timestamp > endMillis) continue;
+            String dateKey = simple_date.format(new Date(log.timestamp));
+            Integer count = actualPerDay.get(dateKey);
+            actualPerDay.put(dateKey, count == null ? 1 : count + 1);
+        }
+        List<AdherenceCalculator.DailyAdherence> dailyList = new ArrayList<>();
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(startMillis);
+        startOfDay(cal);
+        Calendar endCal = Calendar.getInstance();
+        endCal.setTimeInMillis(endMillis);
+        startOfDay(endCal);
+
+        int totalExpected = 0;
+        int totalActualUsed = 0;
+        while (!cal.after(endCal)) {
+            String dateKey = simple_date.format(cal.getTime());
+            int expected = 0;
+            if (schedule != null && schedule.daysOfWeek != null) {
+                int dow = cal.get(Calendar.DAY_OF_WEEK);
+                Boolean active = schedule.daysOfWeek.get(AdherenceCalculator.DAY_KEYS[(dow + 5) % 7]);
+                if (active != null && active) expected = schedule.timesPerDay;
+            }
+            Integer count = actualPerDay.get(dateKey);
+            int actual = count == null ? 0 : count;
+            int used = Math.min(actual, expected);
+            double percent = 0.0;
+            if (expected > 0) {
+                percent = used * 100.0 / expected;
+                totalExpected += expected;
+                totalActualUsed += used;
+            }
+            dailyList.add(new AdherenceCalculator.DailyAdherence(dateKey, expected, actual, percent));
+            cal.add(Calendar.DAY_OF_MONTH, 1);
+        }
+        double overall = totalExpected > 0 ? totalActualUsed * 100.0 / totalExpected : 0.0;
+        return new AdherenceCalculator.AdherenceResult(overall, dailyList);
+    }
+
+    private static void startOfDay(Calendar cal) {
+        cal.set(Calendar.HOUR_OF_DAY, 0);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.SmartAirGroup2;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for ChartDownsampler (LTTB and the summed count bars), and a
+ * benchmark on 10k-point series against taking every n-th point.
+ */
+public class ChartDownsamplerTest {
+
+    /** Per-reading PEF over a few years: a slow random walk with an attack and a best day. */
+    private static double[] pefSeries(int n, long seed) {
+        Random random = new Random(seed);
+        double[] y = new double[n];
+        double v = 350;
+        for (int i = 0; i < n; i++) {
+            v += random.nextGaussian() * 4;
+            v = Math.max(150, Math.min(500, v));
+            y[i] = v + random.nextGaussian() * 10;
+        }
+        y[n / 3 + 17] = 90;   // attack
+        y[2 * n / 3 + 5] = 620; // best day
+        return y;
+    }
+
+    private static boolean contains(int[] kept, int index) {
+        for (int i : kept) if (i == index) return true;
+        return false;
+    }
+
+    /** Highest minus lowest plotted value: how much of the series' range the chart shows. */
+    private static double range(double[] y, int[] kept) {
+        double lo = Double.MAX_VALUE;
+        double hi = -Double.MAX_VALUE;
+        for (int i : kept) {
+            lo = Math.min(lo, y[i]);
+            hi = Math.max(hi, y[i]);
+        }
+        return hi - lo;
+    }
+
+    private static int[] everyNth(int n, int target) {
+        int[] out = new int[target];
+        for (int k = 0; k < target; k++) out[k] = (int) ((long) k * (n - 1) / (target - 1));
+        return out;
+    }
+
+    @Test
+    public void sumRuns_keepsEveryCount() {
+        List<String> days = new ArrayList<>();
+        double[] counts = new double[365];
+        Random random = new Random(5);
+        double total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            days.add("d" + i);
+            counts[i] = random.nextInt(10) == 0 ? 1 + random.nextInt(3) : 0;
+            total += counts[i];
+        }
+        ChartDownsampler.Bars bars = ChartDownsampler.sumRuns(days, counts, ChartDownsampler.SCREEN_POINTS);
+        assertTrue(bars.values.length <= ChartDownsampler.SCREEN_POINTS);
+        assertEquals(bars.values.length, bars.labels.length);
+        double sum = 0;
+        for (double v : bars.values) sum += v;
+        assertEquals(total, sum, 0);
+        assertEquals("d0–d4", bars.labels[0]);    // 365 days in runs of 5
+        assertEquals("d360–d364", bars.labels[bars.labels.length - 1]);
+        assertEquals(counts[0] + counts[1] + counts[2] + counts[3] + counts[4], bars.values[0], 0);
+    }
+
+    @Test
+    public void sumRuns_shortSeriesIsOneBarPerDay() {
+        ChartDownsampler.Bars bars = ChartDownsampler.sumRuns(
+                Arrays.asList("03-01", "03-02", "03-03"), new double[]{0, 2, 1}, ChartDownsampler.SCREEN_POINTS);
+        assertArrayEquals(new double[]{0, 2, 1}, bars.values, 0);
+        assertArrayEquals(new String[]{"03-01", "03-02", "03-03"}, bars.labels);
+    }
+
+    @Test
+    public void select_shortSeriesComeBackWhole() {
+        assertArrayEquals(new int[]{0, 1, 2, 3}, ChartDownsampler.select(new double[]{1, 2, 3, 4}, 10));
+        assertArrayEquals(new int[0], ChartDownsampler.select(new double[0], 10));
+        // gaps are skipped, never drawn
+        double[] gaps = {5, Double.NaN, 7, Double.NaN, Double.NaN, 2};
+        assertArrayEquals(new int[]{0, 2, 5}, ChartDownsampler.select(gaps, 10));
+        // a target under 3 still keeps both ends and one point
+        assertEquals(3, ChartDownsampler.select(pefSeries(50, 1), 1).length);
+    }
+
+    @Test
+    public void select_keepsEndsOrderAndTarget() {
+        double[] y = pefSeries(1000, 2);
+        for (int target : new int[]{3, 10, 99, 500, 999}) {
+            int[] kept = ChartDownsampler.select(y, target);
+            assertEquals(target, kept.length);
+            assertEquals(0, kept[0]);
+            assertEquals(999, kept[target - 1]);
+            for (int k = 1; k < kept.length; k++) assertTrue(kept[k] > kept[k - 1]);
+        }
+    }
+
+    @Test
+    public void select_keepsPeaksThatDecimationDrops() {
+        double[] y = pefSeries(10_000, 3);
+        int attack = 10_000 / 3 + 17;
+        int best = 2 * 10_000 / 3 + 5;
+        int[] lttb = ChartDownsampler.select(y, ChartDownsampler.PDF_POINTS);
+        int[] nth = everyNth(y.length, ChartDownsampler.PDF_POINTS);
+
+        assertTrue(contains(lttb, attack));
+        assertTrue(contains(lttb, best));
+        assertTrue(!contains(nth, attack) && !contains(nth, best));
+        assertEquals(620 - 90, range(y, lttb), 0);
+        assertTrue(range(y, nth) < 500);
+    }
+
+    @Test
+    public void select_withGapsUsesOnlyRealPointsAndXPositions() {
+        int n = 5000;
+        double[] y = pefSeries(n, 4);
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = i * 3 + (i % 7); // uneven spacing, e.g. reading times
+            if (i % 5 == 0) y[i] = Double.NaN;
+        }
+        y[n - 1] = 300;
+        int[] kept = ChartDownsampler.select(x, y, n, 200);
+        assertEquals(200, kept.length);
+        assertEquals(1, kept[0]);
+        assertEquals(n - 1, kept[199]);
+        for (int i : kept) assertTrue(!Double.isNaN(y[i]));
+    }
+
+    // ─────────────────────────────────────────────────────────────────
+    // BENCHMARK
+    // ─────────────────────────────────────────────────────────────────
+
+    @Test
+    public void benchmark_10kPoints() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(mx.isThreadAllocatedMemorySupported());
+        mx.setThreadAllocatedMemoryEnabled(true);
+
+        final int n = 10_000;
+        final int runs = 500;
+        double[] y = pefSeries(n, 5);
+        double[] gappy = Arrays.copyOf(y, n);
+        for (int i = 0; i < n; i += 4) gappy[i] = Double.NaN;
+
+        for (int i = 0; i < runs; i++) {
+            ChartDownsampler.select(y, ChartDownsampler.PDF_POINTS);
+            ChartDownsampler.select(gappy, ChartDownsampler.PDF_POINTS);
+        }
+
+        long tid = Thread.currentThread().getId();
+        long a0 = mx.getThreadAllocatedBytes(tid);
+        long t0 = System.nanoTime();
+        int check = 0;
+        for (int i = 0; i < runs; i++) check += ChartDownsampler.select(y, ChartDownsampler.PDF_POINTS)[1];
+        long nanos = System.nanoTime() - t0;
+        long bytes = mx.getThreadAllocatedBytes(tid) - a0;
+
+        long t1 = System.nanoTime();
+        for (int i = 0; i < runs; i++) check += ChartDownsampler.select(gappy, ChartDownsampler.PDF_POINTS)[1];
+        long gappyNanos = System.nanoTime() - t1;
+
+        int[] lttb = ChartDownsampler.select(y, ChartDownsampler.PDF_POINTS);
+        int[] nth = everyNth(n, ChartDownsampler.PDF_POINTS);
+        System.out.printf("ChartDownsampler: %d -> %d points: %.1f us (%.1f us with gaps), %d B per call (%d)%n",
+                n, lttb.length, nanos / 1e3 / runs, gappyNanos / 1e3 / runs, bytes / runs, check % 10);
+        System.out.printf("ChartDownsampler: plotted range (full series %.1f): LTTB %.1f, every n-th %.1f%n",
+                range(y, everyNth(n, n)), range(y, lttb), range(y, nth));
+
+        // Only the returned indices are allocated without gaps
+        assertTrue(bytes / runs < 4L * ChartDownsampler.PDF_POINTS + 64);
+        // Well under a frame
+        assertTrue(nanos / runs < 5_000_000L);
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.SmartAirGroup2;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the controllerDaily counters: ControllerDailyCount updates,
+ * backfill from controller_log, and window reads that touch only the
+ * counters once they are built.
+ */
+public class ControllerDailyStoreTest {
+
+    private static final TimeZone ZONE = TimeZone.getTimeZone("America/Toronto");
+    private static final String CHILD = "andy";
+
+    private InMemoryUserTreeRepository repo;
+    private int logs;
+
+    @Before
+    public void setUp() {
+        repo = new InMemoryUserTreeRepository();
+        logs = 0;
+    }
+
+    private static long at(int month, int day, int hour) {
+        Calendar c = Calendar.getInstance(ZONE);
+        c.clear();
+        c.set(2025, month - 1, day, hour, 0);
+        return c.getTimeInMillis();
+    }
+
+    private void dose(long ts, String medication) {
+        Map<String, Object> e = new HashMap<>();
+        e.put("type", "medication");
+        e.put("timestamp", ts);
+        e.put("medication", medication);
+        repo.put("children/" + CHILD + "/logs/controller_log/controller" + (++logs), e);
+    }
+
+    /** {firstDay} and the doses per day of the schedule's medication (all doses for null). */
+    private int[][] loadWindow(long start, long end) {
+        return loadWindow(start, end, null);
+    }
+
+    private int[][] loadWindow(long start, long end, final ControllerSchedule schedule) {
+        final int[][] out = new int[2][];
+        ControllerDailyStore.loadWindow(repo, CHILD, start, end, ZONE, new ControllerDailyStore.WindowCallback() {
+            @Override
+            public void onResult(int firstDay, ControllerDailyCount[] days) {
+                out[0] = new int[]{firstDay};
+                List<AdherenceCalculator.DailyAdherence> daily =
+                        AdherenceCalculator.fromDailyCounts(schedule, firstDay, days).dailyList;
+                out[1] = new int[daily.size()];
+                for (int i = 0; i < out[1].length; i++) out[1][i] = daily.get(i).actual;
+            }
+
+            @Override
+            public void onError(String message) {
+                throw new AssertionError(message);
+            }
+        });
+        return out;
+    }
+
+    @Test
+    public void count_addRemoveByMedication() {
+        ControllerDailyCount c = new ControllerDailyCount();
+        c.add("Flovent");
+        c.add("Flovent");
+        c.add("Qvar 40.5");
+        c.add(null);
+        assertEquals(4, c.total);
+        assertEquals(2, c.count("Flovent"));
+        assertEquals(1, c.count("Qvar 40.5"));
+        assertTrue(c.meds.containsKey("Qvar 40_5"));
+
+        c.remove("Qvar 40.5");
+        c.remove(null);
+        assertEquals(2, c.total);
+        assertFalse(c.meds.containsKey("Qvar 40_5"));
+
+        ControllerDailyCount copy = ControllerDailyCount.fromValue(c.toMap());
+        assertEquals(2, copy.total);
+        assertEquals(2, copy.count("Flovent"));
+    }
+
+    @Test
+    public void medicationKey_replacesForbiddenCharacters() {
+        assertEquals("a_b_c_d_e_f", ControllerDailyCount.medicationKey(" a.b#c$d[e/f "));
+        assertNull(ControllerDailyCount.medicationKey("  "));
+        assertNull(ControllerDailyCount.medicationKey(null));
+    }
+
+    private void backfill() {
+        final boolean[] done = {false};
+        ControllerDailyStore.backfill(repo, CHILD, ZONE, new UserTreeRepository.WriteCallback() {
+            @Override
+            public void onSuccess() {
+                done[0] = true;
+            }
+
+            @Override
+            public void onError(String message) {
+                throw new AssertionError(message);
+            }
+        });
+        assertTrue(done[0]);
+    }
+
+    @Test
+    public void backfill_countsEveryDayByLocalDate() {
+        dose(at(3, 1, 9), "Flovent");
+        dose(at(3, 1, 21), "Flovent");
+        dose(at(3, 1, 23), "Qvar");
+        dose(at(3, 2, 0), "Flovent");
+
+        backfill();
+
+        ControllerDailyCount first = ControllerDailyCount.fromValue(repo.get("children/andy/controllerDaily/2025-03-01"));
+        assertEquals(3, first.total);
+        assertEquals(2, first.count("Flovent"));
+        assertEquals(1, first.count("Qvar"));
+        assertEquals(1, ControllerDailyCount.fromValue(repo.get("children/andy/controllerDaily/2025-03-02")).total);
+        assertNotNull(repo.get("children/andy/controllerDaily/" + ControllerDailyStore.BACKFILLED_AT));
+    }
+
+    @Test
+    public void backfill_keepsADoseCountedWhileItReadTheLog() {
+        final String day = "children/andy/controllerDaily/2025-03-01";
+        final boolean[] raced = {false};
+        repo = new InMemoryUserTreeRepository() {
+            @Override
+            public void read(String path, final NodeCallback callback) {
+                super.read(path, new NodeCallback() {
+                    @Override
+                    public void onResult(TreeNode node) {
+                        if (path.endsWith("controller_log") && !raced[0]) {
+                            raced[0] = true;
+                            // Another device saves a dose and counts it before the rebuild is stored
+                            dose(at(3, 1, 20), "Flovent");
+                            ControllerDailyCount count = ControllerDailyCount.fromValue(get(day));
+                            count.add("Flovent");
+                            put(day, count.toMap());
+                        }
+                        callback.onResult(node);
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        callback.onError(message);
+                    }
+                });
+            }
+        };
+        dose(at(3, 1, 9), "Flovent");
+
+        backfill();
+
+        assertTrue(raced[0]);
+        assertEquals(2, ControllerDailyCount.fromValue(repo.get(day)).count("Flovent"));
+    }
+
+    @Test
+    public void loadWindow_countsFromTheLogUntilBackfilled() {
+        for (int day = 1; day <= 28; day++) {
+            dose(at(2, day, 9), "Flovent");
+            if (day % 2 == 0) dose(at(2, day, 21), "Flovent");
+        }
+
+        int[][] first = loadWindow(at(2, 10, 15), at(2, 16, 15));
+        assertEquals(AdherenceCalculator.epochDay(at(2, 10, 0), ZONE), first[0][0]);
+        assertArrayEquals(new int[]{2, 1, 2, 1, 2, 1, 2}, first[1]);
+        assertNull(repo.get("children/andy/controllerDaily")); // read paths never write
+
+        backfill();
+        repo.resetStats();
+        int[][] second = loadWindow(at(2, 10, 15), at(2, 16, 15));
+        assertArrayEquals(first[1], second[1]);
+        // marker + 7 day nodes with their total/meds leaves, none of the 42 logs
+        assertEquals(2, repo.getReads());
+        assertTrue(repo.getNodesRead() < 40);
+    }
+
+    @Test
+    public void ensure_backfillsOnlyCountersNotBuiltYet() {
+        dose(at(3, 1, 9), "Flovent");
+        final int[] done = {0};
+        UserTreeRepository.WriteCallback counted = new UserTreeRepository.WriteCallback() {
+            @Override
+            public void onSuccess() {
+                done[0]++;
+            }
+
+            @Override
+            public void onError(String message) {
+                throw new AssertionError(message);
+            }
+        };
+        DailyBackfill.ensure(repo, CHILD, ZONE, counted);
+        assertEquals(1, ControllerDailyCount.fromValue(repo.get("children/andy/controllerDaily/2025-03-01")).total);
+
+        repo.resetStats();
+        DailyBackfill.ensure(repo, CHILD, ZONE, counted);
+        assertEquals(2, done[0]);
+        assertEquals(repo.getReads(), repo.getNodesRead()); // one leaf per read: the markers only
+    }
+
+    @Test
+    public void window_givesTheScheduleItsMedicationsDoses() {
+        dose(at(3, 3, 8), "Flovent");
+        dose(at(3, 3, 20), " flovent ");
+        dose(at(3, 3, 12), "Qvar");
+        dose(at(3, 4, 8), "Qvar");
+        dose(at(3, 4, 9), null);
+
+        ControllerSchedule flovent = new ControllerSchedule("Flovent", 2, new HashMap<String, Boolean>());
+        ControllerSchedule unnamed = new ControllerSchedule(null, 2, new HashMap<String, Boolean>());
+        assertArrayEquals(new int[]{2, 0}, loadWindow(at(3, 3, 0), at(3, 4, 23), flovent)[1]);
+        assertArrayEquals(new int[]{3, 2}, loadWindow(at(3, 3, 0), at(3, 4, 23), unnamed)[1]);
+    }
+
+    @Test
+    public void adherence_ignoresOtherControllers() {
+        ControllerSchedule schedule = new ControllerSchedule("Flovent", 1, new HashMap<String, Boolean>());
+        for (String d : AdherenceCalculator.DAY_KEYS) schedule.daysOfWeek.put(d, true);
+        Map<String, Object> stored = new HashMap<>();
+        stored.put("medication", schedule.medication);
+        stored.put("timesPerDay", 1L);
+        stored.put("daysOfWeek", new HashMap<String, Object>(schedule.daysOfWeek));
+        repo.put("children/" + CHILD + "/controller_schedule", stored);
+        for (int day = 3; day <= 6; day++) dose(at(3, day, 8), day % 2 == 0 ? "Flovent" : "Qvar");
+
+        final double[] percent = {-1};
+        AdherenceRepository.getAdherence(repo, null, CHILD, at(3, 3, 12), at(3, 6, 12),
+                new AdherenceRepository.AdherenceCallback() {
+                    @Override
+                    public void onResult(AdherenceCalculator.AdherenceResult result) {
+                        percent[0] = result.overallPercent;
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        throw new AssertionError(e);
+                    }
+                });
+        assertEquals(50.0, percent[0], 1e-9); // the Qvar doses are not Flovent doses
+    }
+
+    @Test
+    public void countersMatchLogScanForWholeDays() {
+        ControllerSchedule schedule = new ControllerSchedule("Flovent", 2, new HashMap<String, Boolean>());
+        for (String d : AdherenceCalculator.DAY_KEYS) schedule.daysOfWeek.put(d, !"SUN".equals(d));
+
+        List<ControllerLog> list = new ArrayList<>();
+        for (int day = 1; day <= 28; day++) {
+            for (int k = 0; k < day % 4; k++) {
+                long ts = at(2, day, 8 + 5 * k);
+                dose(ts, "Flovent");
+                list.add(new ControllerLog(ts, "Flovent"));
+            }
+        }
+
+        long start = at(2, 3, 0);
+        long end = at(2, 23, 23);
+        int[][] window = loadWindow(start, end);
+        AdherenceCalculator.AdherenceResult fromCounters =
+                AdherenceCalculator.fromDailyCounts(schedule, window[0][0], window[1]);
+        AdherenceCalculator.AdherenceResult fromLogs =
+                AdherenceCalculator.calculate(schedule, list, start, end, ZONE);
+
+        assertEquals(fromLogs.overallPercent, fromCounters.overallPercent, 1e-9);
+        assertEquals(fromLogs.dailyList.size(), fromCounters.dailyList.size());
+        for (int i = 0; i < fromLogs.dailyList.size(); i++) {
+            assertEquals(fromLogs.dailyList.get(i).date, fromCounters.dailyList.get(i).date);
+            assertEquals(fromLogs.dailyList.get(i).actual, fromCounters.dailyList.get(i).actual);
+        }
+    }
+}
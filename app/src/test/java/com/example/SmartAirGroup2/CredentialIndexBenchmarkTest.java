@@ -0,0 +1,162 @@
+package com.example.SmartAirGroup2;
+
+import com.example.SmartAirGroup2.auth.data.repo.CredentialIndex;
+import com.example.SmartAirGroup2.auth.data.repo.CredentialRecord;
+import com.example.SmartAirGroup2.auth.data.repo.CredentialStore;
+import com.example.SmartAirGroup2.auth.data.repo.FirebaseCredentialStore;
+import com.example.SmartAirGroup2.auth.data.repo.FirebaseRtdbAuthRepository;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM benchmark for login through FirebaseCredentialStore, run over an
+ * InMemoryUserTreeRepository rooted at categories.
+ *
+ * The in-memory tree counts how many nodes each read materialises, which is
+ * what a RTDB snapshot costs on the wire. The legacy path (reading the whole
+ * user node) grows with the child's log volume; neither the indexed login
+ * nor the fallback for an account that is not indexed yet may.
+ */
+public class CredentialIndexBenchmarkTest {
+
+    private static final int[] LOG_VOLUMES = {0, 1_000, 10_000, 50_000};
+    private static final int LOGINS = 50;
+    private static final String INDEX_ENTRY = CredentialIndex.NODE + "/children/andy6687";
+
+    /** users/children/{uname} with a PEF_log of the given size, plus its index entry if indexed. */
+    private static InMemoryUserTreeRepository seedChild(String uname, String email, String password,
+                                                        int logs, boolean indexed) {
+        Map<String, Object> pefLog = new HashMap<>();
+        for (int i = 1; i <= logs; i++) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("type", "pef");
+            entry.put("timestamp", 1_700_000_000_000L + i * 60_000L);
+            entry.put("dateTime", "2025-11-20 10:00");
+            entry.put("value", 300 + (i % 50));
+            pefLog.put("PEF" + i, entry);
+        }
+        Map<String, Object> logsNode = new HashMap<>();
+        logsNode.put("PEF_log", pefLog);
+
+        Map<String, Object> profile = new HashMap<>();
+        profile.put("uname", uname);
+        profile.put("email", email);
+        profile.put("password", password);
+        profile.put("type", "child");
+        profile.put("logs", logsNode);
+
+        InMemoryUserTreeRepository repo = new InMemoryUserTreeRepository();
+        repo.put("users/children/" + uname, profile);
+        if (indexed) {
+            repo.put(CredentialIndex.NODE + "/children/" + uname, CredentialIndex.entry(uname, email, password, "child"));
+        }
+        return repo;
+    }
+
+    /** What {@code ref.get()} on the user node used to cost: the whole node. */
+    private static CredentialStore legacyStore(final UserTreeRepository repo) {
+        return (group, uname) -> {
+            final TreeNode[] profile = new TreeNode[1];
+            repo.read("users/" + group + "/" + uname, new UserTreeRepository.NodeCallback() {
+                @Override
+                public void onResult(TreeNode node) {
+                    profile[0] = node;
+                }
+
+                @Override
+                public void onError(String message) {
+                    throw new AssertionError(message);
+                }
+            });
+            if (!profile[0].exists()) return null;
+            return new CredentialRecord(uname, profile[0].child("email").getString(),
+                    String.valueOf(profile[0].child("password").getValue()), profile[0].child("type").getString());
+        };
+    }
+
+    @Test
+    public void indexedLogin_acceptsAndRejectsLikeBefore() throws Exception {
+        InMemoryUserTreeRepository db = seedChild("andy6687", "andy@gmail.com", "!Abc12345", 10, true);
+        FirebaseRtdbAuthRepository repo = new FirebaseRtdbAuthRepository(new FirebaseCredentialStore(db));
+
+        assertTrue(repo.CheckPassword("Child", "Andy6687 ", "ANDY@gmail.com", "!Abc12345"));
+        assertFalse(repo.CheckPassword("Child", "andy6687", "andy@gmail.com", "wrong"));
+        assertFalse(repo.CheckPassword("Child", "nobody", "andy@gmail.com", "!Abc12345"));
+        assertTrue(repo.Check_if_User_exist("Child", "andy6687", "andy@gmail.com").exists);
+        assertFalse(repo.Check_if_User_exist("Child", "andy6687", "other@gmail.com").exists);
+    }
+
+    @Test
+    public void unindexedLogin_readsProfileLeavesThenIndexesTheAccount() throws Exception {
+        InMemoryUserTreeRepository db = seedChild("andy6687", "andy@gmail.com", "!Abc12345", 1_000, false);
+        FirebaseRtdbAuthRepository repo = new FirebaseRtdbAuthRepository(new FirebaseCredentialStore(db));
+
+        assertNull(db.get(INDEX_ENTRY));
+        assertTrue(repo.CheckPassword("Child", "andy6687", "andy@gmail.com", "!Abc12345"));
+        // the index miss and the email, password and type leaves; none of the logs
+        assertEquals(4, db.getReads());
+        assertEquals(3, db.getNodesRead());
+        assertNotNull(db.get(INDEX_ENTRY));
+
+        db.resetStats();
+        assertTrue(repo.CheckPassword("Child", "andy6687", "andy@gmail.com", "!Abc12345"));
+        assertEquals(1, db.getReads());
+    }
+
+    @Test
+    public void login_costStaysFlatAsLogsGrow() throws Exception {
+        long firstIndexedNodes = -1;
+        long firstFallbackNodes = -1;
+
+        for (int volume : LOG_VOLUMES) {
+            InMemoryUserTreeRepository db = seedChild("andy6687", "andy@gmail.com", "!Abc12345", volume, true);
+            FirebaseRtdbAuthRepository legacy = new FirebaseRtdbAuthRepository(legacyStore(db));
+            FirebaseRtdbAuthRepository store = new FirebaseRtdbAuthRepository(new FirebaseCredentialStore(db));
+
+            db.resetStats();
+            long legacyNanos = timeLogins(legacy, db, false);
+            long legacyNodes = db.getNodesRead() / LOGINS;
+
+            db.resetStats();
+            long indexedNanos = timeLogins(store, db, false);
+            long indexedNodes = db.getNodesRead() / LOGINS;
+
+            // Each login misses the index and falls back to the profile leaves
+            db.resetStats();
+            long fallbackNanos = timeLogins(store, db, true);
+            long fallbackNodes = db.getNodesRead() / LOGINS;
+
+            System.out.printf("logs=%6d  legacy: %8d nodes %9.1f us/login  |  index: %2d nodes %6.1f us/login"
+                            + "  |  fallback: %2d nodes %6.1f us/login%n",
+                    volume, legacyNodes, legacyNanos / 1000.0 / LOGINS,
+                    indexedNodes, indexedNanos / 1000.0 / LOGINS,
+                    fallbackNodes, fallbackNanos / 1000.0 / LOGINS);
+
+            if (firstIndexedNodes < 0) {
+                firstIndexedNodes = indexedNodes;
+                firstFallbackNodes = fallbackNodes;
+            }
+            assertEquals("index read must not depend on log volume", firstIndexedNodes, indexedNodes);
+            assertEquals("profile fallback must not depend on log volume", firstFallbackNodes, fallbackNodes);
+        }
+    }
+
+    private static long timeLogins(FirebaseRtdbAuthRepository repo, InMemoryUserTreeRepository db,
+                                   boolean dropIndex) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < LOGINS; i++) {
+            if (dropIndex) db.put(INDEX_ENTRY, null);
+            assertTrue(repo.CheckPassword("Child", "andy6687", "andy@gmail.com", "!Abc12345"));
+        }
+        return System.nanoTime() - start;
+    }
+}
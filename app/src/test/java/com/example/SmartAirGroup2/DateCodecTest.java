@@ -0,0 +1,206 @@
+package com.example.SmartAirGroup2;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for DateCodec against SimpleDateFormat / Calendar (every layout,
+ * DST changes, zones with half-hour offsets), and a 100k-record benchmark
+ * against the per-record SimpleDateFormat pattern it replaced.
+ */
+public class DateCodecTest {
+
+    private static final TimeZone TORONTO = TimeZone.getTimeZone("America/Toronto");
+    private static final String[] ZONES = {"America/Toronto", "Europe/Paris", "Asia/Kolkata",
+            "Australia/Lord_Howe", "Pacific/Auckland", "UTC"};
+    private static final String[] PATTERNS = {"yyyy-MM-dd", "yyyy/MM/dd", "yyyy-MM-dd HH:mm",
+            "yyyy/MM/dd HH:mm", "yyyy/MM/dd HH:mm:ss"};
+    private static final DateCodec.Layout[] LAYOUTS = DateCodec.Layout.values();
+
+    private static SimpleDateFormat format(String pattern, TimeZone zone) {
+        SimpleDateFormat f = new SimpleDateFormat(pattern, Locale.US);
+        f.setTimeZone(zone);
+        return f;
+    }
+
+    @Test
+    public void formatAndParse_matchSimpleDateFormatInEveryLayout() throws ParseException {
+        Random random = new Random(7);
+        for (String id : ZONES) {
+            TimeZone zone = TimeZone.getTimeZone(id);
+            for (int l = 0; l < LAYOUTS.length; l++) {
+                SimpleDateFormat f = format(PATTERNS[l], zone);
+                for (int i = 0; i < 2000; i++) {
+                    long millis = 946684800000L + (long) (random.nextDouble() * 40L * 365 * DateCodec.DAY_MS);
+                    millis -= Math.floorMod(millis, 1000L);
+                    String expected = f.format(new Date(millis));
+                    assertEquals(id, expected, DateCodec.format(millis, zone, LAYOUTS[l]));
+                    assertEquals(id + " " + expected, f.parse(expected).getTime(), DateCodec.parseMillis(expected, zone));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void parseMillis_placesDstGapsAndOverlapsLikeCalendar() throws ParseException {
+        for (String id : ZONES) {
+            TimeZone zone = TimeZone.getTimeZone(id);
+            SimpleDateFormat f = format("yyyy-MM-dd HH:mm", zone);
+            // every quarter hour of 2025, which covers both changes of each zone
+            for (long t = 1735689600000L; t < 1767225600000L; t += 15 * 60 * 1000L) {
+                String wall = format("yyyy-MM-dd HH:mm", TimeZone.getTimeZone("UTC")).format(new Date(t));
+                assertEquals(id + " " + wall, f.parse(wall).getTime(), DateCodec.parseMillis(wall, zone));
+            }
+        }
+    }
+
+    @Test
+    public void parse_rejectsWhatIsNotALayout() {
+        String[] bad = {null, "", "2025-03-0", "2025/03-09", "09/03/2025", "2025-02-29", "2024-13-01",
+                "2025-03-09 8:15", "2025-03-09 24:00", "2025-03-09T08:15", "2025-03-09 08:15:60",
+                "2025-03-09 08:15:1", "yyyy-MM-dd", "2025-03-09 08:15 PM"};
+        for (String s : bad) {
+            assertEquals(s, DateCodec.INVALID, DateCodec.parseMillis(s, TORONTO));
+        }
+        assertEquals(DateCodec.INVALID_DAY, DateCodec.parseDay("2025/02/30 10:00"));
+        assertEquals(DateCodec.INVALID_DAY, DateCodec.parseDay(null));
+        assertEquals(DateCodec.epochDay(2024, 2, 29), DateCodec.parseDay("2024/02/29 23:59:59"));
+        assertEquals(DateCodec.parseMillis("2025-03-09 08:15", TORONTO),
+                DateCodec.parseMillis("  2025-03-09 08:15\n", TORONTO));
+    }
+
+    @Test
+    public void dayArithmetic_matchesCalendar() {
+        Calendar c = Calendar.getInstance(TORONTO);
+        for (int day = -3000; day < 30000; day += 17) {
+            int ymd = DateCodec.civil(day);
+            assertEquals(day, DateCodec.epochDay(ymd / 10000, ymd / 100 % 100, ymd % 100));
+            c.clear();
+            c.set(ymd / 10000, ymd / 100 % 100 - 1, ymd % 100);
+            assertEquals(c.getTimeInMillis(), DateCodec.startOfDay(day, TORONTO));
+            assertEquals(day, DateCodec.epochDay(c.getTimeInMillis(), TORONTO));
+
+            for (int months : new int[]{-13, -6, -3, -1, 1, 12}) {
+                Calendar moved = (Calendar) c.clone();
+                moved.add(Calendar.MONTH, months);
+                assertEquals(DateCodec.epochDay(moved.getTimeInMillis(), TORONTO), DateCodec.plusMonths(day, months));
+            }
+        }
+        assertEquals("2025/02/28", DateCodec.formatDay(
+                DateCodec.plusMonths(DateCodec.epochDay(2025, 5, 31), -3), DateCodec.Layout.DATE_SLASH));
+    }
+
+    @Test
+    public void write_fillsBufferWithoutAllocating() {
+        char[] out = new char[40];
+        long millis = DateCodec.parseMillis("2025/11/17 14:05:42", TORONTO);
+        int end = DateCodec.write(out, 3, millis, TORONTO, DateCodec.Layout.SECONDS_SLASH);
+        assertEquals(22, end);
+        assertEquals("2025/11/17 14:05:42", new String(out, 3, 19));
+        end = DateCodec.write(out, end, millis, TORONTO, DateCodec.Layout.DATE_DASH);
+        assertEquals("2025-11-17", new String(out, 22, 10));
+    }
+
+    // ─────────────────────────────────────────────────────────────────
+    // BENCHMARK
+    // ─────────────────────────────────────────────────────────────────
+
+    @Test
+    public void benchmark_100kRecords() throws ParseException {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(mx.isThreadAllocatedMemorySupported());
+        mx.setThreadAllocatedMemoryEnabled(true);
+
+        final int n = 100_000;
+        TimeZone zone = TimeZone.getDefault();
+        SimpleDateFormat seed = format("yyyy/MM/dd HH:mm:ss", zone);
+        Random random = new Random(3);
+        String[] times = new String[n];
+        long[] millis = new long[n];
+        for (int i = 0; i < n; i++) {
+            millis[i] = 1577836800000L + (long) (random.nextDouble() * 6L * 365 * DateCodec.DAY_MS) / 1000 * 1000;
+            times[i] = seed.format(new Date(millis[i]));
+        }
+
+        for (int warm = 0; warm < 3; warm++) {
+            legacyParse(times, 0, n / 10);
+            codecParse(times, 0, n / 10, zone);
+        }
+
+        long tid = Thread.currentThread().getId();
+        long a0 = mx.getThreadAllocatedBytes(tid);
+        long t0 = System.nanoTime();
+        long legacySum = legacyParse(times, 0, n);
+        long legacyNanos = System.nanoTime() - t0;
+        long legacyBytes = mx.getThreadAllocatedBytes(tid) - a0;
+
+        long a1 = mx.getThreadAllocatedBytes(tid);
+        long t1 = System.nanoTime();
+        long codecSum = codecParse(times, 0, n, zone);
+        long codecNanos = System.nanoTime() - t1;
+        long codecBytes = mx.getThreadAllocatedBytes(tid) - a1;
+
+        char[] buffer = new char[DateCodec.Layout.SECONDS_SLASH.length];
+        long a2 = mx.getThreadAllocatedBytes(tid);
+        long t2 = System.nanoTime();
+        int checksum = 0;
+        for (int i = 0; i < n; i++) {
+            DateCodec.write(buffer, 0, millis[i], zone, DateCodec.Layout.SECONDS_SLASH);
+            checksum += buffer[18];
+        }
+        long writeNanos = System.nanoTime() - t2;
+        long writeBytes = mx.getThreadAllocatedBytes(tid) - a2;
+
+        long a3 = mx.getThreadAllocatedBytes(tid);
+        long t3 = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            checksum += format("yyyy/MM/dd HH:mm:ss", zone).format(new Date(millis[i])).charAt(18);
+        }
+        long legacyFormatNanos = System.nanoTime() - t3;
+        long legacyFormatBytes = mx.getThreadAllocatedBytes(tid) - a3;
+
+        System.out.printf("DateCodec: parse %d records: SimpleDateFormat per record %.1f ms %.0f B/record, "
+                        + "codec %.1f ms %.2f B/record%n",
+                n, legacyNanos / 1e6, legacyBytes / (double) n, codecNanos / 1e6, codecBytes / (double) n);
+        System.out.printf("DateCodec: format %d records: SimpleDateFormat per record %.1f ms %.0f B/record, "
+                        + "codec write %.1f ms %.2f B/record (%d)%n",
+                n, legacyFormatNanos / 1e6, legacyFormatBytes / (double) n, writeNanos / 1e6,
+                writeBytes / (double) n, checksum % 10);
+
+        assertEquals(legacySum, codecSum);
+        assertTrue("parsing should not allocate per record", codecBytes / (double) n < 1.0);
+        assertTrue("writing should not allocate per record", writeBytes / (double) n < 1.0);
+    }
+
+    /** The pattern the filters used: a new SimpleDateFormat and a Date per record. */
+    private static long legacyParse(String[] times, int from, int to) throws ParseException {
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss", Locale.getDefault());
+            sum += sdf.parse(times[i]).getTime();
+        }
+        return sum;
+    }
+
+    private static long codecParse(String[] times, int from, int to, TimeZone zone) {
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += DateCodec.parseMillis(times[i], zone);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.SmartAirGroup2;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for InMemoryUserTreeRepository: RTDB ordering, query ranges and
+ * limits, and node counting.
+ */
+public class InMemoryUserTreeRepositoryTest {
+
+    private InMemoryUserTreeRepository repo;
+
+    @Before
+    public void setUp() {
+        repo = new InMemoryUserTreeRepository();
+        put("children/andy/logs/rescue_log/rescue1", 300L, "2025-01-03 10:00");
+        put("children/andy/logs/rescue_log/rescue2", 100L, "2025-01-01 10:00");
+        put("children/andy/logs/rescue_log/rescue3", 200L, "2025-01-02 10:00");
+        put("children/andy/logs/rescue_log/rescue4", 200L, "2025-01-02 11:00");
+    }
+
+    private void put(String path, long ts, String dateTime) {
+        Map<String, Object> e = new HashMap<>();
+        e.put("timestamp", ts);
+        e.put("dateTime", dateTime);
+        repo.put(path, e);
+    }
+
+    private TreeNode read(String path) {
+        final TreeNode[] out = new TreeNode[1];
+        repo.read(path, callback(out));
+        return out[0];
+    }
+
+    private TreeNode query(String path, TreeQuery q) {
+        final TreeNode[] out = new TreeNode[1];
+        repo.query(path, q, callback(out));
+        return out[0];
+    }
+
+    private static UserTreeRepository.NodeCallback callback(final TreeNode[] out) {
+        return new UserTreeRepository.NodeCallback() {
+            @Override
+            public void onResult(TreeNode node) {
+                out[0] = node;
+            }
+
+            @Override
+            public void onError(String message) {
+                throw new AssertionError(message);
+            }
+        };
+    }
+
+    private static List<String> keys(TreeNode node) {
+        List<String> out = new ArrayList<>();
+        for (TreeNode c : node.getChildren()) out.add(c.getKey());
+        return out;
+    }
+
+    @Test
+    public void read_returnsSubtreeAndCountsNodes() {
+        TreeNode log = read("children/andy/logs/rescue_log");
+        assertEquals(4, log.getChildrenCount());
+        assertEquals(Long.valueOf(300L), log.child("rescue1/timestamp").getLong());
+        assertEquals("2025-01-03 10:00", log.child("rescue1").child("dateTime").getString());
+        // group + 4 entries + 8 leaves
+        assertEquals(13, repo.getNodesRead());
+        assertEquals(1, repo.getReads());
+    }
+
+    @Test
+    public void read_missingNodeDoesNotExist() {
+        TreeNode missing = read("children/nobody/logs");
+        assertFalse(missing.exists());
+        assertFalse(missing.child("PEF_log").exists());
+        assertNull(missing.child("x").getString());
+        assertEquals(0, repo.getNodesRead());
+    }
+
+    @Test
+    public void keys_followRtdbOrder() {
+        repo.put("parents/p/children/10", "a");
+        repo.put("parents/p/children/9", "b");
+        repo.put("parents/p/children/abc", "c");
+        repo.put("parents/p/children/-Nx", "d");
+        assertEquals(Arrays.asList("9", "10", "-Nx", "abc"), keys(read("parents/p/children")));
+    }
+
+    @Test
+    public void query_ordersByChildThenKeyAndAppliesRange() {
+        TreeNode all = query("children/andy/logs/rescue_log", TreeQuery.orderByChild("timestamp"));
+        assertEquals(Arrays.asList("rescue2", "rescue3", "rescue4", "rescue1"), keys(all));
+
+        TreeNode range = query("children/andy/logs/rescue_log",
+                TreeQuery.orderByChild("timestamp").startAt(200).endBefore(300));
+        assertEquals(Arrays.asList("rescue3", "rescue4"), keys(range));
+
+        TreeNode text = query("children/andy/logs/rescue_log",
+                TreeQuery.orderByChild("dateTime").startAt("2025-01-02 00:00").endAt("2025-01-02 23:59"));
+        assertEquals(Arrays.asList("rescue3", "rescue4"), keys(text));
+    }
+
+    @Test
+    public void query_limitToLastKeepsNewest() {
+        TreeNode last = query("children/andy/logs/rescue_log",
+                TreeQuery.orderByChild("timestamp").limitToLast(2));
+        assertEquals(Arrays.asList("rescue4", "rescue1"), keys(last));
+        // 2 entries + 4 leaves; the group node itself is not counted for queries
+        assertEquals(6, repo.getNodesRead());
+    }
+
+    @Test
+    public void query_orderByKeyRange() {
+        repo.put("children/andy/controllerDaily/2025-01-01/total", 1L);
+        repo.put("children/andy/controllerDaily/2025-01-02/total", 2L);
+        repo.put("children/andy/controllerDaily/2025-01-03/total", 3L);
+        repo.put("children/andy/controllerDaily/backfilledAt", 5L);
+
+        TreeNode range = query("children/andy/controllerDaily",
+                TreeQuery.orderByKey().startAt("2025-01-02").endAt("2025-01-09"));
+        assertEquals(Arrays.asList("2025-01-02", "2025-01-03"), keys(range));
+    }
+
+    @Test
+    public void query_startAfterAndLimitToFirstPageByKey() {
+        TreeNode first = query("children/andy/logs/rescue_log", TreeQuery.orderByKey().limitToFirst(3));
+        assertEquals(Arrays.asList("rescue1", "rescue2", "rescue3"), keys(first));
+
+        TreeNode next = query("children/andy/logs/rescue_log",
+                TreeQuery.orderByKey().startAfter("rescue3").limitToFirst(3));
+        assertEquals(Arrays.asList("rescue4"), keys(next));
+
+        TreeNode after = query("children/andy/logs/rescue_log",
+                TreeQuery.orderByChild("timestamp").startAt(200).limitToFirst(2));
+        assertEquals(Arrays.asList("rescue3", "rescue4"), keys(after));
+    }
+
+    @Test
+    public void update_setsAndRemovesEveryPath() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("logs/rescue_log/rescue1/timestamp", 301L);
+        values.put("logs/rescue_log/rescue2", null);
+        values.put("migrations/timestamps/logs/rescue_log", "rescue2");
+        repo.update("children/andy", values, new UserTreeRepository.WriteCallback() {
+            @Override
+            public void onSuccess() {
+            }
+
+            @Override
+            public void onError(String message) {
+                throw new AssertionError(message);
+            }
+        });
+
+        assertEquals(301L, repo.get("children/andy/logs/rescue_log/rescue1/timestamp"));
+        assertEquals("2025-01-03 10:00", repo.get("children/andy/logs/rescue_log/rescue1/dateTime"));
+        assertNull(repo.get("children/andy/logs/rescue_log/rescue2"));
+        assertEquals("rescue2", repo.get("children/andy/migrations/timestamps/logs/rescue_log"));
+    }
+
+    @Test
+    public void query_numbersSortBeforeStrings() {
+        Map<String, Object> odd = new HashMap<>();
+        odd.put("timestamp", "yesterday");
+        repo.put("children/andy/logs/rescue_log/rescue5", odd);
+
+        TreeNode numeric = query("children/andy/logs/rescue_log",
+                TreeQuery.orderByChild("timestamp").startAt(0));
+        assertEquals("rescue5", keys(numeric).get(4));
+        TreeNode bounded = query("children/andy/logs/rescue_log",
+                TreeQuery.orderByChild("timestamp").startAt(0).endAt(1000));
+        assertEquals(4, bounded.getChildrenCount());
+    }
+
+    @Test
+    public void put_nullRemovesAndPrunesEmptyParents() {
+        repo.put("children/andy/logs/rescue_log", null);
+        assertNull(repo.get("children/andy/logs"));
+        assertNull(repo.get("children/andy"));
+    }
+
+    @Test
+    public void put_storesIntegersAsLong() {
+        repo.put("children/andy/data/pb", 420);
+        Object stored = repo.get("children/andy/data/pb");
+        assertTrue(stored instanceof Long);
+        assertEquals(Integer.valueOf(420), read("children/andy/data/pb").getInteger());
+    }
+}
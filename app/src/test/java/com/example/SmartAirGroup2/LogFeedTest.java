@@ -0,0 +1,230 @@
+package com.example.SmartAirGroup2;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for LogFeed. A recording listener replays the reported changes
+ * onto its own list, which must always equal the feed's visible list.
+ */
+public class LogFeedTest {
+
+    /** Mirrors what ChildLogsFragment does to logsContainer. */
+    private static class Recorder implements LogFeed.Listener {
+        final List<String> rows = new ArrayList<>();
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onInserted(int position, LogRecord entry) {
+            rows.add(position, entry.id());
+            events.add("insert " + position);
+        }
+
+        @Override
+        public void onChanged(int position, LogRecord entry) {
+            rows.set(position, entry.id());
+            events.add("change " + position);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition, LogRecord entry) {
+            rows.add(toPosition, rows.remove(fromPosition));
+            events.add("move " + fromPosition + "->" + toPosition);
+        }
+
+        @Override
+        public void onRemoved(int position, LogRecord entry) {
+            rows.remove(position);
+            events.add("remove " + position);
+        }
+
+        @Override
+        public void onReset(List<LogRecord> visible) {
+            rows.clear();
+            for (LogRecord e : visible) rows.add(e.id());
+            events.add("reset");
+        }
+    }
+
+    private LogFeed feed;
+    private Recorder recorder;
+
+    @Before
+    public void setUp() {
+        feed = new LogFeed();
+        recorder = new Recorder();
+        feed.setListener(recorder);
+    }
+
+    private static Map<String, Object> log(String type, long ts) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("type", type);
+        m.put("timestamp", ts);
+        m.put("note", "n" + ts);
+        return m;
+    }
+
+    private void assertInSync() {
+        List<String> expected = new ArrayList<>();
+        for (LogRecord e : feed.visible()) expected.add(e.id());
+        assertEquals(expected, recorder.rows);
+    }
+
+    @Test
+    public void added_keepsNewestFirstWithSingleInserts() {
+        feed.onChildAdded("PEF_log", "PEF1", log("pef", 100));
+        feed.onChildAdded("rescue_log", "rescue1", log("inhaler", 300));
+        feed.onChildAdded("controller_log", "controller1", log("medication", 200));
+
+        assertEquals("rescue_log/rescue1", feed.get(0).id());
+        assertEquals("controller_log/controller1", feed.get(1).id());
+        assertEquals("PEF_log/PEF1", feed.get(2).id());
+        assertEquals(3, recorder.events.size());
+        assertTrue(recorder.events.get(2).startsWith("insert"));
+        assertInSync();
+    }
+
+    @Test
+    public void decode_fillsTypedFields() {
+        feed.onChildAdded("PEF_log", "PEF1", log("pef", 100));
+        LogRecord e = feed.get(0);
+        assertTrue(e instanceof PefLogRecord);
+        assertEquals("pef", e.type);
+        assertEquals(100, e.timestamp);
+        assertEquals("n100", e.note);
+    }
+
+    @Test
+    public void nonMapValue_isIgnored() {
+        feed.onChildAdded("PEF_log", "junk", "not a log");
+        assertEquals(0, feed.size());
+        assertTrue(recorder.events.isEmpty());
+        assertNull(LogRecordDecoder.decode("PEF_log", "junk", 5L));
+    }
+
+    @Test
+    public void changed_inPlaceReportsOnlyChange() {
+        feed.onChildAdded("PEF_log", "PEF1", log("pef", 100));
+        feed.onChildAdded("PEF_log", "PEF2", log("pef", 200));
+        recorder.events.clear();
+
+        Map<String, Object> edited = log("pef", 100);
+        edited.put("note", "edited");
+        feed.onChildChanged("PEF_log", "PEF1", edited);
+
+        assertEquals(1, recorder.events.size());
+        assertEquals("change 1", recorder.events.get(0));
+        assertEquals("edited", feed.get(1).note);
+        assertInSync();
+    }
+
+    @Test
+    public void changed_timestampMovesRow() {
+        feed.onChildAdded("PEF_log", "PEF1", log("pef", 100));
+        feed.onChildAdded("PEF_log", "PEF2", log("pef", 200));
+        feed.onChildAdded("PEF_log", "PEF3", log("pef", 300));
+        recorder.events.clear();
+
+        feed.onChildChanged("PEF_log", "PEF1", log("pef", 400));
+
+        assertEquals("PEF_log/PEF1", feed.get(0).id());
+        assertEquals("move 2->0", recorder.events.get(0));
+        assertInSync();
+    }
+
+    @Test
+    public void removed_reportsSinglePosition() {
+        feed.onChildAdded("PEF_log", "PEF1", log("pef", 100));
+        feed.onChildAdded("PEF_log", "PEF2", log("pef", 200));
+        recorder.events.clear();
+
+        feed.onChildRemoved("PEF_log", "PEF2");
+        feed.onChildRemoved("PEF_log", "missing");
+
+        assertEquals(1, recorder.events.size());
+        assertEquals("remove 0", recorder.events.get(0));
+        assertInSync();
+    }
+
+    @Test
+    public void filter_hidesOtherCategoriesAndTracksLaterEvents() {
+        feed.onChildAdded("PEF_log", "PEF1", log("pef", 100));
+        feed.onChildAdded("rescue_log", "rescue1", log("inhaler", 200));
+
+        feed.setFilter("pef");
+        assertEquals(1, feed.size());
+        assertInSync();
+
+        recorder.events.clear();
+        feed.onChildAdded("rescue_log", "rescue2", log("inhaler", 300));
+        feed.onChildRemoved("rescue_log", "rescue1");
+        assertTrue("hidden entries must not produce row changes", recorder.events.isEmpty());
+
+        feed.setFilter("all");
+        assertEquals(2, feed.size());
+        assertEquals("rescue_log/rescue2", feed.get(0).id());
+        assertInSync();
+    }
+
+    @Test
+    public void changed_categoryAcrossFilterInsertsOrRemoves() {
+        feed.setFilter("pef");
+        feed.onChildAdded("PEF_log", "PEF1", log("pef", 100));
+        feed.onChildChanged("PEF_log", "PEF1", log("other", 100));
+        assertEquals(0, feed.size());
+        feed.onChildChanged("PEF_log", "PEF1", log("pef", 100));
+        assertEquals(1, feed.size());
+        assertInSync();
+    }
+
+    @Test
+    public void duplicateAdd_isTreatedAsChange() {
+        feed.onChildAdded("PEF_log", "PEF1", log("pef", 100));
+        feed.onChildAdded("PEF_log", "PEF1", log("pef", 100));
+        assertEquals(1, feed.size());
+        assertInSync();
+    }
+
+    @Test
+    public void horizon_hidesOlderEntriesUntilLowered() {
+        feed.onChildAdded("PEF_log", "PEF1", log("pef", 100));
+        feed.onChildAdded("PEF_log", "PEF2", log("pef", 200));
+        feed.setHorizon(150);
+        assertEquals(1, feed.size());
+
+        recorder.events.clear();
+        feed.onChildAdded("PEF_log", "PEF0", log("pef", 50));
+        assertTrue(recorder.events.isEmpty());
+
+        feed.setHorizon(Long.MIN_VALUE);
+        assertEquals(3, feed.size());
+        assertInSync();
+    }
+
+    @Test
+    public void randomEventStream_staysSortedAndInSync() {
+        java.util.Random rnd = new java.util.Random(7);
+        String[] types = {"pef", "medication", "inhaler"};
+        for (int i = 0; i < 5_000; i++) {
+            String node = "n" + rnd.nextInt(300);
+            int op = rnd.nextInt(4);
+            if (op == 0) feed.onChildRemoved("PEF_log", node);
+            else if (op == 1) feed.onChildChanged("PEF_log", node, log(types[rnd.nextInt(3)], rnd.nextInt(1000)));
+            else feed.onChildAdded("PEF_log", node, log(types[rnd.nextInt(3)], rnd.nextInt(1000)));
+            if (i % 1000 == 0) feed.setFilter(i % 2000 == 0 ? "all" : "pef");
+        }
+        for (int i = 1; i < feed.size(); i++) {
+            assertTrue(LogFeed.NEWEST_FIRST.compare(feed.get(i - 1), feed.get(i)) < 0);
+        }
+        assertInSync();
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.SmartAirGroup2;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for LogKeyAllocator's transaction step, run against an in-memory
+ * compare-and-set counter that retries the way a RTDB transaction does.
+ */
+public class LogKeyAllocatorTest {
+
+    /** Applies step() until the CAS wins, mirroring Firebase's transaction retry loop. */
+    private static long allocate(AtomicReference<Long> counter, long floor) {
+        while (true) {
+            Long current = counter.get();
+            Long next = LogKeyAllocator.step(current, floor);
+            if (next == null) throw new IllegalStateException("counter not seeded");
+            if (counter.compareAndSet(current, next)) return next;
+        }
+    }
+
+    /** The pre-counter allocation: regex every key in the group and take max + 1. */
+    private static long legacyNext(List<String> keys) {
+        Pattern p = Pattern.compile("(\\d+)$");
+        long max = 0;
+        for (String key : keys) {
+            Matcher m = p.matcher(key);
+            if (m.find()) {
+                max = Math.max(max, Long.parseLong(m.group(1)));
+            }
+        }
+        return max + 1;
+    }
+
+    @Test
+    public void step_absentCounterWithoutFloor_requestsSeed() {
+        assertNull(LogKeyAllocator.step(null, -1));
+    }
+
+    @Test
+    public void step_seedsFromFloorAndNeverGoesBackwards() {
+        assertEquals(Long.valueOf(1), LogKeyAllocator.step(null, 0));
+        assertEquals(Long.valueOf(13), LogKeyAllocator.step(null, 12));
+        assertEquals(Long.valueOf(8), LogKeyAllocator.step(7L, -1));
+        // A late seeder with a stale floor must not rewind a counter another device advanced
+        assertEquals(Long.valueOf(21), LogKeyAllocator.step(20L, 12));
+    }
+
+    @Test
+    public void numericSuffix_matchesLegacyRegex() {
+        assertEquals(12, LogKeyAllocator.numericSuffix("PEF12"));
+        assertEquals(3, LogKeyAllocator.numericSuffix("incident3"));
+        assertEquals(0, LogKeyAllocator.numericSuffix("controller"));
+        assertEquals(0, LogKeyAllocator.numericSuffix(null));
+        assertEquals(7, LogKeyAllocator.numericSuffix("rescue007"));
+    }
+
+    @Test
+    public void concurrentWriters_getUniqueContiguousKeys() throws Exception {
+        final int threads = 8;
+        final int perThread = 2_000;
+        final AtomicReference<Long> counter = new AtomicReference<>(null);
+        final long floor = 41; // group already holds PEF1..PEF41
+        final Set<Long> issued = Collections.synchronizedSet(new HashSet<>());
+        final CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    issued.add(allocate(counter, floor));
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        int total = threads * perThread;
+        assertEquals("duplicate keys issued", total, issued.size());
+        assertEquals(Long.valueOf(floor + total), counter.get());
+        for (long n = floor + 1; n <= floor + total; n++) {
+            assertTrue("gap at " + n, issued.contains(n));
+        }
+    }
+
+    @Test
+    public void benchmark_counterVsLegacyScan() {
+        final int groupSize = 100_000;
+        final int saves = 50;
+
+        List<String> keys = new ArrayList<>(groupSize + saves);
+        for (int i = 1; i <= groupSize; i++) keys.add("PEF" + i);
+
+        // Legacy: every save rescans the whole group
+        long t0 = System.nanoTime();
+        for (int i = 0; i < saves; i++) {
+            keys.add("PEF" + legacyNext(keys));
+        }
+        long legacyNs = System.nanoTime() - t0;
+
+        // Counter: one scan to seed, then a CAS per save
+        keys.subList(groupSize, keys.size()).clear();
+        long t1 = System.nanoTime();
+        long floor = 0;
+        for (String key : keys) floor = Math.max(floor, LogKeyAllocator.numericSuffix(key));
+        AtomicReference<Long> counter = new AtomicReference<>(null);
+        long last = 0;
+        for (int i = 0; i < saves; i++) {
+            last = allocate(counter, floor);
+        }
+        long counterNs = System.nanoTime() - t1;
+
+        System.out.printf("LogKeyAllocator: %d saves on a %d-entry group: legacy %.1f ms, counter %.1f ms%n",
+                saves, groupSize, legacyNs / 1e6, counterNs / 1e6);
+
+        assertEquals(groupSize + saves, last);
+    }
+}
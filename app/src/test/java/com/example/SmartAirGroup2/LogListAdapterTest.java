@@ -0,0 +1,63 @@
+package com.example.SmartAirGroup2;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the view-type and row-text logic of LogListAdapter, and the
+ * content comparison its DiffUtil callback relies on.
+ */
+public class LogListAdapterTest {
+
+    @Test
+    public void viewType_matchesRecordTypes() {
+        assertEquals(LogListAdapter.TYPE_PEF, LogListAdapter.viewTypeFor(new PefLogRecord()));
+        assertEquals(LogListAdapter.TYPE_MEDICATION, LogListAdapter.viewTypeFor(new ControllerLogRecord()));
+        assertEquals(LogListAdapter.TYPE_MEDICATION, LogListAdapter.viewTypeFor(new RescueLogRecord()));
+        assertEquals(LogListAdapter.TYPE_OTHER, LogListAdapter.viewTypeFor(new GenericLogRecord()));
+    }
+
+    @Test
+    public void details_pefSkipsEmptyFields() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("value", 320);
+        map.put("note", "");
+        map.put("preMedVal", "300");
+        PefLogRecord pef = (PefLogRecord) LogRecordDecoder.decode("PEF_log", "PEF1", map);
+        assertEquals("320", LogListAdapter.pefValue(pef));
+        assertEquals("Pre-med value: 300", LogListAdapter.details(pef));
+    }
+
+    @Test
+    public void details_medicationJoinsDoseAndUnits() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("medication", "Ventolin");
+        map.put("dose", "2");
+        map.put("units", "puffs");
+        map.put("postDose", "better");
+        MedicationLogRecord med = (MedicationLogRecord) LogRecordDecoder.decode("rescue_log", "rescue1", map);
+        assertEquals("2 puffs", LogListAdapter.dose(med));
+        assertEquals("After: better", LogListAdapter.details(med));
+    }
+
+    @Test
+    public void sameContent_comparesFieldsNotIdentity() {
+        Map<String, Object> a = new HashMap<>();
+        a.put("type", "pef");
+        a.put("timestamp", 100L);
+        a.put("value", 300L);
+        Map<String, Object> b = new HashMap<>(a);
+
+        LogRecord e1 = LogRecordDecoder.decode("PEF_log", "PEF1", a);
+        assertTrue(LogFeed.sameContent(e1, LogRecordDecoder.decode("PEF_log", "PEF1", b)));
+
+        b.put("value", 310L);
+        assertFalse(LogFeed.sameContent(e1, LogRecordDecoder.decode("PEF_log", "PEF1", b)));
+    }
+}
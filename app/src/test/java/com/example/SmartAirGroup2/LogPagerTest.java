@@ -0,0 +1,167 @@
+package com.example.SmartAirGroup2;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for LogPager, plus an end-to-end merge of several paged groups
+ * through LogFeed against an in-memory stand-in for the timestamp queries.
+ */
+public class LogPagerTest {
+
+    @Test
+    public void groupsFor_pushesFilterIntoGroups() {
+        assertEquals(Collections.singletonList("PEF_log"), LogPager.groupsFor("pef"));
+        assertEquals(Collections.singletonList("controller_log"), LogPager.groupsFor("medication"));
+        assertEquals(Collections.singletonList("rescue_log"), LogPager.groupsFor("inhaler"));
+        assertEquals(3, LogPager.groupsFor("all").size());
+    }
+
+    @Test
+    public void horizon_waitsForEveryFirstPage() {
+        LogPager pager = new LogPager(Arrays.asList("a", "b"));
+        assertEquals(Long.MAX_VALUE, pager.horizon());
+        pager.onPageLoaded("a", 50, 50, 1_000, "a1");
+        assertEquals(Long.MAX_VALUE, pager.horizon());
+        pager.onPageLoaded("b", 50, 50, 5_000, "b1");
+        assertEquals(5_000, pager.horizon());
+        assertEquals(Collections.singletonList("b"), pager.groupsToLoadOlder());
+    }
+
+    @Test
+    public void exhaustedGroupsDoNotHoldBackHorizon() {
+        LogPager pager = new LogPager(Arrays.asList("a", "b"));
+        pager.onPageLoaded("a", 50, 50, 1_000, "a1");
+        pager.onPageLoaded("b", 50, 3, 9_000, "b1");
+        assertEquals(1_000, pager.horizon());
+        pager.onPageLoaded("a", 50, 0, 0, null);
+        assertEquals(Long.MIN_VALUE, pager.horizon());
+        assertFalse(pager.hasMore());
+        assertTrue(pager.groupsToLoadOlder().isEmpty());
+    }
+
+    @Test
+    public void noNewRequestsWhileOneIsInFlight() {
+        LogPager pager = new LogPager(Arrays.asList("a", "b"));
+        pager.onPageLoaded("a", 50, 50, 1_000, "a1");
+        pager.onPageLoaded("b", 50, 50, 2_000, "b1");
+        pager.markLoading("b");
+        assertTrue(pager.groupsToLoadOlder().isEmpty());
+        pager.onPageFailed("b");
+        assertEquals(Collections.singletonList("b"), pager.groupsToLoadOlder());
+    }
+
+    @Test
+    public void legacyEntriesPageWithANullCursorAndEnd() {
+        LogPager pager = new LogPager(Collections.singletonList("a"));
+        pager.onPageLoaded("a", 3, 3, 1_000, "a5");
+        // the next page reaches entries without a timestamp, which sort first
+        pager.onPageLoaded("a", 3, 3, (Long) null, "a2");
+        LogPager.Cursor c = pager.cursor("a");
+        assertTrue(c.isTimestampNull());
+        assertEquals("a2", c.getKey());
+        assertTrue(pager.hasMore());
+
+        // a page that ends on the cursor again brought nothing new: stop
+        pager.markLoading("a");
+        pager.onPageLoaded("a", 3, 3, (Long) null, "a2");
+        assertFalse(pager.hasMore());
+        assertTrue(pager.groupsToLoadOlder().isEmpty());
+    }
+
+    /** orderByChild("timestamp").endBefore(ts, key).limitToLast(n) over one group. */
+    private static List<Map.Entry<String, Long>> page(TreeMap<String, Long> group, long beforeTs, String beforeKey, int n) {
+        List<Map.Entry<String, Long>> sorted = new ArrayList<>(group.entrySet());
+        sorted.sort((x, y) -> {
+            int c = Long.compare(x.getValue(), y.getValue());
+            return c != 0 ? c : x.getKey().compareTo(y.getKey());
+        });
+        List<Map.Entry<String, Long>> out = new ArrayList<>();
+        for (Map.Entry<String, Long> e : sorted) {
+            boolean before = beforeKey == null
+                    || e.getValue() < beforeTs
+                    || (e.getValue() == beforeTs && e.getKey().compareTo(beforeKey) < 0);
+            if (before) out.add(e);
+        }
+        return out.subList(Math.max(0, out.size() - n), out.size());
+    }
+
+    private static Map<String, Object> log(String type, long ts) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("type", type);
+        m.put("timestamp", ts);
+        return m;
+    }
+
+    @Test
+    public void mergedPagesShowAPrefixOfTheFullHistory() {
+        // PEF logged every hour, controller daily, rescue rarely
+        Map<String, TreeMap<String, Long>> db = new HashMap<>();
+        Map<String, String> types = new HashMap<>();
+        String[] groups = {"PEF_log", "controller_log", "rescue_log"};
+        long[] step = {3_600_000L, 86_400_000L, 7 * 86_400_000L};
+        int[] counts = {2_000, 400, 30};
+        types.put("PEF_log", "pef");
+        types.put("controller_log", "medication");
+        types.put("rescue_log", "inhaler");
+        List<Long> allTs = new ArrayList<>();
+        for (int g = 0; g < groups.length; g++) {
+            TreeMap<String, Long> group = new TreeMap<>();
+            for (int i = 1; i <= counts[g]; i++) {
+                long ts = 1_600_000_000_000L + i * step[g];
+                group.put(groups[g] + i, ts);
+                allTs.add(ts);
+            }
+            db.put(groups[g], group);
+        }
+        allTs.sort(Collections.reverseOrder());
+
+        LogFeed feed = new LogFeed();
+        LogPager pager = new LogPager(Arrays.asList(groups));
+        feed.setHorizon(pager.horizon());
+
+        int requests = 0;
+        for (String g : groups) {
+            List<Map.Entry<String, Long>> p = page(db.get(g), 0, null, LogPager.PAGE_SIZE);
+            requests++;
+            for (Map.Entry<String, Long> e : p) feed.onChildAdded(g, e.getKey(), log(types.get(g), e.getValue()));
+            pager.onPageLoaded(g, LogPager.PAGE_SIZE, p.size(),
+                    p.isEmpty() ? 0 : p.get(0).getValue(), p.isEmpty() ? null : p.get(0).getKey());
+            feed.setHorizon(pager.horizon());
+        }
+
+        while (true) {
+            // Whatever is visible must be exactly the newest slice of the full history
+            for (int i = 0; i < feed.size(); i++) {
+                assertEquals((long) allTs.get(i), feed.get(i).timestamp);
+            }
+            List<String> next = pager.groupsToLoadOlder();
+            if (next.isEmpty()) break;
+            for (String g : next) {
+                LogPager.Cursor c = pager.cursor(g);
+                List<Map.Entry<String, Long>> p = page(db.get(g), c.getTimestamp(), c.getKey(), LogPager.PAGE_SIZE);
+                requests++;
+                for (Map.Entry<String, Long> e : p) feed.onChildAdded(g, e.getKey(), log(types.get(g), e.getValue()));
+                pager.onPageLoaded(g, LogPager.PAGE_SIZE, p.size(),
+                        p.isEmpty() ? 0 : p.get(0).getValue(), p.isEmpty() ? null : p.get(0).getKey());
+                feed.setHorizon(pager.horizon());
+            }
+        }
+
+        assertEquals(allTs.size(), feed.size());
+        assertFalse(pager.hasMore());
+        // Each page carries at most PAGE_SIZE entries, plus one empty tail read per group at most
+        assertTrue(requests <= allTs.size() / LogPager.PAGE_SIZE + 2 * groups.length);
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.SmartAirGroup2;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for LogRecordDecoder, plus an allocation comparison against the
+ * previous Map-copy path.
+ */
+public class LogRecordDecoderTest {
+
+    @Test
+    public void decode_pefEntry() {
+        Map<String, Object> m = new HashMap<>();
+        m.put("type", "pef");
+        m.put("timestamp", 1700000000000L);
+        m.put("dateTime", "2023-11-14 22:13");
+        m.put("value", 320L);
+        m.put("preMedVal", "300");
+        m.put("note", "after run");
+
+        PefLogRecord r = (PefLogRecord) LogRecordDecoder.decode("PEF_log", "PEF7", m);
+        assertEquals("PEF_log/PEF7", r.id());
+        assertEquals("pef", r.type);
+        assertEquals(1700000000000L, r.timestamp);
+        assertEquals("2023-11-14 22:13", r.dateTime);
+        assertEquals(320.0, r.value, 0);
+        assertEquals("300", r.preMedVal);
+        assertEquals("", r.postMedVal);
+        assertEquals("after run", r.note);
+    }
+
+    @Test
+    public void decode_pefValueStoredAsText() {
+        Map<String, Object> m = new HashMap<>();
+        m.put("value", " 280 ");
+        assertEquals(280.0, ((PefLogRecord) LogRecordDecoder.decode("PEF_log", "PEF1", m)).value, 0);
+
+        m.put("value", "n/a");
+        assertTrue(!((PefLogRecord) LogRecordDecoder.decode("PEF_log", "PEF1", m)).hasValue());
+    }
+
+    @Test
+    public void decode_legacyEntryIsPlacedByItsDateTime() {
+        Map<String, Object> m = new HashMap<>();
+        m.put("dateTime", "2023-11-14 22:13");
+        m.put("value", 300L);
+        LogRecord r = LogRecordDecoder.decode("PEF_log", "PEF2", m);
+        assertEquals(RecordTime.parse("2023-11-14 22:13"), r.timestamp);
+        assertTrue(r.timestamp > 0);
+    }
+
+    @Test
+    public void decode_medicationGroups() {
+        Map<String, Object> m = new HashMap<>();
+        m.put("type", "inhaler");
+        m.put("medication", "Inhaler");
+        m.put("dosage", 2.0);
+        m.put("dose", "2.0 puffs");
+        m.put("units", "puffs");
+        m.put("postDose", "better");
+
+        LogRecord rescue = LogRecordDecoder.decode("rescue_log", "rescue3", m);
+        assertTrue(rescue instanceof RescueLogRecord);
+        RescueLogRecord r = (RescueLogRecord) rescue;
+        assertEquals("Inhaler", r.medication);
+        assertEquals(2.0, r.dosage, 0);
+        assertEquals("2.0 puffs", r.dose);
+        assertEquals("better", r.postDose);
+        assertEquals("", r.preDose);
+
+        assertTrue(LogRecordDecoder.decode("controller_log", "controller1", m) instanceof ControllerLogRecord);
+    }
+
+    @Test
+    public void decode_unknownGroupKeepsExtraFields() {
+        Map<String, Object> m = new HashMap<>();
+        m.put("type", "symptom");
+        m.put("severity", 3L);
+
+        GenericLogRecord r = (GenericLogRecord) LogRecordDecoder.decode("symptom_log", "s1", m);
+        assertEquals("symptom", r.type);
+        assertEquals(3L, r.fields.get("severity"));
+        assertEquals(1, r.fields.size());
+    }
+
+    @Test
+    public void decode_nullFieldsFallBackToDefaults() {
+        Map<String, Object> m = new HashMap<>();
+        m.put("type", null);
+        m.put("note", "null");
+        m.put("dosage", null);
+
+        MedicationLogRecord r = (MedicationLogRecord) LogRecordDecoder.decode("controller_log", "c1", m);
+        assertEquals("unknown", r.type);
+        assertEquals("", r.note);
+        assertTrue(Double.isNaN(r.dosage));
+    }
+
+    @Test
+    public void decode_nonMapIsNull() {
+        assertNull(LogRecordDecoder.decode("PEF_log", "PEF1", 320L));
+        assertNull(LogRecordDecoder.decode("PEF_log", "PEF1", (Object) null));
+    }
+
+    /**
+     * Bytes allocated per entry: the old path copied every snapshot Map into a
+     * second HashMap (and stripped type / timestamp from it); the typed path
+     * assigns fields onto one record.
+     */
+    @Test
+    public void benchmark_allocationsVsMapCopy() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(mx.isThreadAllocatedMemorySupported());
+        mx.setThreadAllocatedMemoryEnabled(true);
+
+        final int n = 100_000;
+        List<Map<String, Object>> values = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Map<String, Object> m = new HashMap<>();
+            m.put("type", "medication");
+            m.put("timestamp", 1700000000000L + i);
+            m.put("dateTime", "2023-11-14 22:13");
+            m.put("medication", "Flovent");
+            m.put("dosage", 2.0);
+            m.put("dose", "2.0 puffs");
+            m.put("units", "puffs");
+            m.put("preDose", "");
+            m.put("postDose", "better");
+            m.put("note", "");
+            values.add(m);
+        }
+        List<Object> sink = new ArrayList<>(n);
+
+        // Warm up both paths
+        for (int i = 0; i < 2000; i++) {
+            legacyCopy(values.get(i));
+            LogRecordDecoder.decode("controller_log", "c" + i, values.get(i));
+        }
+
+        long tid = Thread.currentThread().getId();
+        long a0 = mx.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < n; i++) sink.add(legacyCopy(values.get(i)));
+        long legacyBytes = mx.getThreadAllocatedBytes(tid) - a0;
+        sink.clear();
+
+        String key = "controller1";
+        long a1 = mx.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < n; i++) sink.add(LogRecordDecoder.decode("controller_log", key, values.get(i)));
+        long typedBytes = mx.getThreadAllocatedBytes(tid) - a1;
+
+        System.out.printf("LogRecordDecoder: %d entries: map copy %.0f B/entry, typed %.0f B/entry%n",
+                n, legacyBytes / (double) n, typedBytes / (double) n);
+
+        assertEquals(n, sink.size());
+        assertTrue("typed decode should allocate less than a map copy", typedBytes < legacyBytes);
+    }
+
+    /** Shape of the entry LogFeed used to hold: a category, a timestamp and a Map copy. */
+    private static final class LegacyEntry {
+        final String category;
+        final long timestamp;
+        final Map<String, Object> data;
+
+        LegacyEntry(String category, long timestamp, Map<String, Object> data) {
+            this.category = category;
+            this.timestamp = timestamp;
+            this.data = data;
+        }
+    }
+
+    /** What LogFeed.parse used to do with each entry's value. */
+    private static LegacyEntry legacyCopy(Map<String, Object> raw) {
+        Object type = raw.get("type");
+        String category = type == null ? "unknown" : String.valueOf(type);
+        Object ts = raw.get("timestamp");
+        long timestamp = ts instanceof Number ? ((Number) ts).longValue() : 0;
+
+        Map<String, Object> data = new HashMap<>(raw);
+        data.remove("type");
+        data.remove("timestamp");
+        return new LegacyEntry(category, timestamp, data);
+    }
+}
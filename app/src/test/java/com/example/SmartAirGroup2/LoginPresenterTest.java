@@ -1,7 +1,9 @@
 package com.example.SmartAirGroup2;
 
 import com.example.SmartAirGroup2.auth.data.repo.AuthRepository;
+import com.example.SmartAirGroup2.auth.data.repo.ProfileCheck;
 import com.example.SmartAirGroup2.auth.login.LoginContract;
+import com.example.SmartAirGroup2.auth.login.LoginMetrics;
 import com.example.SmartAirGroup2.auth.login.LoginPresenter;
 
 import org.junit.Before;
@@ -17,10 +19,16 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import android.os.Handler;
 import android.os.Looper;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Unit tests for LoginPresenter
  * Tests the business logic of login validation and authentication
@@ -164,4 +172,149 @@ public class LoginPresenterTest {
         Mockito.verify(mockView).showLoginFailed();
     }
 
-}
\ No newline at end of file
+    /**
+     * Fake repository whose CheckPassword blocks until released,
+     * so tests can tap again or detach while a login is in flight.
+     */
+    private static class BlockingAuthRepository implements AuthRepository {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        volatile boolean interrupted = false;
+
+        @Override
+        public ProfileCheck Check_if_User_exist(String role, String username, String email) {
+            return new ProfileCheck(email, true);
+        }
+
+        @Override
+        public boolean CheckPassword(String role, String username, String email, String password) throws Exception {
+            calls.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+                throw e;
+            }
+            return true;
+        }
+    }
+
+    @Test
+    public void testLogin_doubleTapCoalesced() throws Exception {
+        BlockingAuthRepository repo = new BlockingAuthRepository();
+        LoginPresenter p = new LoginPresenter(repo, mockHandler);
+        p.attach(mockView);
+
+        p.onLoginClicked("parent", "perry", "perry@gmail.com", "!Abc12345");
+        assertTrue(repo.started.await(1, TimeUnit.SECONDS));
+        p.onLoginClicked("parent", "Perry ", "perry@gmail.com", "!Abc12345");
+        p.onLoginClicked("parent", "perry", "perry@gmail.com", "!Abc12345");
+
+        repo.release.countDown();
+        Thread.sleep(50);
+
+        assertEquals(1, repo.calls.get());
+        Mockito.verify(mockView, times(1)).showLoginSuccess("parent");
+
+        LoginMetrics metrics = p.getMetrics();
+        assertEquals(1, metrics.getAttempts());
+        assertEquals(2, metrics.getCoalesced());
+        assertEquals(1, metrics.getSuccesses());
+    }
+
+    @Test
+    public void testLogin_differentUsersNotCoalesced() throws Exception {
+        BlockingAuthRepository repo = new BlockingAuthRepository();
+        LoginPresenter p = new LoginPresenter(repo, mockHandler);
+        p.attach(mockView);
+
+        p.onLoginClicked("parent", "perry", "perry@gmail.com", "!Abc12345");
+        p.onLoginClicked("child", "perry", "perry@gmail.com", "!Abc12345");
+        p.onLoginClicked("parent", "andy", "andy@gmail.com", "!Abc12345");
+
+        repo.release.countDown();
+        Thread.sleep(50);
+
+        assertEquals(3, repo.calls.get());
+        assertEquals(0, p.getMetrics().getCoalesced());
+    }
+
+    @Test
+    public void testLogin_correctedPasswordReplacesInFlight() throws Exception {
+        BlockingAuthRepository repo = new BlockingAuthRepository();
+        LoginPresenter p = new LoginPresenter(repo, mockHandler);
+        p.attach(mockView);
+
+        p.onLoginClicked("parent", "perry", "perry@gmail.com", "!Abc1234");
+        assertTrue(repo.started.await(1, TimeUnit.SECONDS));
+        p.onLoginClicked("parent", "perry", "perry@gmail.com", "!Abc12345");
+
+        repo.release.countDown();
+        Thread.sleep(50);
+
+        assertTrue(repo.interrupted);
+        assertEquals(2, repo.calls.get());
+        Mockito.verify(mockView, times(1)).showLoginSuccess("parent");
+        Mockito.verify(mockView, never()).showLoginFailed();
+
+        LoginMetrics metrics = p.getMetrics();
+        assertEquals(2, metrics.getAttempts());
+        assertEquals(0, metrics.getCoalesced());
+        assertEquals(1, metrics.getCancelled());
+    }
+
+    @Test
+    public void testLogin_retryAfterCompletionRunsAgain() throws Exception {
+        BlockingAuthRepository repo = new BlockingAuthRepository();
+        repo.release.countDown();
+        LoginPresenter p = new LoginPresenter(repo, mockHandler);
+        p.attach(mockView);
+
+        p.onLoginClicked("parent", "perry", "perry@gmail.com", "!Abc12345");
+        Thread.sleep(50);
+        p.onLoginClicked("parent", "perry", "perry@gmail.com", "!Abc12345");
+        Thread.sleep(50);
+
+        assertEquals(2, repo.calls.get());
+        Mockito.verify(mockView, times(2)).showLoginSuccess("parent");
+    }
+
+    @Test
+    public void testLogin_detachCancelsInFlight() throws Exception {
+        BlockingAuthRepository repo = new BlockingAuthRepository();
+        LoginPresenter p = new LoginPresenter(repo, mockHandler);
+        p.attach(mockView);
+
+        p.onLoginClicked("parent", "perry", "perry@gmail.com", "!Abc12345");
+        assertTrue(repo.started.await(1, TimeUnit.SECONDS));
+
+        p.detach();
+        Thread.sleep(50);
+
+        assertTrue(repo.interrupted);
+        assertEquals(1, p.getMetrics().getCancelled());
+        Mockito.verifyNoInteractions(mockView);
+    }
+
+    @Test
+    public void testLogin_resultNotDeliveredToReattachedView() throws Exception {
+        BlockingAuthRepository repo = new BlockingAuthRepository();
+        LoginPresenter p = new LoginPresenter(repo, mockHandler);
+        p.attach(mockView);
+
+        p.onLoginClicked("parent", "perry", "perry@gmail.com", "!Abc12345");
+        assertTrue(repo.started.await(1, TimeUnit.SECONDS));
+
+        LoginContract.View newView = Mockito.mock(LoginContract.View.class);
+        p.detach();
+        p.attach(newView);
+        repo.release.countDown();
+        Thread.sleep(50);
+
+        Mockito.verifyNoInteractions(mockView);
+        Mockito.verifyNoInteractions(newView);
+    }
+
+}
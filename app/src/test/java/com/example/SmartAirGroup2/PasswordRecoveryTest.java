@@ -0,0 +1,78 @@
+package com.example.SmartAirGroup2;
+
+import com.example.SmartAirGroup2.auth.data.repo.CredentialRecord;
+import com.example.SmartAirGroup2.auth.data.repo.CredentialStore;
+import com.example.SmartAirGroup2.auth.data.repo.PasswordRecovery;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for PasswordRecovery.findPassword
+ * Recovery must resolve an account with a single keyed read, whatever the number of users.
+ */
+public class PasswordRecoveryTest {
+
+    /** In-memory credential index that counts how many entries each lookup reads. */
+    private static class CountingStore implements CredentialStore {
+        final Map<String, CredentialRecord> entries = new HashMap<>();
+        int reads = 0;
+
+        void add(String group, String uname, String email, String password, String type) {
+            entries.put(group + "/" + uname, new CredentialRecord(uname, email, password, type));
+        }
+
+        @Override
+        public CredentialRecord find(String groupNode, String unameKey) {
+            reads++;
+            return entries.get(groupNode + "/" + unameKey);
+        }
+    }
+
+    private static CountingStore seed(int users) {
+        CountingStore store = new CountingStore();
+        for (int i = 0; i < users; i++) {
+            store.add("parents", "parent" + i, "parent" + i + "@gmail.com", "!Pass" + i, "Parent");
+        }
+        return store;
+    }
+
+    @Test
+    public void testRecovery_match() throws Exception {
+        CountingStore store = seed(10);
+        assertEquals("!Pass7", PasswordRecovery.findPassword(store, "parent7", "parent7@gmail.com", "Parent"));
+    }
+
+    @Test
+    public void testRecovery_wrongEmail() throws Exception {
+        CountingStore store = seed(10);
+        assertNull(PasswordRecovery.findPassword(store, "parent7", "parent8@gmail.com", "Parent"));
+    }
+
+    @Test
+    public void testRecovery_wrongRole() throws Exception {
+        CountingStore store = seed(10);
+        assertNull(PasswordRecovery.findPassword(store, "parent7", "parent7@gmail.com", "Child"));
+    }
+
+    @Test
+    public void testRecovery_unknownUser() throws Exception {
+        CountingStore store = seed(10);
+        assertNull(PasswordRecovery.findPassword(store, "ghost", "parent7@gmail.com", "Parent"));
+    }
+
+    @Test
+    public void testRecovery_readsDoNotDependOnUserCount() throws Exception {
+        for (int users : new int[]{1, 100, 10_000}) {
+            CountingStore store = seed(users);
+            PasswordRecovery.findPassword(store, "parent0", "parent0@gmail.com", "Parent");
+            PasswordRecovery.findPassword(store, "ghost", "ghost@gmail.com", "Parent");
+            assertEquals("users=" + users, 2, store.reads);
+        }
+    }
+}
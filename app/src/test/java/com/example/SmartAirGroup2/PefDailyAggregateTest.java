@@ -0,0 +1,208 @@
+package com.example.SmartAirGroup2;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for PefDailyAggregate, and the zone today's aggregate decides
+ * (PefZoneStore).
+ */
+public class PefDailyAggregateTest {
+
+    private static final double EPS = 1e-9;
+
+    @Test
+    public void add_tracksCountSumMinMax() {
+        PefDailyAggregate agg = new PefDailyAggregate();
+        agg.add(300);
+        agg.add(250);
+        agg.add(410);
+        assertEquals(3, agg.count);
+        assertEquals(960, agg.sum, EPS);
+        assertEquals(250, agg.min, EPS);
+        assertEquals(410, agg.max, EPS);
+        assertEquals(320, agg.average(), EPS);
+    }
+
+    @Test
+    public void remove_middleValueNeedsNoRescan() {
+        PefDailyAggregate agg = new PefDailyAggregate();
+        agg.add(300);
+        agg.add(250);
+        agg.add(410);
+        assertFalse(agg.remove(300));
+        assertEquals(2, agg.count);
+        assertEquals(330, agg.average(), EPS);
+    }
+
+    @Test
+    public void remove_extremeRequestsRescan() {
+        PefDailyAggregate agg = new PefDailyAggregate();
+        agg.add(300);
+        agg.add(250);
+        assertTrue(agg.remove(250));
+    }
+
+    @Test
+    public void remove_lastReadingEmptiesDay() {
+        PefDailyAggregate agg = new PefDailyAggregate();
+        agg.add(300);
+        assertFalse(agg.remove(300));
+        assertTrue(agg.isEmpty());
+        assertEquals(0, agg.average(), EPS);
+    }
+
+    @Test
+    public void mapRoundTrip() {
+        PefDailyAggregate agg = new PefDailyAggregate();
+        agg.add(300);
+        agg.add(200);
+        Map<String, Object> m = agg.toMap();
+        PefDailyAggregate back = PefDailyAggregate.fromValue(m);
+        assertEquals(2, back.count);
+        assertEquals(500, back.sum, EPS);
+        assertEquals(200, back.min, EPS);
+        assertEquals(300, back.max, EPS);
+        assertTrue(PefDailyAggregate.fromValue(null).isEmpty());
+    }
+
+    @Test
+    public void readingValue_acceptsNumbersAndText() {
+        assertEquals(320.0, PefDailyAggregate.readingValue(320L), EPS);
+        assertEquals(320.5, PefDailyAggregate.readingValue(" 320.5 "), EPS);
+        assertNull(PefDailyAggregate.readingValue("n/a"));
+        assertNull(PefDailyAggregate.readingValue(null));
+    }
+
+    @Test
+    public void dayKey_usesLocalDateAndRollsAtMidnight() {
+        Calendar c = Calendar.getInstance();
+        c.set(2025, Calendar.MARCH, 7, 23, 59, 59);
+        long beforeMidnight = c.getTimeInMillis();
+        assertEquals("2025-03-07", PefDailyAggregate.dayKey(beforeMidnight));
+
+        long midnight = PefDailyAggregate.startOfNextDay(beforeMidnight);
+        assertEquals("2025-03-08", PefDailyAggregate.dayKey(midnight));
+        assertEquals("2025-03-07", PefDailyAggregate.dayKey(midnight - 1));
+        assertEquals(midnight, PefDailyAggregate.startOfDay(midnight + 5_000));
+    }
+
+    @Test
+    public void dayKey_matchesTheOtherDailyStoresOverDst() {
+        TimeZone saved = TimeZone.getDefault();
+        TimeZone toronto = TimeZone.getTimeZone("America/Toronto");
+        try {
+            TimeZone.setDefault(toronto);
+            Calendar c = Calendar.getInstance(toronto);
+            c.clear();
+            c.set(2025, Calendar.MARCH, 8, 0, 30); // the night before clocks go forward
+            for (int i = 0; i < 72; i++) {
+                long ts = c.getTimeInMillis() + i * 60L * 60L * 1000L;
+                assertEquals(ControllerDailyCount.dayKey(ts, toronto), PefDailyAggregate.dayKey(ts));
+            }
+            c.set(2025, Calendar.MARCH, 9, 12, 0);
+            long dstDay = c.getTimeInMillis();
+            assertEquals(23 * 60L * 60L * 1000L,
+                    PefDailyAggregate.startOfNextDay(dstDay) - PefDailyAggregate.startOfDay(dstDay));
+        } finally {
+            TimeZone.setDefault(saved);
+        }
+    }
+
+    @Test
+    public void incrementalMatchesRecomputeUnderRandomEdits() {
+        Random rnd = new Random(3);
+        PefDailyAggregate agg = new PefDailyAggregate();
+        List<Double> readings = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            if (!readings.isEmpty() && rnd.nextInt(3) == 0) {
+                double v = readings.remove(rnd.nextInt(readings.size()));
+                if (agg.remove(v)) {
+                    // What PefDailyStore.rescanDay does: rebuild from the day's readings
+                    agg = new PefDailyAggregate();
+                    for (double r : readings) agg.add(r);
+                }
+            } else {
+                double v = 100 + rnd.nextInt(500);
+                readings.add(v);
+                agg.add(v);
+            }
+            assertEquals(readings.size(), agg.count);
+            if (!readings.isEmpty()) {
+                double sum = 0, min = Double.MAX_VALUE, max = -Double.MAX_VALUE;
+                for (double r : readings) {
+                    sum += r;
+                    min = Math.min(min, r);
+                    max = Math.max(max, r);
+                }
+                assertEquals(sum, agg.sum, 1e-6);
+                assertEquals(min, agg.min, EPS);
+                assertEquals(max, agg.max, EPS);
+            }
+        }
+    }
+
+    @Test
+    public void zone_fromTodaysAverageAndPb() {
+        PefDailyAggregate today = new PefDailyAggregate();
+        assertEquals(PefZoneStore.GOOD, PefZoneStore.zoneOf(today.average(), 400)); // no reading yet
+        today.add(300);
+        today.add(340);
+        assertEquals(PefZoneStore.GOOD, PefZoneStore.zoneOf(today.average(), 400));   // 320 = 80%
+        assertEquals(PefZoneStore.WARNING, PefZoneStore.zoneOf(today.average(), 401));
+        assertEquals(PefZoneStore.WARNING, PefZoneStore.zoneOf(today.average(), 640)); // 50%
+        assertEquals(PefZoneStore.ALERT, PefZoneStore.zoneOf(today.average(), 641));
+        assertEquals(PefZoneStore.GOOD, PefZoneStore.zoneOf(today.average(), 0));      // no PB
+    }
+
+    @Test
+    public void zone_isOnlyWrittenWhenItChanges() {
+        assertFalse(PefZoneStore.differs(2L, PefZoneStore.ALERT));
+        assertFalse(PefZoneStore.differs(0, PefZoneStore.GOOD));
+        assertTrue(PefZoneStore.differs(1L, PefZoneStore.ALERT));
+        assertTrue(PefZoneStore.differs(null, PefZoneStore.GOOD));
+        assertTrue(PefZoneStore.differs("2", PefZoneStore.ALERT));
+    }
+
+    @Test
+    public void zone_fromAnEarlierDayIsGood() {
+        assertEquals(PefZoneStore.ALERT, PefZoneStore.current(2L, "2024-03-10", "2024-03-10"));
+        assertEquals(PefZoneStore.WARNING, PefZoneStore.current(1L, "2024-03-10", "2024-03-10"));
+        assertEquals(PefZoneStore.GOOD, PefZoneStore.current(2L, "2024-03-09", "2024-03-10")); // yesterday's
+        assertEquals(PefZoneStore.GOOD, PefZoneStore.current(2L, null, "2024-03-10"));         // no day stored
+        assertEquals(PefZoneStore.GOOD, PefZoneStore.current(null, "2024-03-10", "2024-03-10"));
+        assertEquals(PefZoneStore.GOOD, PefZoneStore.current(7L, "2024-03-10", "2024-03-10"));
+    }
+
+    @Test
+    public void rescan_isOnlyStoredOverTheDayItRead() {
+        PefDailyAggregate seen = new PefDailyAggregate();
+        seen.add(300);
+        seen.add(340);
+        Map<String, Object> stored = new HashMap<>();
+        stored.put("count", 2L); // Firebase hands whole numbers back as Long
+        stored.put("sum", 640L);
+        stored.put("min", 300L);
+        stored.put("max", 340L);
+        assertTrue(PefDailyStore.sameDay(stored, seen.toMap()));
+        assertTrue(PefDailyStore.sameDay(null, new PefDailyAggregate().toMap()));
+
+        // a reading recorded between the rescan's read and its write
+        PefDailyAggregate moved = PefDailyAggregate.fromValue(stored);
+        moved.add(280);
+        assertFalse(PefDailyStore.sameDay(moved.toMap(), seen.toMap()));
+        assertFalse(PefDailyStore.sameDay(seen.toMap(), null));
+    }
+}
@@ -0,0 +1,302 @@
+package com.example.SmartAirGroup2;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for PefStats (the one-pass fold against a multi-pass reference)
+ * and PefStatsLoader (pefDaily range reads, cache, report average).
+ */
+public class PefStatsTest {
+
+    private static final String CHILD = "andy";
+    private static final TimeZone ZONE = TimeZone.getTimeZone("America/Toronto");
+
+    private InMemoryUserTreeRepository repo;
+
+    @Before
+    public void setUp() {
+        repo = new InMemoryUserTreeRepository();
+    }
+
+    /** Readings of one day. */
+    private static class Day {
+        final int day;
+        final List<Double> values = new ArrayList<>();
+
+        Day(int day) {
+            this.day = day;
+        }
+
+        double mean() {
+            double s = 0;
+            for (double v : values) s += v;
+            return s / values.size();
+        }
+
+        double min() {
+            double m = Double.MAX_VALUE;
+            for (double v : values) m = Math.min(m, v);
+            return m;
+        }
+
+        double max() {
+            double m = -Double.MAX_VALUE;
+            for (double v : values) m = Math.max(m, v);
+            return m;
+        }
+    }
+
+    private static List<Day> randomDays(Random random, int first, int span) {
+        List<Day> days = new ArrayList<>();
+        for (int d = first; d < first + span; d++) {
+            if (random.nextInt(4) == 0) continue; // no reading that day
+            Day day = new Day(d);
+            int n = 1 + random.nextInt(3);
+            for (int i = 0; i < n; i++) day.values.add(180.0 + random.nextInt(260));
+            days.add(day);
+        }
+        return days;
+    }
+
+    private static PefStats.Days toArrays(List<Day> days) {
+        PefStats.Days out = new PefStats.Days(1);
+        for (Day d : days) {
+            double sum = 0;
+            for (double v : d.values) sum += v;
+            out.add(d.day, d.values.size(), sum, d.min(), d.max());
+        }
+        return out;
+    }
+
+    @Test
+    public void compute_matchesMultiPassReference() {
+        Random random = new Random(11);
+        int first = AdherenceCalculator.epochDay(2025, 1, 1);
+        List<Day> days = randomDays(random, first - 10, 80);
+        int from = first;
+        int to = first + 59;
+        double pb = 400;
+
+        PefStats s = PefStats.compute(toArrays(days), from, to, pb);
+
+        // one pass per statistic, straight from the readings
+        List<Day> window = new ArrayList<>();
+        for (Day d : days) if (d.day >= from && d.day <= to) window.add(d);
+        double sum = 0;
+        long n = 0;
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (Day d : window) {
+            for (double v : d.values) {
+                sum += v;
+                n++;
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+            }
+        }
+        int below = 0;
+        for (Day d : window) if (d.mean() < 0.8 * pb) below++;
+        double variability = 0;
+        int variabilityDays = 0;
+        for (Day d : window) {
+            if (d.values.size() < 2) continue;
+            variability += (d.max() - d.min()) / ((d.max() + d.min()) / 2) * 100;
+            variabilityDays++;
+        }
+        // EWMA stepped one calendar day at a time; a day without readings
+        // takes the mean of the next day that has some
+        double ewma = window.get(0).mean();
+        int k = 1;
+        for (int d = window.get(0).day + 1; d <= window.get(window.size() - 1).day; d++) {
+            while (window.get(k).day < d) k++;
+            ewma += PefStats.EWMA_ALPHA * (window.get(k).mean() - ewma);
+        }
+
+        assertEquals(n, s.readings);
+        assertEquals(window.size(), s.daysWithReadings);
+        assertEquals(sum / n, s.mean, 1e-9);
+        assertEquals(min, s.min, 0);
+        assertEquals(max, s.max, 0);
+        assertEquals(below, s.daysBelowPb);
+        assertEquals(100.0 * below / window.size(), s.percentBelowPb(), 1e-9);
+        assertEquals(variabilityDays, s.variabilityDays);
+        assertEquals(variability / variabilityDays, s.variability, 1e-9);
+        assertEquals(ewma, s.ewma, 1e-9);
+        assertEquals(window.get(window.size() - 1).day, s.ewmaDay);
+        Day last = window.get(window.size() - 1);
+        assertEquals(last.day == to ? last.mean() : 0, s.lastDayMean, 1e-9);
+    }
+
+    @Test
+    public void compute_emptyWindowAndMissingPb() {
+        PefStats.Days days = new PefStats.Days(0);
+        days.add(100, 2, 600, 280, 320);
+        days.add(101, 0, 0, 0, 0); // empty days are not stored
+        assertEquals(1, days.size());
+
+        PefStats none = PefStats.compute(days, 102, 110, 400);
+        assertTrue(none.isEmpty());
+        assertEquals(0, none.mean, 0);
+        assertEquals(Integer.MIN_VALUE, none.ewmaDay);
+
+        PefStats noPb = PefStats.compute(days, 90, 100, 0);
+        assertEquals(300, noPb.lastDayMean, 0);
+        assertEquals(0, noPb.daysBelowPb);
+        assertEquals(0, noPb.percentBelowPb(), 0);
+        // (320 - 280) / 300
+        assertEquals(40 / 3.0, noPb.variability, 1e-9);
+    }
+
+    // ─────────────────────────────────────────────────────────────────
+    // PefStatsLoader
+    // ─────────────────────────────────────────────────────────────────
+
+    private static long at(int y, int m, int d, int hour) {
+        return DateCodec.startOfDay(AdherenceCalculator.epochDay(y, m, d), ZONE) + hour * 3600_000L;
+    }
+
+    private void reading(String key, long ts, Object value) {
+        Map<String, Object> e = new HashMap<>();
+        e.put("timestamp", ts);
+        e.put("value", value);
+        repo.put("children/" + CHILD + "/logs/PEF_log/" + key, e);
+    }
+
+    private PefStats load(PefStatsLoader loader, int firstDay, int lastDay) {
+        final PefStats[] out = new PefStats[1];
+        loader.load(CHILD, firstDay, lastDay, ZONE, new PefStatsLoader.StatsCallback() {
+            @Override
+            public void onResult(PefStats stats) {
+                out[0] = stats;
+            }
+
+            @Override
+            public void onError(String message) {
+                throw new AssertionError(message);
+            }
+        });
+        assertNotNull(out[0]);
+        return out[0];
+    }
+
+    @Test
+    public void loader_readsDayAggregatesAndCachesPerChildAndDay() {
+        repo.put("children/" + CHILD + "/data/pb", 400L);
+        reading("PEF1", at(2025, 3, 1, 8), 300L);
+        reading("PEF2", at(2025, 3, 1, 20), "340");
+        reading("PEF3", at(2025, 3, 3, 8), 280.0);
+        reading("PEF4", at(2025, 1, 1, 8), 500L); // before the window
+
+        PefStatsCache cache = new PefStatsCache(8);
+        PefStatsLoader loader = new PefStatsLoader(repo, cache);
+        int first = AdherenceCalculator.epochDay(2025, 2, 20);
+        int last = AdherenceCalculator.epochDay(2025, 3, 3);
+
+        PefStats s = load(loader, first, last);
+        assertEquals(3, s.readings);
+        assertEquals(2, s.daysWithReadings);
+        assertEquals(920 / 3.0, s.mean, 1e-9);
+        assertEquals(280, s.lastDayMean, 0);
+        assertEquals(1, s.daysBelowPb); // 280 < 320; Mar 1 averaged 320
+        assertEquals(400, s.pb, 0);
+
+        repo.resetStats();
+        assertSame(s, load(loader, first, last));
+        assertEquals(0, repo.getReads());
+
+        cache.invalidate(CHILD);
+        load(loader, first, last);
+        assertEquals(3, repo.getReads()); // pb, backfill marker, day range
+    }
+
+    @Test
+    public void reportAverage_matchesAFullScan() {
+        Random random = new Random(5);
+        long now = System.currentTimeMillis();
+        double sum = 0;
+        int n = 0;
+        for (int i = 0; i < 400; i++) {
+            long ts = now - (long) (random.nextDouble() * 300 * DateCodec.DAY_MS);
+            double v = 150 + random.nextInt(300);
+            reading(String.format("PEF%03d", i), ts, v);
+        }
+        ProviderReportHelper report = new ProviderReportHelper(CHILD, "Andy", repo);
+        String start = report.reverseDate(report.today(), 6);
+        long startMillis = DateCodec.parseMillis(start, TimeZone.getDefault());
+        for (TreeNode e : readAll()) {
+            if (RecordTime.of(e) >= startMillis) {
+                sum += e.child("value").getDouble();
+                n++;
+            }
+        }
+        assertTrue(n > 0);
+
+        PefStatsCache.getInstance().invalidate(CHILD);
+        final double[] avg = new double[1];
+        report.averagePEF(start, v -> avg[0] = v);
+        assertEquals(sum / n, avg[0], 1e-9);
+    }
+
+    private Iterable<TreeNode> readAll() {
+        final TreeNode[] out = new TreeNode[1];
+        repo.read("children/" + CHILD + "/logs/PEF_log", new UserTreeRepository.NodeCallback() {
+            @Override
+            public void onResult(TreeNode node) {
+                out[0] = node;
+            }
+
+            @Override
+            public void onError(String message) {
+                throw new AssertionError(message);
+            }
+        });
+        return out[0].getChildren();
+    }
+
+    // ─────────────────────────────────────────────────────────────────
+    // BENCHMARK
+    // ─────────────────────────────────────────────────────────────────
+
+    @Test
+    public void benchmark_tenYearsInOnePass() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(mx.isThreadAllocatedMemorySupported());
+        mx.setThreadAllocatedMemoryEnabled(true);
+
+        int first = AdherenceCalculator.epochDay(2015, 1, 1);
+        int span = 3650;
+        PefStats.Days days = toArrays(randomDays(new Random(2), first, span));
+        final int runs = 2000;
+        for (int i = 0; i < runs; i++) PefStats.compute(days, first, first + span - 1, 400);
+
+        long tid = Thread.currentThread().getId();
+        long a0 = mx.getThreadAllocatedBytes(tid);
+        long t0 = System.nanoTime();
+        double check = 0;
+        for (int i = 0; i < runs; i++) check += PefStats.compute(days, first, first + span - 1, 400).ewma;
+        long nanos = System.nanoTime() - t0;
+        long bytes = mx.getThreadAllocatedBytes(tid) - a0;
+
+        System.out.printf("PefStats: %d days (%d with readings): %.1f us per pass, %.0f B per pass (%.0f)%n",
+                span, days.size(), nanos / 1e3 / runs, bytes / (double) runs, check / runs);
+        // Only the result object: nothing per day
+        assertTrue(bytes / (double) runs < 256);
+    }
+}
@@ -0,0 +1,348 @@
+package com.example.SmartAirGroup2;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for ProviderReportLoader: the joined report matches the helper's
+ * one-at-a-time results, metrics that miss the timeout are left out, and the
+ * fan-out against the old sequential chain on a repository with simulated
+ * latency.
+ */
+public class ProviderReportLoaderTest {
+
+    private static final String CHILD = "andy";
+    private static final long LATENCY_MS = 40;
+
+    private InMemoryUserTreeRepository memory;
+    private SlowRepository slow;
+    private ScheduledExecutorService timer;
+    private String start;
+
+    @Before
+    public void setUp() {
+        memory = new InMemoryUserTreeRepository();
+        slow = new SlowRepository(memory, LATENCY_MS);
+        timer = Executors.newSingleThreadScheduledExecutor();
+        PefStatsCache.getInstance().invalidate(CHILD);
+        AdherenceCache.getInstance().invalidate(CHILD);
+
+        Random random = new Random(7);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 120; i++) {
+            long ts = now - (long) (random.nextDouble() * 90 * DateCodec.DAY_MS);
+            record("logs/PEF_log/PEF" + i, ts, "value", 180.0 + random.nextInt(260));
+            if (i % 3 == 0) record("logs/rescue_log/R" + i, ts, "count", 1L);
+            if (i % 4 == 0) record("data/symptoms/S" + i, ts, "cough", true);
+            if (i % 10 == 0) {
+                Map<String, Object> triage = record("data/triages/T" + i, ts, "PEF", "210");
+                triage.put("time", DateCodec.format(ts, java.util.TimeZone.getDefault(), DateCodec.Layout.DATE_SLASH));
+                memory.put(path("data/triages/T" + i), triage);
+            }
+        }
+        memory.put(path("data/pb"), 400L);
+        memory.put(path("shareToProviderPermissions/triage"), true);
+        Map<String, Object> days = new HashMap<>();
+        for (String d : AdherenceCalculator.DAY_KEYS) days.put(d, true);
+        Map<String, Object> schedule = new HashMap<>();
+        schedule.put("medication", "Flovent");
+        schedule.put("timesPerDay", 1L);
+        schedule.put("daysOfWeek", days);
+        memory.put(path("controller_schedule"), schedule);
+
+        ProviderReportHelper helper = new ProviderReportHelper(CHILD, "Andy", memory);
+        start = helper.reverseDate(helper.today(), 3);
+        // migrate and backfill up front, like a child whose report ran before
+        load(memory, 5_000);
+    }
+
+    @After
+    public void tearDown() {
+        slow.shutdown();
+        timer.shutdownNow();
+    }
+
+    private static String path(String sub) {
+        return "children/" + CHILD + "/" + sub;
+    }
+
+    private Map<String, Object> record(String sub, long ts, String field, Object value) {
+        Map<String, Object> e = new HashMap<>();
+        e.put("timestamp", ts);
+        e.put(field, value);
+        memory.put(path(sub), e);
+        return e;
+    }
+
+    private ProviderReportLoader.Report load(UserTreeRepository repo, long timeoutMs) {
+        PefStatsCache.getInstance().invalidate(CHILD);
+        AdherenceCache.getInstance().invalidate(CHILD);
+        final ProviderReportLoader.Report[] out = new ProviderReportLoader.Report[1];
+        final CountDownLatch done = new CountDownLatch(1);
+        new ProviderReportLoader(new ProviderReportHelper(CHILD, "Andy", repo), timeoutMs, timer, Runnable::run)
+                .load(start, report -> {
+                    out[0] = report;
+                    done.countDown();
+                });
+        await(done);
+        assertNotNull(out[0]);
+        return out[0];
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Test
+    public void load_joinsEveryMetric() {
+        ProviderReportHelper helper = new ProviderReportHelper(CHILD, "Andy", memory);
+        final Object[] expected = new Object[4];
+        helper.countRescueFrequency(start, v -> expected[0] = v);
+        helper.controllerAdherence(start, v -> expected[1] = v);
+        helper.countUniqueSymptomDays(start, v -> expected[2] = v);
+        helper.triageIncidents(start, v -> expected[3] = v);
+
+        ProviderReportLoader.Report report = load(slow, 5_000);
+        assertTrue(report.isComplete());
+        assertEquals((Double) expected[0], report.rescueFrequency, 1e-9);
+        assertEquals((Double) expected[1], report.adherence, 1e-9);
+        assertEquals(expected[2], report.symptomDays);
+        assertEquals(((Map<?, ?>) expected[3]).size(), report.triages.size());
+        assertEquals(12, report.triages.size());
+        assertEquals(400, report.pef.pb, 0);
+        assertTrue(report.pef.readings > 0);
+        assertFalse(report.pefTrend.buckets().isEmpty());
+    }
+
+    @Test
+    public void load_withoutPermissionSkipsTheIncidents() {
+        memory.put(path("shareToProviderPermissions/triage"), false);
+        slow.hangPathsContaining("data/triages"); // never asked for
+
+        ProviderReportLoader.Report report = load(slow, 5_000);
+        assertTrue(report.isComplete());
+        assertNull(report.triages);
+    }
+
+    @Test
+    public void load_leavesOutMetricsThatMissTheTimeout() {
+        slow.hangPathsContaining("data/triages");
+        long t0 = System.nanoTime();
+        ProviderReportLoader.Report report = load(slow, 500);
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+
+        assertFalse(report.isComplete());
+        assertFalse(report.has(ProviderReportLoader.TRIAGE));
+        for (int m : new int[]{ProviderReportLoader.RESCUE, ProviderReportLoader.ADHERENCE,
+                ProviderReportLoader.SYMPTOMS, ProviderReportLoader.PEF_STATS, ProviderReportLoader.PEF_TREND}) {
+            assertTrue(report.has(m));
+        }
+        assertTrue(ms >= 500 && ms < 5_000);
+    }
+
+    @Test
+    public void load_deliversWhenTheMigrationMarkerNeverAnswers() {
+        slow.hangPathsContaining(TimestampMigration.STATE); // offline, nothing cached
+        ProviderReportLoader.Report report = load(slow, 300);
+
+        assertFalse(report.isComplete());
+        for (int m = 0; m < ProviderReportLoader.METRICS; m++) assertFalse(report.has(m));
+    }
+
+    @Test
+    public void load_readsAChildNotMigratedYetWithoutWriting() {
+        ProviderReportLoader.Report migrated = load(slow, 5_000);
+        // a child whose session has not migrated: one rescue saved with its date string only
+        memory.put(path(TimestampMigration.STATE), null);
+        Map<String, Object> legacy = new HashMap<>();
+        legacy.put("dateTime", DateCodec.format(System.currentTimeMillis() - DateCodec.DAY_MS,
+                java.util.TimeZone.getDefault(), DateCodec.Layout.MINUTES_DASH));
+        memory.put(path("logs/rescue_log/legacy"), legacy);
+
+        slow.resetStats();
+        ProviderReportLoader.Report report = load(slow, 5_000);
+        assertTrue(report.isComplete());
+        // one marker read for the three record queries, and nothing written
+        assertEquals(1, slow.getReadsOf(TimestampMigration.STATE + "/" + TimestampMigration.DONE));
+        assertNull(memory.get(path(TimestampMigration.STATE)));
+        assertNull(memory.get(path("logs/rescue_log/legacy/timestamp")));
+        // the same answers, counting the legacy record by its date string
+        assertEquals(migrated.symptomDays, report.symptomDays);
+        assertEquals(migrated.triages.size(), report.triages.size());
+        assertTrue(report.rescueFrequency > migrated.rescueFrequency);
+    }
+
+    // ─────────────────────────────────────────────────────────────────
+    // BENCHMARK
+    // ─────────────────────────────────────────────────────────────────
+
+    /** The export as it was: each metric asked for after the previous one answered. */
+    private void sequential(UserTreeRepository repo) {
+        PefStatsCache.getInstance().invalidate(CHILD);
+        AdherenceCache.getInstance().invalidate(CHILD);
+        final ProviderReportHelper helper = new ProviderReportHelper(CHILD, "Andy", repo);
+        final CountDownLatch done = new CountDownLatch(1);
+        helper.countRescueFrequency(start, rescue ->
+                helper.controllerAdherence(start, adherence ->
+                        helper.countUniqueSymptomDays(start, symptoms ->
+                                helper.pefStats(start, pef ->
+                                        repo.read(path("data/pb"), new UserTreeRepository.NodeCallback() {
+                                            @Override
+                                            public void onResult(TreeNode pb) {
+                                                helper.pefTrend(start, trend ->
+                                                        helper.checkPermission(granted ->
+                                                                helper.triageIncidents(start, triages -> done.countDown())));
+                                            }
+
+                                            @Override
+                                            public void onError(String message) {
+                                                throw new AssertionError(message);
+                                            }
+                                        })))));
+        await(done);
+    }
+
+    @Test
+    public void benchmark_fanOutAgainstSequentialChain() {
+        sequential(slow);
+        load(slow, 5_000);
+
+        final int runs = 5;
+        slow.resetStats();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < runs; i++) sequential(slow);
+        long sequentialMs = (System.nanoTime() - t0) / 1_000_000 / runs;
+        int sequentialReads = slow.getReads() / runs;
+
+        slow.resetStats();
+        t0 = System.nanoTime();
+        for (int i = 0; i < runs; i++) assertTrue(load(slow, 5_000).isComplete());
+        long fanOutMs = (System.nanoTime() - t0) / 1_000_000 / runs;
+        int fanOutReads = slow.getReads() / runs;
+
+        System.out.println("ProviderReport @ " + LATENCY_MS + " ms/read: sequential " + sequentialMs + " ms ("
+                + sequentialReads + " reads), fan-out " + fanOutMs + " ms (" + fanOutReads + " reads, peak "
+                + slow.getPeak() + " in flight)");
+
+        // same reads, less the separate PB read
+        assertEquals(sequentialReads - 1, fanOutReads);
+        // the longest chain (marker then query, or permission then marker then
+        // incidents) instead of every round trip in a row
+        assertTrue(fanOutMs < sequentialMs / 2);
+        assertTrue(fanOutMs < 5 * LATENCY_MS);
+    }
+
+    /**
+     * Delegates to an InMemoryUserTreeRepository after a fixed delay, calling
+     * back from a pool thread like a network client would.
+     */
+    private static class SlowRepository implements UserTreeRepository {
+        private final InMemoryUserTreeRepository inner;
+        private final long latencyMs;
+        private final ScheduledExecutorService timer = Executors.newScheduledThreadPool(16);
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger peak = new AtomicInteger();
+        private final AtomicInteger reads = new AtomicInteger();
+        private final Map<String, Integer> readsByPath = new HashMap<>();
+        private String hanging;
+
+        SlowRepository(InMemoryUserTreeRepository inner, long latencyMs) {
+            this.inner = inner;
+            this.latencyMs = latencyMs;
+        }
+
+        /** Reads of matching paths never answer. */
+        void hangPathsContaining(String part) {
+            hanging = part;
+        }
+
+        void resetStats() {
+            peak.set(0);
+            reads.set(0);
+            synchronized (readsByPath) {
+                readsByPath.clear();
+            }
+        }
+
+        /** Reads and queries of paths ending in the given part since resetStats(). */
+        int getReadsOf(String part) {
+            int n = 0;
+            synchronized (readsByPath) {
+                for (Map.Entry<String, Integer> e : readsByPath.entrySet()) {
+                    if (e.getKey().endsWith(part)) n += e.getValue();
+                }
+            }
+            return n;
+        }
+
+        int getPeak() {
+            return peak.get();
+        }
+
+        int getReads() {
+            return reads.get();
+        }
+
+        void shutdown() {
+            timer.shutdownNow();
+        }
+
+        private void later(String path, Runnable call) {
+            reads.incrementAndGet();
+            synchronized (readsByPath) {
+                readsByPath.merge(path, 1, Integer::sum);
+            }
+            if (hanging != null && path.contains(hanging)) return;
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            timer.schedule(() -> {
+                inFlight.decrementAndGet();
+                call.run();
+            }, latencyMs, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void read(String path, NodeCallback callback) {
+            later(path, () -> inner.read(path, callback));
+        }
+
+        @Override
+        public void query(String path, TreeQuery query, NodeCallback callback) {
+            later(path, () -> inner.query(path, query, callback));
+        }
+
+        @Override
+        public void write(String path, Object value, WriteCallback callback) {
+            inner.write(path, value, callback);
+        }
+
+        @Override
+        public void update(String path, Map<String, Object> values, WriteCallback callback) {
+            inner.update(path, values, callback);
+        }
+
+        @Override
+        public void compareAndSet(String path, Object expected, Object value, SetCallback callback) {
+            inner.compareAndSet(path, expected, value, callback);
+        }
+    }
+}
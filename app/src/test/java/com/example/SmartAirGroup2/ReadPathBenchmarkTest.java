@@ -0,0 +1,348 @@
+package com.example.SmartAirGroup2;
+
+import com.example.SmartAirGroup2.auth.data.repo.CredentialRecord;
+import com.example.SmartAirGroup2.auth.data.repo.CredentialStore;
+import com.example.SmartAirGroup2.auth.data.repo.PasswordRecovery;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM benchmark for every data-access path that goes through
+ * UserTreeRepository, run against a synthetic tree (SyntheticUserTree).
+ *
+ * For each path it reports per call: latency, reads issued, nodes read (what
+ * the snapshot would cost on the wire) and bytes allocated on the calling
+ * thread. Paths are run for one child of the tree, so the numbers scale with
+ * that child's history, not with the number of children.
+ *
+ * Size with -Dbench.children (default 6) and -Dbench.days (default 1095,
+ * three years), e.g. -Dbench.children=500 with a 4 GB heap.
+ */
+public class ReadPathBenchmarkTest {
+
+    private static final int CHILDREN = Integer.getInteger("bench.children", 6);
+    private static final int DAYS = Integer.getInteger("bench.days", 1095);
+    private static final int WARMUP = 3;
+    private static final int RUNS = 10;
+
+    private static InMemoryUserTreeRepository repo;
+    private static String child;
+    private static String parent;
+
+    /** One read path; returns its result so the call cannot be optimised away. */
+    private interface ReadPath {
+        Object run() throws Exception;
+    }
+
+    /** Per-call averages for one path. */
+    private static class Stats {
+        double micros;
+        double reads;
+        double nodes;
+        double bytes;
+    }
+
+    @BeforeClass
+    public static void seed() {
+        repo = new InMemoryUserTreeRepository();
+        new SyntheticUserTree(42).seed(repo, CHILDREN, DAYS, System.currentTimeMillis());
+        child = SyntheticUserTree.childUname(0);
+        parent = SyntheticUserTree.parentUname(0);
+        // Done by the child's own session before any report is opened
+        // (DailyBackfill.ensureInBackground)
+        UserTreeRepository.WriteCallback done = new UserTreeRepository.WriteCallback() {
+            @Override
+            public void onSuccess() {
+            }
+
+            @Override
+            public void onError(String message) {
+                throw new AssertionError(message);
+            }
+        };
+        TimestampMigration.ensure(repo, child, done);
+        DailyBackfill.ensure(repo, child, TimeZone.getDefault(), done);
+    }
+
+    private static Map<String, ReadPath> paths() {
+        final ProviderReportHelper report = new ProviderReportHelper(child, "Kid", repo);
+        final String sixMonthsAgo = report.reverseDate(report.today(), 6);
+        final RescueTrendFetcher trend = new RescueTrendFetcher(repo);
+        final AlertLoader alerts = new AlertLoader(repo);
+        final TrendLoader trends = new TrendLoader(repo);
+        final CredentialStore profileStore = profileLeaves(repo);
+
+        Map<String, ReadPath> paths = new LinkedHashMap<>();
+        // What every range filter cost before timestamp queries: the whole log
+        paths.put("scan.PEF_log", () -> readAll("children/" + child + "/logs/PEF_log"));
+        paths.put("scan.rescue_log", () -> readAll("children/" + child + "/logs/rescue_log"));
+        paths.put("scan.controller_log", () -> readAll("children/" + child + "/logs/controller_log"));
+        paths.put("report.countUniqueSymptomDays", () -> {
+            Object[] out = new Object[1];
+            report.countUniqueSymptomDays(sixMonthsAgo, v -> out[0] = v);
+            return out[0];
+        });
+        paths.put("report.controllerAdherence", () -> {
+            AdherenceCache.getInstance().clear();
+            Object[] out = new Object[1];
+            report.controllerAdherence(sixMonthsAgo, v -> out[0] = v);
+            return out[0];
+        });
+        paths.put("report.countRescueFrequency", () -> {
+            Object[] out = new Object[1];
+            report.countRescueFrequency(sixMonthsAgo, v -> out[0] = v);
+            return out[0];
+        });
+        paths.put("report.averagePEF", () -> {
+            PefStatsCache.getInstance().clear();
+            Object[] out = new Object[1];
+            report.averagePEF(sixMonthsAgo, v -> out[0] = v);
+            return out[0];
+        });
+        paths.put("report.pefStats.cached", () -> {
+            Object[] out = new Object[1];
+            report.pefStats(sixMonthsAgo, v -> out[0] = v);
+            return out[0];
+        });
+        paths.put("report.pefTrend", () -> {
+            Object[] out = new Object[1];
+            report.pefTrend(sixMonthsAgo, v -> out[0] = v);
+            return out[0];
+        });
+        paths.put("report.triageIncidents", () -> {
+            Object[] out = new Object[1];
+            report.triageIncidents(sixMonthsAgo, v -> out[0] = v);
+            return out[0];
+        });
+        paths.put("report.checkPermission", () -> {
+            Object[] out = new Object[1];
+            report.checkPermission(v -> out[0] = v);
+            return out[0];
+        });
+        paths.put("adherence.last7Days", () -> {
+            AdherenceCache.getInstance().clear();
+            return last7DaysAdherence();
+        });
+        paths.put("adherence.last7Days.cached", ReadPathBenchmarkTest::last7DaysAdherence);
+        paths.put("rescueTrend.30days", () -> {
+            Object[] out = new Object[1];
+            trend.loadRescueTrendData(child, 30, null, new ChartDataCallback() {
+                @Override
+                public void onDataReady(Map<String, Integer> dailyCounts) {
+                    out[0] = dailyCounts;
+                }
+
+                @Override
+                public void onFailure(String errorMessage) {
+                    throw new AssertionError(errorMessage);
+                }
+            });
+            return out[0];
+        });
+        paths.put("trend.rescue.1year", () -> {
+            Object[] out = new Object[1];
+            long now = System.currentTimeMillis();
+            trends.loadRescueTrend(child, now - 364L * 24 * 60 * 60 * 1000, now, trendInto(out));
+            return out[0];
+        });
+        paths.put("trend.pef.allTime", () -> {
+            Object[] out = new Object[1];
+            trends.loadPefTrend(child, TrendLoader.ALL_TIME, System.currentTimeMillis(), trendInto(out));
+            return out[0];
+        });
+        paths.put("alertCenter.load", () -> {
+            Object[] out = new Object[1];
+            alerts.load(parent, list -> out[0] = list);
+            return out[0];
+        });
+        paths.put("passwordRecovery.profile", () ->
+                PasswordRecovery.findPassword(profileStore, child, child + "@example.com", "child"));
+        return paths;
+    }
+
+    private static TreeNode readAll(String path) {
+        TreeNode[] out = new TreeNode[1];
+        repo.read(path, new UserTreeRepository.NodeCallback() {
+            @Override
+            public void onResult(TreeNode node) {
+                out[0] = node;
+            }
+
+            @Override
+            public void onError(String message) {
+                throw new AssertionError(message);
+            }
+        });
+        return out[0];
+    }
+
+    private static TrendLoader.TrendCallback trendInto(final Object[] out) {
+        return new TrendLoader.TrendCallback() {
+            @Override
+            public void onResult(TrendBuckets trend) {
+                out[0] = trend;
+            }
+
+            @Override
+            public void onError(String message) {
+                throw new AssertionError(message);
+            }
+        };
+    }
+
+    private static AdherenceCalculator.AdherenceResult last7DaysAdherence() {
+        AdherenceCalculator.AdherenceResult[] out = new AdherenceCalculator.AdherenceResult[1];
+        AdherenceRepository.getLast7DaysAdherence(repo, child, new AdherenceRepository.AdherenceCallback() {
+            @Override
+            public void onResult(AdherenceCalculator.AdherenceResult result) {
+                out[0] = result;
+            }
+
+            @Override
+            public void onError(Exception e) {
+                throw new AssertionError(e);
+            }
+        });
+        return out[0];
+    }
+
+    /** Credential lookup from the profile leaves, as FirebaseCredentialStore does before the index exists. */
+    private static CredentialStore profileLeaves(final UserTreeRepository repo) {
+        return (group, uname) -> {
+            String base = group + "/" + uname + "/";
+            TreeNode[] leaves = new TreeNode[3];
+            String[] names = {"email", "password", "type"};
+            for (int i = 0; i < names.length; i++) {
+                final int slot = i;
+                repo.read(base + names[i], new UserTreeRepository.NodeCallback() {
+                    @Override
+                    public void onResult(TreeNode node) {
+                        leaves[slot] = node;
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        throw new AssertionError(message);
+                    }
+                });
+            }
+            if (!leaves[0].exists()) return null;
+            return new CredentialRecord(uname, leaves[0].getString(),
+                    String.valueOf(leaves[1].getValue()), leaves[2].getString());
+        };
+    }
+
+    private static Stats measure(ReadPath path) throws Exception {
+        com.sun.management.ThreadMXBean mx = allocationBean();
+        long tid = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP; i++) assertNotNull(path.run());
+
+        repo.resetStats();
+        long bytes0 = mx == null ? 0 : mx.getThreadAllocatedBytes(tid);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) assertNotNull(path.run());
+        long nanos = System.nanoTime() - t0;
+        long bytes = mx == null ? 0 : mx.getThreadAllocatedBytes(tid) - bytes0;
+
+        Stats s = new Stats();
+        s.micros = nanos / 1000.0 / RUNS;
+        s.reads = repo.getReads() / (double) RUNS;
+        s.nodes = repo.getNodesRead() / (double) RUNS;
+        s.bytes = bytes / (double) RUNS;
+        return s;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return null;
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) bean;
+        if (!mx.isThreadAllocatedMemorySupported()) return null;
+        mx.setThreadAllocatedMemoryEnabled(true);
+        return mx;
+    }
+
+    @Test
+    public void benchmark_allReadPaths() throws Exception {
+        System.out.printf("Read paths: %d children, %d days of history%n", CHILDREN, DAYS);
+        System.out.printf("%-30s %10s %6s %10s %12s%n", "path", "us/call", "reads", "nodes", "bytes");
+
+        Map<String, Stats> results = new LinkedHashMap<>();
+        for (Map.Entry<String, ReadPath> e : paths().entrySet()) {
+            Stats s = measure(e.getValue());
+            results.put(e.getKey(), s);
+            System.out.printf("%-30s %10.1f %6.1f %10.0f %12.0f%n",
+                    e.getKey(), s.micros, s.reads, s.nodes, s.bytes);
+        }
+
+        for (Map.Entry<String, Stats> e : results.entrySet()) {
+            if (e.getKey().endsWith(".cached")) continue;
+            assertTrue(e.getKey() + " issued no reads", e.getValue().reads > 0);
+        }
+        // Reopening adherence with unchanged data is served by AdherenceCache
+        assertEquals(0.0, results.get("adherence.last7Days.cached").reads, 0);
+        // A 30-day window query must cost less than a scan of the whole rescue history
+        assertTrue(results.get("rescueTrend.30days").nodes < results.get("scan.rescue_log").nodes);
+        // Six months of report data is a timestamp range, not the whole log (three years)
+        assertTrue(results.get("report.averagePEF").nodes < results.get("scan.PEF_log").nodes / 4);
+        assertTrue(results.get("report.countRescueFrequency").nodes < results.get("scan.rescue_log").nodes / 4);
+        // PEF statistics read one pefDaily node per day (five nodes with count/sum/min/max)
+        // for six months, and are then cached per child and day
+        assertTrue(results.get("report.averagePEF").nodes < 5 * 190);
+        assertEquals(0.0, results.get("report.pefStats.cached").reads, 0);
+        // The report's PEF chart folds six months of pefDaily nodes, not PEF_log entries
+        assertTrue(results.get("report.pefTrend").nodes < results.get("scan.PEF_log").nodes / 4);
+        // With the counters built, the rescue window is at most 30 day counters plus the newest entry
+        assertTrue(results.get("rescueTrend.30days").nodes <= RescueWindow.DAYS + 10);
+        // Long-range trends read day nodes, not the logs, and stay within the chart's point budget
+        assertTrue(results.get("trend.pef.allTime").nodes < results.get("scan.PEF_log").nodes / 3);
+        assertTrue(results.get("trend.rescue.1year").nodes < results.get("scan.rescue_log").nodes / 3);
+        // With the counters built, 7-day adherence reads day counters, not controller_log
+        assertTrue(results.get("adherence.last7Days").nodes < 100);
+        // The report's six months of adherence is one day counter per day, not the controller_log
+        assertTrue(results.get("report.controllerAdherence").nodes < results.get("scan.controller_log").nodes / 4);
+    }
+
+    @Test
+    public void readPaths_computeFromSeededData() throws Exception {
+        Map<String, ReadPath> paths = paths();
+
+        AdherenceCalculator.AdherenceResult adherence =
+                (AdherenceCalculator.AdherenceResult) paths.get("adherence.last7Days").run();
+        assertEquals(7, adherence.dailyList.size());
+
+        @SuppressWarnings("unchecked")
+        Map<String, Integer> trend = (Map<String, Integer>) paths.get("rescueTrend.30days").run();
+        assertEquals(30, trend.size());
+
+        // Provider report and adherence screens share one engine
+        ProviderReportHelper report = new ProviderReportHelper(child, "Kid", repo);
+        String sevenDaysAgo = new SimpleDateFormat("yyyy/MM/dd", Locale.getDefault())
+                .format(new Date(System.currentTimeMillis() - 6L * 24 * 60 * 60 * 1000));
+        double[] reported = new double[1];
+        report.controllerAdherence(sevenDaysAgo, v -> reported[0] = v);
+        assertEquals(adherence.overallPercent, reported[0], 1e-9);
+
+        TrendBuckets pefTrend = (TrendBuckets) paths.get("trend.pef.allTime").run();
+        assertEquals(TrendBuckets.Granularity.WEEK, pefTrend.getGranularity());
+        assertTrue(pefTrend.size() <= TrendBuckets.MAX_POINTS);
+
+        double avgPef = (Double) paths.get("report.averagePEF").run();
+        assertTrue(avgPef > 100 && avgPef < 500);
+
+        assertEquals("!Child0000", paths.get("passwordRecovery.profile").run());
+    }
+}
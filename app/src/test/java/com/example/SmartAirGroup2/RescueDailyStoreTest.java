@@ -0,0 +1,174 @@
+package com.example.SmartAirGroup2;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the rescueDaily counters: day keys, backfill from
+ * rescue_log, window reads that touch only the counters, and the
+ * consistency check.
+ */
+public class RescueDailyStoreTest {
+
+    private static final TimeZone ZONE = TimeZone.getTimeZone("America/Toronto");
+    private static final String CHILD = "andy";
+    private static final String NODE = "children/" + CHILD + "/" + RescueDailyStore.NODE;
+
+    private InMemoryUserTreeRepository repo;
+    private int logs;
+
+    @Before
+    public void setUp() {
+        repo = new InMemoryUserTreeRepository();
+        logs = 0;
+    }
+
+    private static long at(int month, int day, int hour) {
+        Calendar c = Calendar.getInstance(ZONE);
+        c.clear();
+        c.set(2025, month - 1, day, hour, 0);
+        return c.getTimeInMillis();
+    }
+
+    private void rescue(long ts, String dateTime) {
+        Map<String, Object> e = new HashMap<>();
+        e.put("type", "inhaler");
+        if (ts > 0) e.put("timestamp", ts);
+        e.put("dateTime", dateTime);
+        repo.put("children/" + CHILD + "/logs/rescue_log/rescue" + (++logs), e);
+    }
+
+    private int[] loadWindow(int firstDay, int lastDay) {
+        final int[][] out = new int[1][];
+        RescueDailyStore.loadWindow(repo, CHILD, firstDay, lastDay, ZONE, new RescueDailyStore.WindowCallback() {
+            @Override
+            public void onResult(int first, int[] rescuesPerDay) {
+                assertEquals(firstDay, first);
+                out[0] = rescuesPerDay;
+            }
+
+            @Override
+            public void onError(String message) {
+                throw new AssertionError(message);
+            }
+        });
+        assertNotNull(out[0]);
+        return out[0];
+    }
+
+    private void backfill() {
+        final boolean[] done = {false};
+        RescueDailyStore.backfill(repo, CHILD, ZONE, new UserTreeRepository.WriteCallback() {
+            @Override
+            public void onSuccess() {
+                done[0] = true;
+            }
+
+            @Override
+            public void onError(String message) {
+                throw new AssertionError(message);
+            }
+        });
+        assertTrue(done[0]);
+    }
+
+    private List<RescueDailyStore.Drift> check(boolean repair) {
+        final Object[] out = new Object[1];
+        RescueDailyStore.check(repo, CHILD, ZONE, repair, new RescueDailyStore.CheckCallback() {
+            @Override
+            public void onResult(List<RescueDailyStore.Drift> drift) {
+                out[0] = drift;
+            }
+
+            @Override
+            public void onError(String message) {
+                throw new AssertionError(message);
+            }
+        });
+        assertNotNull(out[0]);
+        @SuppressWarnings("unchecked")
+        List<RescueDailyStore.Drift> drift = (List<RescueDailyStore.Drift>) out[0];
+        return drift;
+    }
+
+    private static int day(long ts) {
+        return AdherenceCalculator.epochDay(ts, ZONE);
+    }
+
+    @Test
+    public void dayKey_prefersTimestampThenDateTime() {
+        assertEquals("2025-03-01", RescueDailyStore.dayKey(at(3, 1, 23), "2025-03-02 04:00", ZONE));
+        assertEquals("2025-03-02", RescueDailyStore.dayKey(0, "2025-03-02 04:00", ZONE));
+        assertNull(RescueDailyStore.dayKey(0, "02/03/2025", ZONE));
+        assertNull(RescueDailyStore.dayKey(0, null, ZONE));
+    }
+
+    @Test
+    public void loadWindow_countsFromTheLogUntilBackfilled() {
+        rescue(at(3, 1, 8), "2025-03-01 08:00");
+        rescue(at(3, 1, 20), "2025-03-01 20:00");
+        rescue(at(3, 3, 9), "2025-03-03 09:00");
+        rescue(0, "2025-03-04 10:00");
+        rescue(at(1, 15, 9), "2025-01-15 09:00");
+
+        int first = day(at(3, 1, 12));
+        assertArrayEquals(new int[]{2, 0, 1, 1}, loadWindow(first, first + 3));
+        assertNull(repo.get(NODE)); // read paths never write
+
+        backfill();
+        assertNotNull(repo.get(NODE + "/" + RescueDailyStore.BACKFILLED_AT));
+        assertEquals(1L, repo.get(NODE + "/2025-01-15"));
+
+        repo.resetStats();
+        assertArrayEquals(new int[]{2, 0, 1, 1}, loadWindow(first, first + 3));
+        assertEquals(2, repo.getReads());
+        assertEquals(4, repo.getNodesRead()); // marker + query root + 2 stored days
+    }
+
+    @Test
+    public void check_reportsAndRepairsDrift() {
+        rescue(at(3, 1, 8), "2025-03-01 08:00");
+        rescue(at(3, 2, 8), "2025-03-02 08:00");
+        int first = day(at(3, 1, 12));
+        backfill();
+        assertTrue(check(false).isEmpty());
+
+        repo.put(NODE + "/2025-03-01", 3L);     // lost decrement
+        repo.put(NODE + "/2025-03-02", null);   // lost increment
+        repo.put(NODE + "/2025-02-27", 1L);     // counted rescue that no longer exists
+
+        List<RescueDailyStore.Drift> drift = check(false);
+        assertEquals(3, drift.size());
+        assertEquals("2025-02-27", drift.get(0).day);
+        assertEquals(1, drift.get(0).stored);
+        assertEquals(0, drift.get(0).actual);
+        assertEquals("2025-03-01: stored 3, log 1", drift.get(1).toString());
+        assertEquals(0, drift.get(2).stored);
+        assertEquals(1, drift.get(2).actual);
+        assertEquals(3L, repo.get(NODE + "/2025-03-01")); // report only
+
+        assertEquals(3, check(true).size());
+        assertTrue(check(false).isEmpty());
+        assertArrayEquals(new int[]{1, 1}, loadWindow(first, first + 1));
+    }
+
+    @Test
+    public void check_repairBuildsMissingCounters() {
+        rescue(at(3, 1, 8), "2025-03-01 08:00");
+        assertEquals(1, check(true).size());
+        assertNotNull(repo.get(NODE + "/" + RescueDailyStore.BACKFILLED_AT));
+        assertEquals(1L, repo.get(NODE + "/2025-03-01"));
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.SmartAirGroup2;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for RescueWindow and RescueTrendFetcher.loadRescueWindow: the
+ * rescueDaily counters feed the weekly count and both histograms, and one
+ * entry read gives the last rescue time.
+ */
+public class RescueWindowTest {
+
+    private static final TimeZone ZONE = TimeZone.getTimeZone("America/Toronto");
+    private static final String CHILD = "andy";
+
+    private InMemoryUserTreeRepository repo;
+    private RescueTrendFetcher fetcher;
+    private Calendar now;
+    private int rescues;
+
+    @Before
+    public void setUp() {
+        repo = new InMemoryUserTreeRepository();
+        fetcher = new RescueTrendFetcher(repo);
+        now = at(3, 10, 15, 30);
+        rescues = 0;
+    }
+
+    private static Calendar at(int month, int day, int hour, int minute) {
+        Calendar c = Calendar.getInstance(ZONE);
+        c.clear();
+        c.set(2025, month - 1, day, hour, minute);
+        return c;
+    }
+
+    private void rescue(int month, int day, int hour, int minute) {
+        Map<String, Object> e = new HashMap<>();
+        e.put("type", "inhaler");
+        e.put("timestamp", at(month, day, hour, minute).getTimeInMillis());
+        e.put("dateTime", String.format("2025-%02d-%02d %02d:%02d", month, day, hour, minute));
+        repo.put("children/" + CHILD + "/logs/rescue_log/rescue" + (++rescues), e);
+    }
+
+    private RescueWindow load() {
+        final RescueWindow[] out = new RescueWindow[1];
+        fetcher.loadRescueWindow(CHILD, now, new RescueTrendFetcher.RescueWindowCallback() {
+            @Override
+            public void onWindowReady(RescueWindow window) {
+                out[0] = window;
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                throw new AssertionError(errorMessage);
+            }
+        });
+        assertNotNull(out[0]);
+        return out[0];
+    }
+
+    @Test
+    public void load_derivesEveryStatusFromCounters() {
+        rescue(1, 20, 9, 0);     // before the window
+        rescue(2, 9, 8, 0);      // first day of the window
+        rescue(3, 3, 15, 29);    // day before the week
+        rescue(3, 4, 0, 5);
+        rescue(3, 10, 7, 45);
+        rescue(3, 10, 12, 0);
+        load(); // first load backfills the counters
+
+        repo.resetStats();
+        RescueWindow window = load();
+        assertEquals(3, repo.getReads()); // marker, counters, newest entry
+        assertTrue(repo.getNodesRead() <= RescueWindow.DAYS + 10);
+
+        assertEquals("2025-03-10 12:00", window.getLastRescueTime());
+        assertEquals(3, window.getWeeklyCount());
+
+        Map<String, Integer> week = window.dailyCounts(7);
+        assertEquals(7, week.size());
+        assertEquals(Integer.valueOf(2), week.get("03-10"));
+        assertNull(week.get("03-03"));
+
+        Map<String, Integer> month = window.dailyCounts(30);
+        assertEquals(30, month.size());
+        assertEquals(Integer.valueOf(1), month.get("02-09"));
+        assertEquals(Integer.valueOf(1), month.get("03-03"));
+        assertEquals(Integer.valueOf(0), month.get("02-10"));
+    }
+
+    @Test
+    public void dailyCounts_emptyWhenRangeHasNoRescues() {
+        rescue(2, 15, 10, 0);
+        RescueWindow window = load();
+        assertTrue(window.dailyCounts(7).isEmpty());
+        assertEquals(30, window.dailyCounts(30).size());
+        assertEquals(0, window.getWeeklyCount());
+    }
+
+    @Test
+    public void load_lastRescueLooksBeyondWindow() {
+        rescue(1, 5, 18, 20);
+        RescueWindow window = load();
+        assertTrue(window.dailyCounts(30).isEmpty());
+        assertEquals("2025-01-05 18:20", window.getLastRescueTime());
+    }
+
+    @Test
+    public void load_withoutRescues() {
+        RescueWindow window = load();
+        assertNull(window.getLastRescueTime());
+        assertEquals(0, window.getWeeklyCount());
+    }
+}
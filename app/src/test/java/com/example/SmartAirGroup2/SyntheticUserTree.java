@@ -0,0 +1,243 @@
+package com.example.SmartAirGroup2;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Seeds an InMemoryUserTreeRepository with synthetic families shaped like the
+ * production tree: parents linked to children, and for every child a
+ * controller schedule, PEF / controller / rescue logs, symptoms, triages,
+ * inventory and status, spread over the requested number of days.
+ *
+ * Deterministic for a given seed. Roughly 4-5 log entries per child per day,
+ * so 500 children x 3 years is about 2.5M entries (run with a large heap).
+ */
+final class SyntheticUserTree {
+
+    static final int CHILDREN_PER_PARENT = 3;
+    static final String[] CONTROLLERS = {"Flovent", "Pulmicort", "Qvar"};
+    static final String[] DAYS = {"MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN"};
+    private static final String[] SYMPTOMS = {"Cough", "Wheeze", "Chest tightness", "Night waking"};
+    private static final String[] TRIGGERS = {"Exercise", "Cold air", "Dust", "Smoke", "Pets"};
+
+    private final Random random;
+    private final SimpleDateFormat logFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
+    private final SimpleDateFormat symptomFormat = new SimpleDateFormat("yyyy/MM/dd HH:mm", Locale.getDefault());
+    private final SimpleDateFormat triageFormat = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss", Locale.getDefault());
+    private final SimpleDateFormat inventoryFormat = new SimpleDateFormat("yyyy/MM/dd", Locale.getDefault());
+
+    SyntheticUserTree(long seed) {
+        this.random = new Random(seed);
+    }
+
+    static String childUname(int i) {
+        return String.format(Locale.US, "child%04d", i);
+    }
+
+    static String parentUname(int i) {
+        return String.format(Locale.US, "parent%04d", i);
+    }
+
+    /**
+     * @param children  number of children (parents are added, three children each)
+     * @param days      days of history ending at {@code endMillis}
+     * @param endMillis time of the newest possible entry
+     */
+    void seed(InMemoryUserTreeRepository repo, int children, int days, long endMillis) {
+        for (int i = 0; i < children; i++) {
+            String uname = childUname(i);
+            String parent = parentUname(i / CHILDREN_PER_PARENT);
+            repo.put("children/" + uname, child(uname, parent, days, endMillis));
+            repo.put("parents/" + parent + "/children/" + uname, uname);
+        }
+        for (int p = 0; p * CHILDREN_PER_PARENT < children; p++) {
+            String parent = parentUname(p);
+            repo.put("parents/" + parent + "/uname", parent);
+            repo.put("parents/" + parent + "/email", parent + "@example.com");
+            repo.put("parents/" + parent + "/password", "!Parent" + p);
+            repo.put("parents/" + parent + "/type", "parent");
+        }
+    }
+
+    private Map<String, Object> child(String uname, String parent, int days, long endMillis) {
+        Map<String, Object> node = new HashMap<>();
+        node.put("uname", uname);
+        node.put("name", "Kid " + uname.substring(5));
+        node.put("email", uname + "@example.com");
+        node.put("password", "!Child" + uname.substring(5));
+        node.put("type", "child");
+        node.put("parent", parent);
+
+        String controller = CONTROLLERS[random.nextInt(CONTROLLERS.length)];
+        Map<String, Object> daysOfWeek = new HashMap<>();
+        int skipped = random.nextInt(7);
+        for (int d = 0; d < 7; d++) {
+            daysOfWeek.put(DAYS[d], d != skipped || random.nextBoolean());
+        }
+        Map<String, Object> schedule = new HashMap<>();
+        schedule.put("medication", controller);
+        schedule.put("timesPerDay", 2L);
+        schedule.put("daysOfWeek", daysOfWeek);
+        node.put("controller_schedule", schedule);
+
+        long pb = 300 + random.nextInt(150);
+        Map<String, Object> pefLog = new HashMap<>();
+        Map<String, Object> controllerLog = new HashMap<>();
+        Map<String, Object> rescueLog = new HashMap<>();
+        Map<String, Object> symptoms = new HashMap<>();
+        Map<String, Object> triages = new HashMap<>();
+
+        Calendar day = Calendar.getInstance();
+        day.setTimeInMillis(endMillis);
+        day.set(Calendar.HOUR_OF_DAY, 0);
+        day.set(Calendar.MINUTE, 0);
+        day.set(Calendar.SECOND, 0);
+        day.set(Calendar.MILLISECOND, 0);
+        day.add(Calendar.DAY_OF_MONTH, -(days - 1));
+
+        for (int d = 0; d < days; d++) {
+            long midnight = day.getTimeInMillis();
+            boolean scheduled = Boolean.TRUE.equals(daysOfWeek.get(DAYS[(day.get(Calendar.DAY_OF_WEEK) + 5) % 7]));
+
+            // Morning and evening peak flow
+            for (int hour : new int[]{8, 20}) {
+                long ts = at(midnight, hour);
+                if (ts > endMillis) continue;
+                Map<String, Object> e = entry("pef", ts);
+                e.put("value", pb * (60 + random.nextInt(41)) / 100);
+                e.put("preMedVal", "");
+                e.put("postMedVal", "");
+                pefLog.put("PEF" + (pefLog.size() + 1), e);
+            }
+
+            // Controller doses on scheduled days, most of them taken
+            if (scheduled) {
+                for (int hour : new int[]{9, 21}) {
+                    long ts = at(midnight, hour);
+                    if (ts > endMillis || random.nextInt(10) >= 8) continue;
+                    controllerLog.put("controller" + (controllerLog.size() + 1), dose("medication", controller, ts));
+                }
+            }
+
+            // Rescue puffs on some days
+            int rescues = random.nextInt(100) < 35 ? (random.nextInt(100) < 25 ? 2 : 1) : 0;
+            for (int r = 0; r < rescues; r++) {
+                long ts = at(midnight, 10 + random.nextInt(12));
+                if (ts > endMillis) continue;
+                rescueLog.put("rescue" + (rescueLog.size() + 1), dose("inhaler", "Inhaler", ts));
+            }
+
+            if (random.nextInt(100) < 30) {
+                long ts = at(midnight, 7 + random.nextInt(15));
+                if (ts <= endMillis) {
+                    Map<String, Object> s = new HashMap<>();
+                    s.put("symptom", SYMPTOMS[random.nextInt(SYMPTOMS.length)]);
+                    s.put("time", symptomFormat.format(new Date(ts)));
+                    s.put("triggers", TRIGGERS[random.nextInt(TRIGGERS.length)]);
+                    s.put("type", "Parent");
+                    symptoms.put("-sym" + String.format(Locale.US, "%07d", symptoms.size()), s);
+                }
+            }
+
+            if (random.nextInt(100) < 2) {
+                long ts = at(midnight, 12 + random.nextInt(8));
+                if (ts <= endMillis) {
+                    triages.put("incident" + (triages.size() + 1), triage(ts, pb));
+                }
+            }
+
+            day.add(Calendar.DAY_OF_MONTH, 1);
+        }
+
+        Map<String, Object> logs = new HashMap<>();
+        logs.put("PEF_log", pefLog);
+        logs.put("controller_log", controllerLog);
+        logs.put("rescue_log", rescueLog);
+        node.put("logs", logs);
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("pb", pb);
+        data.put("symptoms", symptoms);
+        data.put("triages", triages);
+        node.put("data", data);
+
+        Map<String, Object> permissions = new HashMap<>();
+        permissions.put("triage", random.nextBoolean());
+        permissions.put("symptoms", true);
+        node.put("shareToProviderPermissions", permissions);
+
+        inventoryAndStatus(node, controller, endMillis);
+        return node;
+    }
+
+    private void inventoryAndStatus(Map<String, Object> node, String controller, long endMillis) {
+        Map<String, Object> inventory = new HashMap<>();
+        Map<String, Object> statusInventory = new HashMap<>();
+        for (String med : new String[]{controller, "Ventolin"}) {
+            long updated = endMillis - random.nextInt(30) * 86_400_000L;
+            Map<String, Object> item = new HashMap<>();
+            item.put("purchaseDate", inventoryFormat.format(new Date(updated - 60 * 86_400_000L)));
+            item.put("expireDate", inventoryFormat.format(new Date(updated + 300 * 86_400_000L)));
+            item.put("prescriptionAmount", 200L);
+            item.put("currentAmount", (long) random.nextInt(200));
+            item.put("lastUpdated", updated);
+            inventory.put(med, item);
+
+            Map<String, Object> codes = new HashMap<>();
+            codes.put(String.valueOf(updated), (long) random.nextInt(3));
+            statusInventory.put(med, codes);
+        }
+        node.put("inventory", inventory);
+
+        Map<String, Object> status = new HashMap<>();
+        status.put("pefZone", (long) random.nextInt(3));
+        status.put("inventory", statusInventory);
+        node.put("status", status);
+    }
+
+    private Map<String, Object> entry(String type, long ts) {
+        Map<String, Object> e = new HashMap<>();
+        e.put("type", type);
+        e.put("timestamp", ts);
+        e.put("dateTime", logFormat.format(new Date(ts)));
+        e.put("note", "");
+        return e;
+    }
+
+    private Map<String, Object> dose(String type, String medication, long ts) {
+        Map<String, Object> e = entry(type, ts);
+        double puffs = 1 + random.nextInt(2);
+        e.put("medication", medication);
+        e.put("dosage", puffs);
+        e.put("dose", puffs + " puffs");
+        e.put("units", "puffs");
+        e.put("preDose", "");
+        e.put("postDose", "");
+        return e;
+    }
+
+    private Map<String, Object> triage(long ts, long pb) {
+        Map<String, Object> t = new HashMap<>();
+        t.put("PEF", String.valueOf(pb * (40 + random.nextInt(40)) / 100));
+        t.put("guidance", "Use rescue inhaler and recheck in 20 minutes");
+        t.put("response", "Improved");
+        t.put("time", triageFormat.format(new Date(ts)));
+        Map<String, Object> flags = new HashMap<>();
+        flags.put("Chest Pulling or Retraction", random.nextInt(10) == 0);
+        flags.put("Grey or Blue lips", false);
+        flags.put("Grey or Blue nails", false);
+        flags.put("trouble breathing", random.nextInt(4) == 0);
+        flags.put("trouble speaking", false);
+        t.put("redflags", flags);
+        return t;
+    }
+
+    private long at(long midnight, int hour) {
+        return midnight + hour * 3_600_000L + random.nextInt(60) * 60_000L;
+    }
+}
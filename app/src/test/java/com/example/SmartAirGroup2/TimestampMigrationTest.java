@@ -0,0 +1,199 @@
+package com.example.SmartAirGroup2;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for RecordTime (the stored date formats) and TimestampMigration
+ * (batched backfill, resume after a failed batch, one marker read once done).
+ */
+public class TimestampMigrationTest {
+
+    private static final TimeZone ZONE = TimeZone.getTimeZone("America/Toronto");
+    private static final String CHILD = "andy";
+    private static final String ROOT = "children/" + CHILD + "/";
+
+    private InMemoryUserTreeRepository repo;
+
+    @Before
+    public void setUp() {
+        repo = new InMemoryUserTreeRepository();
+    }
+
+    private static long at(int y, int m, int d, int hour, int minute, int second) {
+        Calendar c = Calendar.getInstance(ZONE);
+        c.clear();
+        c.set(y, m - 1, d, hour, minute, second);
+        return c.getTimeInMillis();
+    }
+
+    private void record(String path, String field, String value, Long ts) {
+        Map<String, Object> e = new HashMap<>();
+        e.put(field, value);
+        if (ts != null) e.put(RecordTime.FIELD, ts);
+        repo.put(ROOT + path, e);
+    }
+
+    private TimestampMigration.Result run(UserTreeRepository target, int batchSize) {
+        final TimestampMigration.Result[] out = new TimestampMigration.Result[1];
+        final String[] error = new String[1];
+        TimestampMigration.run(target, CHILD, ZONE, batchSize, new TimestampMigration.MigrationCallback() {
+            @Override
+            public void onDone(TimestampMigration.Result result) {
+                out[0] = result;
+            }
+
+            @Override
+            public void onError(String message) {
+                error[0] = message;
+            }
+        });
+        if (error[0] != null) return null;
+        assertNotNull(out[0]);
+        return out[0];
+    }
+
+    @Test
+    public void parse_readsEveryStoredFormat() {
+        assertEquals(at(2025, 3, 9, 8, 15, 0), RecordTime.parse("2025-03-09 08:15", ZONE));
+        assertEquals(at(2025, 3, 9, 8, 15, 0), RecordTime.parse("2025/03/09 08:15", ZONE));
+        assertEquals(at(2025, 11, 17, 14, 5, 42), RecordTime.parse("2025/11/17 14:05:42", ZONE));
+        assertEquals(at(2025, 11, 17, 0, 0, 0), RecordTime.parse("2025/11/17", ZONE));
+        assertEquals(at(2024, 2, 29, 0, 0, 0), RecordTime.parse(" 2024-02-29 ", ZONE));
+
+        assertEquals(0, RecordTime.parse(null, ZONE));
+        assertEquals(0, RecordTime.parse("2025-02-30", ZONE));
+        assertEquals(0, RecordTime.parse("2025/03-09", ZONE));
+        assertEquals(0, RecordTime.parse("09/03/2025", ZONE));
+        assertEquals(0, RecordTime.parse("2025-03-09 8:15", ZONE));
+        assertEquals(0, RecordTime.parse("2025-03-09 24:00", ZONE));
+    }
+
+    @Test
+    public void run_backfillsInBatchesThenOnlyReadsTheMarker() {
+        for (int i = 1; i <= 7; i++) {
+            record("logs/rescue_log/rescue" + i, "dateTime", String.format("2025-03-%02d 10:00", i), null);
+        }
+        long kept = at(2025, 3, 1, 9, 0, 0);
+        record("logs/PEF_log/PEF1", "dateTime", "2025-03-01 08:00", kept);
+        record("data/symptoms/-sym1", "time", "2025/03/02 14:05", null);
+        record("data/triages/incident1", "time", "2025/03/02 14:07:09", null);
+        record("data/triages/incident2", "time", "yesterday", null);
+
+        TimestampMigration.Result result = run(repo, 3);
+        assertEquals(9, result.migrated);
+        assertEquals(1, result.unparseable);
+        // rescue_log: 3 + 3 + 1, then one batch for each other collection
+        assertEquals(6, result.batches);
+
+        assertEquals(at(2025, 3, 7, 10, 0, 0), repo.get(ROOT + "logs/rescue_log/rescue7/timestamp"));
+        assertEquals(kept, repo.get(ROOT + "logs/PEF_log/PEF1/timestamp"));
+        assertEquals(at(2025, 3, 2, 14, 7, 9), repo.get(ROOT + "data/triages/incident1/timestamp"));
+        assertNull(repo.get(ROOT + "data/triages/incident2/timestamp"));
+        assertNotNull(repo.get(ROOT + TimestampMigration.STATE + "/" + TimestampMigration.DONE));
+
+        repo.resetStats();
+        assertEquals(0, run(repo, 3).batches);
+        assertEquals(1, repo.getReads());
+    }
+
+    @Test
+    public void run_resumesAfterTheLastBatchThatLanded() {
+        for (int i = 1; i <= 10; i++) {
+            record(String.format("data/symptoms/-sym%02d", i), "time", String.format("2025/03/%02d 09:30", i), null);
+        }
+        FailingUpdates flaky = new FailingUpdates(repo, 1);
+        assertNull(run(flaky, 4));
+        assertEquals("-sym04", repo.get(ROOT + TimestampMigration.STATE + "/data/symptoms"));
+        assertNotNull(repo.get(ROOT + "data/symptoms/-sym04/timestamp"));
+        assertNull(repo.get(ROOT + "data/symptoms/-sym05/timestamp"));
+
+        TimestampMigration.Result rest = run(repo, 4);
+        assertEquals(6, rest.migrated);
+        for (int i = 1; i <= 10; i++) {
+            assertEquals(at(2025, 3, i, 9, 30, 0), repo.get(String.format(ROOT + "data/symptoms/-sym%02d/timestamp", i)));
+        }
+    }
+
+    @Test
+    public void report_answersBeforeAndAfterTheMigrationWithoutWriting() {
+        record("data/symptoms/-sym1", "time", "2025/03/01 09:00", null);
+        record("data/symptoms/-sym2", "time", "2025/03/05 09:00", null);
+        record("data/symptoms/-sym3", "time", "2025/03/05 21:00", null);
+        repo.put(ROOT + "data/pb", 400L);
+
+        // a provider opening the report before the child's session migrated
+        assertEquals(1, symptomDays());
+        assertNull(repo.get(ROOT + "data/symptoms/-sym1/timestamp"));
+        assertNull(repo.get(ROOT + TimestampMigration.STATE));
+
+        run(repo, TimestampMigration.BATCH_SIZE);
+        repo.resetStats();
+        assertEquals(1, symptomDays());
+        assertTrue(repo.get(ROOT + "data/symptoms/-sym1/timestamp") instanceof Long);
+        assertEquals(2, repo.getReads()); // marker, then the timestamp range query
+    }
+
+    private int symptomDays() {
+        ProviderReportHelper report = new ProviderReportHelper(CHILD, "Andy", repo);
+        final int[] days = new int[1];
+        TimeZone saved = TimeZone.getDefault();
+        TimeZone.setDefault(ZONE);
+        try {
+            report.countUniqueSymptomDays("2025/03/02", n -> days[0] = n);
+        } finally {
+            TimeZone.setDefault(saved);
+        }
+        return days[0];
+    }
+
+    /** Lets the first n updates through, then fails every update. */
+    private static class FailingUpdates implements UserTreeRepository {
+        private final InMemoryUserTreeRepository inner;
+        private int allowed;
+
+        FailingUpdates(InMemoryUserTreeRepository inner, int allowed) {
+            this.inner = inner;
+            this.allowed = allowed;
+        }
+
+        @Override
+        public void read(String path, NodeCallback callback) {
+            inner.read(path, callback);
+        }
+
+        @Override
+        public void query(String path, TreeQuery query, NodeCallback callback) {
+            inner.query(path, query, callback);
+        }
+
+        @Override
+        public void write(String path, Object value, WriteCallback callback) {
+            inner.write(path, value, callback);
+        }
+
+        @Override
+        public void update(String path, Map<String, Object> values, WriteCallback callback) {
+            if (allowed-- > 0) {
+                inner.update(path, values, callback);
+            } else {
+                callback.onError("Network error");
+            }
+        }
+
+        @Override
+        public void compareAndSet(String path, Object expected, Object value, SetCallback callback) {
+            inner.compareAndSet(path, expected, value, callback);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.SmartAirGroup2;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for TrendBuckets (bucket size, clipping, streaming aggregation)
+ * and TrendLoader over the rescueDaily and pefDaily nodes.
+ */
+public class TrendBucketsTest {
+
+    private static final String CHILD = "andy";
+
+    private InMemoryUserTreeRepository repo;
+
+    @Before
+    public void setUp() {
+        repo = new InMemoryUserTreeRepository();
+    }
+
+    private static int day(int y, int m, int d) {
+        return AdherenceCalculator.epochDay(y, m, d);
+    }
+
+    @Test
+    public void epochDayHelpers_roundTrip() {
+        assertEquals(0, day(1970, 1, 1));
+        assertEquals(20148, day(2025, 3, 1));
+        for (int d = -800; d < 30000; d += 13) {
+            String key = AdherenceCalculator.dateKey(d);
+            assertEquals(key, d, AdherenceCalculator.epochDayOfKey(key));
+        }
+        assertEquals(day(2024, 2, 29), AdherenceCalculator.epochDayOfKey("2024-02-29 10:15"));
+        assertEquals(Integer.MIN_VALUE, AdherenceCalculator.epochDayOfKey("backfilledAt"));
+        assertEquals(Integer.MIN_VALUE, AdherenceCalculator.epochDayOfKey("2024/02/29"));
+        assertEquals(Integer.MIN_VALUE, AdherenceCalculator.epochDayOfKey("2024-13-01"));
+    }
+
+    @Test
+    public void granularity_keepsPointsBounded() {
+        int last = day(2025, 3, 31);
+        int[] ranges = {1, 7, 30, 90, 200, 201, 365, 1000, 1400, 3650, 365 * 16};
+        TrendBuckets.Granularity[] expected = {
+                TrendBuckets.Granularity.DAY, TrendBuckets.Granularity.DAY, TrendBuckets.Granularity.DAY,
+                TrendBuckets.Granularity.DAY, TrendBuckets.Granularity.DAY, TrendBuckets.Granularity.WEEK,
+                TrendBuckets.Granularity.WEEK, TrendBuckets.Granularity.WEEK, TrendBuckets.Granularity.MONTH,
+                TrendBuckets.Granularity.MONTH, TrendBuckets.Granularity.MONTH};
+        for (int i = 0; i < ranges.length; i++) {
+            TrendBuckets b = new TrendBuckets(last - ranges[i] + 1, last);
+            assertEquals(ranges[i] + " days", expected[i], b.getGranularity());
+            assertTrue(ranges[i] + " days: " + b.size() + " points", b.size() <= TrendBuckets.MAX_POINTS);
+            assertEquals(b.size(), b.buckets().size());
+        }
+        assertEquals(90, new TrendBuckets(last - 89, last).size());
+    }
+
+    @Test
+    public void weekBuckets_areMondayAlignedAndClipped() {
+        // Wednesday 2025-01-01 .. Friday 2025-12-26
+        TrendBuckets b = new TrendBuckets(day(2025, 1, 1), day(2025, 12, 26));
+        assertEquals(TrendBuckets.Granularity.WEEK, b.getGranularity());
+        List<TrendBuckets.Bucket> weeks = b.buckets();
+        assertEquals(day(2025, 1, 1), weeks.get(0).firstDay);
+        assertEquals(day(2025, 1, 5), weeks.get(0).lastDay);
+        assertEquals("2025-01-06", weeks.get(1).label);
+        assertEquals(day(2025, 12, 26), weeks.get(weeks.size() - 1).lastDay);
+    }
+
+    @Test
+    public void monthBuckets_aggregateStreamedDays() {
+        TrendBuckets b = new TrendBuckets(day(2020, 1, 15), day(2025, 3, 10));
+        assertEquals(TrendBuckets.Granularity.MONTH, b.getGranularity());
+        b.add(day(2024, 2, 1), 2, 700, 340, 360);
+        b.add(day(2024, 2, 29), 1, 300, 300, 300);
+        b.add(day(2024, 3, 1), 1, 410, 410, 410);
+        b.add(day(2019, 12, 31), 5, 5, 1, 1);    // before the range
+        b.add(day(2024, 2, 10), 0, 0, 0, 0);     // no data
+
+        List<TrendBuckets.Bucket> months = b.buckets();
+        assertEquals(63, months.size());
+        assertEquals("2020-01", months.get(0).label);
+        assertEquals(day(2020, 1, 15), months.get(0).firstDay);
+        assertTrue(months.get(0).isEmpty());
+        assertTrue(Double.isNaN(months.get(0).average()));
+
+        TrendBuckets.Bucket feb = months.get(49);
+        assertEquals("2024-02", feb.label);
+        assertEquals(day(2024, 2, 29), feb.lastDay);
+        assertEquals(2, feb.days);
+        assertEquals(3, feb.count);
+        assertEquals(1000.0 / 3, feb.average(), 1e-9);
+        assertEquals(300, feb.min, 0);
+        assertEquals(360, feb.max, 0);
+        assertEquals(410, months.get(50).average(), 0);
+    }
+
+    // ─────────────────────────────────────────────────────────────────
+    // TrendLoader
+    // ─────────────────────────────────────────────────────────────────
+
+    private static long millis(int y, int m, int d, int hour) {
+        Calendar c = Calendar.getInstance();
+        c.clear();
+        c.set(y, m - 1, d, hour, 0);
+        return c.getTimeInMillis();
+    }
+
+    private void entry(String group, String key, long ts, Object value) {
+        Map<String, Object> e = new HashMap<>();
+        e.put("timestamp", ts);
+        if (value != null) e.put("value", value);
+        repo.put("children/" + CHILD + "/logs/" + group + "/" + key, e);
+    }
+
+    private TrendBuckets load(boolean pef, long start, long end) {
+        final TrendBuckets[] out = new TrendBuckets[1];
+        TrendLoader.TrendCallback callback = new TrendLoader.TrendCallback() {
+            @Override
+            public void onResult(TrendBuckets trend) {
+                out[0] = trend;
+            }
+
+            @Override
+            public void onError(String message) {
+                throw new AssertionError(message);
+            }
+        };
+        if (pef) {
+            new TrendLoader(repo).loadPefTrend(CHILD, start, end, callback);
+        } else {
+            new TrendLoader(repo).loadRescueTrend(CHILD, start, end, callback);
+        }
+        assertNotNull(out[0]);
+        return out[0];
+    }
+
+    private void backfill(boolean pef) {
+        final boolean[] done = {false};
+        UserTreeRepository.WriteCallback callback = new UserTreeRepository.WriteCallback() {
+            @Override
+            public void onSuccess() {
+                done[0] = true;
+            }
+
+            @Override
+            public void onError(String message) {
+                throw new AssertionError(message);
+            }
+        };
+        if (pef) {
+            PefDailyStore.backfill(repo, CHILD, TimeZone.getDefault(), callback);
+        } else {
+            RescueDailyStore.backfill(repo, CHILD, TimeZone.getDefault(), callback);
+        }
+        assertTrue(done[0]);
+    }
+
+    @Test
+    public void loadRescueTrend_allTimeStartsAtFirstRecordedDay() {
+        entry("rescue_log", "rescue1", millis(2023, 5, 2, 9), null);
+        entry("rescue_log", "rescue2", millis(2023, 5, 2, 18), null);
+        entry("rescue_log", "rescue3", millis(2025, 3, 10, 8), null);
+        long end = millis(2025, 3, 10, 12);
+
+        TrendBuckets trend = load(false, TrendLoader.ALL_TIME, end);
+        assertEquals(day(2023, 5, 2), trend.getFirstDay());
+        assertEquals(TrendBuckets.Granularity.WEEK, trend.getGranularity());
+        List<TrendBuckets.Bucket> weeks = trend.buckets();
+        assertEquals(2, weeks.get(0).count);
+        assertEquals(1, weeks.get(weeks.size() - 1).count);
+        assertNull(repo.get("children/" + CHILD + "/rescueDaily")); // read paths never write
+
+        // Once built, a load reads the counters only: marker + one range query
+        backfill(false);
+        repo.resetStats();
+        TrendBuckets again = load(false, TrendLoader.ALL_TIME, end);
+        assertEquals(2, repo.getReads());
+        assertEquals(trend.getFirstDay(), again.getFirstDay());
+        assertEquals(2, again.buckets().get(0).count);
+    }
+
+    @Test
+    public void loadPefTrend_averagesPerDayFromLogOrCounters() {
+        entry("PEF_log", "PEF1", millis(2025, 3, 1, 8), 300L);
+        entry("PEF_log", "PEF2", millis(2025, 3, 1, 20), "340");
+        entry("PEF_log", "PEF3", millis(2025, 3, 3, 8), 280.0);
+        entry("PEF_log", "PEF4", millis(2025, 1, 1, 8), 500L);    // before the range
+        entry("PEF_log", "PEF5", millis(2025, 3, 3, 9), "n/a");
+
+        TrendBuckets trend = load(true, millis(2025, 2, 20, 0), millis(2025, 3, 5, 23));
+        assertEquals(TrendBuckets.Granularity.DAY, trend.getGranularity());
+        assertEquals(14, trend.size());
+        List<TrendBuckets.Bucket> days = trend.buckets();
+        TrendBuckets.Bucket mar1 = days.get(9);
+        assertEquals("2025-03-01", mar1.label);
+        assertEquals(320, mar1.average(), 1e-9);
+        assertEquals(300, mar1.min, 0);
+        assertEquals(340, mar1.max, 0);
+        assertFalse(days.get(11).isEmpty());
+        assertTrue(days.get(10).isEmpty());
+        assertNull(repo.get("children/" + CHILD + "/pefDaily")); // read paths never write
+
+        backfill(true);
+        TrendBuckets.Bucket fromCounters = load(true, millis(2025, 2, 20, 0), millis(2025, 3, 5, 23)).buckets().get(9);
+        assertEquals(320, fromCounters.average(), 1e-9);
+        assertEquals(300, fromCounters.min, 0);
+    }
+}